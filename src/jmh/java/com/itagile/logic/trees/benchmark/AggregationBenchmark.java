@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.AggregateNode;
+import com.itagile.logic.trees.Aggregation;
+import com.itagile.logic.trees.FrozenTree;
+import com.itagile.logic.trees.ParallelTreeAggregator;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Measures the scaling of the parallel sum of a million node tree with the pool parallelism.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+    /**
+     * Sums the data of the nodes.
+     */
+    private static final Aggregation<Integer, Long> SUM = new Aggregation<Integer, Long>() {
+        @Override
+        public Long map(final TreeNode<Integer> node) {
+            return node.getData().longValue();
+        }
+
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return left + right;
+        }
+    };
+
+    /**
+     * Parallelism of the pool.
+     */
+    @Param({"1", "4", "8", "16", "32"})
+    private int parallelism;
+
+    /**
+     * The pool.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * Complete tree of 10 children per node and 6 levels (1,111,111 nodes).
+     */
+    private TreeNode<Integer> balanced;
+
+    /**
+     * Frozen copy of {@link #balanced}.
+     */
+    private FrozenTree<Integer> frozen;
+
+    /**
+     * Aggregator of the sum.
+     */
+    private ParallelTreeAggregator<Integer, Long> aggregator;
+
+    /**
+     * Builds the trees and the pool once per trial.
+     */
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        balanced = TreeFixtures.balanced(10, 6);
+        frozen = FrozenTree.freeze(balanced);
+        aggregator = new ParallelTreeAggregator<>(SUM, pool);
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Sum of the DefaultMutableTreeNode tree, split by the adaptive cutoff.
+     * @return the aggregate root
+     */
+    @Benchmark
+    public AggregateNode<Integer, Long> sumDefault() {
+        return aggregator.aggregate(balanced);
+    }
+
+    /**
+     * Sum of the frozen tree, split by known subtree size.
+     * @return the aggregate root
+     */
+    @Benchmark
+    public AggregateNode<Integer, Long> sumFrozen() {
+        return aggregator.aggregate(frozen.getRoot());
+    }
+}
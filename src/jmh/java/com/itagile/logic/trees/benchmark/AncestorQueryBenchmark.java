@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeIndex;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+
+/**
+ * Compares ancestry queries on a TreeIndex against walks of the parent chains, on random pairs of
+ * nodes of a complete binary tree of 16 levels (131,071 nodes).
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AncestorQueryBenchmark {
+    /**
+     * Number of precomputed query pairs, a power of two.
+     */
+    private static final int PAIRS = 1024;
+
+    /**
+     * The index of the tree.
+     */
+    private TreeIndex<Integer> index;
+
+    /**
+     * First nodes of the query pairs.
+     */
+    private final List<MutableTreeNode<Integer>> firsts = new ArrayList<>();
+
+    /**
+     * Second nodes of the query pairs.
+     */
+    private final List<MutableTreeNode<Integer>> seconds = new ArrayList<>();
+
+    /**
+     * Next query pair.
+     */
+    private int next;
+
+    /**
+     * Builds the tree, its index and the query pairs once per trial.
+     */
+    @Setup
+    public void setUp() {
+        final MutableTreeNode<Integer> root = TreeFixtures.balanced(2, 16);
+        final List<MutableTreeNode<Integer>> nodes = new ArrayList<>();
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(root)) {
+            nodes.add((MutableTreeNode<Integer>) node);
+        }
+        final Random random = new Random(0);
+        for (int i = 0; i < PAIRS; i++) {
+            firsts.add(nodes.get(random.nextInt(nodes.size())));
+            seconds.add(nodes.get(random.nextInt(nodes.size())));
+        }
+        index = TreeIndex.build(root);
+    }
+
+    /**
+     * Builds the index.
+     * @return the index
+     */
+    @Benchmark
+    public TreeIndex<Integer> build() {
+        return TreeIndex.build(index.getRoot());
+    }
+
+    /**
+     * Checks ancestry with the index.
+     * @return the result
+     */
+    @Benchmark
+    public boolean indexIsAncestor() {
+        final int i = next++ & (PAIRS - 1);
+        return index.isAncestor(firsts.get(i), seconds.get(i));
+    }
+
+    /**
+     * Checks ancestry walking the parent chain.
+     * @return the result
+     */
+    @Benchmark
+    public boolean walkIsAncestor() {
+        final int i = next++ & (PAIRS - 1);
+        final TreeNode<Integer> ancestor = firsts.get(i);
+        for (TreeNode<Integer> node = seconds.get(i).getParent(); node != null;
+                node = ((MutableTreeNode<Integer>) node).getParent()) {
+            if (node == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the lowest common ancestor with the index.
+     * @return the lowest common ancestor
+     */
+    @Benchmark
+    public TreeNode<Integer> indexLowestCommonAncestor() {
+        final int i = next++ & (PAIRS - 1);
+        return index.lowestCommonAncestor(firsts.get(i), seconds.get(i));
+    }
+
+    /**
+     * Finds the lowest common ancestor walking both parent chains.
+     * @return the lowest common ancestor
+     */
+    @Benchmark
+    public TreeNode<Integer> walkLowestCommonAncestor() {
+        final int i = next++ & (PAIRS - 1);
+        final Set<TreeNode<Integer>> ancestors = new HashSet<>();
+        for (TreeNode<Integer> node = firsts.get(i); node != null;
+                node = ((MutableTreeNode<Integer>) node).getParent()) {
+            ancestors.add(node);
+        }
+        for (TreeNode<Integer> node = seconds.get(i); node != null;
+                node = ((MutableTreeNode<Integer>) node).getParent()) {
+            if (ancestors.contains(node)) {
+                return node;
+            }
+        }
+        return null;
+    }
+}
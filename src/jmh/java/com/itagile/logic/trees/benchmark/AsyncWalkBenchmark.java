@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.AggregateNode;
+import com.itagile.logic.trees.AsyncTreeWalker;
+import com.itagile.logic.trees.AsyncTreeWalker.Order;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+
+/**
+ * Measures a lookup with 1 ms of simulated latency for every node of a balanced tree of 1,111
+ * nodes, one after another against an AsyncTreeWalker keeping up to 64 lookups in flight, with
+ * blocking lookups on the default executor and asynchronous ones completed by a scheduler.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncWalkBenchmark {
+    /**
+     * Maximum number of lookups in flight.
+     */
+    private static final int CONCURRENCY = 64;
+
+    /**
+     * Order constraint of the walks.
+     */
+    @Param({"ANY", "PARENT_FIRST", "CHILDREN_FIRST"})
+    private Order order;
+
+    /**
+     * The tree.
+     */
+    private TreeNode<Integer> root;
+
+    /**
+     * Completes the asynchronous lookups.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Builds the tree and the scheduler.
+     */
+    @Setup
+    public void setUp() {
+        root = TreeFixtures.balanced(10, 3);
+        scheduler = Executors.newScheduledThreadPool(2);
+    }
+
+    /**
+     * Stops the scheduler.
+     */
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Blocking lookup.
+     * @param node the node
+     * @return the looked up value
+     */
+    private static Integer lookup(final TreeNode<Integer> node) {
+        try {
+            Thread.sleep(1);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return node.getData();
+    }
+
+    /**
+     * Looks up every node one after another.
+     * @return the sum of the looked up values
+     */
+    @Benchmark
+    public long sequential() {
+        long sum = 0;
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(root)) {
+            sum += lookup(node);
+        }
+        return sum;
+    }
+
+    /**
+     * Looks up every node with blocking lookups on the default executor.
+     * @return the parallel tree of looked up values
+     */
+    @Benchmark
+    public AggregateNode<Integer, Integer> blocking() {
+        return AsyncTreeWalker.<Integer, Integer>blocking(AsyncWalkBenchmark::lookup, CONCURRENCY,
+            order).walk(root).join();
+    }
+
+    /**
+     * Looks up every node with asynchronous lookups completed by a scheduler.
+     * @return the parallel tree of looked up values
+     */
+    @Benchmark
+    public AggregateNode<Integer, Integer> async() {
+        return new AsyncTreeWalker<Integer, Integer>(node -> {
+            final CompletableFuture<Integer> future = new CompletableFuture<>();
+            scheduler.schedule(() -> future.complete(node.getData()), 1, TimeUnit.MILLISECONDS);
+            return future;
+        }, CONCURRENCY, order).walk(root).join();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeBatch;
+
+/**
+ * Measures a reorganization moving every child of a parent with 10,000 children to a sibling, one
+ * setParent at a time against a single addAll and a TreeBatch.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchMoveBenchmark {
+    /**
+     * Number of children initially under the first parent.
+     */
+    private static final int CHILDREN = 10_000;
+
+    /**
+     * The two parents children are moved between.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] parents = new MutableTreeNode[2];
+
+    /**
+     * The moved children.
+     */
+    private final List<MutableTreeNode<Integer>> children = new ArrayList<>(CHILDREN);
+
+    /**
+     * Parent the children are moved to by the next invocation.
+     */
+    private int target;
+
+    /**
+     * Builds both parents under a common root and puts every child under the first one.
+     */
+    @Setup
+    public void setUp() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        parents[0] = new DefaultMutableTreeNode<>(1, root);
+        parents[1] = new DefaultMutableTreeNode<>(2, root);
+        children.clear();
+        for (int i = 0; i < CHILDREN; i++) {
+            children.add(new DefaultMutableTreeNode<>(i, parents[0]));
+        }
+        target = 1;
+    }
+
+    /**
+     * Moves every child to the other parent with setParent.
+     * @return the new parent
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> setParent() {
+        final MutableTreeNode<Integer> parent = parents[target];
+        for (final MutableTreeNode<Integer> child : children) {
+            child.setParent(parent);
+        }
+        target = 1 - target;
+        return parent;
+    }
+
+    /**
+     * Moves every child to the other parent with addAll.
+     * @return the new parent
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> addAll() {
+        final MutableTreeNode<Integer> parent = parents[target];
+        parent.addAll(children);
+        target = 1 - target;
+        return parent;
+    }
+
+    /**
+     * Moves every child to the other parent with a batch.
+     * @return the new parent
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> batch() {
+        final MutableTreeNode<Integer> parent = parents[target];
+        new TreeBatch<Integer>().addAll(parent, children).commit();
+        target = 1 - target;
+        return parent;
+    }
+}
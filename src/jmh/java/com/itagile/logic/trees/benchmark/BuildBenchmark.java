@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.Extractor;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeBuilder;
+import com.itagile.logic.trees.TreeForest;
+
+/**
+ * Measures tree construction with one-at-a-time add and setParent calls.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmark {
+    /**
+     * Number of children of the wide tree.
+     */
+    static final int WIDTH = 100_000;
+
+    /**
+     * Number of nodes of the deep chain.
+     */
+    static final int DEPTH = 1_000_000;
+
+    /**
+     * Number of rows of the adjacency list, each row {id, parentId} with 10 children per parent.
+     */
+    private static final int ROWS = 1_000_000;
+
+    /**
+     * Children per parent in the adjacency list.
+     */
+    private static final int FAN_OUT = 10;
+
+    /**
+     * Builder of rows {id, parentId}, using the id as data.
+     */
+    private final TreeBuilder<int[], Integer, Integer> builder = new TreeBuilder<>(
+            new Extractor<int[], Integer>() {
+                @Override
+                public Integer extract(final int[] row) {
+                    return row[0];
+                }
+            }, new Extractor<int[], Integer>() {
+                @Override
+                public Integer extract(final int[] row) {
+                    return row[1] < 0 ? null : row[1];
+                }
+            }, new Extractor<int[], Integer>() {
+                @Override
+                public Integer extract(final int[] row) {
+                    return row[0];
+                }
+            });
+
+    /**
+     * Adjacency list rows in reverse order, so children come before their parents.
+     */
+    private int[][] rows;
+
+    /**
+     * Builds the adjacency list rows once per trial.
+     */
+    @Setup
+    public void setUp() {
+        rows = new int[ROWS][];
+        for (int id = 0; id < ROWS; id++) {
+            rows[ROWS - 1 - id] = new int[] {id, id == 0 ? -1 : (id - 1) / FAN_OUT};
+        }
+    }
+    /**
+     * Builds a root with {@link #WIDTH} children using add.
+     * @return the root node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> buildWide() {
+        return TreeFixtures.wide(WIDTH);
+    }
+
+    /**
+     * Builds a chain of {@link #DEPTH} nodes using the parent constructor.
+     * @return the root node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> buildDeep() {
+        return TreeFixtures.deep(DEPTH);
+    }
+
+    /**
+     * Builds the adjacency list with TreeBuilder.
+     * @return the built trees
+     */
+    @Benchmark
+    public TreeForest<Integer, Integer> buildRows() {
+        return builder.build(Arrays.asList(rows));
+    }
+
+    /**
+     * Builds the adjacency list with one add call per row, looking parents up in a map. Rows are
+     * processed in parent before children order, which add requires.
+     * @return the root node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> buildRowsWithAdd() {
+        final Map<Integer, MutableTreeNode<Integer>> nodes = new HashMap<>();
+        MutableTreeNode<Integer> root = null;
+        for (int i = ROWS - 1; i >= 0; i--) {
+            final int[] row = rows[i];
+            final MutableTreeNode<Integer> node = new DefaultMutableTreeNode<>(row[0]);
+            nodes.put(row[0], node);
+            if (row[1] < 0) {
+                root = node;
+            } else {
+                nodes.get(row[1]).add(node);
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.IndexedMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Measures reading a page of 50 children at a moving offset of a node with 500,000 children,
+ * skipping children of a DefaultMutableTreeNode against positional access to an
+ * IndexedMutableTreeNode, and the position of a child and a remove and add of a child of the
+ * indexed node.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChildPagingBenchmark {
+    /**
+     * Number of children.
+     */
+    private static final int CHILDREN = 500_000;
+
+    /**
+     * Number of children in a page.
+     */
+    private static final int PAGE = 50;
+
+    /**
+     * Distance between the offsets of consecutive pages.
+     */
+    private static final int STRIDE = 99_991;
+
+    /**
+     * Node keeping its children in a LinkedHashSet.
+     */
+    private MutableTreeNode<Integer> hashed;
+
+    /**
+     * Node keeping its children in an IndexedCollection.
+     */
+    private IndexedMutableTreeNode<Integer> indexed;
+
+    /**
+     * Offset of the next page.
+     */
+    private int offset;
+
+    /**
+     * Builds both nodes.
+     */
+    @Setup
+    public void setUp() {
+        hashed = new DefaultMutableTreeNode<>(0);
+        indexed = new IndexedMutableTreeNode<>(0);
+        for (int i = 0; i < CHILDREN; i++) {
+            new DefaultMutableTreeNode<>(i, hashed);
+            new DefaultMutableTreeNode<>(i, indexed);
+        }
+        offset = 0;
+    }
+
+    /**
+     * Moves to the next page offset.
+     * @return the offset
+     */
+    private int nextOffset() {
+        offset = (offset + STRIDE) % (CHILDREN - PAGE);
+        return offset;
+    }
+
+    /**
+     * Reads a page of the hashed node skipping the previous children.
+     * @return the sum of the data of the page
+     */
+    @Benchmark
+    public long pageHashed() {
+        final int start = nextOffset();
+        final Iterator<TreeNode<Integer>> iterator = hashed.getChildren().iterator();
+        for (int i = 0; i < start; i++) {
+            iterator.next();
+        }
+        long sum = 0;
+        for (int i = 0; i < PAGE; i++) {
+            sum += iterator.next().getData();
+        }
+        return sum;
+    }
+
+    /**
+     * Reads a page of the indexed node by position.
+     * @return the sum of the data of the page
+     */
+    @Benchmark
+    public long pageIndexed() {
+        final int start = nextOffset();
+        long sum = 0;
+        for (int i = start; i < start + PAGE; i++) {
+            sum += indexed.getChild(i).getData();
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the position of a child of the indexed node.
+     * @return the position
+     */
+    @Benchmark
+    public int indexOfIndexed() {
+        return indexed.indexOf(indexed.getChild(nextOffset()));
+    }
+
+    /**
+     * Removes a child of the indexed node and adds it at the end.
+     * @return the moved child
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> moveIndexed() {
+        final MutableTreeNode<Integer> child = indexed.getChild(nextOffset());
+        indexed.remove(child);
+        indexed.add(child);
+        return child;
+    }
+}
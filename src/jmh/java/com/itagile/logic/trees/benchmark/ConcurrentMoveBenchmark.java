@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.ConcurrentTreeNode;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.FrozenTree;
+import com.itagile.logic.trees.MutableTreeNode;
+
+/**
+ * Measures moves of items between buckets by several threads on a shared tree, comparing
+ * ConcurrentTreeNode against DefaultMutableTreeNode guarded by a single lock.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentMoveBenchmark {
+    /**
+     * Number of bucket nodes under the root.
+     */
+    private static final int BUCKETS = 64;
+
+    /**
+     * Number of items per bucket.
+     */
+    private static final int ITEMS_PER_BUCKET = 16;
+
+    /**
+     * Lock of the DefaultMutableTreeNode tree.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Root of the concurrent tree.
+     */
+    private ConcurrentTreeNode<Integer> concurrentRoot;
+
+    /**
+     * Buckets of the concurrent tree.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] concurrentBuckets = new MutableTreeNode[BUCKETS];
+
+    /**
+     * Items of the concurrent tree.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] concurrentItems =
+            new MutableTreeNode[BUCKETS * ITEMS_PER_BUCKET];
+
+    /**
+     * Buckets of the locked tree.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] lockedBuckets = new MutableTreeNode[BUCKETS];
+
+    /**
+     * Items of the locked tree.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] lockedItems =
+            new MutableTreeNode[BUCKETS * ITEMS_PER_BUCKET];
+
+    /**
+     * Builds both trees once per trial.
+     */
+    @Setup
+    public void setUp() {
+        concurrentRoot = new ConcurrentTreeNode<>(0);
+        final MutableTreeNode<Integer> lockedRoot = new DefaultMutableTreeNode<>(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            concurrentBuckets[i] = new ConcurrentTreeNode<>(i, concurrentRoot);
+            lockedBuckets[i] = new DefaultMutableTreeNode<>(i, lockedRoot);
+        }
+        for (int i = 0; i < concurrentItems.length; i++) {
+            concurrentItems[i] = new ConcurrentTreeNode<>(i,
+                    (ConcurrentTreeNode<Integer>) concurrentBuckets[i % BUCKETS]);
+            lockedItems[i] = new DefaultMutableTreeNode<>(i, lockedBuckets[i % BUCKETS]);
+        }
+    }
+
+    /**
+     * Moves a random item to a random bucket of the concurrent tree.
+     * @return the moved item
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> concurrentMove() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return concurrentItems[random.nextInt(concurrentItems.length)]
+                .setParent(concurrentBuckets[random.nextInt(BUCKETS)]);
+    }
+
+    /**
+     * Moves a random item to a random bucket of the locked tree.
+     * @return the moved item
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> lockedMove() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        synchronized (lock) {
+            return lockedItems[random.nextInt(lockedItems.length)]
+                    .setParent(lockedBuckets[random.nextInt(BUCKETS)]);
+        }
+    }
+
+    /**
+     * Takes consistent snapshots of the concurrent tree from several threads.
+     * @return the snapshot
+     */
+    @Benchmark
+    public FrozenTree<Integer> concurrentSnapshot() {
+        return concurrentRoot.snapshot();
+    }
+}
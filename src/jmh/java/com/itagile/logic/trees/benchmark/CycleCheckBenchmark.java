@@ -0,0 +1,218 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.AcyclicTreeNode;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Measures the overhead of cycle checks on setParent: leaves are moved between the middle and the
+ * bottom of a deep chain with the unchecked DefaultMutableTreeNode, with DefaultMutableTreeNode
+ * plus a walk of the parent chain, and with AcyclicTreeNode. As AcyclicTreeNode updates the depth
+ * and jump pointer of every node of a moved subtree, the worst case is also measured: the whole
+ * chain below the top is moved between two children of the root.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CycleCheckBenchmark {
+    /**
+     * Number of moved leaves.
+     */
+    private static final int LEAVES = 1024;
+
+    /**
+     * Number of nodes in the chain.
+     */
+    @Param({"100", "10000"})
+    private int depth;
+
+    /**
+     * Middle and bottom of the unchecked chain.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] uncheckedParents = new MutableTreeNode[2];
+
+    /**
+     * Leaves of the unchecked chain.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] uncheckedLeaves = new MutableTreeNode[LEAVES];
+
+    /**
+     * Middle and bottom of the acyclic chain.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final AcyclicTreeNode<Integer>[] acyclicParents = new AcyclicTreeNode[2];
+
+    /**
+     * Leaves of the acyclic chain.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final AcyclicTreeNode<Integer>[] acyclicLeaves = new AcyclicTreeNode[LEAVES];
+
+    /**
+     * Two children of the root of the unchecked subtree chain.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] uncheckedTops = new MutableTreeNode[2];
+
+    /**
+     * Head of the unchecked chain moved between the tops.
+     */
+    private MutableTreeNode<Integer> uncheckedSubtree;
+
+    /**
+     * Two children of the root of the acyclic subtree chain.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final AcyclicTreeNode<Integer>[] acyclicTops = new AcyclicTreeNode[2];
+
+    /**
+     * Head of the acyclic chain moved between the tops.
+     */
+    private AcyclicTreeNode<Integer> acyclicSubtree;
+
+    /**
+     * Next leaf to move.
+     */
+    private int next;
+
+    /**
+     * Builds both chains with every leaf under the middle node, and both subtree chains under the
+     * first top.
+     */
+    @Setup
+    public void setUp() {
+        MutableTreeNode<Integer> unchecked = new DefaultMutableTreeNode<>(0);
+        AcyclicTreeNode<Integer> acyclic = new AcyclicTreeNode<>(0);
+        for (int i = 1; i < depth; i++) {
+            unchecked = new DefaultMutableTreeNode<>(i, unchecked);
+            acyclic = new AcyclicTreeNode<>(i, acyclic);
+            if (i == depth / 2) {
+                uncheckedParents[0] = unchecked;
+                acyclicParents[0] = acyclic;
+            }
+        }
+        uncheckedParents[1] = unchecked;
+        acyclicParents[1] = acyclic;
+        for (int i = 0; i < LEAVES; i++) {
+            uncheckedLeaves[i] = new DefaultMutableTreeNode<>(-i, uncheckedParents[0]);
+            acyclicLeaves[i] = new AcyclicTreeNode<>(-i, acyclicParents[0]);
+        }
+        final MutableTreeNode<Integer> uncheckedRoot = new DefaultMutableTreeNode<>(0);
+        final AcyclicTreeNode<Integer> acyclicRoot = new AcyclicTreeNode<>(0);
+        for (int i = 0; i < 2; i++) {
+            uncheckedTops[i] = new DefaultMutableTreeNode<>(i + 1, uncheckedRoot);
+            acyclicTops[i] = new AcyclicTreeNode<>(i + 1, acyclicRoot);
+        }
+        uncheckedSubtree = new DefaultMutableTreeNode<>(3, uncheckedTops[0]);
+        acyclicSubtree = new AcyclicTreeNode<>(3, acyclicTops[0]);
+        unchecked = uncheckedSubtree;
+        acyclic = acyclicSubtree;
+        for (int i = 4; i < depth; i++) {
+            unchecked = new DefaultMutableTreeNode<>(i, unchecked);
+            acyclic = new AcyclicTreeNode<>(i, acyclic);
+        }
+        next = 0;
+    }
+
+    /**
+     * Moves the next leaf to the other parent without cycle check.
+     * @return the moved leaf
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> unchecked() {
+        final MutableTreeNode<Integer> leaf = uncheckedLeaves[next];
+        next = (next + 1) % LEAVES;
+        return leaf.setParent(leaf.getParent() == uncheckedParents[0] ? uncheckedParents[1]
+                : uncheckedParents[0]);
+    }
+
+    /**
+     * Moves the next leaf to the other parent after walking the parent chain of the new parent.
+     * @return the moved leaf
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> walkCheck() {
+        final MutableTreeNode<Integer> leaf = uncheckedLeaves[next];
+        next = (next + 1) % LEAVES;
+        final MutableTreeNode<Integer> newParent = leaf.getParent() == uncheckedParents[0]
+                ? uncheckedParents[1] : uncheckedParents[0];
+        for (TreeNode<Integer> node = newParent; node != null;
+                node = ((MutableTreeNode<Integer>) node).getParent()) {
+            if (node == leaf) {
+                throw new IllegalArgumentException("A node cannot be moved into its own subtree");
+            }
+        }
+        return leaf.setParent(newParent);
+    }
+
+    /**
+     * Moves the next leaf to the other parent with the AcyclicTreeNode check.
+     * @return the moved leaf
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> acyclic() {
+        final AcyclicTreeNode<Integer> leaf = acyclicLeaves[next];
+        next = (next + 1) % LEAVES;
+        return leaf.setParent(leaf.getParent() == acyclicParents[0] ? acyclicParents[1]
+                : acyclicParents[0]);
+    }
+
+    /**
+     * Moves the chain below the top to the other top without cycle check.
+     * @return the moved subtree
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> uncheckedSubtree() {
+        return uncheckedSubtree.setParent(uncheckedSubtree.getParent() == uncheckedTops[0]
+                ? uncheckedTops[1] : uncheckedTops[0]);
+    }
+
+    /**
+     * Moves the chain below the top to the other top with the AcyclicTreeNode check, which
+     * updates every node of the chain.
+     * @return the moved subtree
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> acyclicSubtree() {
+        return acyclicSubtree.setParent(acyclicSubtree.getParent() == acyclicTops[0]
+                ? acyclicTops[1] : acyclicTops[0]);
+    }
+}
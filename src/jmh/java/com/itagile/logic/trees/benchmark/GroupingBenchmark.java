@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.Extractor;
+import com.itagile.logic.trees.Group;
+import com.itagile.logic.trees.GroupingTreeBuilder;
+import com.itagile.logic.trees.MutableTreeNode;
+
+/**
+ * Measures grouping 1,000,000 sales records by country, region, store and product (200,000
+ * product groups): searching the children of DefaultMutableTreeNode keys by hand, against a
+ * GroupingTreeBuilder counting records, summing amounts, and summing amounts in a parallel stream.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GroupingBenchmark {
+    /**
+     * Number of records.
+     */
+    private static final int RECORDS = 1_000_000;
+
+    /**
+     * Number of distinct keys of every level: countries, regions, stores and products.
+     */
+    private static final int[] KEYS = {20, 10, 20, 50};
+
+    /**
+     * Records {country, region, store, product, amount}.
+     */
+    private List<int[]> records;
+
+    /**
+     * Builder grouping by the four key columns.
+     */
+    private GroupingTreeBuilder<int[], Integer> builder;
+
+    /**
+     * Creates the records and the builder.
+     */
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            records.add(new int[] {random.nextInt(KEYS[0]), random.nextInt(KEYS[1]),
+                random.nextInt(KEYS[2]), random.nextInt(KEYS[3]), random.nextInt(1000)});
+        }
+        final List<Extractor<int[], Integer>> extractors = new ArrayList<>();
+        for (int level = 0; level < KEYS.length; level++) {
+            final int column = level;
+            extractors.add(record -> record[column]);
+        }
+        builder = new GroupingTreeBuilder<>(extractors);
+    }
+
+    /**
+     * Groups the records searching the children of every level for the key.
+     * @return the root group
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> byHand() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(null);
+        for (final int[] record : records) {
+            MutableTreeNode<Integer> node = root;
+            for (int level = 0; level < KEYS.length; level++) {
+                node = child(node, record[level]);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Finds the child with the given key, adding it if missing.
+     * @param node the parent node
+     * @param key the key
+     * @return the child with the key
+     */
+    private static MutableTreeNode<Integer> child(final MutableTreeNode<Integer> node,
+            final int key) {
+        for (final MutableTreeNode<Integer> child : node.getMutableChildren()) {
+            if (child.getData() == key) {
+                return child;
+            }
+        }
+        return new DefaultMutableTreeNode<>(key, node);
+    }
+
+    /**
+     * Groups the records counting them.
+     * @return the root group
+     */
+    @Benchmark
+    public MutableTreeNode<Group<Integer, Void>> count() {
+        return builder.build(records);
+    }
+
+    /**
+     * Groups the records summing their amounts.
+     * @return the root group
+     */
+    @Benchmark
+    public MutableTreeNode<Group<Integer, Long>> sum() {
+        return builder.build(records, Collectors.summingLong(record -> record[4]));
+    }
+
+    /**
+     * Groups the records summing their amounts in a parallel stream.
+     * @return the root group
+     */
+    @Benchmark
+    public MutableTreeNode<Group<Integer, Long>> parallelSum() {
+        return records.parallelStream()
+                .collect(builder.collector(Collectors.summingLong(record -> record[4])));
+    }
+}
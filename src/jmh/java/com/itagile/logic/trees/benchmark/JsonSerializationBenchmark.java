@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.jackson.TreeFormat;
+import com.itagile.logic.trees.jackson.TreeModule;
+
+/**
+ * Measures Jackson serialization of a large tree.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    /**
+     * Shared, thread safe mapper.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Mapper with the streaming nested layout.
+     */
+    private final ObjectMapper nested = new ObjectMapper().registerModule(new TreeModule());
+
+    /**
+     * Mapper with the streaming flat layout.
+     */
+    private final ObjectMapper flat = new ObjectMapper()
+            .registerModule(new TreeModule(TreeFormat.FLAT, TreeModule.DEFAULT_FACTORY));
+
+    /**
+     * Type of the read trees.
+     */
+    private final TypeReference<MutableTreeNode<Integer>> type =
+            new TypeReference<MutableTreeNode<Integer>>() {
+            };
+
+    /**
+     * The tree in the nested layout.
+     */
+    private byte[] nestedJson;
+
+    /**
+     * The tree in the flat layout.
+     */
+    private byte[] flatJson;
+
+    /**
+     * Complete tree of 10 children per node and 5 levels (111,111 nodes).
+     */
+    private TreeNode<Integer> tree;
+
+    /**
+     * Builds the tree once per trial.
+     */
+    @Setup
+    public void setUp() {
+        tree = TreeFixtures.balanced(10, 5);
+        try {
+            nestedJson = nested.writeValueAsBytes(tree);
+            flatJson = flat.writeValueAsBytes(tree);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serializes the tree with default bean serialization.
+     * @return the JSON bytes
+     * @throws JsonProcessingException fatal error on serialization
+     */
+    @Benchmark
+    public byte[] writeBalanced() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(tree);
+    }
+
+    /**
+     * Serializes the tree with the streaming nested layout.
+     * @return the JSON bytes
+     * @throws JsonProcessingException fatal error on serialization
+     */
+    @Benchmark
+    public byte[] writeNested() throws JsonProcessingException {
+        return nested.writeValueAsBytes(tree);
+    }
+
+    /**
+     * Serializes the tree with the streaming flat layout.
+     * @return the JSON bytes
+     * @throws JsonProcessingException fatal error on serialization
+     */
+    @Benchmark
+    public byte[] writeFlat() throws JsonProcessingException {
+        return flat.writeValueAsBytes(tree);
+    }
+
+    /**
+     * Deserializes the nested layout.
+     * @return the root node
+     * @throws IOException fatal error on deserialization
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> readNested() throws IOException {
+        return nested.readValue(nestedJson, type);
+    }
+
+    /**
+     * Deserializes the flat layout.
+     * @return the root node
+     * @throws IOException fatal error on deserialization
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> readFlat() throws IOException {
+        return flat.readValue(flatJson, type);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.ChildLoader;
+import com.itagile.logic.trees.LazyTree;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Measures browsing sessions over a virtual tree of 64M nodes (fan-out 20, depth 6) whose loader
+ * waits a fixed latency per call, like a database round trip: each operation opens a random node
+ * two levels below the root and expands all its children, with and without sibling prefetch and
+ * with a budget of cached nodes.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LazyTreeBenchmark {
+    /**
+     * Children of every inner node.
+     */
+    private static final int FAN_OUT = 20;
+
+    /**
+     * Depth of the leaves.
+     */
+    private static final int DEPTH = 6;
+
+    /**
+     * Latency of each loader call in nanoseconds.
+     */
+    private static final long LATENCY = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Maximum number of nodes loaded in a single call.
+     */
+    @Param({"1", "20"})
+    private int prefetchSize;
+
+    /**
+     * Budget of cached nodes.
+     */
+    @Param({"1000", "100000"})
+    private long maxNodes;
+
+    /**
+     * The lazy tree.
+     */
+    private LazyTree<Long> tree;
+
+    /**
+     * Random generator of the opened nodes.
+     */
+    private Random random;
+
+    /**
+     * Loader of a virtual tree where node n at depth d has children n * FAN_OUT + 1 to
+     * n * FAN_OUT + FAN_OUT, encoded with the depth in the lowest byte.
+     */
+    private static final class VirtualLoader implements ChildLoader<Long> {
+        @Override
+        public List<Long> load(final Long parent) {
+            LockSupport.parkNanos(LATENCY);
+            return children(parent);
+        }
+
+        @Override
+        public List<List<Long>> loadAll(final List<Long> parents) {
+            LockSupport.parkNanos(LATENCY);
+            final List<List<Long>> result = new ArrayList<>(parents.size());
+            for (final Long parent : parents) {
+                result.add(children(parent));
+            }
+            return result;
+        }
+
+        @Override
+        public Boolean isLeaf(final Long data) {
+            return (data & 0xFF) == DEPTH;
+        }
+
+        /**
+         * Generates the children of a node.
+         * @param parent the node
+         * @return the children
+         */
+        private static List<Long> children(final Long parent) {
+            final long depth = (parent & 0xFF) + 1;
+            final long id = parent >>> 8;
+            final List<Long> children = new ArrayList<>(FAN_OUT);
+            if (depth <= DEPTH) {
+                for (int i = 1; i <= FAN_OUT; i++) {
+                    children.add((id * FAN_OUT + i) << 8 | depth);
+                }
+            }
+            return children;
+        }
+    }
+
+    /**
+     * Creates the lazy tree.
+     */
+    @Setup
+    public void setUp() {
+        tree = new LazyTree<>(0L, new VirtualLoader(), maxNodes, null, prefetchSize);
+        random = new Random(42);
+    }
+
+    /**
+     * Opens a random node two levels below the root and expands its children.
+     * @return the number of grandchildren of the opened node
+     */
+    @Benchmark
+    public int expand() {
+        TreeNode<Long> node = tree.getRoot();
+        for (int level = 0; level < 2; level++) {
+            final int index = random.nextInt(FAN_OUT);
+            int i = 0;
+            for (final TreeNode<Long> child : node.getChildren()) {
+                if (i++ == index) {
+                    node = child;
+                }
+            }
+        }
+        int count = 0;
+        for (final TreeNode<Long> child : node.getChildren()) {
+            for (final TreeNode<Long> grandchild : child.getChildren()) {
+                if (!grandchild.isLeaf()) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.CompactMutableTreeNode;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+
+/**
+ * Measures the bytes allocated per node. Run with the gc profiler, gc.alloc.rate.norm is the
+ * footprint of the nodes built by each operation (data objects are shared and not counted).
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class NodeFootprintBenchmark {
+    /**
+     * Shared data object.
+     */
+    private static final Integer DATA = 1;
+
+    /**
+     * Children of the small internal node.
+     */
+    private static final int SMALL_FAN_OUT = 3;
+
+    /**
+     * Children of the wide internal node, above the compact array limit.
+     */
+    private static final int WIDE_FAN_OUT = 16;
+
+    /**
+     * One DefaultMutableTreeNode leaf.
+     * @return the leaf
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> defaultLeaf() {
+        return new DefaultMutableTreeNode<>(DATA);
+    }
+
+    /**
+     * One CompactMutableTreeNode leaf.
+     * @return the leaf
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> compactLeaf() {
+        return new CompactMutableTreeNode<>(DATA);
+    }
+
+    /**
+     * One DefaultMutableTreeNode with {@link #SMALL_FAN_OUT} leaves.
+     * @return the parent node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> defaultSmallInternal() {
+        final MutableTreeNode<Integer> parent = new DefaultMutableTreeNode<>(DATA);
+        for (int i = 0; i < SMALL_FAN_OUT; i++) {
+            new DefaultMutableTreeNode<>(DATA, parent);
+        }
+        return parent;
+    }
+
+    /**
+     * One CompactMutableTreeNode with {@link #SMALL_FAN_OUT} leaves.
+     * @return the parent node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> compactSmallInternal() {
+        final MutableTreeNode<Integer> parent = new CompactMutableTreeNode<>(DATA);
+        for (int i = 0; i < SMALL_FAN_OUT; i++) {
+            new CompactMutableTreeNode<>(DATA, parent);
+        }
+        return parent;
+    }
+
+    /**
+     * One DefaultMutableTreeNode with {@link #WIDE_FAN_OUT} leaves.
+     * @return the parent node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> defaultWideInternal() {
+        final MutableTreeNode<Integer> parent = new DefaultMutableTreeNode<>(DATA);
+        for (int i = 0; i < WIDE_FAN_OUT; i++) {
+            new DefaultMutableTreeNode<>(DATA, parent);
+        }
+        return parent;
+    }
+
+    /**
+     * One CompactMutableTreeNode with {@link #WIDE_FAN_OUT} leaves.
+     * @return the parent node
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> compactWideInternal() {
+        final MutableTreeNode<Integer> parent = new CompactMutableTreeNode<>(DATA);
+        for (int i = 0; i < WIDE_FAN_OUT; i++) {
+            new CompactMutableTreeNode<>(DATA, parent);
+        }
+        return parent;
+    }
+}
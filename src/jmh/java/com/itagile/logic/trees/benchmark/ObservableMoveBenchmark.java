@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.ObservableTree;
+import com.itagile.logic.trees.ObservableTreeNode;
+
+/**
+ * Measures repeated setParent moves of children between two large siblings, like
+ * ReparentBenchmark, on DefaultMutableTreeNode and on ObservableTreeNode without listeners and
+ * with a listener receiving batches of coalesced events.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ObservableMoveBenchmark {
+    /**
+     * Number of children initially under the first parent.
+     */
+    private static final int CHILDREN = 10_000;
+
+    /**
+     * Type of nodes: default, observable or listened.
+     */
+    @Param({"default", "observable", "listened"})
+    private String nodes;
+
+    /**
+     * The two parents children are moved between.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] parents = new MutableTreeNode[2];
+
+    /**
+     * The moved children.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] children = new MutableTreeNode[CHILDREN];
+
+    /**
+     * Next child to move.
+     */
+    private int next;
+
+    /**
+     * Builds both parents under a common root and puts every child under the first one.
+     * @param blackhole consumer of the delivered events
+     */
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        if ("default".equals(nodes)) {
+            final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+            parents[0] = new DefaultMutableTreeNode<>(1, root);
+            parents[1] = new DefaultMutableTreeNode<>(2, root);
+            for (int i = 0; i < CHILDREN; i++) {
+                children[i] = new DefaultMutableTreeNode<>(i, parents[0]);
+            }
+        } else {
+            final ObservableTree<Integer> tree = new ObservableTree<>(0);
+            if ("listened".equals(nodes)) {
+                tree.addListener(events -> blackhole.consume(events));
+            }
+            final ObservableTreeNode<Integer> first = new ObservableTreeNode<>(tree, 1,
+                    tree.getRoot());
+            parents[0] = first;
+            parents[1] = new ObservableTreeNode<>(tree, 2, tree.getRoot());
+            for (int i = 0; i < CHILDREN; i++) {
+                children[i] = new ObservableTreeNode<>(tree, i, first);
+            }
+        }
+        next = 0;
+    }
+
+    /**
+     * Moves the next child to the other parent.
+     * @return the moved child
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> setParent() {
+        final MutableTreeNode<Integer> child = children[next];
+        child.setParent(child.getParent() == parents[0] ? parents[1] : parents[0]);
+        next = (next + 1) % CHILDREN;
+        return child;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+import com.itagile.logic.trees.io.DataCodecs;
+import com.itagile.logic.trees.io.OffHeapTree;
+
+/**
+ * Measures a balanced tree of 1,111,111 nodes kept as DefaultMutableTreeNode instances on the heap
+ * against an OffHeapTree: the pause of a full garbage collection with the tree alive, a pre-order
+ * walk. The heap retained by the tree and the off-heap memory allocated are reported as the
+ * {@link Footprint} secondary results of each benchmark.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class OffHeapTreeBenchmark {
+    /**
+     * Where the tree is kept: heap or offheap.
+     */
+    @Param({"heap", "offheap"})
+    private String store;
+
+    /**
+     * Root of the tree.
+     */
+    private TreeNode<Integer> root;
+
+    /**
+     * Heap retained by the tree, in KB.
+     */
+    private long heapKb;
+
+    /**
+     * Off-heap memory allocated by the tree, in KB.
+     */
+    private long offHeapKb;
+
+    /**
+     * Footprint of the tree, reported by JMH as secondary results. JMH sums event counters over the
+     * measurement iterations, so they are set by the first one only.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        /**
+         * Heap retained by the tree, in KB.
+         */
+        public long heapKb;
+
+        /**
+         * Off-heap memory allocated by the tree, in KB.
+         */
+        public long offHeapKb;
+
+        /**
+         * Whether the footprint has been reported.
+         */
+        private boolean reported;
+
+        /**
+         * Reports the footprint measured by the trial setup at the end of the first measurement
+         * iteration.
+         * @param benchmark the benchmark state
+         * @param iteration the parameters of the iteration
+         */
+        @TearDown(Level.Iteration)
+        public void tearDown(final OffHeapTreeBenchmark benchmark,
+                final IterationParams iteration) {
+            if (!reported && iteration.getType() == IterationType.MEASUREMENT) {
+                heapKb = benchmark.heapKb;
+                offHeapKb = benchmark.offHeapKb;
+                reported = true;
+            }
+        }
+    }
+
+    /**
+     * Builds the tree and measures its footprint.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final long before = usedHeap();
+        long offHeapBytes = 0;
+        root = TreeFixtures.balanced(10, 6);
+        if ("offheap".equals(store)) {
+            final OffHeapTree<Integer> tree = OffHeapTree.copyOf(root, DataCodecs.INTEGER);
+            offHeapBytes = tree.getAllocatedBytes();
+            root = tree.getNode(0);
+        }
+        heapKb = (usedHeap() - before) >> 10;
+        offHeapKb = offHeapBytes >> 10;
+    }
+
+    /**
+     * Gets the used heap after a full garbage collection.
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs a full garbage collection with the tree alive.
+     * @param footprint the footprint of the tree
+     * @return the root, to keep the tree alive
+     */
+    @Benchmark
+    public Object fullGc(final Footprint footprint) {
+        System.gc();
+        return root;
+    }
+
+    /**
+     * Walks the tree in pre-order.
+     * @param footprint the footprint of the tree
+     * @return the sum of the data of every node
+     */
+    @Benchmark
+    public long preOrder(final Footprint footprint) {
+        long sum = 0;
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(root)) {
+            sum += node.getData();
+        }
+        return sum;
+    }
+}
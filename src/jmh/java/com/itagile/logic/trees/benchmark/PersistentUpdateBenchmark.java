@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.PersistentTreeNode;
+
+/**
+ * Measures publishing a new version of a large tree after a change of one leaf, by path copying
+ * against copying the whole tree.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PersistentUpdateBenchmark {
+    /**
+     * Path to the changed leaf.
+     */
+    private static final int[] LEAF = {3, 1, 4, 1};
+
+    /**
+     * Current version of the complete tree of 10 children per node and 5 levels (111,111 nodes).
+     */
+    private PersistentTreeNode<Integer> version;
+
+    /**
+     * Next data object of the changed leaf.
+     */
+    private int next;
+
+    /**
+     * Builds the tree once per trial.
+     */
+    @Setup
+    public void setUp() {
+        version = PersistentTreeNode.copyOf(TreeFixtures.balanced(10, 5));
+    }
+
+    /**
+     * Publishes a new version copying the path to the leaf.
+     * @return the new version
+     */
+    @Benchmark
+    public PersistentTreeNode<Integer> pathCopy() {
+        version = version.setData(next++, LEAF);
+        return version;
+    }
+
+    /**
+     * Publishes a new version copying the whole tree to mutable nodes and back.
+     * @return the new version
+     */
+    @Benchmark
+    public PersistentTreeNode<Integer> fullCopy() {
+        version = PersistentTreeNode.copyOf(version.setData(next++, LEAF).toMutable());
+        return version;
+    }
+}
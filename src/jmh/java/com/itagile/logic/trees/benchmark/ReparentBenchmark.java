@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+
+/**
+ * Measures repeated setParent moves of children between two large siblings.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReparentBenchmark {
+    /**
+     * Number of children initially under the first parent.
+     */
+    private static final int CHILDREN = 10_000;
+
+    /**
+     * The two parents children are moved between.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] parents = new MutableTreeNode[2];
+
+    /**
+     * The moved children.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final MutableTreeNode<Integer>[] children = new MutableTreeNode[CHILDREN];
+
+    /**
+     * Next child to move.
+     */
+    private int next;
+
+    /**
+     * Builds both parents under a common root and puts every child under the first one.
+     */
+    @Setup
+    public void setUp() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        parents[0] = new DefaultMutableTreeNode<>(1, root);
+        parents[1] = new DefaultMutableTreeNode<>(2, root);
+        for (int i = 0; i < CHILDREN; i++) {
+            children[i] = new DefaultMutableTreeNode<>(i, parents[0]);
+        }
+        next = 0;
+    }
+
+    /**
+     * Moves the next child to the other parent.
+     * @return the moved child
+     */
+    @Benchmark
+    public MutableTreeNode<Integer> setParent() {
+        final MutableTreeNode<Integer> child = children[next];
+        child.setParent(child.getParent() == parents[0] ? parents[1] : parents[0]);
+        next = (next + 1) % CHILDREN;
+        return child;
+    }
+}
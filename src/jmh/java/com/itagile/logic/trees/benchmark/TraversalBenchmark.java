@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.itagile.logic.trees.FrozenTree;
+import com.itagile.logic.trees.PreOrderIterator;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+
+/**
+ * Measures full traversal of prebuilt trees through getChildren.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraversalBenchmark {
+    /**
+     * Root with {@link BuildBenchmark#WIDTH} children.
+     */
+    private TreeNode<Integer> wide;
+
+    /**
+     * Chain of {@link BuildBenchmark#DEPTH} nodes.
+     */
+    private TreeNode<Integer> deep;
+
+    /**
+     * Complete tree of 10 children per node and 6 levels (1,111,111 nodes).
+     */
+    private TreeNode<Integer> balanced;
+
+    /**
+     * Frozen copy of {@link #balanced}.
+     */
+    private FrozenTree<Integer> frozen;
+
+    /**
+     * Builds the trees once per trial.
+     */
+    @Setup
+    public void setUp() {
+        wide = TreeFixtures.wide(BuildBenchmark.WIDTH);
+        deep = TreeFixtures.deep(BuildBenchmark.DEPTH);
+        balanced = TreeFixtures.balanced(10, 6);
+        frozen = FrozenTree.freeze(balanced);
+    }
+
+    /**
+     * Visits every node recursively, as in the README example.
+     * @param node the node to visit
+     * @param blackhole consumes the visited data
+     */
+    private static void visit(final TreeNode<Integer> node, final Blackhole blackhole) {
+        blackhole.consume(node.getData());
+        for (final TreeNode<Integer> child : node.getChildren()) {
+            visit(child, blackhole);
+        }
+    }
+
+    /**
+     * Recursive traversal of the wide tree.
+     * @param blackhole consumes the visited data
+     */
+    @Benchmark
+    public void traverseWide(final Blackhole blackhole) {
+        visit(wide, blackhole);
+    }
+
+    /**
+     * Recursive traversal of the balanced tree.
+     * @param blackhole consumes the visited data
+     */
+    @Benchmark
+    public void traverseBalanced(final Blackhole blackhole) {
+        visit(balanced, blackhole);
+    }
+
+    /**
+     * Explicit stack traversal of the deep chain, which would overflow the call stack if visited
+     * recursively.
+     * @return the sum of the data of every node
+     */
+    @Benchmark
+    public long traverseDeep() {
+        return TreeFixtures.sum(deep);
+    }
+
+    /**
+     * Pre-order iteration of the balanced tree with a new iterator.
+     * @param blackhole consumes the visited data
+     */
+    @Benchmark
+    public void preOrderBalanced(final Blackhole blackhole) {
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(balanced)) {
+            blackhole.consume(node.getData());
+        }
+    }
+
+    /**
+     * Pre-order iteration of the deep chain reusing one iterator.
+     * @param iterator the reused iterator
+     * @param blackhole consumes the visited data
+     */
+    @Benchmark
+    public void preOrderDeep(final ReusedIterator iterator, final Blackhole blackhole) {
+        final PreOrderIterator<Integer> it = iterator.iterator;
+        it.reset(deep);
+        while (it.hasNext()) {
+            blackhole.consume(it.next().getData());
+        }
+    }
+
+    /**
+     * Recursive traversal of the frozen balanced tree through its node views.
+     * @param blackhole consumes the visited data
+     */
+    @Benchmark
+    public void traverseFrozenViews(final Blackhole blackhole) {
+        visit(frozen.getRoot(), blackhole);
+    }
+
+    /**
+     * Sequential scan of the frozen balanced tree by index, which is its pre-order.
+     * @param blackhole consumes the visited data
+     */
+    @Benchmark
+    public void traverseFrozenIndexes(final Blackhole blackhole) {
+        for (int i = 0; i < frozen.size(); i++) {
+            blackhole.consume(frozen.getData(i));
+        }
+    }
+
+    /**
+     * Iterator reused by every invocation of a thread.
+     */
+    @State(Scope.Thread)
+    public static class ReusedIterator {
+        /**
+         * The reused iterator.
+         */
+        private final PreOrderIterator<Integer> iterator = new PreOrderIterator<>(null);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DataHasher;
+import com.itagile.logic.trees.HashedTreeNode;
+import com.itagile.logic.trees.TreeDiff;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreePatch;
+
+/**
+ * Measures the diff of two copies of a balanced tree of 111,111 nodes after changing the data of
+ * one leaf: TreeDiff, which recomputes the hashes of the changed path and descends only into
+ * different subtrees, against a full walk comparing every pair of nodes.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeDiffBenchmark {
+    /**
+     * Hasher of integers.
+     */
+    private static final DataHasher<Integer> HASHER = new DataHasher<Integer>() {
+        @Override
+        public long hash(final Integer data) {
+            return data == null ? 0 : data * 0x9E3779B97F4A7C15L;
+        }
+    };
+
+    /**
+     * The source tree.
+     */
+    private HashedTreeNode<Integer> source;
+
+    /**
+     * The target tree.
+     */
+    private HashedTreeNode<Integer> target;
+
+    /**
+     * Leaves of the target tree.
+     */
+    private final List<HashedTreeNode<Integer>> leaves = new ArrayList<>();
+
+    /**
+     * Next leaf to change.
+     */
+    private int next;
+
+    /**
+     * Builds both copies of the tree.
+     */
+    @Setup
+    public void setUp() {
+        final TreeNode<Integer> tree = TreeFixtures.balanced(10, 5);
+        source = copy(tree);
+        target = copy(tree);
+        leaves.clear();
+        final Deque<HashedTreeNode<Integer>> stack = new ArrayDeque<>();
+        stack.push(target);
+        while (!stack.isEmpty()) {
+            final HashedTreeNode<Integer> node = stack.pop();
+            if (node.isLeaf()) {
+                leaves.add(node);
+            }
+            for (final TreeNode<Integer> child : node.getChildren()) {
+                stack.push((HashedTreeNode<Integer>) child);
+            }
+        }
+        source.getHash();
+        target.getHash();
+        next = 0;
+    }
+
+    /**
+     * Toggles the sign of the next leaf of the target tree, which is toggled back after each
+     * comparison so the trees differ in a single node.
+     * @return the changed leaf
+     */
+    private HashedTreeNode<Integer> change() {
+        final HashedTreeNode<Integer> leaf = leaves.get(next);
+        next = (next + 7919) % leaves.size();
+        leaf.setData(-leaf.getData());
+        return leaf;
+    }
+
+    /**
+     * Changes a leaf, computes the patch with TreeDiff and restores the leaf.
+     * @return the patch
+     */
+    @Benchmark
+    public TreePatch<Integer> diff() {
+        final HashedTreeNode<Integer> leaf = change();
+        final TreePatch<Integer> patch = TreeDiff.diff(source, target);
+        leaf.setData(-leaf.getData());
+        return patch;
+    }
+
+    /**
+     * Changes a leaf, compares every pair of nodes of both trees and restores the leaf.
+     * @return the number of different nodes
+     */
+    @Benchmark
+    public int fullWalk() {
+        final HashedTreeNode<Integer> leaf = change();
+        int differences = 0;
+        final Deque<Iterator<TreeNode<Integer>>> sources = new ArrayDeque<>();
+        final Deque<Iterator<TreeNode<Integer>>> targets = new ArrayDeque<>();
+        sources.push(source.getChildren().iterator());
+        targets.push(target.getChildren().iterator());
+        while (!sources.isEmpty()) {
+            final Iterator<TreeNode<Integer>> sourceChildren = sources.peek();
+            final Iterator<TreeNode<Integer>> targetChildren = targets.peek();
+            if (sourceChildren.hasNext()) {
+                final TreeNode<Integer> sourceChild = sourceChildren.next();
+                final TreeNode<Integer> targetChild = targetChildren.next();
+                if (!sourceChild.getData().equals(targetChild.getData())) {
+                    differences++;
+                }
+                sources.push(sourceChild.getChildren().iterator());
+                targets.push(targetChild.getChildren().iterator());
+            } else {
+                sources.pop();
+                targets.pop();
+            }
+        }
+        leaf.setData(-leaf.getData());
+        return differences;
+    }
+
+    /**
+     * Copies a tree into HashedTreeNode instances.
+     * @param root the root of the tree
+     * @return the root of the copy
+     */
+    private static HashedTreeNode<Integer> copy(final TreeNode<Integer> root) {
+        final HashedTreeNode<Integer> copy = new HashedTreeNode<>(HASHER, root.getData());
+        final Deque<TreeNode<Integer>> sources = new ArrayDeque<>();
+        final Deque<HashedTreeNode<Integer>> copies = new ArrayDeque<>();
+        sources.push(root);
+        copies.push(copy);
+        while (!sources.isEmpty()) {
+            final TreeNode<Integer> node = sources.pop();
+            final HashedTreeNode<Integer> parent = copies.pop();
+            for (final TreeNode<Integer> child : node.getChildren()) {
+                sources.push(child);
+                copies.push(new HashedTreeNode<>(HASHER, child.getData(), parent));
+            }
+        }
+        return copy;
+    }
+}
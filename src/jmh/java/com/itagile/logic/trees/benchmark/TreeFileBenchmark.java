@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.io.DataCodecs;
+import com.itagile.logic.trees.io.MappedTree;
+import com.itagile.logic.trees.io.TreeFileWriter;
+import com.itagile.logic.trees.jackson.TreeModule;
+
+/**
+ * Compares loading a large tree from a mapped tree file against reading it from JSON.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeFileBenchmark {
+    /**
+     * Mapper with the streaming nested layout.
+     */
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new TreeModule());
+
+    /**
+     * Type of the read trees.
+     */
+    private final TypeReference<MutableTreeNode<Integer>> type =
+            new TypeReference<MutableTreeNode<Integer>>() {
+            };
+
+    /**
+     * The tree file.
+     */
+    private Path file;
+
+    /**
+     * The tree in JSON.
+     */
+    private byte[] json;
+
+    /**
+     * Writes the complete tree of 10 children per node and 5 levels (111,111 nodes) once per
+     * trial.
+     * @throws IOException fatal error on I/O
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final TreeNode<Integer> tree = TreeFixtures.balanced(10, 5);
+        file = Files.createTempFile("tree", ".bin");
+        TreeFileWriter.write(tree, DataCodecs.INTEGER, file);
+        json = mapper.writeValueAsBytes(tree);
+    }
+
+    /**
+     * Deletes the tree file.
+     * @throws IOException fatal error on I/O
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * Maps the tree file without touching the nodes.
+     * @return the mapped tree
+     * @throws IOException fatal error on I/O
+     */
+    @Benchmark
+    public MappedTree<Integer> open() throws IOException {
+        return MappedTree.open(file, DataCodecs.INTEGER);
+    }
+
+    /**
+     * Maps the tree file and decodes every node.
+     * @return the sum of the data
+     * @throws IOException fatal error on I/O
+     */
+    @Benchmark
+    public long openAndSum() throws IOException {
+        final MappedTree<Integer> tree = MappedTree.open(file, DataCodecs.INTEGER);
+        long sum = 0;
+        for (int i = 0; i < tree.size(); i++) {
+            sum += tree.getData(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Reads the tree from JSON.
+     * @return the sum of the data
+     * @throws IOException fatal error on I/O
+     */
+    @Benchmark
+    public long readJsonAndSum() throws IOException {
+        return TreeFixtures.sum(mapper.readValue(json, type));
+    }
+}
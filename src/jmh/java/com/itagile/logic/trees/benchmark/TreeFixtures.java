@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Reproducible tree shapes shared by the benchmarks.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+final class TreeFixtures {
+
+    /**
+     * Utility class.
+     */
+    private TreeFixtures() {
+    }
+
+    /**
+     * Builds a root with the given number of leaf children.
+     * @param width number of children under the root
+     * @return the root node
+     */
+    static MutableTreeNode<Integer> wide(final int width) {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        for (int i = 1; i <= width; i++) {
+            root.add(new DefaultMutableTreeNode<>(i));
+        }
+        return root;
+    }
+
+    /**
+     * Builds a chain where every node has exactly one child.
+     * @param depth number of nodes in the chain
+     * @return the root node
+     */
+    static MutableTreeNode<Integer> deep(final int depth) {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        return root;
+    }
+
+    /**
+     * Builds a complete tree where every internal node has the same number of children.
+     * @param fanOut number of children of each internal node
+     * @param levels number of levels below the root
+     * @return the root node
+     */
+    static MutableTreeNode<Integer> balanced(final int fanOut, final int levels) {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        int id = 0;
+        Deque<MutableTreeNode<Integer>> level = new ArrayDeque<>();
+        level.add(root);
+        for (int l = 0; l < levels; l++) {
+            final Deque<MutableTreeNode<Integer>> next = new ArrayDeque<>();
+            for (final MutableTreeNode<Integer> parent : level) {
+                for (int i = 0; i < fanOut; i++) {
+                    next.add(new DefaultMutableTreeNode<>(++id, parent));
+                }
+            }
+            level = next;
+        }
+        return root;
+    }
+
+    /**
+     * Sums the data of every node by walking getChildren with an explicit stack, so deep chains
+     * do not overflow the call stack.
+     * @param root the root node
+     * @return the sum of the data of every node
+     */
+    static long sum(final TreeNode<Integer> root) {
+        long sum = 0;
+        final Deque<TreeNode<Integer>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            final TreeNode<Integer> node = stack.pop();
+            sum += node.getData();
+            for (final TreeNode<Integer> child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeQuery;
+
+/**
+ * Measures selecting the leaves under the nodes with even data at depth 3 of a balanced tree of
+ * 111,111 nodes, with a hand-written recursive search against a compiled TreeQuery, and a query
+ * whose child steps prune everything but one path.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeQueryBenchmark {
+    /**
+     * Selects the leaves under the nodes with even data at depth 3.
+     */
+    private static final TreeQuery<Integer> LEAVES = TreeQuery.compile(
+            "//*[depth=3][$even]//*[leaf]", Collections
+                    .<String, Predicate<Integer>>singletonMap("even", data -> data % 2 == 0));
+
+    /**
+     * Selects the third child of the second child of the root.
+     */
+    private static final TreeQuery<Integer> PATH = TreeQuery.compile("/*/*[2]/*[3]");
+
+    /**
+     * The tree.
+     */
+    private TreeNode<Integer> root;
+
+    /**
+     * Builds the tree.
+     */
+    @Setup
+    public void setUp() {
+        root = TreeFixtures.balanced(10, 5);
+    }
+
+    /**
+     * Selects the leaves with a recursive search.
+     * @return the selected nodes
+     */
+    @Benchmark
+    public List<TreeNode<Integer>> recursive() {
+        final List<TreeNode<Integer>> selected = new ArrayList<>();
+        search(root, 0, false, selected);
+        return selected;
+    }
+
+    /**
+     * Searches the leaves under the nodes with even data at depth 3.
+     * @param node the current node
+     * @param depth the depth of the node
+     * @param under if the node is under a node with even data at depth 3
+     * @param selected the selected nodes
+     */
+    private static void search(final TreeNode<Integer> node, final int depth, final boolean under,
+            final List<TreeNode<Integer>> selected) {
+        if (under && node.isLeaf()) {
+            selected.add(node);
+        }
+        final boolean below = under || depth == 3 && node.getData() % 2 == 0;
+        for (final TreeNode<Integer> child : node.getChildren()) {
+            search(child, depth + 1, below, selected);
+        }
+    }
+
+    /**
+     * Selects the leaves with the compiled query.
+     * @return the selected nodes
+     */
+    @Benchmark
+    public List<TreeNode<Integer>> query() {
+        return LEAVES.select(root);
+    }
+
+    /**
+     * Selects one node of a child path.
+     * @return the selected node
+     */
+    @Benchmark
+    public TreeNode<Integer> path() {
+        return PATH.selectFirst(root);
+    }
+}
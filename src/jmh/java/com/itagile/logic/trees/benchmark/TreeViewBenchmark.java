@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+import com.itagile.logic.trees.TreeViews;
+
+/**
+ * Measures a per-request menu of a balanced tree of 111,111 nodes, hiding the subtrees of nodes
+ * whose data is a multiple of 7 and mapping the data to strings: copying, pruning and mapping the
+ * tree before walking it, against walking pruned and mapped TreeViews, fully or only the first two
+ * levels.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeViewBenchmark {
+    /**
+     * The tree.
+     */
+    private TreeNode<Integer> tree;
+
+    /**
+     * Builds the tree.
+     */
+    @Setup
+    public void setUp() {
+        tree = TreeFixtures.balanced(10, 5);
+    }
+
+    /**
+     * Checks if a node is visible.
+     * @param data the data of the node
+     * @return true if the node is visible
+     */
+    private static boolean visible(final Integer data) {
+        return data == 0 || data % 7 != 0;
+    }
+
+    /**
+     * Copies the visible nodes with mapped data and walks the copy.
+     * @return the total length of the mapped data
+     */
+    @Benchmark
+    public long copy() {
+        final MutableTreeNode<String> copy = new DefaultMutableTreeNode<>(tree.getData()
+                .toString());
+        final Deque<TreeNode<Integer>> sources = new ArrayDeque<>();
+        final Deque<MutableTreeNode<String>> copies = new ArrayDeque<>();
+        sources.push(tree);
+        copies.push(copy);
+        while (!sources.isEmpty()) {
+            final TreeNode<Integer> node = sources.pop();
+            final MutableTreeNode<String> parent = copies.pop();
+            for (final TreeNode<Integer> child : node.getChildren()) {
+                if (visible(child.getData())) {
+                    sources.push(child);
+                    copies.push(new DefaultMutableTreeNode<>(child.getData().toString(), parent));
+                }
+            }
+        }
+        return length(copy);
+    }
+
+    /**
+     * Walks a pruned and mapped view.
+     * @return the total length of the mapped data
+     */
+    @Benchmark
+    public long view() {
+        return length(TreeViews.map(TreeViews.prune(tree, TreeViewBenchmark::visible),
+                String::valueOf));
+    }
+
+    /**
+     * Walks the first two levels of a pruned and mapped view.
+     * @return the total length of the mapped data
+     */
+    @Benchmark
+    public long viewTwoLevels() {
+        return length(TreeViews.limitDepth(TreeViews.map(TreeViews.prune(tree,
+                TreeViewBenchmark::visible), String::valueOf), 2));
+    }
+
+    /**
+     * Walks a tree adding the length of the data.
+     * @param root the root of the tree
+     * @return the total length of the data
+     */
+    private static long length(final TreeNode<String> root) {
+        long length = 0;
+        for (final TreeNode<String> node : TreeTraversal.preOrder(root)) {
+            length += node.getData().length();
+        }
+        return length;
+    }
+}
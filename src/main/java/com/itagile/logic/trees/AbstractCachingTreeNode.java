@@ -0,0 +1,322 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Base class of the nodes that keep a value computed from their subtree cached, like
+ * {@link AggregatingTreeNode} and {@link HashedTreeNode}. Children are kept in an array in
+ * insertion order. Changes by {@link #setData}, {@link #add}, {@link #remove},
+ * {@link #removeFromParent} and {@link #setParent} only mark the changed node and its ancestors
+ * as dirty, stopping at the first ancestor already dirty, and {@link #refresh()} recomputes just
+ * the dirty nodes of a subtree, children before parents, with {@link #recomputeNode()}.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @param <N> the type of node of the concrete subclass
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+abstract class AbstractCachingTreeNode<T, N extends AbstractCachingTreeNode<T, N>>
+        implements MutableTreeNode<T> {
+    /**
+     * Shared children array of leaves.
+     */
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    /**
+     * Capacity of the children array when the first child is added.
+     */
+    private static final int INITIAL_CAPACITY = 2;
+
+    /**
+     * This node's parent, or null if this node has no parent.
+     */
+    private N parent;
+
+    /**
+     * Data object in this node.
+     */
+    private T data;
+
+    /**
+     * Children in insertion order, the first {@link #childCount} elements are used.
+     */
+    private Object[] children = NO_CHILDREN;
+
+    /**
+     * Number of children.
+     */
+    private int childCount;
+
+    /**
+     * Number of changes to the children, checked by the children iterators.
+     */
+    private int modCount;
+
+    /**
+     * True if the cached values must be recomputed. Ancestors of dirty nodes are dirty.
+     */
+    private boolean dirty = true;
+
+    /**
+     * Constructs a new node without parent. Subclasses set the parent once they can check it.
+     * @param data the data object in this node
+     */
+    AbstractCachingTreeNode(final T data) {
+        this.data = data;
+    }
+
+    /**
+     * Gets this node as the concrete subclass.
+     *
+     * @return this node
+     */
+    protected abstract N self();
+
+    /**
+     * Checks that a new parent or child belongs to a compatible tree.
+     *
+     * @param node the new parent or child
+     * @return the node as the concrete subclass
+     * @throws IllegalArgumentException if the node is not compatible
+     */
+    protected abstract N check(MutableTreeNode<T> node);
+
+    /**
+     * Recomputes the cached values of this node from its data object and the cached values of
+     * its children, which are up to date.
+     */
+    protected abstract void recomputeNode();
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public final int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * Gets a child by position.
+     *
+     * @param index the position of the child
+     * @return the child
+     */
+    @SuppressWarnings("unchecked")
+    final N getChild(final int index) {
+        return (N) children[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#add()
+     */
+    @Override
+    public final MutableTreeNode<T> add(final MutableTreeNode<T> newChild) {
+        final AbstractCachingTreeNode<T, N> child = check(newChild);
+        if (child.parent != this) {
+            child.removeFromParent();
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(INITIAL_CAPACITY, childCount * 2));
+            }
+            children[childCount++] = child;
+            modCount++;
+            child.parent = self();
+            markDirty();
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public final T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#setData()
+     */
+    @Override
+    public final MutableTreeNode<T> setData(final T newData) {
+        this.data = newData;
+        markDirty();
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public final Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new ArrayIterator<>(children, childCount, () -> modCount);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getMutableChildren()
+     */
+    @Override
+    public final Iterable<MutableTreeNode<T>> getMutableChildren() {
+        return new Iterable<MutableTreeNode<T>>() {
+            @Override
+            public Iterator<MutableTreeNode<T>> iterator() {
+                return new ArrayIterator<>(children, childCount, () -> modCount);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public final boolean isLeaf() {
+        return childCount == 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getParent()
+     */
+    @Override
+    public final TreeNode<T> getParent() {
+        return parent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.itagile.logic.trees.MutableTreeNode#setParent(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final MutableTreeNode<T> setParent(final MutableTreeNode<T> newParent) {
+        if (newParent == null) {
+            removeFromParent();
+        } else {
+            check(newParent).add(this);
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#removeFromParent()
+     */
+    @Override
+    public final void removeFromParent() {
+        if (parent != null) {
+            parent.remove(this);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#remove(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final boolean remove(final MutableTreeNode<T> child) {
+        if (child.getParent() != this) {
+            return false;
+        }
+        for (int i = 0; i < childCount; i++) {
+            if (children[i] == child) {
+                final AbstractCachingTreeNode<T, N> removed = getChild(i);
+                System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+                children[--childCount] = null;
+                modCount++;
+                removed.parent = null;
+                break;
+            }
+        }
+        markDirty();
+        return true;
+    }
+
+    /**
+     * Recomputes the dirty nodes of this subtree if this node is dirty.
+     */
+    protected final void refresh() {
+        if (dirty) {
+            recompute();
+        }
+    }
+
+    /**
+     * Marks this node and its ancestors as dirty, stopping at the first dirty one because its
+     * ancestors are already dirty.
+     */
+    private void markDirty() {
+        AbstractCachingTreeNode<T, N> node = this;
+        while (node != null && !node.dirty) {
+            node.dirty = true;
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Recomputes the dirty nodes of this subtree in post-order, without recursion.
+     */
+    private void recompute() {
+        final Deque<AbstractCachingTreeNode<T, N>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final AbstractCachingTreeNode<T, N> node = stack.peek();
+            boolean pushed = false;
+            for (int i = 0; i < node.childCount; i++) {
+                final AbstractCachingTreeNode<T, N> child = node.getChild(i);
+                if (child.dirty) {
+                    stack.push(child);
+                    pushed = true;
+                }
+            }
+            if (!pushed) {
+                stack.pop();
+                node.recomputeNode();
+                node.dirty = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Base class of the non-recursive tree iterators. Subclasses compute the next node on demand and
+ * keep their pending work in an explicit stack or queue that is reused after {@link #reset}.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public abstract class AbstractTreeIterator<T> implements Iterator<TreeNode<T>> {
+    /**
+     * Node to be returned by the next call to next, or null if not yet computed.
+     */
+    private TreeNode<T> nextNode;
+
+    /**
+     * Starts iterating over a new tree, reusing the internal stack or queue.
+     *
+     * @param root the root of the tree to iterate, or null for an empty iteration
+     * @return this iterator
+     */
+    public final AbstractTreeIterator<T> reset(final TreeNode<T> root) {
+        nextNode = null;
+        clear();
+        if (root != null) {
+            start(root);
+        }
+        return this;
+    }
+
+    /**
+     * Clears the pending work of the previous iteration.
+     */
+    protected abstract void clear();
+
+    /**
+     * Registers the root of a new iteration.
+     *
+     * @param root the root of the tree to iterate, never null
+     */
+    protected abstract void start(TreeNode<T> root);
+
+    /**
+     * Computes the next node of the iteration.
+     *
+     * @return the next node, or null if the iteration has finished
+     */
+    protected abstract TreeNode<T> computeNext();
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public final boolean hasNext() {
+        if (nextNode == null) {
+            nextNode = computeNext();
+        }
+        return nextNode != null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    public final TreeNode<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final TreeNode<T> result = nextNode;
+        nextNode = null;
+        return result;
+    }
+
+    /**
+     * Not supported, trees are modified through {@link MutableTreeNode}.
+     */
+    @Override
+    public final void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@link MutableTreeNode} that rejects moves creating cycles. {@link DefaultMutableTreeNode}
+ * accepts a descendant as new parent, which detaches a cycle that makes any later traversal loop
+ * forever; this node throws an IllegalArgumentException instead.
+ *
+ * <p>The check does not walk the whole parent chain. Each node keeps its depth and a jump pointer
+ * to an ancestor chosen so that any ancestor is reached in O(log depth) jumps (Myers' skew-binary
+ * jump pointers). A node X is an ancestor of the new parent P only if P is deeper than X and the
+ * ancestor of P at the depth of X is X itself, so a move costs O(log depth) for the check plus
+ * O(size of the moved subtree) to update the depths and jump pointers of the moved nodes. Moving
+ * leaves and small subtrees is cheap even in very deep trees.
+ *
+ * <p>Parents and children must be AcyclicTreeNode instances, other nodes are rejected with an
+ * IllegalArgumentException. Children keep insertion order.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class AcyclicTreeNode<T> implements MutableTreeNode<T> {
+    /**
+     * This node's parent, or null if this node has no parent.
+     */
+    private AcyclicTreeNode<T> parent;
+
+    /**
+     * Data object in this node.
+     */
+    private T data;
+
+    /**
+     * Children nodes in insertion order.
+     */
+    private final Collection<AcyclicTreeNode<T>> children = new LinkedHashSet<>();
+
+    /**
+     * Unmodifiable view of children nodes.
+     */
+    private final Collection<TreeNode<T>> unmodifiableChildren = Collections
+            .<TreeNode<T>>unmodifiableCollection(children);
+
+    /**
+     * Unmodifiable view of children nodes.
+     */
+    private final Collection<MutableTreeNode<T>> unmodifiableMutableChildren = Collections
+            .<MutableTreeNode<T>>unmodifiableCollection(children);
+
+    /**
+     * Number of edges from the root of the tree.
+     */
+    private int depth;
+
+    /**
+     * Ancestor used to skip levels when looking for an ancestor, this node for roots.
+     */
+    private AcyclicTreeNode<T> jump = this;
+
+    /**
+     * Constructs a new root node.
+     * @param data the data object in this node
+     */
+    public AcyclicTreeNode(final T data) {
+        this(data, null);
+    }
+
+    /**
+     * Constructs a new node with parent.
+     * @param data the data object in this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public AcyclicTreeNode(final T data, final AcyclicTreeNode<T> parent) {
+        this.data = data;
+        setParent(parent);
+    }
+
+    /**
+     * Gets the number of edges from the root of the tree to this node.
+     *
+     * @return the depth of this node, 0 for roots
+     */
+    @JsonIgnore
+    public final int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Checks if this node is a proper ancestor of another node, in O(log depth).
+     *
+     * @param node the possible descendant
+     * @return true if this node is an ancestor of the node, false if it is the same node
+     */
+    public final boolean isAncestorOf(final AcyclicTreeNode<T> node) {
+        return node.depth > depth && node.getAncestorAt(depth) == this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#add()
+     */
+    @Override
+    public final MutableTreeNode<T> add(final MutableTreeNode<T> newChild) {
+        final AcyclicTreeNode<T> child = check(newChild);
+        if (child.parent != this) {
+            child.setParent(this);
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public final T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#setData()
+     */
+    @Override
+    public final MutableTreeNode<T> setData(final T newData) {
+        this.data = newData;
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public final Iterable<TreeNode<T>> getChildren() {
+        return unmodifiableChildren;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getMutableChildren()
+     */
+    @Override
+    public final Iterable<MutableTreeNode<T>> getMutableChildren() {
+        return unmodifiableMutableChildren;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public final boolean isLeaf() {
+        return children.isEmpty();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getParent()
+     */
+    @Override
+    public final TreeNode<T> getParent() {
+        return parent;
+    }
+
+    /**
+     * Sets this node's parent and adds this as a child, removing it from the original parent.
+     *
+     * @param newParent the new parent node, or null if this node has no parent
+     * @return this object
+     * @throws IllegalArgumentException if the new parent is this node or one of its descendants
+     */
+    @Override
+    public final MutableTreeNode<T> setParent(final MutableTreeNode<T> newParent) {
+        if (newParent == parent) {
+            return this;
+        }
+        final AcyclicTreeNode<T> node = newParent == null ? null : check(newParent);
+        if (node == this || node != null && isAncestorOf(node)) {
+            throw new IllegalArgumentException("A node cannot be moved into its own subtree");
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+        }
+        parent = node;
+        if (node != null) {
+            node.children.add(this);
+        }
+        updateSubtree();
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#removeFromParent()
+     */
+    @Override
+    public final void removeFromParent() {
+        setParent(null);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#remove(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final boolean remove(final MutableTreeNode<T> child) {
+        if (child.getParent() != this) {
+            return false;
+        }
+        child.removeFromParent();
+        return true;
+    }
+
+    /**
+     * Checks that a new parent or child is an acyclic node.
+     *
+     * @param node the new parent or child
+     * @return the node as an acyclic node
+     */
+    private AcyclicTreeNode<T> check(final MutableTreeNode<T> node) {
+        if (!(node instanceof AcyclicTreeNode)) {
+            throw new IllegalArgumentException("Node must be an AcyclicTreeNode");
+        }
+        return (AcyclicTreeNode<T>) node;
+    }
+
+    /**
+     * Finds the ancestor of this node at a depth by following jump pointers when they do not go
+     * above that depth, and parents otherwise.
+     *
+     * @param ancestorDepth the depth of the ancestor, at most the depth of this node
+     * @return the ancestor
+     */
+    private AcyclicTreeNode<T> getAncestorAt(final int ancestorDepth) {
+        AcyclicTreeNode<T> node = this;
+        while (node.depth > ancestorDepth) {
+            node = node.jump.depth >= ancestorDepth ? node.jump : node.parent;
+        }
+        return node;
+    }
+
+    /**
+     * Recomputes the depth and jump pointer of this node after a move, and of its descendants
+     * without recursion, parents before children.
+     */
+    private void updateSubtree() {
+        updateNode();
+        if (children.isEmpty()) {
+            return;
+        }
+        final Deque<AcyclicTreeNode<T>> stack = new ArrayDeque<>(children);
+        while (!stack.isEmpty()) {
+            final AcyclicTreeNode<T> node = stack.pop();
+            node.updateNode();
+            for (final AcyclicTreeNode<T> child : node.children) {
+                stack.push(child);
+            }
+        }
+    }
+
+    /**
+     * Recomputes the depth and jump pointer of this node from its parent. The jump pointer skips
+     * as far as the jump pointer of the parent's jump pointer when both jumps of the parent span
+     * the same number of levels, and points to the parent otherwise.
+     */
+    private void updateNode() {
+        if (parent == null) {
+            depth = 0;
+            jump = this;
+        } else {
+            depth = parent.depth + 1;
+            final AcyclicTreeNode<T> upJump = parent.jump;
+            jump = parent.depth - upJump.depth == upJump.depth - upJump.jump.depth ? upJump.jump
+                    : parent;
+        }
+    }
+}
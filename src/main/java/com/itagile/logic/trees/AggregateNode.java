@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Iterator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A node of the tree computed by {@link ParallelTreeAggregator} or {@link AsyncTreeWalker},
+ * parallel to the source tree. Its data is the aggregated value of the source node subtree, or the
+ * result of the visit of the source node.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the source nodes
+ * @param <V> the type of aggregated values
+ * @since 1.1
+ */
+public final class AggregateNode<T, V> implements TreeNode<V> {
+    /**
+     * Shared children array of leaves.
+     */
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    /**
+     * The source node.
+     */
+    private final TreeNode<T> source;
+
+    /**
+     * The aggregated value of the source subtree.
+     */
+    private final V value;
+
+    /**
+     * Aggregate nodes of the source children, in the same order.
+     */
+    private final Object[] children;
+
+    /**
+     * Constructs a new aggregate node.
+     *
+     * @param source the source node
+     * @param value the aggregated value of the source subtree
+     * @param children aggregate nodes of the source children, or null for leaves
+     */
+    AggregateNode(final TreeNode<T> source, final V value, final Object[] children) {
+        this.source = source;
+        this.value = value;
+        this.children = children == null ? NO_CHILDREN : children;
+    }
+
+    /**
+     * Gets the source node of this aggregate.
+     *
+     * @return the source node
+     */
+    @JsonIgnore
+    public TreeNode<T> getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the aggregated value of the source subtree.
+     *
+     * @return the aggregated value
+     */
+    @Override
+    public V getData() {
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public Iterable<TreeNode<V>> getChildren() {
+        return new Iterable<TreeNode<V>>() {
+            @Override
+            public Iterator<TreeNode<V>> iterator() {
+                return new ArrayIterator<>(children, children.length);
+            }
+        };
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public int getChildCount() {
+        return children.length;
+    }
+
+    /**
+     * Gets the aggregate node of a source child.
+     *
+     * @param index the position of the source child
+     * @return the aggregate node of the child
+     */
+    @SuppressWarnings("unchecked")
+    public AggregateNode<T, V> getChild(final int index) {
+        return (AggregateNode<T, V>) children[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public boolean isLeaf() {
+        return children.length == 0;
+    }
+}
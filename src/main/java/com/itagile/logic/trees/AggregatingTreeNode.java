@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@link MutableTreeNode} that keeps the {@link Aggregation} of its subtree cached. Changes by
+ * {@link #setData}, {@link #add}, {@link #remove}, {@link #removeFromParent} and
+ * {@link #setParent} only mark the changed node and its ancestors as dirty, stopping at the first
+ * ancestor already dirty, and {@link #getAggregate()} recomputes just the dirty nodes, reusing the
+ * cached aggregate of every clean child. A change followed by a read costs O(depth) nodes instead
+ * of the whole tree.
+ *
+ * <p>Parents and children must be AggregatingTreeNode instances with the same aggregation, other
+ * nodes are rejected with an IllegalArgumentException. Data objects must not be mutated in place,
+ * or the change will not be seen; set a new data object instead.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @param <V> the type of aggregated values
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class AggregatingTreeNode<T, V>
+        extends AbstractCachingTreeNode<T, AggregatingTreeNode<T, V>> {
+    /**
+     * The aggregation of the tree.
+     */
+    private final Aggregation<T, V> aggregation;
+
+    /**
+     * Cached aggregate of this subtree, valid if not dirty.
+     */
+    private V aggregate;
+
+    /**
+     * Constructs a new root node.
+     * @param aggregation the aggregation of the tree
+     * @param data the data object in this node
+     */
+    public AggregatingTreeNode(final Aggregation<T, V> aggregation, final T data) {
+        this(aggregation, data, null);
+    }
+
+    /**
+     * Constructs a new node with parent.
+     * @param aggregation the aggregation of the tree
+     * @param data the data object in this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public AggregatingTreeNode(final Aggregation<T, V> aggregation, final T data,
+            final AggregatingTreeNode<T, V> parent) {
+        super(data);
+        this.aggregation = aggregation;
+        setParent(parent);
+    }
+
+    /**
+     * Gets the aggregation of the tree.
+     *
+     * @return the aggregation
+     */
+    @JsonIgnore
+    public final Aggregation<T, V> getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * Gets the aggregate of this subtree, recomputing the dirty nodes of the subtree if needed.
+     *
+     * @return the aggregate of this subtree
+     */
+    public final V getAggregate() {
+        refresh();
+        return aggregate;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractCachingTreeNode#self()
+     */
+    @Override
+    protected final AggregatingTreeNode<T, V> self() {
+        return this;
+    }
+
+    /**
+     * Checks that a new parent or child belongs to a tree with the same aggregation.
+     *
+     * @param node the new parent or child
+     * @return the node as an aggregating node
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected final AggregatingTreeNode<T, V> check(final MutableTreeNode<T> node) {
+        if (!(node instanceof AggregatingTreeNode)
+                || ((AggregatingTreeNode<T, ?>) node).aggregation != aggregation) {
+            throw new IllegalArgumentException(
+                    "Node must be an AggregatingTreeNode with the same aggregation");
+        }
+        return (AggregatingTreeNode<T, V>) node;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractCachingTreeNode#recomputeNode()
+     */
+    @Override
+    protected final void recomputeNode() {
+        V value = aggregation.map(this);
+        for (int i = 0; i < getChildCount(); i++) {
+            value = aggregation.combine(value, getChild(i).aggregate);
+        }
+        aggregate = value;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * Defines a roll-up of values from the leaves to the root of a tree. The value of a node is the
+ * combination of its own mapped value with the values of its children, in children order.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @param <V> the type of aggregated values
+ * @since 1.1
+ */
+public interface Aggregation<T, V> {
+    /**
+     * Maps a node on its own, without its children. Called once per node, possibly from different
+     * threads at the same time.
+     *
+     * @param node the node
+     * @return the value of the node on its own
+     */
+    V map(TreeNode<T> node);
+
+    /**
+     * Combines two values. Must be associative and free of side effects, as it is called from
+     * different threads at the same time.
+     *
+     * @param left the value of the nodes on the left
+     * @param right the value of the nodes on the right
+     * @return the combined value
+     */
+    V combine(V left, V right);
+}
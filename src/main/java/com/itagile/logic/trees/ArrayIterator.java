@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntSupplier;
+
+/**
+ * Unmodifiable iterator over the first elements of an array, used for children arrays. Iterators
+ * over the live children array of a node check its modification count, and fail with a
+ * ConcurrentModificationException when the children are changed during the iteration.
+ *
+ * @author Javier Alcala
+ * @param <E> the type of elements returned by the iterator
+ * @since 1.1
+ */
+final class ArrayIterator<E> implements Iterator<E> {
+    /**
+     * The elements.
+     */
+    private final Object[] array;
+
+    /**
+     * Number of elements in the array.
+     */
+    private final int size;
+
+    /**
+     * Gets the modification count of the array owner, or null if the array never changes.
+     */
+    private final IntSupplier modCount;
+
+    /**
+     * The modification count of the array owner when the iterator was created.
+     */
+    private final int expectedModCount;
+
+    /**
+     * Index of the next element.
+     */
+    private int next;
+
+    /**
+     * Constructs a new iterator over an array that never changes.
+     *
+     * @param array the elements
+     * @param size number of elements in the array
+     */
+    ArrayIterator(final Object[] array, final int size) {
+        this(array, size, null);
+    }
+
+    /**
+     * Constructs a new iterator over a live array.
+     *
+     * @param array the elements
+     * @param size number of elements in the array
+     * @param modCount gets the modification count of the array owner, or null if the array
+     *        never changes
+     */
+    ArrayIterator(final Object[] array, final int size, final IntSupplier modCount) {
+        this.array = array;
+        this.size = size;
+        this.modCount = modCount;
+        this.expectedModCount = modCount == null ? 0 : modCount.getAsInt();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+        return next < size;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Iterator#next()
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (modCount != null && modCount.getAsInt() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (next >= size) {
+            throw new NoSuchElementException();
+        }
+        return (E) array[next++];
+    }
+
+    /**
+     * Not supported, children are modified through their node.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Starts the asynchronous work of a node visited by an {@link AsyncTreeWalker}, like a lookup in
+ * a remote service.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @param <V> the type of results
+ * @since 1.1
+ */
+public interface AsyncNodeVisitor<T, V> {
+    /**
+     * Starts the work of a node. Called from the thread that starts the walk or from the threads
+     * that complete the work of other nodes, so it should return without blocking.
+     *
+     * @param node the visited node
+     * @return the stage completed with the result of the node, never null
+     */
+    CompletionStage<V> visit(TreeNode<T> node);
+}
@@ -0,0 +1,507 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Visits every node of a tree with asynchronous work, like a remote lookup per node, keeping at
+ * most a maximum number of visits in flight. The results are assembled into a parallel tree of
+ * {@link AggregateNode} with the result of every node.
+ *
+ * <p>Nodes are visited in any order, parents before their children, or children before their
+ * parents. Children are discovered only when their parent is started (or completed, with parents
+ * first) and pending nodes are taken depth-first, so the nodes waiting for a free slot stay few.
+ * Only the bottom-up order expands the whole tree before the first visit.
+ *
+ * <p>The walk completes exceptionally with the first failure of a visit. Cancelling or completing
+ * the returned future stops the walk: no more visits are started, and the futures of the visits
+ * in flight are cancelled. Blocking work already running on an executor is not interrupted.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @param <V> the type of results
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class AsyncTreeWalker<T, V> {
+    /**
+     * Order constraints between the visits of parents and children.
+     */
+    public enum Order {
+        /**
+         * No constraint, parents and children are visited at the same time.
+         */
+        ANY,
+
+        /**
+         * A node is visited once the visit of its parent completed.
+         */
+        PARENT_FIRST,
+
+        /**
+         * A node is visited once the visits of all its children completed.
+         */
+        CHILDREN_FIRST
+    }
+
+    /**
+     * Starts the work of each node.
+     */
+    private final AsyncNodeVisitor<T, V> visitor;
+
+    /**
+     * Maximum number of visits in flight.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * Order constraint of the visits.
+     */
+    private final Order order;
+
+    /**
+     * Constructs a new walker.
+     *
+     * @param visitor starts the work of each node
+     * @param maxConcurrency maximum number of visits in flight
+     * @param order order constraint of the visits
+     * @throws IllegalArgumentException if the maximum concurrency is not positive
+     */
+    public AsyncTreeWalker(final AsyncNodeVisitor<T, V> visitor, final int maxConcurrency,
+            final Order order) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive: "
+                    + maxConcurrency);
+        }
+        this.visitor = visitor;
+        this.maxConcurrency = maxConcurrency;
+        this.order = order;
+    }
+
+    /**
+     * Creates a walker running blocking work on the {@link #defaultExecutor()}.
+     *
+     * @param work the blocking work of each node
+     * @param maxConcurrency maximum number of visits in flight
+     * @param order order constraint of the visits
+     * @param <T> the type of data object in the nodes
+     * @param <V> the type of results
+     * @return the new walker
+     */
+    public static <T, V> AsyncTreeWalker<T, V> blocking(
+            final Extractor<? super TreeNode<T>, ? extends V> work, final int maxConcurrency,
+            final Order order) {
+        return blocking(work, defaultExecutor(), maxConcurrency, order);
+    }
+
+    /**
+     * Creates a walker running blocking work on an executor.
+     *
+     * @param work the blocking work of each node
+     * @param executor the executor running the work
+     * @param maxConcurrency maximum number of visits in flight
+     * @param order order constraint of the visits
+     * @param <T> the type of data object in the nodes
+     * @param <V> the type of results
+     * @return the new walker
+     */
+    public static <T, V> AsyncTreeWalker<T, V> blocking(
+            final Extractor<? super TreeNode<T>, ? extends V> work, final Executor executor,
+            final int maxConcurrency, final Order order) {
+        return new AsyncTreeWalker<>(
+            node -> CompletableFuture.supplyAsync(() -> work.extract(node), executor),
+            maxConcurrency, order);
+    }
+
+    /**
+     * Gets the shared executor for blocking work: a virtual thread per task when the runtime has
+     * them, otherwise a cached pool of daemon threads.
+     *
+     * @return the default executor
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Walks a tree.
+     *
+     * @param root the root of the tree
+     * @return the future of the parallel tree of results, which stops the walk when cancelled
+     */
+    public CompletableFuture<AggregateNode<T, V>> walk(final TreeNode<T> root) {
+        return new Walk().start(root);
+    }
+
+    /**
+     * Holder of the default executor, created on first use.
+     */
+    private static final class DefaultExecutor {
+        /**
+         * The default executor.
+         */
+        private static final Executor INSTANCE = create();
+
+        /**
+         * Utility class.
+         */
+        private DefaultExecutor() {
+        }
+
+        /**
+         * Creates the default executor.
+         *
+         * @return a virtual thread per task executor, or a cached pool of daemon threads
+         */
+        private static Executor create() {
+            try {
+                final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) method.invoke(null);
+            } catch (final ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(task -> {
+                    final Thread thread = new Thread(task, "async-tree-walker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    /**
+     * The state of a node in a walk.
+     *
+     * @param <T> the type of data object in the nodes
+     * @param <V> the type of results
+     */
+    private static final class Slot<T, V> {
+        /**
+         * The node.
+         */
+        private final TreeNode<T> node;
+
+        /**
+         * The state of the parent, null for the root.
+         */
+        private final Slot<T, V> parent;
+
+        /**
+         * Position of the node among its siblings.
+         */
+        private final int index;
+
+        /**
+         * The result of the node.
+         */
+        private V value;
+
+        /**
+         * The children states until they are visited, then their assembled results; null for
+         * leaves.
+         */
+        private Object[] children;
+
+        /**
+         * Number of children and own visit not yet assembled.
+         */
+        private int remaining;
+
+        /**
+         * Number of children not yet visited, with children first.
+         */
+        private int waiting;
+
+        /**
+         * Constructs a new slot.
+         *
+         * @param node the node
+         * @param parent the state of the parent
+         * @param index position of the node among its siblings
+         */
+        Slot(final TreeNode<T> node, final Slot<T, V> parent, final int index) {
+            this.node = node;
+            this.parent = parent;
+            this.index = index;
+        }
+    }
+
+    /**
+     * One walk of a tree. The pending nodes, counters and futures in flight are guarded by the
+     * walk monitor; visits are started outside of it.
+     */
+    private final class Walk {
+        /**
+         * The parallel tree of results.
+         */
+        private final CompletableFuture<AggregateNode<T, V>> result = new CompletableFuture<>();
+
+        /**
+         * Nodes ready to be visited, taken from the head.
+         */
+        private final Deque<Slot<T, V>> ready = new ArrayDeque<>();
+
+        /**
+         * Futures of the visits in flight.
+         */
+        private final Set<CompletableFuture<V>> inFlight = Collections
+                .newSetFromMap(new IdentityHashMap<CompletableFuture<V>, Boolean>());
+
+        /**
+         * Requests to start visits, only one thread starts them at a time.
+         */
+        private final AtomicInteger requests = new AtomicInteger();
+
+        /**
+         * Number of visits in flight.
+         */
+        private int running;
+
+        /**
+         * If the walk is stopped.
+         */
+        private boolean stopped;
+
+        /**
+         * Starts the walk.
+         *
+         * @param root the root of the tree
+         * @return the future of the parallel tree of results
+         */
+        CompletableFuture<AggregateNode<T, V>> start(final TreeNode<T> root) {
+            result.whenComplete((tree, failure) -> stop());
+            final Slot<T, V> slot = new Slot<>(root, null, 0);
+            synchronized (this) {
+                if (order == Order.CHILDREN_FIRST) {
+                    expandAll(slot);
+                } else {
+                    ready.add(slot);
+                }
+            }
+            startVisits();
+            return result;
+        }
+
+        /**
+         * Creates the states of the children of a node, which are put at the head of the ready
+         * nodes unless the children are visited first.
+         *
+         * @param slot the state of the node
+         * @return the number of children
+         */
+        private int expand(final Slot<T, V> slot) {
+            final List<Slot<T, V>> children = new ArrayList<>();
+            if (!slot.node.isLeaf()) {
+                for (final TreeNode<T> child : slot.node.getChildren()) {
+                    children.add(new Slot<>(child, slot, children.size()));
+                }
+            }
+            slot.remaining = children.size() + 1;
+            if (!children.isEmpty()) {
+                slot.children = children.toArray();
+                if (order != Order.CHILDREN_FIRST) {
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        ready.push(children.get(i));
+                    }
+                }
+            }
+            return children.size();
+        }
+
+        /**
+         * Creates the states of every node, with the leaves ready in pre-order.
+         *
+         * @param root the state of the root
+         */
+        private void expandAll(final Slot<T, V> root) {
+            final Deque<Slot<T, V>> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                final Slot<T, V> slot = stack.pop();
+                slot.waiting = expand(slot);
+                if (slot.waiting == 0) {
+                    ready.add(slot);
+                }
+                for (int i = slot.waiting - 1; i >= 0; i--) {
+                    @SuppressWarnings("unchecked")
+                    final Slot<T, V> child = (Slot<T, V>) slot.children[i];
+                    stack.push(child);
+                }
+            }
+        }
+
+        /**
+         * Starts ready nodes while there are free slots. Only one thread starts visits at a time,
+         * requests from other threads, or from visits completed while starting, make it loop.
+         */
+        private void startVisits() {
+            if (requests.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                Slot<T, V> slot = next();
+                while (slot != null) {
+                    visit(slot);
+                    slot = next();
+                }
+                missed = requests.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Takes the next node to visit if there is a free slot.
+         *
+         * @return the state of the node, or null if none can be started
+         */
+        private synchronized Slot<T, V> next() {
+            if (stopped || running >= maxConcurrency || ready.isEmpty()) {
+                return null;
+            }
+            final Slot<T, V> slot = ready.pop();
+            running++;
+            if (order == Order.ANY) {
+                expand(slot);
+            }
+            return slot;
+        }
+
+        /**
+         * Starts the visit of a node.
+         *
+         * @param slot the state of the node
+         */
+        private void visit(final Slot<T, V> slot) {
+            final CompletableFuture<V> future;
+            try {
+                future = visitor.visit(slot.node).toCompletableFuture();
+            } catch (final RuntimeException e) {
+                fail(e);
+                return;
+            }
+            synchronized (this) {
+                if (stopped) {
+                    future.cancel(true);
+                    return;
+                }
+                inFlight.add(future);
+            }
+            future.whenComplete((value, failure) -> completed(slot, future, value, failure));
+        }
+
+        /**
+         * Records the completion of a visit and starts the nodes it made ready.
+         *
+         * @param slot the state of the node
+         * @param future the future of the visit
+         * @param value the result of the node
+         * @param failure the failure of the visit, or null
+         */
+        private void completed(final Slot<T, V> slot, final CompletableFuture<V> future,
+                final V value, final Throwable failure) {
+            if (failure != null) {
+                fail(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+                return;
+            }
+            final AggregateNode<T, V> tree;
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                running--;
+                inFlight.remove(future);
+                slot.value = value;
+                if (order == Order.PARENT_FIRST) {
+                    expand(slot);
+                } else if (order == Order.CHILDREN_FIRST && slot.parent != null
+                        && --slot.parent.waiting == 0) {
+                    ready.push(slot.parent);
+                }
+                tree = assemble(slot);
+            }
+            if (tree == null) {
+                startVisits();
+            } else {
+                result.complete(tree);
+            }
+        }
+
+        /**
+         * Releases the visit of a node, and assembles the results of the node and of its
+         * ancestors whose children are all assembled.
+         *
+         * @param visited the state of the visited node
+         * @return the parallel tree of results once the root is assembled, null before
+         */
+        private AggregateNode<T, V> assemble(final Slot<T, V> visited) {
+            Slot<T, V> slot = visited;
+            while (--slot.remaining == 0) {
+                final AggregateNode<T, V> node = new AggregateNode<>(slot.node, slot.value,
+                        slot.children);
+                if (slot.parent == null) {
+                    return node;
+                }
+                slot.parent.children[slot.index] = node;
+                slot = slot.parent;
+            }
+            return null;
+        }
+
+        /**
+         * Fails the walk. The walk is stopped before the result completes, so no visit starts
+         * once the failure is seen.
+         *
+         * @param failure the failure of a visit
+         */
+        private void fail(final Throwable failure) {
+            synchronized (this) {
+                stopped = true;
+                ready.clear();
+            }
+            result.completeExceptionally(failure);
+        }
+
+        /**
+         * Stops the walk, cancelling the visits in flight.
+         */
+        private void stop() {
+            final List<CompletableFuture<V>> cancelled;
+            synchronized (this) {
+                stopped = true;
+                ready.clear();
+                cancelled = new ArrayList<>(inFlight);
+                inFlight.clear();
+            }
+            for (final CompletableFuture<V> future : cancelled) {
+                future.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the children of the nodes of a {@link LazyTree} from an external source, like a database.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public interface ChildLoader<T> {
+    /**
+     * Loads the data objects of the children of a node, in children order.
+     *
+     * @param parent the data object of the node
+     * @return the data objects of the children, never null
+     */
+    List<T> load(T parent);
+
+    /**
+     * Loads the children of several nodes at once. Loaders backed by a remote source should
+     * override it to fetch all of them in a single request. By default it calls
+     * {@link #load(Object)} for each node.
+     *
+     * @param parents the data objects of the nodes
+     * @return the data objects of the children of each node, in the order of the nodes
+     */
+    default List<List<T>> loadAll(final List<T> parents) {
+        final List<List<T>> children = new ArrayList<>(parents.size());
+        for (final T parent : parents) {
+            children.add(load(parent));
+        }
+        return children;
+    }
+
+    /**
+     * Tells if a node is a leaf without loading its children, for instance from a child count
+     * column loaded with the node. By default it is unknown.
+     *
+     * @param data the data object of the node
+     * @return true if the node is a leaf, false if it has children, or null if it is unknown
+     */
+    default Boolean isLeaf(final T data) {
+        return null;
+    }
+}
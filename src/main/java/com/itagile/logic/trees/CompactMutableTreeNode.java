@@ -0,0 +1,373 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A memory-lean {@link MutableTreeNode} implementation with the same behavior as
+ * {@link DefaultMutableTreeNode}. Children storage is not allocated until the first child is added:
+ * a single child is referenced directly, low fan-out nodes keep their children in a small array,
+ * and only nodes with more than {@link #MAX_ARRAY_CHILDREN} children switch to a
+ * {@link LinkedHashSet}. Children views are created on demand instead of being kept per node, so
+ * leaves, usually the majority of nodes, take a single small object. Children keep their insertion
+ * order in every representation.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class CompactMutableTreeNode<T> implements MutableTreeNode<T> {
+    /**
+     * Maximum number of children kept in an array, more children are kept in a hashed set.
+     */
+    public static final int MAX_ARRAY_CHILDREN = 8;
+
+    /**
+     * Capacity of the array when a second child is added.
+     */
+    private static final int INITIAL_ARRAY_CAPACITY = 4;
+
+    /**
+     * This node's parent, or null if this node has no parent.
+     */
+    private MutableTreeNode<T> parent;
+
+    /**
+     * Data object in this node.
+     */
+    private T data;
+
+    /**
+     * Children storage: null without children, the child itself for a single child, an array of
+     * children up to {@link #MAX_ARRAY_CHILDREN} or a LinkedHashSet of children.
+     */
+    private Object children;
+
+    /**
+     * Number of children.
+     */
+    private int childCount;
+
+    /**
+     * Number of changes to the children, checked by the children iterators.
+     */
+    private int modCount;
+
+    /**
+     * Constructs a new, empty root node with no data.
+     */
+    public CompactMutableTreeNode() {
+        this(null, null);
+    }
+
+    /**
+     * Constructs a new, empty root node.
+     * @param data the data object in this node
+     */
+    public CompactMutableTreeNode(final T data) {
+        this(data, null);
+    }
+
+    /**
+     * Constructs a new, empty node with parent.
+     * @param data the data object in this node
+     * @param parent this node's parent TreeNode, or null if this node has no parent
+     */
+    public CompactMutableTreeNode(final T data, final MutableTreeNode<T> parent) {
+        this.data = data;
+        setParent(parent);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#add()
+     */
+    @Override
+    public final MutableTreeNode<T> add(final MutableTreeNode<T> newChild) {
+        if (!contains(newChild)) {
+            append(newChild);
+            if (newChild.getParent() != this) {
+                newChild.setParent(this);
+            }
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public final T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#setData()
+     */
+    @Override
+    public final MutableTreeNode<T> setData(final T newData) {
+        this.data = newData;
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public final Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return CompactMutableTreeNode.this.<TreeNode<T>>childIterator();
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getMutableChildren()
+     */
+    @Override
+    public final Iterable<MutableTreeNode<T>> getMutableChildren() {
+        return new Iterable<MutableTreeNode<T>>() {
+            @Override
+            public Iterator<MutableTreeNode<T>> iterator() {
+                return CompactMutableTreeNode.this.<MutableTreeNode<T>>childIterator();
+            }
+        };
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public final int getChildCount() {
+        return childCount;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public final boolean isLeaf() {
+        return childCount == 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getParent()
+     */
+    @Override
+    public final TreeNode<T> getParent() {
+        return parent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.itagile.logic.trees.MutableTreeNode#setParent(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final MutableTreeNode<T> setParent(final MutableTreeNode<T> newParent) {
+        if (newParent != this.parent) {
+            removeFromParent();
+            this.parent = newParent;
+            if (newParent != null) {
+                newParent.add(this);
+            }
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#removeFromParent()
+     */
+    @Override
+    public final void removeFromParent() {
+        if (this.parent != null) {
+            final MutableTreeNode<T> oldParent = this.parent;
+            this.parent = null;
+            oldParent.remove(this);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#remove(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final boolean remove(final MutableTreeNode<T> child) {
+        final boolean removed = delete(child);
+        if (removed) {
+            child.removeFromParent();
+        }
+        return removed;
+    }
+
+    /**
+     * Checks if a node is a child of this node.
+     *
+     * @param node the node
+     * @return true if the node is a child of this node
+     */
+    private boolean contains(final MutableTreeNode<T> node) {
+        if (children instanceof MutableTreeNode) {
+            return children.equals(node);
+        } else if (children instanceof Object[]) {
+            final Object[] array = (Object[]) children;
+            for (int i = 0; i < childCount; i++) {
+                if (array[i].equals(node)) {
+                    return true;
+                }
+            }
+            return false;
+        } else {
+            return children != null && asSet().contains(node);
+        }
+    }
+
+    /**
+     * Appends a child to the children storage, growing it to the next representation if needed.
+     *
+     * @param newChild the new child
+     */
+    private void append(final MutableTreeNode<T> newChild) {
+        if (children == null) {
+            children = newChild;
+        } else if (children instanceof MutableTreeNode) {
+            final Object[] array = new Object[INITIAL_ARRAY_CAPACITY];
+            array[0] = children;
+            array[1] = newChild;
+            children = array;
+        } else if (children instanceof Object[]) {
+            Object[] array = (Object[]) children;
+            if (childCount < MAX_ARRAY_CHILDREN) {
+                if (childCount == array.length) {
+                    array = Arrays.copyOf(array, Math.min(array.length * 2, MAX_ARRAY_CHILDREN));
+                    children = array;
+                }
+                array[childCount] = newChild;
+            } else {
+                final LinkedHashSet<MutableTreeNode<T>> set = new LinkedHashSet<>();
+                for (final Object child : array) {
+                    set.add(cast(child));
+                }
+                set.add(newChild);
+                children = set;
+            }
+        } else {
+            asSet().add(newChild);
+        }
+        childCount++;
+        modCount++;
+    }
+
+    /**
+     * Deletes a child from the children storage, keeping the order of the rest.
+     *
+     * @param child the child
+     * @return true if the child was deleted
+     */
+    private boolean delete(final MutableTreeNode<T> child) {
+        boolean deleted = false;
+        if (children instanceof MutableTreeNode) {
+            deleted = children.equals(child);
+        } else if (children instanceof Object[]) {
+            final Object[] array = (Object[]) children;
+            for (int i = 0; i < childCount && !deleted; i++) {
+                if (array[i].equals(child)) {
+                    System.arraycopy(array, i + 1, array, i, childCount - i - 1);
+                    array[childCount - 1] = null;
+                    deleted = true;
+                }
+            }
+        } else if (children != null) {
+            deleted = asSet().remove(child);
+        }
+        if (deleted) {
+            childCount--;
+            modCount++;
+            if (childCount == 0) {
+                children = null;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Gets the children storage as a set.
+     *
+     * @return the children set
+     */
+    @SuppressWarnings("unchecked")
+    private LinkedHashSet<MutableTreeNode<T>> asSet() {
+        return (LinkedHashSet<MutableTreeNode<T>>) children;
+    }
+
+    /**
+     * Casts a child from the children storage.
+     *
+     * @param child the child
+     * @return the child as a node
+     */
+    @SuppressWarnings("unchecked")
+    private MutableTreeNode<T> cast(final Object child) {
+        return (MutableTreeNode<T>) child;
+    }
+
+    /**
+     * Creates an unmodifiable iterator over the current children, failing fast like the iterators
+     * of DefaultMutableTreeNode when the children change.
+     *
+     * @param <E> the type of node returned by the iterator
+     * @return the children iterator
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends TreeNode<T>> Iterator<E> childIterator() {
+        if (children instanceof LinkedHashSet) {
+            return (Iterator<E>) Collections.unmodifiableSet(asSet()).iterator();
+        } else if (children instanceof Object[]) {
+            return new ArrayIterator<>((Object[]) children, childCount, () -> modCount);
+        } else {
+            return new ArrayIterator<>(new Object[] {children}, childCount, () -> modCount);
+        }
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe {@link MutableTreeNode}. Structural changes by {@link #add}, {@link #remove},
+ * {@link #removeFromParent} and {@link #setParent} are atomic: the child, its old parent and its
+ * new parent are locked together and a moved node is never seen without parent or in two children
+ * lists once the change completes. Writers take striped locks shared by all concurrent nodes, in a
+ * fixed order, so unrelated moves rarely contend and never deadlock.
+ *
+ * <p>Readers never block. Children are kept in copy-on-write arrays, so {@link #getChildren()}
+ * iterates the children as they were when the iteration started, unaffected by later changes. A
+ * consistent view of a whole subtree is taken by {@link #snapshot()}, which reads optimistically,
+ * validating a per node version that writers make odd while they change the node, and only falls
+ * back to blocking writers if the subtree keeps changing under it.
+ *
+ * <p>Adding or removing a child copies the children array of the parent, so this class suits
+ * read-mostly trees with moderate fan-out. Parents and children must be ConcurrentTreeNode
+ * instances, other nodes are rejected with an IllegalArgumentException. As with
+ * {@link DefaultMutableTreeNode}, a node must not be moved under one of its descendants.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class ConcurrentTreeNode<T> implements MutableTreeNode<T> {
+    /**
+     * Number of lock stripes, a power of two.
+     */
+    static final int STRIPES = 64;
+
+    /**
+     * Number of optimistic snapshot attempts before blocking writers.
+     */
+    static final int MAX_OPTIMISTIC_SNAPSHOTS = 4;
+
+    /**
+     * Shared children array of leaves.
+     */
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    /**
+     * The lock stripes, always acquired in index order.
+     */
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+    /**
+     * Stripe of the next created node.
+     */
+    private static final AtomicInteger NEXT_STRIPE = new AtomicInteger();
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Index of the lock stripe of this node.
+     */
+    private final int stripe = NEXT_STRIPE.getAndIncrement() & (STRIPES - 1);
+
+    /**
+     * This node's parent, or null if this node has no parent.
+     */
+    private volatile ConcurrentTreeNode<T> parent;
+
+    /**
+     * Data object in this node.
+     */
+    private volatile T data;
+
+    /**
+     * Children in insertion order, never modified once published.
+     */
+    private volatile Object[] children = NO_CHILDREN;
+
+    /**
+     * Version of the children and data of this node, odd while a writer changes them. Only
+     * changed while holding the lock stripe of this node.
+     */
+    private volatile int version;
+
+    /**
+     * Constructs a new root node.
+     * @param data the data object in this node
+     */
+    public ConcurrentTreeNode(final T data) {
+        this(data, null);
+    }
+
+    /**
+     * Constructs a new node with parent.
+     * @param data the data object in this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public ConcurrentTreeNode(final T data, final ConcurrentTreeNode<T> parent) {
+        this.data = data;
+        setParent(parent);
+    }
+
+    /**
+     * Takes a consistent snapshot of this subtree: the structure is the one of the subtree at a
+     * single point in time, and so are the data objects. The subtree is first walked without
+     * locking and then validated by checking that no node version changed; if that fails
+     * {@link #MAX_OPTIMISTIC_SNAPSHOTS} times, all lock stripes are taken for one walk.
+     *
+     * @return the frozen snapshot of this subtree
+     */
+    public final FrozenTree<T> snapshot() {
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_SNAPSHOTS; attempt++) {
+            final Snapshot<T> snapshot = new Snapshot<>();
+            if (snapshot.collect(this) && snapshot.validate()) {
+                return snapshot.freeze();
+            }
+        }
+        for (final ReentrantLock lock : LOCKS) {
+            lock.lock();
+        }
+        try {
+            final Snapshot<T> snapshot = new Snapshot<>();
+            snapshot.collect(this);
+            return snapshot.freeze();
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                LOCKS[i].unlock();
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#add()
+     */
+    @Override
+    public final MutableTreeNode<T> add(final MutableTreeNode<T> newChild) {
+        move(check(newChild), null, this);
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public final T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#setData()
+     */
+    @Override
+    public final MutableTreeNode<T> setData(final T newData) {
+        final ReentrantLock lock = LOCKS[stripe];
+        lock.lock();
+        try {
+            version++;
+            this.data = newData;
+            version++;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public final Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                final Object[] array = children;
+                return new ArrayIterator<>(array, array.length);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getMutableChildren()
+     */
+    @Override
+    public final Iterable<MutableTreeNode<T>> getMutableChildren() {
+        return new Iterable<MutableTreeNode<T>>() {
+            @Override
+            public Iterator<MutableTreeNode<T>> iterator() {
+                final Object[] array = children;
+                return new ArrayIterator<>(array, array.length);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public final boolean isLeaf() {
+        return children.length == 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getParent()
+     */
+    @Override
+    public final TreeNode<T> getParent() {
+        return parent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.itagile.logic.trees.MutableTreeNode#setParent(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final MutableTreeNode<T> setParent(final MutableTreeNode<T> newParent) {
+        move(this, null, newParent == null ? null : check(newParent));
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#removeFromParent()
+     */
+    @Override
+    public final void removeFromParent() {
+        move(this, null, null);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#remove(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final boolean remove(final MutableTreeNode<T> child) {
+        return child instanceof ConcurrentTreeNode
+                && move((ConcurrentTreeNode<T>) child, this, null);
+    }
+
+    /**
+     * Checks that a new parent or child is a concurrent node.
+     *
+     * @param node the new parent or child
+     * @return the node as a concurrent node
+     */
+    private ConcurrentTreeNode<T> check(final MutableTreeNode<T> node) {
+        if (!(node instanceof ConcurrentTreeNode)) {
+            throw new IllegalArgumentException("Node must be a ConcurrentTreeNode");
+        }
+        return (ConcurrentTreeNode<T>) node;
+    }
+
+    /**
+     * Moves a node to a new parent atomically. The stripes of the node, its current parent and
+     * the new parent are locked in index order, and the move is retried if the node was moved by
+     * another thread before the locks were taken. Both parents keep an odd version until both
+     * children arrays are published, so snapshots never validate a half-done move.
+     *
+     * @param child the node to move
+     * @param from the required current parent, or null to move from any parent
+     * @param to the new parent, or null to remove the node from its parent
+     * @param <T> the type of data object in the nodes
+     * @return true if the node was moved
+     */
+    private static <T> boolean move(final ConcurrentTreeNode<T> child,
+            final ConcurrentTreeNode<T> from, final ConcurrentTreeNode<T> to) {
+        while (true) {
+            final ConcurrentTreeNode<T> old = child.parent;
+            if (old == to || from != null && old != from) {
+                return false;
+            }
+            final int a = child.stripe;
+            final int b = old == null ? a : old.stripe;
+            final int c = to == null ? a : to.stripe;
+            final int low = Math.min(a, Math.min(b, c));
+            final int high = Math.max(a, Math.max(b, c));
+            final int middle = a + b + c - low - high;
+            LOCKS[low].lock();
+            if (middle != low) {
+                LOCKS[middle].lock();
+            }
+            if (high != middle) {
+                LOCKS[high].lock();
+            }
+            try {
+                if (child.parent == old) {
+                    if (old != null) {
+                        old.version++;
+                    }
+                    if (to != null) {
+                        to.version++;
+                    }
+                    if (old != null) {
+                        old.children = without(old.children, child);
+                    }
+                    child.parent = to;
+                    if (to != null) {
+                        final Object[] array = to.children;
+                        final Object[] copy = Arrays.copyOf(array, array.length + 1);
+                        copy[array.length] = child;
+                        to.children = copy;
+                        to.version++;
+                    }
+                    if (old != null) {
+                        old.version++;
+                    }
+                    return true;
+                }
+            } finally {
+                if (high != middle) {
+                    LOCKS[high].unlock();
+                }
+                if (middle != low) {
+                    LOCKS[middle].unlock();
+                }
+                LOCKS[low].unlock();
+            }
+        }
+    }
+
+    /**
+     * Copies a children array without a child.
+     *
+     * @param array the children array, containing the child
+     * @param child the child to leave out
+     * @return the new children array
+     */
+    private static Object[] without(final Object[] array, final Object child) {
+        final Object[] copy = new Object[array.length - 1];
+        int j = 0;
+        for (final Object element : array) {
+            if (element != child) {
+                copy[j++] = element;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Pre-order snapshot of a subtree in the layout of {@link FrozenTree}, recording the version
+     * of each node before reading its children array and data object, so that they can be
+     * validated afterwards.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class Snapshot<T> {
+        /**
+         * Initial capacity of the arrays.
+         */
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Number of recorded nodes.
+         */
+        private int size;
+
+        /**
+         * The recorded nodes.
+         */
+        private Object[] nodes = new Object[INITIAL_CAPACITY];
+
+        /**
+         * Version read from each node.
+         */
+        private int[] versions = new int[INITIAL_CAPACITY];
+
+        /**
+         * Children array read from each node.
+         */
+        private Object[][] arrays = new Object[INITIAL_CAPACITY][];
+
+        /**
+         * Data object read from each node.
+         */
+        private Object[] data = new Object[INITIAL_CAPACITY];
+
+        /**
+         * Parent index of each node.
+         */
+        private int[] parents = new int[INITIAL_CAPACITY];
+
+        /**
+         * Next sibling index of each node.
+         */
+        private int[] nextSiblings = new int[INITIAL_CAPACITY];
+
+        /**
+         * Subtree size of each node.
+         */
+        private int[] subtreeSizes = new int[INITIAL_CAPACITY];
+
+        /**
+         * Walks a subtree without recursion. Recorded nodes are validated each time the arrays
+         * grow, so that a walk over children arrays changing under it stops early instead of
+         * following a node moved to its own subtree again and again.
+         *
+         * @param root the root of the subtree
+         * @return false if the recorded nodes changed during the walk
+         */
+        @SuppressWarnings("unchecked")
+        boolean collect(final ConcurrentTreeNode<T> root) {
+            if (!record(root, FrozenTree.NONE)) {
+                return false;
+            }
+            int[] frames = new int[INITIAL_CAPACITY];
+            int[] positions = new int[INITIAL_CAPACITY];
+            int[] lastChildren = new int[INITIAL_CAPACITY];
+            lastChildren[0] = FrozenTree.NONE;
+            int depth = 1;
+            while (depth > 0) {
+                final int node = frames[depth - 1];
+                final Object[] array = arrays[node];
+                if (positions[depth - 1] < array.length) {
+                    if (size == nodes.length) {
+                        if (!validate()) {
+                            return false;
+                        }
+                        grow();
+                    }
+                    final int index = size;
+                    if (!record((ConcurrentTreeNode<T>) array[positions[depth - 1]++], node)) {
+                        return false;
+                    }
+                    if (lastChildren[depth - 1] != FrozenTree.NONE) {
+                        nextSiblings[lastChildren[depth - 1]] = index;
+                    }
+                    lastChildren[depth - 1] = index;
+                    if (depth == frames.length) {
+                        frames = Arrays.copyOf(frames, depth * 2);
+                        positions = Arrays.copyOf(positions, depth * 2);
+                        lastChildren = Arrays.copyOf(lastChildren, depth * 2);
+                    }
+                    frames[depth] = index;
+                    positions[depth] = 0;
+                    lastChildren[depth] = FrozenTree.NONE;
+                    depth++;
+                } else {
+                    subtreeSizes[node] = size - node;
+                    depth--;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks that no recorded node has changed since it was read.
+         *
+         * @return true if the recorded nodes are unchanged
+         */
+        boolean validate() {
+            for (int i = 0; i < size; i++) {
+                if (((ConcurrentTreeNode<?>) nodes[i]).version != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Creates the frozen tree of the recorded nodes.
+         *
+         * @return the frozen tree
+         */
+        FrozenTree<T> freeze() {
+            return new FrozenTree<>(Arrays.copyOf(parents, size),
+                    Arrays.copyOf(nextSiblings, size), Arrays.copyOf(subtreeSizes, size),
+                    Arrays.copyOf(data, size));
+        }
+
+        /**
+         * Records a node, reading its version, its children array and its data object.
+         *
+         * @param node the node
+         * @param parent the parent index
+         * @return false if a writer is changing the node
+         */
+        private boolean record(final ConcurrentTreeNode<T> node, final int parent) {
+            final int version = node.version;
+            if ((version & 1) != 0) {
+                return false;
+            }
+            nodes[size] = node;
+            versions[size] = version;
+            arrays[size] = node.children;
+            data[size] = node.data;
+            parents[size] = parent;
+            nextSiblings[size] = FrozenTree.NONE;
+            size++;
+            return true;
+        }
+
+        /**
+         * Doubles the capacity of the arrays.
+         */
+        private void grow() {
+            final int capacity = nodes.length * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            data = Arrays.copyOf(data, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            subtreeSizes = Arrays.copyOf(subtreeSizes, capacity);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * Computes a 64-bit content hash of the data objects of a {@link HashedTreeNode}. Equal data
+ * objects must have the same hash, and different data objects should have different hashes with
+ * high probability, as subtrees with the same hash are considered equal.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public interface DataHasher<T> {
+    /**
+     * Computes the hash of a data object.
+     *
+     * @param data the data object, may be null
+     * @return the hash of the data object
+     */
+    long hash(T data);
+}
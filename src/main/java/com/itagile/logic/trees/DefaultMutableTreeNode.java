@@ -16,16 +16,21 @@
 
 package com.itagile.logic.trees;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A {@link MutableTreeNode<T>} generic implementation. The specific type of the collection could be
  * changed by derived classes. By default uses LinkedHashSet<T> in order to guarantee initial
  * insertion order for getChildren. This internal collection can be changed by derived classes using
  * the protected constructor or the setCollection method. This class can be serialized to JSON but
- * is not intended for JSON deserialization.
+ * is not intended for JSON deserialization by itself, use
+ * {@link com.itagile.logic.trees.jackson.TreeModule} instead.
  *
  * @author Javier Alcala
  * @param <T> the type of data object in this node
@@ -133,6 +138,28 @@ public class DefaultMutableTreeNode<T> implements MutableTreeNode<T> {
         return this;
     }
 
+    /**
+     * Appends a new child without the membership check and the parent notification of add. Only
+     * for builders that guarantee the child is not yet in this node and has no parent.
+     *
+     * @param newChild the child node to append, without parent
+     */
+    final void append(final DefaultMutableTreeNode<T> newChild) {
+        collection.add(newChild);
+        newChild.parent = this;
+    }
+
+    /**
+     * Detaches a child without the parent notification of remove. Only for batches that already
+     * validated the child belongs to this node.
+     *
+     * @param child the child node to detach
+     */
+    final void detach(final DefaultMutableTreeNode<T> child) {
+        collection.remove(child);
+        child.parent = null;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -240,4 +267,78 @@ public class DefaultMutableTreeNode<T> implements MutableTreeNode<T> {
         return removed;
     }
 
+    /**
+     * Adds several children in order, moving them from their previous parents. The children are
+     * copied first, so they may be the live children of another node. The ancestors of this node
+     * are collected once to validate every child before any change, and children of this class
+     * are moved directly on the children collections.
+     *
+     * @param newChildren the child objects to add
+     * @return this object
+     * @throws IllegalArgumentException if a child is this node or one of its ancestors
+     */
+    @Override
+    public final MutableTreeNode<T> addAll(
+            final Iterable<? extends MutableTreeNode<T>> newChildren) {
+        final List<MutableTreeNode<T>> moved = new ArrayList<>();
+        for (final MutableTreeNode<T> newChild : newChildren) {
+            moved.add(newChild);
+        }
+        final Set<TreeNode<T>> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TreeNode<T> ancestor = this; ancestor != null; ancestor = ancestor
+                instanceof MutableTreeNode ? ((MutableTreeNode<T>) ancestor).getParent() : null) {
+            ancestors.add(ancestor);
+        }
+        for (final MutableTreeNode<T> newChild : moved) {
+            if (ancestors.contains(newChild)) {
+                throw new IllegalArgumentException("A node cannot be moved into its own subtree");
+            }
+        }
+        for (final MutableTreeNode<T> newChild : moved) {
+            if (newChild.getParent() == this) {
+                continue;
+            }
+            if (newChild instanceof DefaultMutableTreeNode) {
+                final DefaultMutableTreeNode<T> child = (DefaultMutableTreeNode<T>) newChild;
+                if (child.parent instanceof DefaultMutableTreeNode) {
+                    ((DefaultMutableTreeNode<T>) child.parent).detach(child);
+                } else {
+                    child.removeFromParent();
+                }
+                append(child);
+            } else {
+                add(newChild);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Removes the children of this node among several nodes, which may be the live children of
+     * this node. Updates the parent of the removed children to null.
+     *
+     * @param children the nodes to be removed, other nodes are ignored
+     * @return true if a child was removed as a result of this call
+     */
+    @Override
+    public final boolean removeAll(final Iterable<? extends MutableTreeNode<T>> children) {
+        final List<MutableTreeNode<T>> removedChildren = new ArrayList<>();
+        for (final MutableTreeNode<T> child : children) {
+            removedChildren.add(child);
+        }
+        boolean removed = false;
+        for (final MutableTreeNode<T> child : removedChildren) {
+            if (child.getParent() != this) {
+                continue;
+            }
+            if (child instanceof DefaultMutableTreeNode) {
+                detach((DefaultMutableTreeNode<T>) child);
+            } else {
+                remove(child);
+            }
+            removed = true;
+        }
+        return removed;
+    }
+
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A tree node holding an unboxed {@code double} value, for numeric indicator trees. The value is
+ * read and written with {@link #getValue()} and {@link #setValue(double)}, and the subtree
+ * aggregations {@link #sum()}, {@link #min()}, {@link #max()} and {@link #count()} never box and
+ * never recurse. Like {@link Math#min(double, double)}, min and max return NaN if any value is
+ * NaN.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class DoubleTreeNode extends PrimitiveTreeNode<DoubleTreeNode, Double> {
+    /**
+     * The value of this node.
+     */
+    private double value;
+
+    /**
+     * Constructs a new root node with value 0.
+     */
+    public DoubleTreeNode() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new root node.
+     *
+     * @param value the value of this node
+     */
+    public DoubleTreeNode(final double value) {
+        this.value = value;
+    }
+
+    /**
+     * Constructs a new node with parent.
+     *
+     * @param value the value of this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public DoubleTreeNode(final double value, final DoubleTreeNode parent) {
+        this.value = value;
+        setParent(parent);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.PrimitiveTreeNode#self()
+     */
+    @Override
+    protected final DoubleTreeNode self() {
+        return this;
+    }
+
+    /**
+     * Gets the value of this node.
+     *
+     * @return the value of this node
+     */
+    @JsonIgnore
+    public final double getValue() {
+        return value;
+    }
+
+    /**
+     * Sets the value of this node.
+     *
+     * @param newValue the new value of this node
+     * @return this object
+     */
+    public final DoubleTreeNode setValue(final double newValue) {
+        this.value = newValue;
+        return this;
+    }
+
+    /**
+     * Gets the value of this node boxed, prefer {@link #getValue()}.
+     *
+     * @return the boxed value of this node
+     */
+    @Override
+    public final Double getData() {
+        return value;
+    }
+
+    /**
+     * Sums the values of every node in this subtree, including this one.
+     *
+     * @return the sum of the values
+     */
+    public final double sum() {
+        double sum = 0;
+        final Deque<DoubleTreeNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final DoubleTreeNode node = stack.pop();
+            sum += node.value;
+            node.pushChildren(stack);
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the minimum value of every node in this subtree, including this one.
+     *
+     * @return the minimum value
+     */
+    public final double min() {
+        double min = value;
+        final Deque<DoubleTreeNode> stack = new ArrayDeque<>();
+        pushChildren(stack);
+        while (!stack.isEmpty()) {
+            final DoubleTreeNode node = stack.pop();
+            min = Math.min(min, node.value);
+            node.pushChildren(stack);
+        }
+        return min;
+    }
+
+    /**
+     * Gets the maximum value of every node in this subtree, including this one.
+     *
+     * @return the maximum value
+     */
+    public final double max() {
+        double max = value;
+        final Deque<DoubleTreeNode> stack = new ArrayDeque<>();
+        pushChildren(stack);
+        while (!stack.isEmpty()) {
+            final DoubleTreeNode node = stack.pop();
+            max = Math.max(max, node.value);
+            node.pushChildren(stack);
+        }
+        return max;
+    }
+
+    /**
+     * Counts the nodes in this subtree, including this one.
+     *
+     * @return the number of nodes
+     */
+    public final int count() {
+        int count = 0;
+        final Deque<DoubleTreeNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final DoubleTreeNode node = stack.pop();
+            count++;
+            node.pushChildren(stack);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * Extracts a value, like a key or the node data, from a source object.
+ *
+ * @author Javier Alcala
+ * @param <S> the type of source object
+ * @param <V> the type of extracted value
+ * @since 1.1
+ */
+public interface Extractor<S, V> {
+    /**
+     * Extracts the value from the source object.
+     *
+     * @param source the source object
+     * @return the extracted value
+     */
+    V extract(S source);
+}
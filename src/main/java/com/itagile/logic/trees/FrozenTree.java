@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Read-only snapshot of a tree stored as parallel arrays in pre-order layout. Node i has its first
+ * child, if any, at i + 1 and its whole subtree at [i, i + getSubtreeSize(i)), so depth-first walks
+ * read the arrays sequentially. A frozen tree takes a small fraction of the heap of the
+ * equivalent {@link DefaultMutableTreeNode} tree, and is safe for concurrent readers.
+ *
+ * <p>Nodes can be accessed by index without allocation, or through {@link TreeNode} views that
+ * are created on demand by {@link #getRoot()} and {@link #getNode(int)}. Data objects are shared
+ * with the source tree, not copied.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public final class FrozenTree<T> {
+    /**
+     * Value of parent and sibling indexes when there is no such node.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Initial capacity of the arrays while freezing.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Parent index of each node, {@link #NONE} for the root.
+     */
+    private final int[] parents;
+
+    /**
+     * Next sibling index of each node, {@link #NONE} for the last child.
+     */
+    private final int[] nextSiblings;
+
+    /**
+     * Number of nodes in the subtree of each node, including itself.
+     */
+    private final int[] subtreeSizes;
+
+    /**
+     * Data object of each node.
+     */
+    private final Object[] data;
+
+    /**
+     * Constructs a new frozen tree from its arrays, which must describe a pre-order layout and are
+     * not copied.
+     *
+     * @param parents parent index of each node
+     * @param nextSiblings next sibling index of each node
+     * @param subtreeSizes subtree size of each node
+     * @param data data object of each node
+     */
+    FrozenTree(final int[] parents, final int[] nextSiblings, final int[] subtreeSizes,
+            final Object[] data) {
+        this.parents = parents;
+        this.nextSiblings = nextSiblings;
+        this.subtreeSizes = subtreeSizes;
+        this.data = data;
+    }
+
+    /**
+     * Takes a snapshot of a tree without recursion. The source tree must not be modified while
+     * it is frozen.
+     *
+     * @param root the root of the source tree
+     * @param <T> the type of data object in the nodes
+     * @return the frozen tree
+     */
+    public static <T> FrozenTree<T> freeze(final TreeNode<T> root) {
+        int capacity = INITIAL_CAPACITY;
+        int[] parents = new int[capacity];
+        int[] nextSiblings = new int[capacity];
+        int[] subtreeSizes = new int[capacity];
+        Object[] data = new Object[capacity];
+        // index and last added child of the nodes whose children are being frozen
+        int[] frames = new int[INITIAL_CAPACITY];
+        int[] lastChildren = new int[INITIAL_CAPACITY];
+        final Deque<Iterator<TreeNode<T>>> iterators = new ArrayDeque<>();
+        int size = 0;
+        TreeNode<T> node = root;
+        while (node != null) {
+            if (size == capacity) {
+                capacity = capacity * 2;
+                parents = Arrays.copyOf(parents, capacity);
+                nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+                subtreeSizes = Arrays.copyOf(subtreeSizes, capacity);
+                data = Arrays.copyOf(data, capacity);
+            }
+            final int depth = iterators.size();
+            final int index = size++;
+            data[index] = node.getData();
+            nextSiblings[index] = NONE;
+            subtreeSizes[index] = 1;
+            if (depth == 0) {
+                parents[index] = NONE;
+            } else {
+                parents[index] = frames[depth - 1];
+                if (lastChildren[depth - 1] != NONE) {
+                    nextSiblings[lastChildren[depth - 1]] = index;
+                }
+                lastChildren[depth - 1] = index;
+            }
+            if (!node.isLeaf()) {
+                if (depth == frames.length) {
+                    frames = Arrays.copyOf(frames, depth * 2);
+                    lastChildren = Arrays.copyOf(lastChildren, depth * 2);
+                }
+                frames[depth] = index;
+                lastChildren[depth] = NONE;
+                iterators.push(node.getChildren().iterator());
+            }
+            node = null;
+            while (node == null && !iterators.isEmpty()) {
+                final Iterator<TreeNode<T>> iterator = iterators.peek();
+                if (iterator.hasNext()) {
+                    node = iterator.next();
+                } else {
+                    iterators.pop();
+                    final int finished = frames[iterators.size()];
+                    subtreeSizes[finished] = size - finished;
+                }
+            }
+        }
+        return new FrozenTree<>(Arrays.copyOf(parents, size), Arrays.copyOf(nextSiblings, size),
+                Arrays.copyOf(subtreeSizes, size), Arrays.copyOf(data, size));
+    }
+
+    /**
+     * Gets the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * Gets a view of the root node.
+     *
+     * @return the root node, or null if the tree is empty
+     */
+    public FrozenTreeNode<T> getRoot() {
+        return data.length == 0 ? null : new FrozenTreeNode<>(this, 0);
+    }
+
+    /**
+     * Gets a view of a node.
+     *
+     * @param index the node index
+     * @return the node view
+     */
+    public FrozenTreeNode<T> getNode(final int index) {
+        checkIndex(index);
+        return new FrozenTreeNode<>(this, index);
+    }
+
+    /**
+     * Gets the data object of a node.
+     *
+     * @param index the node index
+     * @return the data object of the node
+     */
+    @SuppressWarnings("unchecked")
+    public T getData(final int index) {
+        return (T) data[index];
+    }
+
+    /**
+     * Gets the parent index of a node.
+     *
+     * @param index the node index
+     * @return the parent index, or {@link #NONE} for the root
+     */
+    public int getParent(final int index) {
+        return parents[index];
+    }
+
+    /**
+     * Gets the first child index of a node.
+     *
+     * @param index the node index
+     * @return the first child index, or {@link #NONE} for leaves
+     */
+    public int getFirstChild(final int index) {
+        return subtreeSizes[index] > 1 ? index + 1 : NONE;
+    }
+
+    /**
+     * Gets the next sibling index of a node.
+     *
+     * @param index the node index
+     * @return the next sibling index, or {@link #NONE} for the last child and the root
+     */
+    public int getNextSibling(final int index) {
+        return nextSiblings[index];
+    }
+
+    /**
+     * Gets the number of nodes in the subtree of a node, including itself. The subtree of node i
+     * takes the indexes [i, i + getSubtreeSize(i)).
+     *
+     * @param index the node index
+     * @return the subtree size
+     */
+    public int getSubtreeSize(final int index) {
+        return subtreeSizes[index];
+    }
+
+    /**
+     * Checks if a node is a leaf.
+     *
+     * @param index the node index
+     * @return true if the node is a leaf
+     */
+    public boolean isLeaf(final int index) {
+        return subtreeSizes[index] == 1;
+    }
+
+    /**
+     * Checks that an index is in range.
+     *
+     * @param index the node index
+     */
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= data.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + data.length);
+        }
+    }
+}
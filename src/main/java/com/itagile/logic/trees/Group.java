@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * The data object of the nodes built by a {@link GroupingTreeBuilder}: the key shared by the
+ * records of a group, the number of records and their aggregated value.
+ *
+ * @author Javier Alcala
+ * @param <K> the type of group keys
+ * @param <V> the type of aggregated values
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class Group<K, V> {
+    /**
+     * The key of the group, null for the root.
+     */
+    private final K key;
+
+    /**
+     * The grouping level, 0 for the root.
+     */
+    private final int level;
+
+    /**
+     * The number of records in the group.
+     */
+    private final long count;
+
+    /**
+     * The aggregated value of the records in the group.
+     */
+    private final V value;
+
+    /**
+     * Constructs a new group.
+     *
+     * @param key the key of the group
+     * @param level the grouping level
+     * @param count the number of records in the group
+     * @param value the aggregated value of the records in the group
+     */
+    Group(final K key, final int level, final long count, final V value) {
+        this.key = key;
+        this.level = level;
+        this.count = count;
+        this.value = value;
+    }
+
+    /**
+     * Gets the key shared by the records of the group, extracted by the key extractor of its
+     * level. The key of the root is null.
+     *
+     * @return the key of the group
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the grouping level: 0 for the root, n for the groups of the n-th key extractor.
+     *
+     * @return the grouping level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the number of records in the group and its subgroups.
+     *
+     * @return the number of records
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the aggregated value of the records in the group, or null if the tree was built
+     * without aggregates.
+     *
+     * @return the aggregated value
+     */
+    public V getValue() {
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return key + "(" + count + ")=" + value;
+    }
+}
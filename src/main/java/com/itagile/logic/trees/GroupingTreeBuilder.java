@@ -0,0 +1,374 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Builds grouped trees of {@link DefaultMutableTreeNode} from flat records, like sales nested
+ * under country, region, store and product for an aggregation report. Each key extractor defines
+ * one level: the root holds every record, its children the groups of the first key, their
+ * children the groups of the second key within them, and so on. Groups keep the order in which
+ * their keys were first found, and null keys form a group of their own.
+ *
+ * <p>Records are read once: each one is routed down the levels with one hash lookup per level
+ * and, when the tree is built with a {@link Collector}, accumulated into its deepest group only.
+ * Counts and aggregates are then rolled up to the upper groups once per group. The combiner of
+ * the collector must leave its right argument unchanged, as the standard collectors do.
+ *
+ * <p>{@link #collector(Collector)} builds the tree from a stream: parallel streams build partial
+ * trees from chunks of records and merge them, group by group, in encounter order. Instances are
+ * immutable and can be shared.
+ *
+ * @author Javier Alcala
+ * @param <R> the type of records
+ * @param <K> the type of group keys, with consistent equals and hashCode
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class GroupingTreeBuilder<R, K> {
+    /**
+     * The key extractors, one per level.
+     */
+    private final Extractor<? super R, ? extends K>[] extractors;
+
+    /**
+     * Constructs a new builder.
+     *
+     * @param extractors the key extractors, from the upper level to the deepest one
+     */
+    public GroupingTreeBuilder(final List<? extends Extractor<? super R, ? extends K>> extractors) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Extractor<? super R, ? extends K>[] array = extractors
+                .toArray(new Extractor[extractors.size()]);
+        this.extractors = array;
+    }
+
+    /**
+     * Builds the grouped tree of the given records, counting the records of every group.
+     *
+     * @param records the records
+     * @return the root group
+     */
+    public MutableTreeNode<Group<K, Void>> build(final Iterable<? extends R> records) {
+        return build(records.iterator());
+    }
+
+    /**
+     * Builds the grouped tree of the given records, counting the records of every group.
+     *
+     * @param records the records
+     * @return the root group
+     */
+    public MutableTreeNode<Group<K, Void>> build(final Iterator<? extends R> records) {
+        return build(records, null);
+    }
+
+    /**
+     * Builds the grouped tree of the given records, aggregating the records of every group.
+     *
+     * @param records the records
+     * @param aggregate the collector of the aggregated value of every group
+     * @param <V> the type of aggregated values
+     * @return the root group
+     */
+    public <V> MutableTreeNode<Group<K, V>> build(final Iterable<? extends R> records,
+            final Collector<? super R, ?, V> aggregate) {
+        return build(records.iterator(), aggregate);
+    }
+
+    /**
+     * Builds the grouped tree of the given records, aggregating the records of every group.
+     *
+     * @param records the records
+     * @param aggregate the collector of the aggregated value of every group, or null to count only
+     * @param <V> the type of aggregated values
+     * @return the root group
+     */
+    public <V> MutableTreeNode<Group<K, V>> build(final Iterator<? extends R> records,
+            final Collector<? super R, ?, V> aggregate) {
+        return collect(records, aggregate);
+    }
+
+    /**
+     * Builds the grouped tree of the given records with a captured accumulation type.
+     *
+     * @param records the records
+     * @param aggregate the collector of the aggregated value of every group, or null
+     * @param <A> the accumulation type of the collector
+     * @param <V> the type of aggregated values
+     * @return the root group
+     */
+    private <A, V> MutableTreeNode<Group<K, V>> collect(final Iterator<? extends R> records,
+            final Collector<? super R, A, V> aggregate) {
+        final Partial<A> partial = new Partial<>(aggregate);
+        while (records.hasNext()) {
+            partial.add(records.next());
+        }
+        return partial.toTree(aggregate == null ? null : aggregate.finisher());
+    }
+
+    /**
+     * Gets a collector that builds the grouped tree of a stream, counting the records of every
+     * group.
+     *
+     * @return the collector of the root group
+     */
+    public Collector<R, ?, MutableTreeNode<Group<K, Void>>> collector() {
+        return collector(null);
+    }
+
+    /**
+     * Gets a collector that builds the grouped tree of a stream, aggregating the records of every
+     * group. Parallel streams build and merge partial trees.
+     *
+     * @param aggregate the collector of the aggregated value of every group, or null to count only
+     * @param <V> the type of aggregated values
+     * @return the collector of the root group
+     */
+    public <V> Collector<R, ?, MutableTreeNode<Group<K, V>>> collector(
+            final Collector<? super R, ?, V> aggregate) {
+        return capture(aggregate);
+    }
+
+    /**
+     * Gets a collector that builds the grouped tree with a captured accumulation type.
+     *
+     * @param aggregate the collector of the aggregated value of every group, or null
+     * @param <A> the accumulation type of the collector
+     * @param <V> the type of aggregated values
+     * @return the collector of the root group
+     */
+    private <A, V> Collector<R, Partial<A>, MutableTreeNode<Group<K, V>>> capture(
+            final Collector<? super R, A, V> aggregate) {
+        final Function<A, V> finisher = aggregate == null ? null : aggregate.finisher();
+        return Collector.of(() -> new Partial<>(aggregate), Partial::add, Partial::merge,
+            partial -> partial.toTree(finisher));
+    }
+
+    /**
+     * A group under construction.
+     *
+     * @param <K> the type of group keys
+     * @param <A> the accumulation type of the aggregate collector
+     */
+    private static final class Slot<K, A> {
+        /**
+         * The key of the group.
+         */
+        private final K key;
+
+        /**
+         * Subgroups by key, in the order their keys were found; null at the deepest level.
+         */
+        private final Map<K, Slot<K, A>> children;
+
+        /**
+         * Number of records, only in the deepest groups until rolled up.
+         */
+        private long count;
+
+        /**
+         * Accumulated records, only in the deepest groups until rolled up.
+         */
+        private A container;
+
+        /**
+         * Constructs a new slot.
+         *
+         * @param key the key of the group
+         * @param leaf if the group is at the deepest level
+         */
+        Slot(final K key, final boolean leaf) {
+            this.key = key;
+            this.children = leaf ? null : new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * A tree under construction, from all the records or, in parallel streams, from a chunk of
+     * them.
+     *
+     * @param <A> the accumulation type of the aggregate collector
+     */
+    private final class Partial<A> {
+        /**
+         * Creates the containers of the deepest groups, null without aggregates.
+         */
+        private final Supplier<A> supplier;
+
+        /**
+         * Accumulates a record into a container.
+         */
+        private final BiConsumer<A, ? super R> accumulator;
+
+        /**
+         * Combines two containers.
+         */
+        private final BinaryOperator<A> combiner;
+
+        /**
+         * The root group.
+         */
+        private final Slot<K, A> root = new Slot<>(null, extractors.length == 0);
+
+        /**
+         * Constructs a new partial tree.
+         *
+         * @param aggregate the collector of the aggregated value of every group, or null
+         */
+        Partial(final Collector<? super R, A, ?> aggregate) {
+            if (aggregate == null) {
+                supplier = null;
+                accumulator = null;
+                combiner = null;
+            } else {
+                supplier = aggregate.supplier();
+                accumulator = aggregate.accumulator();
+                combiner = aggregate.combiner();
+            }
+        }
+
+        /**
+         * Adds a record to its deepest group, creating the missing groups on its path.
+         *
+         * @param record the record
+         */
+        void add(final R record) {
+            Slot<K, A> slot = root;
+            final int last = extractors.length - 1;
+            for (int level = 0; level <= last; level++) {
+                final K key = extractors[level].extract(record);
+                Slot<K, A> child = slot.children.get(key);
+                if (child == null) {
+                    child = new Slot<>(key, level == last);
+                    slot.children.put(key, child);
+                }
+                slot = child;
+            }
+            slot.count++;
+            if (supplier != null) {
+                if (slot.container == null) {
+                    slot.container = supplier.get();
+                }
+                accumulator.accept(slot.container, record);
+            }
+        }
+
+        /**
+         * Merges a partial tree of the records that follow the records of this one.
+         *
+         * @param other the partial tree of the following records
+         * @return this partial tree
+         */
+        Partial<A> merge(final Partial<A> other) {
+            merge(root, other.root);
+            return this;
+        }
+
+        /**
+         * Merges a group into the group with the same key, recursively by level.
+         *
+         * @param into the group of this tree
+         * @param from the group of the following records
+         */
+        private void merge(final Slot<K, A> into, final Slot<K, A> from) {
+            into.count += from.count;
+            if (from.container != null) {
+                into.container = into.container == null ? from.container
+                        : combiner.apply(into.container, from.container);
+            }
+            if (from.children != null) {
+                for (final Slot<K, A> child : from.children.values()) {
+                    final Slot<K, A> same = into.children.get(child.key);
+                    if (same == null) {
+                        into.children.put(child.key, child);
+                    } else {
+                        merge(same, child);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Rolls up the counts and aggregates and builds the nodes.
+         *
+         * @param finisher the finisher of the aggregated values, or null without aggregates
+         * @param <V> the type of aggregated values
+         * @return the root node
+         */
+        <V> MutableTreeNode<Group<K, V>> toTree(final Function<A, V> finisher) {
+            rollUp(root);
+            return toNode(root, 0, finisher);
+        }
+
+        /**
+         * Rolls up the counts and containers of the subgroups of a group, recursively by level.
+         *
+         * @param slot the group
+         */
+        private void rollUp(final Slot<K, A> slot) {
+            if (slot.children == null) {
+                return;
+            }
+            for (final Slot<K, A> child : slot.children.values()) {
+                rollUp(child);
+                slot.count += child.count;
+                if (supplier != null) {
+                    slot.container = combiner.apply(
+                            slot.container == null ? supplier.get() : slot.container,
+                            child.container);
+                }
+            }
+        }
+
+        /**
+         * Builds the node of a rolled up group, recursively by level.
+         *
+         * @param slot the group
+         * @param level the grouping level
+         * @param finisher the finisher of the aggregated values, or null without aggregates
+         * @param <V> the type of aggregated values
+         * @return the node of the group
+         */
+        private <V> DefaultMutableTreeNode<Group<K, V>> toNode(final Slot<K, A> slot,
+                final int level, final Function<A, V> finisher) {
+            final V value = finisher == null || slot.container == null ? null
+                    : finisher.apply(slot.container);
+            final Group<K, V> group = new Group<>(slot.key, level, slot.count, value);
+            if (slot.children == null || slot.children.isEmpty()) {
+                return new DefaultMutableTreeNode<>(group);
+            }
+            final int size = slot.children.size();
+            final DefaultMutableTreeNode<Group<K, V>> node = new DefaultMutableTreeNode<>(group,
+                    null, new LinkedHashSet<MutableTreeNode<Group<K, V>>>(size + size / 3 + 1));
+            for (final Slot<K, A> child : slot.children.values()) {
+                node.append(toNode(child, level + 1, finisher));
+            }
+            return node;
+        }
+    }
+}
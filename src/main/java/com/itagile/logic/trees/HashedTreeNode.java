@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@link MutableTreeNode} that keeps a Merkle hash of its subtree cached, computed from the hash
+ * of its data object given by a {@link DataHasher} and the hashes of its children in order. Two
+ * subtrees with the same hash are considered equal, which lets {@link TreeDiff} skip them.
+ *
+ * <p>Changes by {@link #setData}, {@link #add}, {@link #remove}, {@link #removeFromParent} and
+ * {@link #setParent} only mark the changed node and its ancestors as dirty, stopping at the first
+ * ancestor already dirty, and {@link #getHash()} recomputes just the dirty nodes. Parents and
+ * children must be HashedTreeNode instances with the same hasher, other nodes are rejected with an
+ * IllegalArgumentException. Data objects must not be mutated in place, or the change will not be
+ * seen; set a new data object instead.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class HashedTreeNode<T> extends AbstractCachingTreeNode<T, HashedTreeNode<T>> {
+    /**
+     * Odd multiplier combining the hashes of the children.
+     */
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The hasher of the data objects.
+     */
+    private final DataHasher<? super T> hasher;
+
+    /**
+     * Cached hash of the data object, valid if not dirty.
+     */
+    private long dataHash;
+
+    /**
+     * Cached hash of this subtree, valid if not dirty.
+     */
+    private long hash;
+
+    /**
+     * Constructs a new root node.
+     * @param hasher the hasher of the data objects
+     * @param data the data object in this node
+     */
+    public HashedTreeNode(final DataHasher<? super T> hasher, final T data) {
+        this(hasher, data, null);
+    }
+
+    /**
+     * Constructs a new node with parent.
+     * @param hasher the hasher of the data objects
+     * @param data the data object in this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public HashedTreeNode(final DataHasher<? super T> hasher, final T data,
+            final HashedTreeNode<T> parent) {
+        super(data);
+        this.hasher = hasher;
+        setParent(parent);
+    }
+
+    /**
+     * Gets the hasher of the data objects.
+     *
+     * @return the hasher
+     */
+    @JsonIgnore
+    public final DataHasher<? super T> getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Gets the hash of this subtree, recomputing the dirty nodes of the subtree if needed.
+     *
+     * @return the hash of this subtree
+     */
+    @JsonIgnore
+    public final long getHash() {
+        refresh();
+        return hash;
+    }
+
+    /**
+     * Gets the hash of the data object in this node.
+     *
+     * @return the hash of the data object
+     */
+    @JsonIgnore
+    public final long getDataHash() {
+        refresh();
+        return dataHash;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractCachingTreeNode#self()
+     */
+    @Override
+    protected final HashedTreeNode<T> self() {
+        return this;
+    }
+
+    /**
+     * Checks that a node is a HashedTreeNode with the same hasher.
+     *
+     * @param node the node
+     * @return the node as a HashedTreeNode
+     */
+    @Override
+    protected final HashedTreeNode<T> check(final MutableTreeNode<T> node) {
+        if (!(node instanceof HashedTreeNode)
+                || ((HashedTreeNode<T>) node).hasher != hasher) {
+            throw new IllegalArgumentException(
+                    "Node must be a HashedTreeNode with the same hasher");
+        }
+        return (HashedTreeNode<T>) node;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractCachingTreeNode#recomputeNode()
+     */
+    @Override
+    protected final void recomputeNode() {
+        dataHash = hasher.hash(getData());
+        long value = mix(dataHash);
+        for (int i = 0; i < getChildCount(); i++) {
+            value = mix(value * MULTIPLIER + getChild(i).hash);
+        }
+        hash = mix(value + getChildCount());
+    }
+
+    /**
+     * Mixes the bits of a hash with the SplitMix64 finalizer.
+     *
+     * @param value the hash
+     * @return the mixed hash
+     */
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.AbstractCollection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A collection of distinct elements in insertion order, or sorted by a comparator, with positional
+ * access. Elements are kept in a treap whose nodes count the elements of their subtree, and a hash
+ * map from each element to its treap node, so membership checks take constant time and
+ * {@link #get(int)}, {@link #indexOf(Object)}, {@link #add(int, Object)} and
+ * {@link #remove(Object)} take O(log n) expected time. It is the children storage of
+ * {@link IndexedMutableTreeNode}, and can be given to the protected constructor of
+ * {@link DefaultMutableTreeNode} by other subclasses.
+ *
+ * <p>Like a set, elements are compared by equals and hashCode, and adding an element already in
+ * the collection does nothing. Sorted collections keep equal elements in insertion order. This
+ * class is not thread-safe.
+ *
+ * @author Javier Alcala
+ * @param <E> the type of elements
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class IndexedCollection<E> extends AbstractCollection<E> {
+    /**
+     * Treap node of each element.
+     */
+    private final Map<Object, Node<E>> nodes = new HashMap<>();
+
+    /**
+     * Order of sorted collections, or null to keep insertion order.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * Root of the treap, or null if empty.
+     */
+    private Node<E> root;
+
+    /**
+     * State of the xorshift generator of priorities.
+     */
+    private int seed = 0x2545F491;
+
+    /**
+     * Number of structural modifications, to detect concurrent modifications in iterators.
+     */
+    private int modCount;
+
+    /**
+     * Constructs a new collection in insertion order.
+     */
+    public IndexedCollection() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new collection sorted by a comparator.
+     *
+     * @param comparator the order of the elements, or null to keep insertion order
+     */
+    public IndexedCollection(final Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Gets the order of the elements.
+     *
+     * @return the comparator, or null if the collection keeps insertion order
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractCollection#contains(java.lang.Object)
+     */
+    @Override
+    public boolean contains(final Object o) {
+        return nodes.containsKey(o);
+    }
+
+    /**
+     * Gets the element at a position.
+     *
+     * @param index the position
+     * @return the element
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    public E get(final int index) {
+        checkIndex(index, size() - 1);
+        Node<E> node = root;
+        int position = index;
+        while (true) {
+            final int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node.element;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Gets the position of an element.
+     *
+     * @param o the element
+     * @return the position, or -1 if the element is not in this collection
+     */
+    public int indexOf(final Object o) {
+        Node<E> node = nodes.get(o);
+        if (node == null) {
+            return -1;
+        }
+        int index = size(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += size(node.parent.left) + 1;
+            }
+            node = node.parent;
+        }
+        return index;
+    }
+
+    /**
+     * Adds an element at the end, or at its sorted position in sorted collections.
+     *
+     * @param e the element
+     * @return true if the element was not in this collection
+     */
+    @Override
+    public boolean add(final E e) {
+        if (nodes.containsKey(e)) {
+            return false;
+        }
+        if (comparator == null) {
+            insert(e, size());
+        } else {
+            int index = 0;
+            Node<E> node = root;
+            while (node != null) {
+                if (comparator.compare(e, node.element) < 0) {
+                    node = node.left;
+                } else {
+                    index += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            insert(e, index);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts an element at a position, shifting the following elements.
+     *
+     * @param index the position
+     * @param e the element
+     * @return true if the element was not in this collection
+     * @throws IndexOutOfBoundsException if the position is out of range
+     * @throws UnsupportedOperationException if the collection is sorted
+     */
+    public boolean add(final int index, final E e) {
+        if (comparator != null) {
+            throw new UnsupportedOperationException("Sorted collections have no insert position");
+        }
+        checkIndex(index, size());
+        if (nodes.containsKey(e)) {
+            return false;
+        }
+        insert(e, index);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractCollection#remove(java.lang.Object)
+     */
+    @Override
+    public boolean remove(final Object o) {
+        final Node<E> node = nodes.remove(o);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractCollection#clear()
+     */
+    @Override
+    public void clear() {
+        nodes.clear();
+        root = null;
+        modCount++;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractCollection#iterator()
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Checks a position.
+     *
+     * @param index the position
+     * @param max the maximum position
+     */
+    private void checkIndex(final int index, final int max) {
+        if (index < 0 || index > max) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /**
+     * Gets the number of elements of a subtree.
+     *
+     * @param node the root of the subtree, or null
+     * @return the number of elements
+     */
+    private static int size(final Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Inserts a new element at a valid position, as a leaf rotated up by priority.
+     *
+     * @param e the element
+     * @param index the position
+     */
+    private void insert(final E e, final int index) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        final Node<E> node = new Node<>(e, seed);
+        nodes.put(e, node);
+        modCount++;
+        if (root == null) {
+            root = node;
+            return;
+        }
+        Node<E> parent = root;
+        int position = index;
+        while (true) {
+            parent.size++;
+            final int leftSize = size(parent.left);
+            if (position <= leftSize) {
+                if (parent.left == null) {
+                    parent.left = node;
+                    break;
+                }
+                parent = parent.left;
+            } else {
+                position -= leftSize + 1;
+                if (parent.right == null) {
+                    parent.right = node;
+                    break;
+                }
+                parent = parent.right;
+            }
+        }
+        node.parent = parent;
+        while (node.parent != null && node.parent.priority < node.priority) {
+            if (node == node.parent.left) {
+                rotateRight(node.parent);
+            } else {
+                rotateLeft(node.parent);
+            }
+        }
+    }
+
+    /**
+     * Removes a node from the treap, rotating it down to a leaf.
+     *
+     * @param node the node
+     */
+    private void unlink(final Node<E> node) {
+        modCount++;
+        while (node.left != null && node.right != null) {
+            if (node.left.priority > node.right.priority) {
+                rotateRight(node);
+            } else {
+                rotateLeft(node);
+            }
+        }
+        final Node<E> child = node.left == null ? node.right : node.left;
+        replace(node, child);
+        for (Node<E> ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.size--;
+        }
+    }
+
+    /**
+     * Replaces a node by another one in its parent.
+     *
+     * @param node the node
+     * @param replacement the new node, or null
+     */
+    private void replace(final Node<E> node, final Node<E> replacement) {
+        if (replacement != null) {
+            replacement.parent = node.parent;
+        }
+        if (node.parent == null) {
+            root = replacement;
+        } else if (node == node.parent.left) {
+            node.parent.left = replacement;
+        } else {
+            node.parent.right = replacement;
+        }
+    }
+
+    /**
+     * Rotates a node down to the left, its right child taking its place.
+     *
+     * @param node the node
+     */
+    private void rotateLeft(final Node<E> node) {
+        final Node<E> right = node.right;
+        replace(node, right);
+        node.right = right.left;
+        if (right.left != null) {
+            right.left.parent = node;
+        }
+        right.left = node;
+        node.parent = right;
+        right.size = node.size;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Rotates a node down to the right, its left child taking its place.
+     *
+     * @param node the node
+     */
+    private void rotateRight(final Node<E> node) {
+        final Node<E> left = node.left;
+        replace(node, left);
+        node.left = left.right;
+        if (left.right != null) {
+            left.right.parent = node;
+        }
+        left.right = node;
+        node.parent = left;
+        left.size = node.size;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Treap node.
+     *
+     * @param <E> the type of elements
+     */
+    private static final class Node<E> {
+        /**
+         * The element.
+         */
+        private final E element;
+
+        /**
+         * Random priority, parents have higher priorities than their children.
+         */
+        private final int priority;
+
+        /**
+         * Parent, or null for the root.
+         */
+        private Node<E> parent;
+
+        /**
+         * Left child, with the previous elements.
+         */
+        private Node<E> left;
+
+        /**
+         * Right child, with the following elements.
+         */
+        private Node<E> right;
+
+        /**
+         * Number of elements of this subtree.
+         */
+        private int size = 1;
+
+        /**
+         * Constructs a new leaf.
+         *
+         * @param element the element
+         * @param priority the priority
+         */
+        Node(final E element, final int priority) {
+            this.element = element;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * In-order iterator following parent links, so it uses no stack.
+     */
+    private final class Itr implements Iterator<E> {
+        /**
+         * Next node, or null.
+         */
+        private Node<E> next;
+
+        /**
+         * Last returned node, or null.
+         */
+        private Node<E> last;
+
+        /**
+         * Expected number of modifications.
+         */
+        private int expectedModCount = modCount;
+
+        /**
+         * Constructs a new iterator at the first element.
+         */
+        Itr() {
+            next = root;
+            if (next != null) {
+                while (next.left != null) {
+                    next = next.left;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            last = next;
+            if (next.right != null) {
+                next = next.right;
+                while (next.left != null) {
+                    next = next.left;
+                }
+            } else {
+                Node<E> child = next;
+                next = next.parent;
+                while (next != null && child == next.right) {
+                    child = next;
+                    next = next.parent;
+                }
+            }
+            return last.element;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            IndexedCollection.this.remove(last.element);
+            last = null;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Comparator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@link DefaultMutableTreeNode} for very wide nodes, whose children are kept in an
+ * {@link IndexedCollection} instead of a LinkedHashSet. Children can be read and inserted by
+ * position and located in O(log n), for instance to page through hundreds of thousands of
+ * children, while add, remove and membership checks stay close to constant time.
+ *
+ * <p>Children are kept in insertion order, or sorted by their data objects if a comparator is
+ * given. Sorted children are placed when they are added, so a child whose data object changes
+ * must be moved to its new position with {@link #reposition(MutableTreeNode)}; adding it again
+ * does nothing, as it is already a child.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+public class IndexedMutableTreeNode<T> extends DefaultMutableTreeNode<T> {
+    /**
+     * Constructs a new, empty root node.
+     * @param data the data object in this node
+     */
+    public IndexedMutableTreeNode(final T data) {
+        this(data, null);
+    }
+
+    /**
+     * Constructs a new, empty node with parent, keeping children in insertion order.
+     * @param data the data object in this node
+     * @param parent this node's parent TreeNode, or null if this node has no parent
+     */
+    public IndexedMutableTreeNode(final T data, final MutableTreeNode<T> parent) {
+        super(data, parent, new IndexedCollection<MutableTreeNode<T>>());
+    }
+
+    /**
+     * Constructs a new, empty node with parent, keeping children sorted by their data objects.
+     * @param data the data object in this node
+     * @param parent this node's parent TreeNode, or null if this node has no parent
+     * @param order the order of the data objects of the children
+     */
+    public IndexedMutableTreeNode(final T data, final MutableTreeNode<T> parent,
+            final Comparator<? super T> order) {
+        super(data, parent, new IndexedCollection<MutableTreeNode<T>>(
+                Comparator.comparing(MutableTreeNode::getData, order)));
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public final int getChildCount() {
+        return children().size();
+    }
+
+    /**
+     * Gets a child by position.
+     *
+     * @param index the position of the child
+     * @return the child
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    public final MutableTreeNode<T> getChild(final int index) {
+        return children().get(index);
+    }
+
+    /**
+     * Gets the position of a child.
+     *
+     * @param child the child
+     * @return the position, or -1 if the node is not a child of this node
+     */
+    public final int indexOf(final TreeNode<T> child) {
+        return children().indexOf(child);
+    }
+
+    /**
+     * Inserts a child at a position, moving it from its previous parent, or to the new position
+     * if it is already a child of this node.
+     *
+     * @param index the position of the child, counted without the child itself
+     * @param newChild the child
+     * @return this object
+     * @throws IndexOutOfBoundsException if the position is out of range
+     * @throws UnsupportedOperationException if the children are sorted
+     */
+    public final MutableTreeNode<T> insert(final int index, final MutableTreeNode<T> newChild) {
+        final IndexedCollection<MutableTreeNode<T>> children = children();
+        if (children.comparator() != null) {
+            throw new UnsupportedOperationException("Sorted children have no insert position");
+        }
+        final int size = children.size() - (newChild.getParent() == this ? 1 : 0);
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        newChild.removeFromParent();
+        children.add(index, newChild);
+        newChild.setParent(this);
+        return this;
+    }
+
+    /**
+     * Moves a child to its sorted position after its data object changed. Children in insertion
+     * order are not moved.
+     *
+     * @param child the child
+     * @return true if the node is a child of this node
+     */
+    public final boolean reposition(final MutableTreeNode<T> child) {
+        final IndexedCollection<MutableTreeNode<T>> children = children();
+        if (children.comparator() == null) {
+            return children.contains(child);
+        }
+        if (!children.remove(child)) {
+            return false;
+        }
+        children.add(child);
+        return true;
+    }
+
+    /**
+     * Gets the children collection.
+     *
+     * @return the children collection
+     */
+    private IndexedCollection<MutableTreeNode<T>> children() {
+        return (IndexedCollection<MutableTreeNode<T>>) getCollection();
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * A tree whose children are loaded by a {@link ChildLoader} the first time they are requested and
+ * kept in a cache bounded by a weight budget. The weight of the loaded nodes is given by a weigher,
+ * one per node by default or an estimation of their size in bytes, and the root is never evicted.
+ * <p>
+ * When the budget is exceeded after a load, the children of the least recently used nodes are
+ * released, starting with nodes without loaded grandchildren, so whole subtrees are released from
+ * the bottom up. Released nodes load their children again when they are requested. Nodes that were
+ * released keep working for callers holding them, but they are no longer cached.
+ * <p>
+ * Loading the children of a node can also prefetch the children of its siblings in the same call
+ * to {@link ChildLoader#loadAll(List)}. Siblings the loader reports as leaves are not loaded.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class LazyTree<T> {
+    /**
+     * Budget of a cache that is never evicted.
+     */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    /**
+     * The child loader.
+     */
+    private final ChildLoader<T> loader;
+
+    /**
+     * Maximum weight of the loaded nodes.
+     */
+    private final long maxWeight;
+
+    /**
+     * Weigher of the loaded nodes.
+     */
+    private final ToLongFunction<? super T> weigher;
+
+    /**
+     * Maximum number of nodes whose children are loaded in a single call.
+     */
+    private final int prefetchSize;
+
+    /**
+     * The root node.
+     */
+    private final LazyTreeNode<T> root;
+
+    /**
+     * Least recently used node without loaded grandchildren, the next one to be released.
+     */
+    private LazyTreeNode<T> eldest;
+
+    /**
+     * Most recently used node without loaded grandchildren.
+     */
+    private LazyTreeNode<T> youngest;
+
+    /**
+     * Weight of the loaded nodes.
+     */
+    private long weight;
+
+    /**
+     * Number of loaded nodes, including the root.
+     */
+    private long nodeCount = 1;
+
+    /**
+     * Constructs a new tree without limits or prefetching.
+     *
+     * @param rootData the data object in the root node
+     * @param loader the child loader
+     */
+    public LazyTree(final T rootData, final ChildLoader<T> loader) {
+        this(rootData, loader, UNBOUNDED);
+    }
+
+    /**
+     * Constructs a new tree with a budget of loaded nodes and without prefetching.
+     *
+     * @param rootData the data object in the root node
+     * @param loader the child loader
+     * @param maxNodes maximum number of loaded nodes, not counting the root
+     */
+    public LazyTree(final T rootData, final ChildLoader<T> loader, final long maxNodes) {
+        this(rootData, loader, maxNodes, null, 1);
+    }
+
+    /**
+     * Constructs a new tree.
+     *
+     * @param rootData the data object in the root node
+     * @param loader the child loader
+     * @param maxWeight maximum weight of the loaded nodes, not counting the root
+     * @param weigher weight of each loaded node, like its estimated size in bytes, or null to
+     *        weigh every node as one
+     * @param prefetchSize maximum number of nodes whose children are loaded in a single call, one
+     *        to disable prefetching
+     */
+    public LazyTree(final T rootData, final ChildLoader<T> loader, final long maxWeight,
+            final ToLongFunction<? super T> weigher, final int prefetchSize) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight must not be negative");
+        }
+        if (prefetchSize < 1) {
+            throw new IllegalArgumentException("Prefetch size must be positive");
+        }
+        this.loader = loader;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.prefetchSize = prefetchSize;
+        this.root = new LazyTreeNode<>(rootData, this, null, true);
+    }
+
+    /**
+     * Gets the root node.
+     *
+     * @return the root node
+     */
+    public LazyTreeNode<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the number of loaded nodes, including the root.
+     *
+     * @return the number of loaded nodes
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Gets the weight of the loaded nodes, not counting the root.
+     *
+     * @return the weight of the loaded nodes
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Tells the loader if a node is a leaf.
+     *
+     * @param data the data object of the node
+     * @return the leaf hint of the loader
+     */
+    Boolean isLeaf(final T data) {
+        return loader.isLeaf(data);
+    }
+
+    /**
+     * Loads the children of a node, prefetching the children of its siblings, and releases the
+     * least recently used nodes if the budget is exceeded.
+     *
+     * @param node the node
+     */
+    void load(final LazyTreeNode<T> node) {
+        if (!node.isCached()) {
+            node.attach(loader.load(node.getData()), false);
+            return;
+        }
+        final List<LazyTreeNode<T>> batch = node.getPrefetchBatch(prefetchSize);
+        if (batch.size() == 1) {
+            attach(node, loader.load(node.getData()));
+        } else {
+            final List<T> parents = new ArrayList<>(batch.size());
+            for (final LazyTreeNode<T> parent : batch) {
+                parents.add(parent.getData());
+            }
+            final List<List<T>> children = loader.loadAll(parents);
+            if (children.size() != parents.size()) {
+                throw new IllegalStateException("Loader returned " + children.size()
+                        + " children lists for " + parents.size() + " nodes");
+            }
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                attach(batch.get(i), children.get(i));
+            }
+        }
+        evict(node);
+    }
+
+    /**
+     * Marks a node as the most recently used one.
+     *
+     * @param node the node
+     */
+    void touch(final LazyTreeNode<T> node) {
+        if (isLinked(node)) {
+            unlink(node);
+            linkYoungest(node);
+        }
+    }
+
+    /**
+     * Attaches the loaded children of a cached node and accounts for them.
+     *
+     * @param node the node
+     * @param data the data objects of the children
+     */
+    private void attach(final LazyTreeNode<T> node, final List<T> data) {
+        long childWeight = 0;
+        if (weigher == null) {
+            childWeight = data.size();
+        } else {
+            for (final T child : data) {
+                childWeight += weigher.applyAsLong(child);
+            }
+        }
+        node.attach(data, true);
+        if (!data.isEmpty()) {
+            node.setChildWeight(childWeight);
+            weight += childWeight;
+            nodeCount += data.size();
+            final LazyTreeNode<T> parent = node.getParent();
+            if (parent != null && parent.addLoadedChild() && isLinked(parent)) {
+                unlink(parent);
+            }
+            linkYoungest(node);
+        }
+    }
+
+    /**
+     * Releases the least recently used nodes until the budget is met.
+     *
+     * @param keep a node that must not be released
+     */
+    private void evict(final LazyTreeNode<T> keep) {
+        while (weight > maxWeight && eldest != null && eldest != keep) {
+            final LazyTreeNode<T> node = eldest;
+            unlink(node);
+            weight -= node.getChildWeight();
+            nodeCount -= node.release();
+            final LazyTreeNode<T> parent = node.getParent();
+            if (parent != null && parent.removeLoadedChild()) {
+                linkEldest(parent);
+            }
+        }
+    }
+
+    /**
+     * Checks if a node is in the recently used list.
+     *
+     * @param node the node
+     * @return true if the node is in the list
+     */
+    private boolean isLinked(final LazyTreeNode<T> node) {
+        return node.getPrevious() != null || node == eldest;
+    }
+
+    /**
+     * Links a node as the most recently used one.
+     *
+     * @param node the node
+     */
+    private void linkYoungest(final LazyTreeNode<T> node) {
+        node.setLinks(youngest, null);
+        if (youngest == null) {
+            eldest = node;
+        } else {
+            youngest.setLinks(youngest.getPrevious(), node);
+        }
+        youngest = node;
+    }
+
+    /**
+     * Links a node as the least recently used one.
+     *
+     * @param node the node
+     */
+    private void linkEldest(final LazyTreeNode<T> node) {
+        node.setLinks(null, eldest);
+        if (eldest == null) {
+            youngest = node;
+        } else {
+            eldest.setLinks(node, eldest.getNext());
+        }
+        eldest = node;
+    }
+
+    /**
+     * Unlinks a node from the recently used list.
+     *
+     * @param node the node
+     */
+    private void unlink(final LazyTreeNode<T> node) {
+        final LazyTreeNode<T> previous = node.getPrevious();
+        final LazyTreeNode<T> next = node.getNext();
+        if (previous == null) {
+            eldest = next;
+        } else {
+            previous.setLinks(previous.getPrevious(), next);
+        }
+        if (next == null) {
+            youngest = previous;
+        } else {
+            next.setLinks(previous, next.getNext());
+        }
+        node.setLinks(null, null);
+    }
+}
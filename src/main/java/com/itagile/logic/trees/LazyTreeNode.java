@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A node of a {@link LazyTree}, whose children are loaded the first time they are requested.
+ * {@link #isLeaf()} doesn't load the children when the loader provides a leaf hint.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class LazyTreeNode<T> implements TreeNode<T> {
+    /**
+     * Data object in this node.
+     */
+    private final T data;
+
+    /**
+     * The tree this node belongs to.
+     */
+    private final LazyTree<T> tree;
+
+    /**
+     * This node's parent, or null if this node is the root.
+     */
+    private final LazyTreeNode<T> parent;
+
+    /**
+     * The children, or null if they are not loaded.
+     */
+    private Object[] children;
+
+    /**
+     * True if this node is a leaf, false if it isn't, or null if it is unknown.
+     */
+    private Boolean leaf;
+
+    /**
+     * True while this node is accounted for in the cache of its tree.
+     */
+    private boolean cached;
+
+    /**
+     * Number of children with loaded children.
+     */
+    private int loadedChildCount;
+
+    /**
+     * Weight of the loaded children.
+     */
+    private long childWeight;
+
+    /**
+     * Previous node in the recently used list of the tree.
+     */
+    private LazyTreeNode<T> previous;
+
+    /**
+     * Next node in the recently used list of the tree.
+     */
+    private LazyTreeNode<T> next;
+
+    /**
+     * Constructs a new node.
+     *
+     * @param data the data object in this node
+     * @param tree the tree this node belongs to
+     * @param parent this node's parent, or null if this node is the root
+     * @param cached true if this node is accounted for in the cache of its tree
+     */
+    LazyTreeNode(final T data, final LazyTree<T> tree, final LazyTreeNode<T> parent,
+            final boolean cached) {
+        this.data = data;
+        this.tree = tree;
+        this.parent = parent;
+        this.cached = cached;
+        this.leaf = tree.isLeaf(data);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public Iterable<TreeNode<T>> getChildren() {
+        if (children == null) {
+            tree.load(this);
+        } else if (cached) {
+            tree.touch(this);
+        }
+        final Object[] loaded = children;
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new ArrayIterator<>(loaded, loaded.length);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public boolean isLeaf() {
+        if (children == null && leaf == null) {
+            tree.load(this);
+        }
+        return children == null ? leaf : children.length == 0;
+    }
+
+    /**
+     * Gets this node's parent.
+     *
+     * @return this node's parent, or null if this node is the root
+     */
+    @JsonIgnore
+    public LazyTreeNode<T> getParent() {
+        return parent;
+    }
+
+    /**
+     * Checks if the children of this node are loaded.
+     *
+     * @return true if the children are loaded
+     */
+    @JsonIgnore
+    public boolean isLoaded() {
+        return children != null;
+    }
+
+    /**
+     * Checks if this node is accounted for in the cache of its tree. Nodes stop being cached when
+     * their parent is released.
+     *
+     * @return true if this node is cached
+     */
+    boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Attaches the loaded children.
+     *
+     * @param childData the data objects of the children
+     * @param cachedChildren true if the children are accounted for in the cache
+     */
+    void attach(final List<T> childData, final boolean cachedChildren) {
+        final Object[] array = new Object[childData.size()];
+        int i = 0;
+        for (final T child : childData) {
+            array[i++] = new LazyTreeNode<>(child, tree, this, cachedChildren);
+        }
+        children = array;
+    }
+
+    /**
+     * Releases the children, which stop being cached.
+     *
+     * @return the number of released children
+     */
+    int release() {
+        final Object[] array = children;
+        for (final Object child : array) {
+            ((LazyTreeNode<?>) child).cached = false;
+        }
+        children = null;
+        childWeight = 0;
+        leaf = array.length == 0;
+        return array.length;
+    }
+
+    /**
+     * Gets this node followed by the siblings whose children should be loaded with it, starting
+     * with the siblings after this node.
+     *
+     * @param size maximum number of nodes
+     * @return the nodes whose children should be loaded
+     */
+    @SuppressWarnings("unchecked")
+    List<LazyTreeNode<T>> getPrefetchBatch(final int size) {
+        final List<LazyTreeNode<T>> batch = new ArrayList<>(size);
+        batch.add(this);
+        if (size > 1 && parent != null && parent.children != null) {
+            final Object[] siblings = parent.children;
+            int index = 0;
+            while (siblings[index] != this) {
+                index++;
+            }
+            for (int i = 1; i < siblings.length && batch.size() < size; i++) {
+                final LazyTreeNode<T> sibling = (LazyTreeNode<T>) siblings[(index + i)
+                        % siblings.length];
+                if (sibling.children == null && !Boolean.TRUE.equals(sibling.leaf)) {
+                    batch.add(sibling);
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Counts a child whose children were loaded.
+     *
+     * @return true if it is the only child with loaded children
+     */
+    boolean addLoadedChild() {
+        return ++loadedChildCount == 1;
+    }
+
+    /**
+     * Discounts a child whose children were released.
+     *
+     * @return true if no child has loaded children
+     */
+    boolean removeLoadedChild() {
+        return --loadedChildCount == 0;
+    }
+
+    /**
+     * Gets the weight of the loaded children.
+     *
+     * @return the weight of the loaded children
+     */
+    long getChildWeight() {
+        return childWeight;
+    }
+
+    /**
+     * Sets the weight of the loaded children.
+     *
+     * @param weight the weight of the loaded children
+     */
+    void setChildWeight(final long weight) {
+        this.childWeight = weight;
+    }
+
+    /**
+     * Gets the previous node in the recently used list.
+     *
+     * @return the previous node, or null
+     */
+    LazyTreeNode<T> getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Gets the next node in the recently used list.
+     *
+     * @return the next node, or null
+     */
+    LazyTreeNode<T> getNext() {
+        return next;
+    }
+
+    /**
+     * Sets the links in the recently used list.
+     *
+     * @param newPrevious the previous node, or null
+     * @param newNext the next node, or null
+     */
+    void setLinks(final LazyTreeNode<T> newPrevious, final LazyTreeNode<T> newNext) {
+        this.previous = newPrevious;
+        this.next = newNext;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * Iterates the leaves of a tree from left to right without recursion.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public class LeafIterator<T> extends PreOrderIterator<T> {
+
+    /**
+     * Constructs an iterator over the leaves of the given tree.
+     *
+     * @param root the root of the tree to iterate, or null for an empty iteration
+     */
+    public LeafIterator(final TreeNode<T> root) {
+        super(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.PreOrderIterator#computeNext()
+     */
+    @Override
+    protected final TreeNode<T> computeNext() {
+        TreeNode<T> node = nextPreOrder();
+        while (node != null && !node.isLeaf()) {
+            node = nextPreOrder();
+        }
+        return node;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Iterates a tree in level-order (breadth-first) using a reusable queue.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public class LevelOrderIterator<T> extends AbstractTreeIterator<T> {
+    /**
+     * Nodes pending to be returned.
+     */
+    private final Queue<TreeNode<T>> queue = new ArrayDeque<>();
+
+    /**
+     * Constructs an iterator over the given tree.
+     *
+     * @param root the root of the tree to iterate, or null for an empty iteration
+     */
+    public LevelOrderIterator(final TreeNode<T> root) {
+        reset(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#clear()
+     */
+    @Override
+    protected final void clear() {
+        queue.clear();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#start(com.itagile.logic.trees.TreeNode)
+     */
+    @Override
+    protected final void start(final TreeNode<T> root) {
+        queue.add(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#computeNext()
+     */
+    @Override
+    protected final TreeNode<T> computeNext() {
+        final TreeNode<T> node = queue.poll();
+        if (node != null && !node.isLeaf()) {
+            for (final TreeNode<T> child : node.getChildren()) {
+                queue.add(child);
+            }
+        }
+        return node;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A tree node holding an unboxed {@code long} value, for numeric indicator trees. The value is
+ * read and written with {@link #getValue()} and {@link #setValue(long)}, and the subtree
+ * aggregations {@link #sum()}, {@link #min()}, {@link #max()} and {@link #count()} never box and
+ * never recurse. Int values can be kept in these nodes without loss.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class LongTreeNode extends PrimitiveTreeNode<LongTreeNode, Long> {
+    /**
+     * The value of this node.
+     */
+    private long value;
+
+    /**
+     * Constructs a new root node with value 0.
+     */
+    public LongTreeNode() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new root node.
+     *
+     * @param value the value of this node
+     */
+    public LongTreeNode(final long value) {
+        this.value = value;
+    }
+
+    /**
+     * Constructs a new node with parent.
+     *
+     * @param value the value of this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public LongTreeNode(final long value, final LongTreeNode parent) {
+        this.value = value;
+        setParent(parent);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.PrimitiveTreeNode#self()
+     */
+    @Override
+    protected final LongTreeNode self() {
+        return this;
+    }
+
+    /**
+     * Gets the value of this node.
+     *
+     * @return the value of this node
+     */
+    @JsonIgnore
+    public final long getValue() {
+        return value;
+    }
+
+    /**
+     * Sets the value of this node.
+     *
+     * @param newValue the new value of this node
+     * @return this object
+     */
+    public final LongTreeNode setValue(final long newValue) {
+        this.value = newValue;
+        return this;
+    }
+
+    /**
+     * Gets the value of this node boxed, prefer {@link #getValue()}.
+     *
+     * @return the boxed value of this node
+     */
+    @Override
+    public final Long getData() {
+        return value;
+    }
+
+    /**
+     * Sums the values of every node in this subtree, including this one.
+     *
+     * @return the sum of the values
+     */
+    public final long sum() {
+        long sum = 0;
+        final Deque<LongTreeNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final LongTreeNode node = stack.pop();
+            sum += node.value;
+            node.pushChildren(stack);
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the minimum value of every node in this subtree, including this one.
+     *
+     * @return the minimum value
+     */
+    public final long min() {
+        long min = value;
+        final Deque<LongTreeNode> stack = new ArrayDeque<>();
+        pushChildren(stack);
+        while (!stack.isEmpty()) {
+            final LongTreeNode node = stack.pop();
+            min = Math.min(min, node.value);
+            node.pushChildren(stack);
+        }
+        return min;
+    }
+
+    /**
+     * Gets the maximum value of every node in this subtree, including this one.
+     *
+     * @return the maximum value
+     */
+    public final long max() {
+        long max = value;
+        final Deque<LongTreeNode> stack = new ArrayDeque<>();
+        pushChildren(stack);
+        while (!stack.isEmpty()) {
+            final LongTreeNode node = stack.pop();
+            max = Math.max(max, node.value);
+            node.pushChildren(stack);
+        }
+        return max;
+    }
+
+    /**
+     * Counts the nodes in this subtree, including this one.
+     *
+     * @return the number of nodes
+     */
+    public final int count() {
+        int count = 0;
+        final Deque<LongTreeNode> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final LongTreeNode node = stack.pop();
+            count++;
+            node.pushChildren(stack);
+        }
+        return count;
+    }
+}
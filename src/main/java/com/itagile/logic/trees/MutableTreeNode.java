@@ -63,6 +63,33 @@ public interface MutableTreeNode<T> extends TreeNode<T> {
      */
     MutableTreeNode<T> add(MutableTreeNode<T> newChild);
 
+    /**
+     * Adds several children in order, moving them from their previous parents, as a single
+     * {@link TreeBatch} validated once.
+     *
+     * @param newChildren the child objects to add
+     * @return this object
+     * @throws IllegalArgumentException if a child is this node or one of its ancestors
+     */
+    default MutableTreeNode<T> addAll(final Iterable<? extends MutableTreeNode<T>> newChildren) {
+        new TreeBatch<T>().addAll(this, newChildren).commit();
+        return this;
+    }
+
+    /**
+     * Removes the children of this node among several nodes as a single {@link TreeBatch}. Updates
+     * the parent of the removed children to null.
+     *
+     * @param children the nodes to be removed, other nodes are ignored
+     * @return true if a child was removed as a result of this call
+     */
+    default boolean removeAll(final Iterable<? extends MutableTreeNode<T>> children) {
+        final TreeBatch<T> batch = new TreeBatch<T>().removeAll(this, children);
+        final boolean removed = batch.size() > 0;
+        batch.commit();
+        return removed;
+    }
+
     /**
      * Sets the data object in this node.
      *
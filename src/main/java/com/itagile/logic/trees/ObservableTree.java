@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * A tree of {@link ObservableTreeNode} instances that reports its changes to {@link TreeListener}
+ * instances and keeps {@link TreeMetrics} of its structure and mutations.
+ *
+ * <p>Metrics are updated on every change in constant time, except for moves of a subtree to a
+ * different depth or in or out of the root, which update every node of the subtree. Events are
+ * only recorded while there are listeners. They are coalesced by node and delivered in batches,
+ * when the batch size is reached or on {@link #flush()}, through an executor: by default
+ * listeners are called by the thread changing the tree, and an asynchronous executor keeps slow
+ * listeners out of the hot path.
+ *
+ * <p>The tree is not thread-safe, but listeners can be added or removed and metrics read from any
+ * thread.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class ObservableTree<T> {
+    /**
+     * Default maximum number of events delivered together.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The root node.
+     */
+    private final ObservableTreeNode<T> root;
+
+    /**
+     * The metrics.
+     */
+    private final TreeMetrics metrics = new TreeMetrics();
+
+    /**
+     * The listeners.
+     */
+    private final List<TreeListener<T>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Maximum number of events delivered together.
+     */
+    private final int batchSize;
+
+    /**
+     * Executor calling the listeners.
+     */
+    private final Executor executor;
+
+    /**
+     * Events not yet delivered, in order of the first change of each node. Coalesced events leave
+     * null elements.
+     */
+    private final List<TreeEvent<T>> pending = new ArrayList<>();
+
+    /**
+     * Position in the pending events of the change of parent of each node.
+     */
+    private final Map<ObservableTreeNode<T>, Integer> pendingMoves = new IdentityHashMap<>();
+
+    /**
+     * Nodes with a pending change of data object.
+     */
+    private final Set<ObservableTreeNode<T>> pendingUpdates = Collections
+            .newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Constructs a new tree delivering events in batches of the default size to listeners called
+     * by the thread changing the tree.
+     *
+     * @param rootData the data object in the root node
+     */
+    public ObservableTree(final T rootData) {
+        this(rootData, DEFAULT_BATCH_SIZE, Runnable::run);
+    }
+
+    /**
+     * Constructs a new tree.
+     *
+     * @param rootData the data object in the root node
+     * @param batchSize maximum number of events delivered together
+     * @param executor executor calling the listeners
+     */
+    public ObservableTree(final T rootData, final int batchSize, final Executor executor) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.executor = executor;
+        this.root = new ObservableTreeNode<>(this, rootData, 0);
+    }
+
+    /**
+     * Gets the root node.
+     *
+     * @return the root node
+     */
+    public ObservableTreeNode<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the metrics.
+     *
+     * @return the metrics
+     */
+    public TreeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final TreeListener<T> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(final TreeListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Delivers the pending events to the listeners.
+     */
+    public void flush() {
+        final List<TreeEvent<T>> events = new ArrayList<>(pending.size());
+        for (final TreeEvent<T> event : pending) {
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        pending.clear();
+        pendingMoves.clear();
+        pendingUpdates.clear();
+        if (events.isEmpty()) {
+            return;
+        }
+        final List<TreeEvent<T>> batch = Collections.unmodifiableList(events);
+        executor.execute(() -> {
+            for (final TreeListener<T> listener : listeners) {
+                listener.treeChanged(batch);
+            }
+        });
+    }
+
+    /**
+     * Records a change of parent of a node.
+     *
+     * @param node the node
+     * @param oldParent the parent before the change, or null
+     * @param newParent the parent after the change, or null
+     */
+    void parentChanged(final ObservableTreeNode<T> node, final ObservableTreeNode<T> oldParent,
+            final ObservableTreeNode<T> newParent) {
+        if (oldParent == null) {
+            metrics.count(TreeEvent.Type.ADDED);
+        } else {
+            metrics.count(newParent == null ? TreeEvent.Type.REMOVED : TreeEvent.Type.MOVED);
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        final Integer index = pendingMoves.get(node);
+        if (index == null) {
+            pendingMoves.put(node, pending.size());
+            pending.add(TreeEvent.parentChanged(node, oldParent, newParent));
+        } else {
+            final TreeEvent<T> coalesced = TreeEvent.parentChanged(node,
+                    pending.get(index).getOldParent(), newParent);
+            pending.set(index, coalesced);
+            if (coalesced == null) {
+                pendingMoves.remove(node);
+            }
+        }
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Records a change of data object of a node.
+     *
+     * @param node the node
+     */
+    void dataChanged(final ObservableTreeNode<T> node) {
+        metrics.count(TreeEvent.Type.DATA_CHANGED);
+        if (listeners.isEmpty() || !pendingUpdates.add(node)) {
+            return;
+        }
+        pending.add(TreeEvent.dataChanged(node));
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+}
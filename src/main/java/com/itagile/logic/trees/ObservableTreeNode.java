@@ -0,0 +1,363 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@link MutableTreeNode} of an {@link ObservableTree}, which records the changes made by
+ * {@link #add}, {@link #remove}, {@link #removeFromParent}, {@link #setParent} and
+ * {@link #setData} for the listeners and metrics of the tree. Parents and children must be nodes
+ * of the same tree, other nodes are rejected with an IllegalArgumentException, as well as moves
+ * that would make a node its own ancestor and moves of the root.
+ *
+ * <p>Children are kept in a LinkedHashSet like in {@link DefaultMutableTreeNode}. Nodes keep
+ * their depth under the root, or -1 if they are not under the root, so only moves of a subtree to
+ * a different depth update its nodes.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public class ObservableTreeNode<T> implements MutableTreeNode<T> {
+    /**
+     * The tree of this node.
+     */
+    private final ObservableTree<T> tree;
+
+    /**
+     * This node's parent, or null if this node has no parent.
+     */
+    private ObservableTreeNode<T> parent;
+
+    /**
+     * Data object in this node.
+     */
+    private T data;
+
+    /**
+     * Children in insertion order.
+     */
+    private final Collection<ObservableTreeNode<T>> children = new LinkedHashSet<>();
+
+    /**
+     * Unmodifiable view of children nodes.
+     */
+    private final Iterable<TreeNode<T>> unmodifiableChildren = Collections
+            .unmodifiableCollection(children);
+
+    /**
+     * Unmodifiable view of children nodes.
+     */
+    private final Iterable<MutableTreeNode<T>> unmodifiableMutableChildren = Collections
+            .unmodifiableCollection(children);
+
+    /**
+     * Depth under the root, or -1 if this node is not under the root.
+     */
+    private int depth;
+
+    /**
+     * Constructs a new node without parent.
+     * @param tree the tree of this node
+     * @param data the data object in this node
+     */
+    public ObservableTreeNode(final ObservableTree<T> tree, final T data) {
+        this(tree, data, null);
+    }
+
+    /**
+     * Constructs a new node with parent.
+     * @param tree the tree of this node
+     * @param data the data object in this node
+     * @param parent this node's parent, or null if this node has no parent
+     */
+    public ObservableTreeNode(final ObservableTree<T> tree, final T data,
+            final ObservableTreeNode<T> parent) {
+        this.tree = tree;
+        this.data = data;
+        this.depth = -1;
+        setParent(parent);
+    }
+
+    /**
+     * Constructs the root node of a tree.
+     * @param tree the tree of this node
+     * @param data the data object in this node
+     * @param depth the depth of the root, 0
+     */
+    ObservableTreeNode(final ObservableTree<T> tree, final T data, final int depth) {
+        this.tree = tree;
+        this.data = data;
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the tree of this node.
+     *
+     * @return the tree
+     */
+    @JsonIgnore
+    public final ObservableTree<T> getTree() {
+        return tree;
+    }
+
+    /**
+     * Gets the depth of this node under the root of the tree.
+     *
+     * @return the depth, 0 for the root, or -1 if this node is not under the root
+     */
+    @JsonIgnore
+    public final int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public final int getChildCount() {
+        return children.size();
+    }
+
+    /**
+     * Gets this node's parent without a cast.
+     *
+     * @return the parent, or null
+     */
+    final ObservableTreeNode<T> getParentNode() {
+        return parent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#add()
+     */
+    @Override
+    public final MutableTreeNode<T> add(final MutableTreeNode<T> newChild) {
+        final ObservableTreeNode<T> child = check(newChild);
+        if (child.parent == this) {
+            return this;
+        }
+        if (child == tree.getRoot()) {
+            throw new IllegalArgumentException("The root cannot have a parent");
+        }
+        if (child == this || !child.children.isEmpty() && isDescendantOf(child)) {
+            throw new IllegalArgumentException("A node cannot be moved into its own subtree");
+        }
+        final ObservableTreeNode<T> oldParent = child.parent;
+        if (oldParent != null) {
+            oldParent.unlink(child);
+        }
+        children.add(child);
+        child.parent = this;
+        if (depth >= 0) {
+            tree.getMetrics().childCountChanged(children.size() - 1, children.size());
+        }
+        child.updateDepth(depth < 0 ? -1 : depth + 1);
+        tree.parentChanged(child, oldParent, this);
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public final T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#setData()
+     */
+    @Override
+    public final MutableTreeNode<T> setData(final T newData) {
+        this.data = newData;
+        tree.dataChanged(this);
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public final Iterable<TreeNode<T>> getChildren() {
+        return unmodifiableChildren;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getMutableChildren()
+     */
+    @Override
+    public final Iterable<MutableTreeNode<T>> getMutableChildren() {
+        return unmodifiableMutableChildren;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public final boolean isLeaf() {
+        return children.isEmpty();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getParent()
+     */
+    @Override
+    public final TreeNode<T> getParent() {
+        return parent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.itagile.logic.trees.MutableTreeNode#setParent(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final MutableTreeNode<T> setParent(final MutableTreeNode<T> newParent) {
+        if (newParent == null) {
+            removeFromParent();
+        } else {
+            check(newParent).add(this);
+        }
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#removeFromParent()
+     */
+    @Override
+    public final void removeFromParent() {
+        if (parent != null) {
+            parent.remove(this);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#remove(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public final boolean remove(final MutableTreeNode<T> child) {
+        if (child.getParent() != this) {
+            return false;
+        }
+        final ObservableTreeNode<T> node = (ObservableTreeNode<T>) child;
+        unlink(node);
+        node.parent = null;
+        node.updateDepth(-1);
+        tree.parentChanged(node, this, null);
+        return true;
+    }
+
+    /**
+     * Checks if this node is in the subtree of another node. Nodes under the root only have
+     * ancestors under the root at lower depths, so the parent chain is walked only down to the
+     * depth of the other node.
+     *
+     * @param node the other node
+     * @return true if this node is the other node or one of its descendants
+     */
+    private boolean isDescendantOf(final ObservableTreeNode<T> node) {
+        for (ObservableTreeNode<T> ancestor = this; ancestor != null && (ancestor.depth < 0
+                || node.depth >= 0 && ancestor.depth >= node.depth); ancestor = ancestor.parent) {
+            if (ancestor == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes a child from the children collection.
+     *
+     * @param child the child
+     */
+    private void unlink(final ObservableTreeNode<T> child) {
+        children.remove(child);
+        if (depth >= 0) {
+            tree.getMetrics().childCountChanged(children.size() + 1, children.size());
+        }
+    }
+
+    /**
+     * Sets the depth of this subtree, without recursion, if it changed.
+     *
+     * @param newDepth the new depth of this node, or -1 if it is not under the root
+     */
+    private void updateDepth(final int newDepth) {
+        if (newDepth == depth) {
+            return;
+        }
+        final TreeMetrics metrics = tree.getMetrics();
+        final Deque<ObservableTreeNode<T>> stack = new ArrayDeque<>();
+        metrics.depthChanged(depth, newDepth, children.size());
+        depth = newDepth;
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            final ObservableTreeNode<T> node = stack.pop();
+            final int childDepth = node.depth < 0 ? -1 : node.depth + 1;
+            for (final ObservableTreeNode<T> child : node.children) {
+                metrics.depthChanged(child.depth, childDepth, child.children.size());
+                child.depth = childDepth;
+                stack.push(child);
+            }
+        }
+    }
+
+    /**
+     * Checks that a node is an ObservableTreeNode of the same tree.
+     *
+     * @param node the node
+     * @return the node as an ObservableTreeNode
+     */
+    private ObservableTreeNode<T> check(final MutableTreeNode<T> node) {
+        if (!(node instanceof ObservableTreeNode)
+                || ((ObservableTreeNode<T>) node).tree != tree) {
+            throw new IllegalArgumentException(
+                    "Node must be an ObservableTreeNode of the same tree");
+        }
+        return (ObservableTreeNode<T>) node;
+    }
+}
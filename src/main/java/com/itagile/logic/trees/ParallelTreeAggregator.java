@@ -0,0 +1,253 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluates an {@link Aggregation} bottom-up over a tree using a {@link ForkJoinPool}, returning
+ * a parallel tree of {@link AggregateNode} with the aggregated value of every node.
+ *
+ * <p>Each task walks its subtree with an explicit stack and forks the subtrees of some of the
+ * children it finds, always keeping the last child of a node for itself, so single-child chains are
+ * never split and deep trees do not overflow the call stack. Subtrees of a {@link FrozenTree} have
+ * known sizes, and only those with at least the sequential threshold of nodes are forked. For other
+ * trees the size is unknown, and a subtree is forked only while the current worker has fewer than
+ * {@value #MAX_SURPLUS} queued tasks more than the other workers could steal, so small subtrees end
+ * up evaluated sequentially once every worker is busy. Leaves are never forked.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @param <V> the type of aggregated values
+ * @since 1.1
+ */
+public final class ParallelTreeAggregator<T, V> {
+    /**
+     * Default minimum number of nodes of a subtree with known size to evaluate it in a new task.
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1024;
+
+    /**
+     * Maximum surplus of queued tasks of a worker to fork subtrees of unknown size.
+     */
+    static final int MAX_SURPLUS = 3;
+
+    /**
+     * Maximum number of nested tasks, tasks joined before being stolen run on the joining thread.
+     */
+    private static final int MAX_FORK_DEPTH = 64;
+
+    /**
+     * The aggregation to evaluate.
+     */
+    private final Aggregation<T, V> aggregation;
+
+    /**
+     * The pool running the tasks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Minimum number of nodes of a subtree with known size to evaluate it in a new task.
+     */
+    private final int sequentialThreshold;
+
+    /**
+     * Constructs a new aggregator with the default sequential threshold.
+     *
+     * @param aggregation the aggregation to evaluate
+     * @param pool the pool running the tasks
+     */
+    public ParallelTreeAggregator(final Aggregation<T, V> aggregation, final ForkJoinPool pool) {
+        this(aggregation, pool, DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new aggregator.
+     *
+     * @param aggregation the aggregation to evaluate
+     * @param pool the pool running the tasks
+     * @param sequentialThreshold minimum number of nodes of a subtree with known size to evaluate
+     *        it in a new task
+     */
+    public ParallelTreeAggregator(final Aggregation<T, V> aggregation, final ForkJoinPool pool,
+            final int sequentialThreshold) {
+        this.aggregation = aggregation;
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * Aggregates a tree.
+     *
+     * @param root the root of the tree
+     * @return the aggregate of the root, whose children are the aggregates of the root children
+     */
+    public AggregateNode<T, V> aggregate(final TreeNode<T> root) {
+        return pool.invoke(new SubtreeTask(root, 0));
+    }
+
+    /**
+     * Checks if the subtree of a child deserves its own task.
+     *
+     * @param child the child, not a leaf nor the last child of its parent
+     * @param forkDepth number of tasks the current one is nested in
+     * @return true if the child should be forked
+     */
+    private boolean shouldFork(final TreeNode<T> child, final int forkDepth) {
+        if (forkDepth >= MAX_FORK_DEPTH) {
+            return false;
+        }
+        if (child instanceof FrozenTreeNode) {
+            final FrozenTreeNode<T> frozen = (FrozenTreeNode<T>) child;
+            return frozen.getTree().getSubtreeSize(frozen.getIndex()) >= sequentialThreshold;
+        }
+        return RecursiveTask.getSurplusQueuedTaskCount() < MAX_SURPLUS;
+    }
+
+    /**
+     * Aggregates a leaf.
+     *
+     * @param leaf the leaf
+     * @return the aggregate of the leaf
+     */
+    private AggregateNode<T, V> leaf(final TreeNode<T> leaf) {
+        return new AggregateNode<>(leaf, aggregation.map(leaf), null);
+    }
+
+    /**
+     * An internal node whose children are being aggregated.
+     */
+    private final class Frame {
+        /**
+         * The node.
+         */
+        private final TreeNode<T> node;
+
+        /**
+         * Iterator of the node children.
+         */
+        private final Iterator<TreeNode<T>> iterator;
+
+        /**
+         * Aggregates of the visited children, or the tasks computing them.
+         */
+        private final List<Object> slots = new ArrayList<>();
+
+        /**
+         * Constructs a new frame.
+         *
+         * @param node the internal node
+         */
+        Frame(final TreeNode<T> node) {
+            this.node = node;
+            this.iterator = node.getChildren().iterator();
+        }
+
+        /**
+         * Joins the forked children and combines the values of the children.
+         *
+         * @return the aggregate of the node
+         */
+        @SuppressWarnings("unchecked")
+        AggregateNode<T, V> finish() {
+            final Object[] children = slots.toArray();
+            V value = aggregation.map(node);
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] instanceof ParallelTreeAggregator.SubtreeTask) {
+                    children[i] = ((SubtreeTask) children[i]).join();
+                }
+                value = aggregation.combine(value, ((AggregateNode<T, V>) children[i]).getData());
+            }
+            return new AggregateNode<>(node, value, children);
+        }
+    }
+
+    /**
+     * Aggregates a subtree, forking some of its subtrees.
+     */
+    @SuppressWarnings("serial")
+    private final class SubtreeTask extends RecursiveTask<AggregateNode<T, V>> {
+        /**
+         * The root of the subtree.
+         */
+        private final TreeNode<T> root;
+
+        /**
+         * Number of tasks this one is nested in.
+         */
+        private final int forkDepth;
+
+        /**
+         * Constructs a new task.
+         *
+         * @param root the root of the subtree
+         * @param forkDepth number of tasks this one is nested in
+         */
+        SubtreeTask(final TreeNode<T> root, final int forkDepth) {
+            this.root = root;
+            this.forkDepth = forkDepth;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.concurrent.RecursiveTask#compute()
+         */
+        @Override
+        protected AggregateNode<T, V> compute() {
+            if (root.isLeaf()) {
+                return leaf(root);
+            }
+            final Deque<Frame> stack = new ArrayDeque<>();
+            stack.push(new Frame(root));
+            AggregateNode<T, V> result = null;
+            while (result == null) {
+                final Frame frame = stack.peek();
+                if (frame.iterator.hasNext()) {
+                    final TreeNode<T> child = frame.iterator.next();
+                    if (child.isLeaf()) {
+                        frame.slots.add(leaf(child));
+                    } else if (frame.iterator.hasNext() && shouldFork(child, forkDepth)) {
+                        final SubtreeTask task = new SubtreeTask(child, forkDepth + 1);
+                        task.fork();
+                        frame.slots.add(task);
+                    } else {
+                        frame.slots.add(null);
+                        stack.push(new Frame(child));
+                    }
+                } else {
+                    stack.pop();
+                    final AggregateNode<T, V> aggregate = frame.finish();
+                    if (stack.isEmpty()) {
+                        result = aggregate;
+                    } else {
+                        final List<Object> slots = stack.peek().slots;
+                        slots.set(slots.size() - 1, aggregate);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An immutable tree node for persistent trees. Updates never modify a node, they return a new
+ * root that shares every untouched subtree with the previous version and only copies the nodes on
+ * the path from the root to the change, so an update costs O(depth * fan-out) and old versions
+ * stay valid. Nodes are safe to publish and read from any number of threads without locking.
+ *
+ * <p>Nodes have no parent reference, so the same subtree can be shared by several versions or
+ * several positions of a tree. Update methods address nodes by a path of child indexes from this
+ * root, the empty path being this node. Conversion from any {@link TreeNode} is done by
+ * {@link #copyOf(TreeNode)} and to {@link DefaultMutableTreeNode} by {@link #toMutable()}.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class PersistentTreeNode<T> implements TreeNode<T> {
+    /**
+     * Shared children array of leaves.
+     */
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    /**
+     * Data object in this node.
+     */
+    private final T data;
+
+    /**
+     * Children in order, never modified.
+     */
+    private final Object[] children;
+
+    /**
+     * Constructs a new node.
+     *
+     * @param data the data object in this node
+     * @param children the children, not copied
+     */
+    private PersistentTreeNode(final T data, final Object[] children) {
+        this.data = data;
+        this.children = children;
+    }
+
+    /**
+     * Creates a leaf.
+     *
+     * @param data the data object in the leaf
+     * @param <T> the type of data object in the node
+     * @return the new leaf
+     */
+    public static <T> PersistentTreeNode<T> of(final T data) {
+        return new PersistentTreeNode<>(data, NO_CHILDREN);
+    }
+
+    /**
+     * Creates a node with children.
+     *
+     * @param data the data object in the node
+     * @param children the children of the node
+     * @param <T> the type of data object in the node
+     * @return the new node
+     */
+    @SafeVarargs
+    public static <T> PersistentTreeNode<T> of(final T data,
+            final PersistentTreeNode<T>... children) {
+        for (final PersistentTreeNode<T> child : children) {
+            checkChild(child);
+        }
+        return new PersistentTreeNode<>(data,
+                children.length == 0 ? NO_CHILDREN : Arrays.copyOf(children, children.length,
+                        Object[].class));
+    }
+
+    /**
+     * Copies a tree without recursion. Persistent nodes are returned as they are.
+     *
+     * @param root the root of the source tree
+     * @param <T> the type of data object in the nodes
+     * @return the persistent copy, or null if the root is null
+     */
+    public static <T> PersistentTreeNode<T> copyOf(final TreeNode<T> root) {
+        if (root == null || root instanceof PersistentTreeNode) {
+            return (PersistentTreeNode<T>) root;
+        }
+        final Deque<CopyFrame<T>> stack = new ArrayDeque<>();
+        stack.push(new CopyFrame<>(root));
+        PersistentTreeNode<T> copy = null;
+        while (!stack.isEmpty()) {
+            final CopyFrame<T> frame = stack.peek();
+            if (frame.iterator.hasNext()) {
+                final TreeNode<T> child = frame.iterator.next();
+                if (child instanceof PersistentTreeNode) {
+                    frame.children.add(child);
+                } else {
+                    stack.push(new CopyFrame<>(child));
+                }
+            } else {
+                stack.pop();
+                copy = new PersistentTreeNode<>(frame.source.getData(),
+                        frame.children.isEmpty() ? NO_CHILDREN : frame.children.toArray());
+                if (!stack.isEmpty()) {
+                    stack.peek().children.add(copy);
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Copies this tree to new {@link DefaultMutableTreeNode} nodes, without recursion. Shared
+     * subtrees are copied once per position.
+     *
+     * @return the root of the mutable copy
+     */
+    public DefaultMutableTreeNode<T> toMutable() {
+        final DefaultMutableTreeNode<T> root = new DefaultMutableTreeNode<>(data);
+        final Deque<PersistentTreeNode<T>> sources = new ArrayDeque<>();
+        final Deque<DefaultMutableTreeNode<T>> targets = new ArrayDeque<>();
+        sources.push(this);
+        targets.push(root);
+        while (!sources.isEmpty()) {
+            final PersistentTreeNode<T> source = sources.pop();
+            final DefaultMutableTreeNode<T> target = targets.pop();
+            for (final Object element : source.children) {
+                final PersistentTreeNode<T> child = cast(element);
+                final DefaultMutableTreeNode<T> copy = new DefaultMutableTreeNode<>(child.data);
+                target.append(copy);
+                if (child.children.length > 0) {
+                    sources.push(child);
+                    targets.push(copy);
+                }
+            }
+        }
+        return root;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public T getData() {
+        return data;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new ArrayIterator<>(children, children.length);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public boolean isLeaf() {
+        return children.length == 0;
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public int getChildCount() {
+        return children.length;
+    }
+
+    /**
+     * Gets a child by position.
+     *
+     * @param index the child position
+     * @return the child
+     */
+    public PersistentTreeNode<T> getChild(final int index) {
+        return cast(children[index]);
+    }
+
+    /**
+     * Gets a node of this tree.
+     *
+     * @param path the child indexes from this node
+     * @return the node
+     * @throws IndexOutOfBoundsException if the path does not exist
+     */
+    public PersistentTreeNode<T> get(final int... path) {
+        PersistentTreeNode<T> node = this;
+        for (final int index : path) {
+            node = node.getChild(index);
+        }
+        return node;
+    }
+
+    /**
+     * Returns a copy of this node with other data object, sharing the children.
+     *
+     * @param newData the new data object
+     * @return the new node, or this node if the data object is the same
+     */
+    public PersistentTreeNode<T> withData(final T newData) {
+        return newData == data ? this : new PersistentTreeNode<>(newData, children);
+    }
+
+    /**
+     * Returns a copy of this node with a new last child.
+     *
+     * @param child the new child
+     * @return the new node
+     */
+    public PersistentTreeNode<T> withChild(final PersistentTreeNode<T> child) {
+        checkChild(child);
+        final Object[] copy = Arrays.copyOf(children, children.length + 1);
+        copy[children.length] = child;
+        return new PersistentTreeNode<>(data, copy);
+    }
+
+    /**
+     * Returns a copy of this node with a child replaced.
+     *
+     * @param index the position of the replaced child
+     * @param child the new child
+     * @return the new node, or this node if the child is the same
+     */
+    public PersistentTreeNode<T> withChild(final int index, final PersistentTreeNode<T> child) {
+        checkChild(child);
+        if (children[index] == child) {
+            return this;
+        }
+        final Object[] copy = children.clone();
+        copy[index] = child;
+        return new PersistentTreeNode<>(data, copy);
+    }
+
+    /**
+     * Returns a copy of this node without a child.
+     *
+     * @param index the position of the removed child
+     * @return the new node
+     */
+    public PersistentTreeNode<T> withoutChild(final int index) {
+        if (index < 0 || index >= children.length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + children.length);
+        }
+        if (children.length == 1) {
+            return new PersistentTreeNode<>(data, NO_CHILDREN);
+        }
+        final Object[] copy = new Object[children.length - 1];
+        System.arraycopy(children, 0, copy, 0, index);
+        System.arraycopy(children, index + 1, copy, index, copy.length - index);
+        return new PersistentTreeNode<>(data, copy);
+    }
+
+    /**
+     * Sets the data object of a node.
+     *
+     * @param newData the new data object
+     * @param path the child indexes from this node to the changed node
+     * @return the new root
+     */
+    public PersistentTreeNode<T> setData(final T newData, final int... path) {
+        return replace(path, path.length, get(path).withData(newData));
+    }
+
+    /**
+     * Adds a last child to a node.
+     *
+     * @param child the new child
+     * @param path the child indexes from this node to the parent of the new child
+     * @return the new root
+     */
+    public PersistentTreeNode<T> addChild(final PersistentTreeNode<T> child, final int... path) {
+        return replace(path, path.length, get(path).withChild(child));
+    }
+
+    /**
+     * Removes a node with its subtree.
+     *
+     * @param path the child indexes from this node to the removed node, not empty
+     * @return the new root
+     */
+    public PersistentTreeNode<T> removeChild(final int... path) {
+        if (path.length == 0) {
+            throw new IllegalArgumentException("The root cannot be removed");
+        }
+        final int last = path.length - 1;
+        return replace(path, last, get(Arrays.copyOf(path, last)).withoutChild(path[last]));
+    }
+
+    /**
+     * Moves a node with its subtree to be the last child of another node. Both paths are
+     * relative to this version of the tree.
+     *
+     * @param from the child indexes from this node to the moved node, not empty
+     * @param to the child indexes from this node to the new parent
+     * @return the new root
+     * @throws IllegalArgumentException if the new parent is in the subtree of the moved node
+     */
+    public PersistentTreeNode<T> moveChild(final int[] from, final int... to) {
+        if (from.length == 0) {
+            throw new IllegalArgumentException("The root cannot be moved");
+        }
+        final int last = from.length - 1;
+        if (to.length >= from.length
+                && Arrays.equals(from, Arrays.copyOf(to, from.length))) {
+            throw new IllegalArgumentException("A node cannot be moved into its own subtree");
+        }
+        final PersistentTreeNode<T> moved = get(from);
+        final int[] target = to.clone();
+        if (target.length > last && target[last] > from[last]
+                && Arrays.equals(Arrays.copyOf(from, last), Arrays.copyOf(target, last))) {
+            target[last]--;
+        }
+        return removeChild(from).addChild(moved, target);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "PersistentTreeNode[" + data + ", " + children.length + " children]";
+    }
+
+    /**
+     * Copies the path from this node to a changed node.
+     *
+     * @param path the child indexes from this node
+     * @param length the number of indexes of the path to the changed node
+     * @param replacement the new version of the changed node
+     * @return the new root
+     */
+    private PersistentTreeNode<T> replace(final int[] path, final int length,
+            final PersistentTreeNode<T> replacement) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final PersistentTreeNode<T>[] ancestors = new PersistentTreeNode[length];
+        PersistentTreeNode<T> node = this;
+        for (int i = 0; i < length; i++) {
+            ancestors[i] = node;
+            node = node.getChild(path[i]);
+        }
+        node = replacement;
+        for (int i = length - 1; i >= 0; i--) {
+            node = ancestors[i].withChild(path[i], node);
+        }
+        return node;
+    }
+
+    /**
+     * Checks that a child is not null.
+     *
+     * @param child the child
+     */
+    private static void checkChild(final PersistentTreeNode<?> child) {
+        if (child == null) {
+            throw new IllegalArgumentException("Child must not be null");
+        }
+    }
+
+    /**
+     * Casts an element of a children array.
+     *
+     * @param element the element
+     * @param <T> the type of data object in the node
+     * @return the element as a node
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> PersistentTreeNode<T> cast(final Object element) {
+        return (PersistentTreeNode<T>) element;
+    }
+
+    /**
+     * Node being copied by {@link PersistentTreeNode#copyOf(TreeNode)}.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class CopyFrame<T> {
+        /**
+         * The source node.
+         */
+        private final TreeNode<T> source;
+
+        /**
+         * Iterator of the source children.
+         */
+        private final Iterator<TreeNode<T>> iterator;
+
+        /**
+         * Copies of the children already copied.
+         */
+        private final List<Object> children = new ArrayList<>();
+
+        /**
+         * Constructs a new frame.
+         *
+         * @param source the source node
+         */
+        CopyFrame(final TreeNode<T> source) {
+            this.source = source;
+            this.iterator = source.getChildren().iterator();
+        }
+    }
+}
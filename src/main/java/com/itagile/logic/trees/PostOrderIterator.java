@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Iterates a tree in post-order (depth-first, children before parents) without recursion. Leaves
+ * never allocate an iterator of their children.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public class PostOrderIterator<T> extends AbstractTreeIterator<T> {
+    /**
+     * Internal nodes whose children are being iterated.
+     */
+    private final Deque<TreeNode<T>> nodes = new ArrayDeque<>();
+
+    /**
+     * Children iterators of the nodes in {@link #nodes}, in the same order.
+     */
+    private final Deque<Iterator<TreeNode<T>>> iterators = new ArrayDeque<>();
+
+    /**
+     * The root when it is a leaf, until it is returned.
+     */
+    private TreeNode<T> leafRoot;
+
+    /**
+     * Constructs an iterator over the given tree.
+     *
+     * @param root the root of the tree to iterate, or null for an empty iteration
+     */
+    public PostOrderIterator(final TreeNode<T> root) {
+        reset(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#clear()
+     */
+    @Override
+    protected final void clear() {
+        nodes.clear();
+        iterators.clear();
+        leafRoot = null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#start(com.itagile.logic.trees.TreeNode)
+     */
+    @Override
+    protected final void start(final TreeNode<T> root) {
+        if (root.isLeaf()) {
+            leafRoot = root;
+        } else {
+            nodes.push(root);
+            iterators.push(root.getChildren().iterator());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#computeNext()
+     */
+    @Override
+    protected final TreeNode<T> computeNext() {
+        if (leafRoot != null) {
+            final TreeNode<T> node = leafRoot;
+            leafRoot = null;
+            return node;
+        }
+        while (!iterators.isEmpty()) {
+            final Iterator<TreeNode<T>> iterator = iterators.peek();
+            if (!iterator.hasNext()) {
+                iterators.pop();
+                return nodes.pop();
+            }
+            final TreeNode<T> child = iterator.next();
+            if (child.isLeaf()) {
+                return child;
+            }
+            nodes.push(child);
+            iterators.push(child.getChildren().iterator());
+        }
+        return null;
+    }
+}
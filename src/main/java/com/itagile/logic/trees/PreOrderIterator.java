@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Iterates a tree in pre-order (depth-first, parents before children) without recursion. Leaves
+ * never allocate an iterator of their children.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public class PreOrderIterator<T> extends AbstractTreeIterator<T> {
+    /**
+     * Children iterators of the ancestors of the next node.
+     */
+    private final Deque<Iterator<TreeNode<T>>> stack = new ArrayDeque<>();
+
+    /**
+     * The root, until it is returned.
+     */
+    private TreeNode<T> root;
+
+    /**
+     * Constructs an iterator over the given tree.
+     *
+     * @param root the root of the tree to iterate, or null for an empty iteration
+     */
+    public PreOrderIterator(final TreeNode<T> root) {
+        reset(root);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#clear()
+     */
+    @Override
+    protected final void clear() {
+        stack.clear();
+        root = null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#start(com.itagile.logic.trees.TreeNode)
+     */
+    @Override
+    protected final void start(final TreeNode<T> newRoot) {
+        this.root = newRoot;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.AbstractTreeIterator#computeNext()
+     */
+    @Override
+    protected TreeNode<T> computeNext() {
+        return nextPreOrder();
+    }
+
+    /**
+     * Advances to the next node in pre-order.
+     *
+     * @return the next node, or null if the iteration has finished
+     */
+    protected final TreeNode<T> nextPreOrder() {
+        if (root != null) {
+            final TreeNode<T> node = root;
+            root = null;
+            pushChildren(node);
+            return node;
+        }
+        while (!stack.isEmpty()) {
+            final Iterator<TreeNode<T>> iterator = stack.peek();
+            if (iterator.hasNext()) {
+                final TreeNode<T> node = iterator.next();
+                pushChildren(node);
+                return node;
+            }
+            stack.pop();
+        }
+        return null;
+    }
+
+    /**
+     * Pushes the children iterator of a node being returned, unless it is a leaf.
+     *
+     * @param node the node being returned
+     */
+    private void pushChildren(final TreeNode<T> node) {
+        if (!node.isLeaf()) {
+            stack.push(node.getChildren().iterator());
+        }
+    }
+}
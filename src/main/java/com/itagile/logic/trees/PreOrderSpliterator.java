@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the nodes of a tree in pre-order, splitting along child boundaries. The
+ * remaining nodes are kept as a sequence of pending subtrees, plus single nodes whose children
+ * were already split off; a split hands the first half of that sequence over to the new
+ * spliterator, expanding the first subtree into its root and its children when it is the only one
+ * left. Halves are balanced by the exact subtree sizes of {@link FrozenTreeNode} trees, which
+ * are also reported as SIZED, and by the number of pending subtrees for other trees.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+final class PreOrderSpliterator<T> implements Spliterator<TreeNode<T>> {
+    /**
+     * Pending subtrees as {@link TreeNode} instances and single nodes as {@link Single}
+     * instances, in encounter order.
+     */
+    private final Deque<Object> pending;
+
+    /**
+     * True if the subtree sizes are known.
+     */
+    private final boolean sized;
+
+    /**
+     * Exact number of remaining nodes if sized, otherwise an estimate.
+     */
+    private long estimate;
+
+    /**
+     * Reusable buffer to push children in reverse order.
+     */
+    private final List<TreeNode<T>> buffer = new ArrayList<>();
+
+    /**
+     * Constructs a new spliterator over a tree.
+     *
+     * @param root the root of the tree, may be null
+     */
+    PreOrderSpliterator(final TreeNode<T> root) {
+        this.pending = new ArrayDeque<>();
+        this.sized = root == null || root instanceof FrozenTreeNode;
+        if (root != null) {
+            pending.add(root);
+        }
+        this.estimate = root == null ? 0 : sized ? sizeOf(root) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Constructs a new spliterator split off another one.
+     *
+     * @param pending the pending entries
+     * @param sized true if the subtree sizes are known
+     * @param estimate the size or size estimate
+     */
+    private PreOrderSpliterator(final Deque<Object> pending, final boolean sized,
+            final long estimate) {
+        this.pending = pending;
+        this.sized = sized;
+        this.estimate = estimate;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+     */
+    @Override
+    public boolean tryAdvance(final Consumer<? super TreeNode<T>> action) {
+        final TreeNode<T> node = next();
+        if (node == null) {
+            return false;
+        }
+        action.accept(node);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#forEachRemaining(java.util.function.Consumer)
+     */
+    @Override
+    public void forEachRemaining(final Consumer<? super TreeNode<T>> action) {
+        for (TreeNode<T> node = next(); node != null; node = next()) {
+            action.accept(node);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#trySplit()
+     */
+    @Override
+    public Spliterator<TreeNode<T>> trySplit() {
+        if (pending.size() == 1 && !(pending.peekFirst() instanceof Single)) {
+            final TreeNode<T> root = cast(pending.pollFirst());
+            pushChildren(root);
+            pending.addFirst(new Single<>(root));
+        }
+        final int count = pending.size();
+        if (count < 2) {
+            return null;
+        }
+        final Deque<Object> prefix = new ArrayDeque<>();
+        long prefixSize = 0;
+        if (sized) {
+            final long half = estimate / 2;
+            while (prefix.size() < count - 1 && (prefix.isEmpty() || prefixSize < half)) {
+                final Object entry = pending.pollFirst();
+                prefixSize += entry instanceof Single ? 1 : sizeOf(cast(entry));
+                prefix.addLast(entry);
+            }
+            estimate -= prefixSize;
+        } else {
+            for (int i = 0; i < count / 2; i++) {
+                prefix.addLast(pending.pollFirst());
+            }
+            estimate = estimate / 2;
+            prefixSize = estimate;
+        }
+        return new PreOrderSpliterator<>(prefix, sized, prefixSize);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#estimateSize()
+     */
+    @Override
+    public long estimateSize() {
+        return pending.isEmpty() ? 0 : estimate;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.Spliterator#characteristics()
+     */
+    @Override
+    public int characteristics() {
+        return sized ? ORDERED | NONNULL | SIZED | SUBSIZED : ORDERED | NONNULL;
+    }
+
+    /**
+     * Takes the next node, pushing its children as pending subtrees.
+     *
+     * @return the next node, or null if there are no more nodes
+     */
+    private TreeNode<T> next() {
+        final Object entry = pending.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+        if (sized) {
+            estimate--;
+        }
+        if (entry instanceof Single) {
+            @SuppressWarnings("unchecked")
+            final Single<T> single = (Single<T>) entry;
+            return single.node;
+        }
+        final TreeNode<T> node = cast(entry);
+        if (!node.isLeaf()) {
+            pushChildren(node);
+        }
+        return node;
+    }
+
+    /**
+     * Pushes the children of a node to the front of the pending subtrees, keeping their order.
+     *
+     * @param node the node
+     */
+    private void pushChildren(final TreeNode<T> node) {
+        for (final TreeNode<T> child : node.getChildren()) {
+            buffer.add(child);
+        }
+        for (int i = buffer.size() - 1; i >= 0; i--) {
+            pending.addFirst(buffer.get(i));
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Gets the size of a subtree of a frozen tree.
+     *
+     * @param node the root of the subtree, a frozen tree node
+     * @return the number of nodes of the subtree
+     */
+    private static long sizeOf(final TreeNode<?> node) {
+        final FrozenTreeNode<?> frozen = (FrozenTreeNode<?>) node;
+        return frozen.getTree().getSubtreeSize(frozen.getIndex());
+    }
+
+    /**
+     * Casts a pending subtree.
+     *
+     * @param entry the pending entry
+     * @param <T> the type of data object in the nodes
+     * @return the entry as a node
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> TreeNode<T> cast(final Object entry) {
+        return (TreeNode<T>) entry;
+    }
+
+    /**
+     * Pending node whose children are pending on their own.
+     *
+     * @param <T> the type of data object in the node
+     */
+    private static final class Single<T> {
+        /**
+         * The node.
+         */
+        private final TreeNode<T> node;
+
+        /**
+         * Constructs a new entry.
+         *
+         * @param node the node
+         */
+        Single(final TreeNode<T> node) {
+            this.node = node;
+        }
+    }
+}
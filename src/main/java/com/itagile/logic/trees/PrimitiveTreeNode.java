@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Base class of the tree nodes specialized for a primitive value. Subclasses keep the value
+ * unboxed and provide aggregations over the subtree that never box. Children are kept in an array
+ * in insertion order, and membership is checked through the child's parent, so adding or
+ * checking a child never hashes.
+ *
+ * <p>{@link TreeNode#getData()} boxes the value on each call, it is there so these nodes can be
+ * used wherever a TreeNode is expected, like {@link TreeTraversal} or JSON serialization.
+ *
+ * @author Javier Alcala
+ * @param <N> the type of node of the concrete subclass
+ * @param <T> the boxed type of the primitive value
+ * @since 1.1
+ */
+public abstract class PrimitiveTreeNode<N extends PrimitiveTreeNode<N, T>, T>
+        implements TreeNode<T> {
+    /**
+     * Shared children array of leaves.
+     */
+    private static final Object[] NO_CHILDREN = new Object[0];
+
+    /**
+     * Capacity of the children array when the first child is added.
+     */
+    private static final int INITIAL_CAPACITY = 2;
+
+    /**
+     * This node's parent, or null if this node has no parent.
+     */
+    private N parent;
+
+    /**
+     * Children in insertion order, the first {@link #childCount} elements are used.
+     */
+    private Object[] children = NO_CHILDREN;
+
+    /**
+     * Number of children.
+     */
+    private int childCount;
+
+    /**
+     * Number of changes to the children, checked by the children iterators.
+     */
+    private int modCount;
+
+    /**
+     * Gets this node as the concrete subclass.
+     *
+     * @return this node
+     */
+    protected abstract N self();
+
+    /**
+     * Adds a child at the end of this node's children. The child is removed from its former parent.
+     *
+     * @param newChild the child to add
+     * @return this object
+     */
+    public final N add(final N newChild) {
+        final PrimitiveTreeNode<N, T> child = newChild;
+        if (child.parent != this) {
+            child.removeFromParent();
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(INITIAL_CAPACITY, childCount * 2));
+            }
+            children[childCount++] = child;
+            modCount++;
+            child.parent = self();
+        }
+        return self();
+    }
+
+    /**
+     * Removes a child from this node.
+     *
+     * @param oldChild the child to remove
+     * @return true if the node was a child of this node
+     */
+    public final boolean remove(final N oldChild) {
+        final PrimitiveTreeNode<N, T> child = oldChild;
+        if (child.parent != this) {
+            return false;
+        }
+        for (int i = 0; i < childCount; i++) {
+            if (children[i] == child) {
+                System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+                children[--childCount] = null;
+                modCount++;
+                break;
+            }
+        }
+        child.parent = null;
+        return true;
+    }
+
+    /**
+     * Removes this node from its parent. Does nothing if parent is null.
+     */
+    public final void removeFromParent() {
+        if (parent != null) {
+            parent.remove(self());
+        }
+    }
+
+    /**
+     * Sets this node's parent, removing it from its former parent.
+     *
+     * @param newParent the new parent node, or null to leave this node without parent
+     * @return this object
+     */
+    public final N setParent(final N newParent) {
+        if (newParent == null) {
+            removeFromParent();
+        } else {
+            newParent.add(self());
+        }
+        return self();
+    }
+
+    /**
+     * Returns this node's parent or null if this node has no parent.
+     *
+     * @return this node's parent, or null if this node has no parent
+     */
+    @JsonIgnore
+    public final N getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the number of children.
+     *
+     * @return the number of children
+     */
+    @JsonIgnore
+    public final int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * Gets a child by position.
+     *
+     * @param index the position of the child
+     * @return the child
+     */
+    @SuppressWarnings("unchecked")
+    public final N getChild(final int index) {
+        if (index < 0 || index >= childCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + childCount);
+        }
+        return (N) children[index];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public final Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new ArrayIterator<>(children, childCount, () -> modCount);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public final boolean isLeaf() {
+        return childCount == 0;
+    }
+
+    /**
+     * Pushes the children of this node on a stack, used by the non-recursive aggregations.
+     *
+     * @param stack the stack of pending nodes
+     */
+    @SuppressWarnings("unchecked")
+    protected final void pushChildren(final Deque<N> stack) {
+        for (int i = 0; i < childCount; i++) {
+            stack.push((N) children[i]);
+        }
+    }
+}
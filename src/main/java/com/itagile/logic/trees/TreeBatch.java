@@ -0,0 +1,297 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records structural changes of a tree of {@link MutableTreeNode} instances and applies them
+ * together on {@link #commit()}. Changes are validated once for the whole batch before any node is
+ * changed, so a batch is applied completely or not at all, and a node changed several times is
+ * only moved to its final parent.
+ *
+ * <p>Moves between {@link DefaultMutableTreeNode} instances are applied directly on their children
+ * collections, skipping the chain of calls between setParent, removeFromParent, remove and add of
+ * a single move. Other nodes are moved with {@link MutableTreeNode#setParent}, so their own rules
+ * still apply.
+ *
+ * <p>Nodes must not be changed outside of the batch between the recording and the commit. This
+ * class is not thread-safe.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TreeBatch<T> {
+    /**
+     * Recorded changes, in recording order.
+     */
+    private final List<Change<T>> changes = new ArrayList<>();
+
+    /**
+     * Last change of each changed node.
+     */
+    private final Map<TreeNode<T>, Change<T>> last = new IdentityHashMap<>();
+
+    /**
+     * Records a move of a node to a new parent, where it is added as the last child. Moves to the
+     * parent the node already has, as of the changes recorded so far, are ignored like in add.
+     *
+     * @param node the node
+     * @param newParent the new parent, or null to detach the node
+     * @return this batch
+     */
+    public TreeBatch<T> move(final MutableTreeNode<T> node, final MutableTreeNode<T> newParent) {
+        final Change<T> previous = last.get(node);
+        if ((previous == null ? node.getParent() : previous.parent) == newParent) {
+            return this;
+        }
+        if (previous != null) {
+            previous.superseded = true;
+        }
+        final Change<T> change = new Change<>(node, newParent);
+        last.put(node, change);
+        changes.add(change);
+        return this;
+    }
+
+    /**
+     * Records the addition of a child, moving it from its previous parent.
+     *
+     * @param parent the parent
+     * @param child the child
+     * @return this batch
+     */
+    public TreeBatch<T> add(final MutableTreeNode<T> parent, final MutableTreeNode<T> child) {
+        return move(child, parent);
+    }
+
+    /**
+     * Records the addition of several children, in order.
+     *
+     * @param parent the parent
+     * @param children the children
+     * @return this batch
+     */
+    public TreeBatch<T> addAll(final MutableTreeNode<T> parent,
+            final Iterable<? extends MutableTreeNode<T>> children) {
+        for (final MutableTreeNode<T> child : children) {
+            move(child, parent);
+        }
+        return this;
+    }
+
+    /**
+     * Records the removal of a node from its parent.
+     *
+     * @param node the node
+     * @return this batch
+     */
+    public TreeBatch<T> remove(final MutableTreeNode<T> node) {
+        return move(node, null);
+    }
+
+    /**
+     * Records the removal of the nodes that are children of a parent, as of the changes recorded
+     * so far. Other nodes are ignored.
+     *
+     * @param parent the parent
+     * @param children the children
+     * @return this batch
+     */
+    public TreeBatch<T> removeAll(final MutableTreeNode<T> parent,
+            final Iterable<? extends MutableTreeNode<T>> children) {
+        for (final MutableTreeNode<T> child : children) {
+            if (getParent(child) == parent) {
+                move(child, null);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of recorded changes, not counting the ignored ones.
+     *
+     * @return the number of recorded changes
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Validates and applies the recorded changes, and clears the batch. Every changed node is
+     * first detached from its old parent, then added to its new parent in the order of its last
+     * change, so the nodes only ever form a subset of the validated final tree and no check of
+     * a single move can fail halfway.
+     *
+     * @throws IllegalArgumentException if a node would be moved into its own subtree, in which
+     *         case no node is changed
+     */
+    public void commit() {
+        validate();
+        for (final Change<T> change : changes) {
+            if (!change.superseded) {
+                detach(change.node);
+            }
+        }
+        for (final Change<T> change : changes) {
+            if (!change.superseded && change.parent != null) {
+                attach(change.node, change.parent);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Detaches a node from its parent, directly on the children collection between
+     * {@link DefaultMutableTreeNode} instances.
+     *
+     * @param node the node
+     */
+    private void detach(final MutableTreeNode<T> node) {
+        final TreeNode<T> oldParent = node.getParent();
+        if (oldParent == null) {
+            return;
+        }
+        if (node instanceof DefaultMutableTreeNode && oldParent instanceof DefaultMutableTreeNode) {
+            ((DefaultMutableTreeNode<T>) oldParent).detach((DefaultMutableTreeNode<T>) node);
+        } else {
+            node.removeFromParent();
+        }
+    }
+
+    /**
+     * Adds a detached node as the last child of its new parent, directly on the children
+     * collection between {@link DefaultMutableTreeNode} instances.
+     *
+     * @param node the node
+     * @param newParent the new parent
+     */
+    private void attach(final MutableTreeNode<T> node,
+            final MutableTreeNode<T> newParent) {
+        if (node instanceof DefaultMutableTreeNode && newParent instanceof DefaultMutableTreeNode) {
+            ((DefaultMutableTreeNode<T>) newParent).append((DefaultMutableTreeNode<T>) node);
+        } else {
+            node.setParent(newParent);
+        }
+    }
+
+    /**
+     * Discards the recorded changes.
+     */
+    public void clear() {
+        changes.clear();
+        last.clear();
+    }
+
+    /**
+     * Gets the parent of a node after the changes recorded so far.
+     *
+     * @param node the node
+     * @return the parent, or null
+     */
+    private TreeNode<T> getParent(final TreeNode<T> node) {
+        final Change<T> change = last.get(node);
+        if (change != null) {
+            return change.parent;
+        }
+        return node instanceof MutableTreeNode ? ((MutableTreeNode<T>) node).getParent() : null;
+    }
+
+    /**
+     * Checks that no node would be its own ancestor after the changes, walking the final parent
+     * chain of each new parent up to the root or to an ancestor already checked. Each node on a
+     * chain is stamped with the number of the change that reached it, so nodes on the current
+     * chain are told from the ones checked before. Changed nodes keep the stamp in their change.
+     */
+    private void validate() {
+        final Map<TreeNode<T>, Integer> stamps = new IdentityHashMap<>();
+        for (final Change<T> change : changes) {
+            change.stamp = 0;
+        }
+        int stamp = 0;
+        for (final Change<T> change : changes) {
+            if (change.superseded || change.parent == null) {
+                continue;
+            }
+            change.stamp = ++stamp;
+            TreeNode<T> ancestor = change.parent;
+            while (ancestor != null) {
+                final Change<T> ancestorChange = last.get(ancestor);
+                final int previous;
+                if (ancestorChange == null) {
+                    final Integer stamped = stamps.put(ancestor, stamp);
+                    previous = stamped == null ? 0 : stamped;
+                    ancestor = ancestor instanceof MutableTreeNode
+                            ? ((MutableTreeNode<T>) ancestor).getParent() : null;
+                } else {
+                    previous = ancestorChange.stamp;
+                    ancestorChange.stamp = stamp;
+                    ancestor = ancestorChange.parent;
+                }
+                if (previous == stamp) {
+                    throw new IllegalArgumentException(
+                            "A node cannot be moved into its own subtree");
+                } else if (previous != 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Move of a node recorded in a batch.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class Change<T> {
+        /**
+         * The moved node.
+         */
+        private final MutableTreeNode<T> node;
+
+        /**
+         * The new parent, or null to detach the node.
+         */
+        private final MutableTreeNode<T> parent;
+
+        /**
+         * True if a later change of the same node replaces this one.
+         */
+        private boolean superseded;
+
+        /**
+         * Number of the validation step that reached the node, or 0.
+         */
+        private int stamp;
+
+        /**
+         * Constructs a new change.
+         *
+         * @param node the moved node
+         * @param parent the new parent, or null to detach the node
+         */
+        Change(final MutableTreeNode<T> node, final MutableTreeNode<T> parent) {
+            this.node = node;
+            this.parent = parent;
+        }
+    }
+}
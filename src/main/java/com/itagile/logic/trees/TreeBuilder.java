@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds trees of {@link DefaultMutableTreeNode} from flat rows with an identifier, a parent
+ * identifier and data, as found in adjacency lists exported from databases. Rows may come in any
+ * order. The cost is linear in the number of rows: rows are read once, and then every row is
+ * linked, checked for cycles, turned into a node and attached a constant number of times.
+ * Children keep the order of their rows, and are appended without the bookkeeping of
+ * {@link MutableTreeNode#add(MutableTreeNode)}.
+ *
+ * <p>Rows with a null parent identifier become roots. Rows whose parent identifier does not match
+ * any row, and rows whose parent identifiers form a cycle, are reported by the resulting
+ * {@link TreeForest} instead of failing the build. Instances are immutable and can be shared.
+ *
+ * @author Javier Alcala
+ * @param <R> the type of rows
+ * @param <K> the type of row identifiers, with consistent equals and hashCode
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public final class TreeBuilder<R, K, T> {
+    /**
+     * Slot state: not yet checked for cycles.
+     */
+    private static final byte UNCHECKED = 0;
+
+    /**
+     * Slot state: on the parent path being checked for cycles.
+     */
+    private static final byte CHECKING = 1;
+
+    /**
+     * Slot state: checked, its ancestors end in a root or an orphan.
+     */
+    private static final byte CHECKED = 2;
+
+    /**
+     * Extracts the identifier of a row.
+     */
+    private final Extractor<? super R, ? extends K> idExtractor;
+
+    /**
+     * Extracts the parent identifier of a row.
+     */
+    private final Extractor<? super R, ? extends K> parentIdExtractor;
+
+    /**
+     * Extracts the node data of a row.
+     */
+    private final Extractor<? super R, ? extends T> dataExtractor;
+
+    /**
+     * Constructs a new builder.
+     *
+     * @param idExtractor extracts the identifier of a row, never null
+     * @param parentIdExtractor extracts the parent identifier of a row, null for roots
+     * @param dataExtractor extracts the node data of a row
+     */
+    public TreeBuilder(final Extractor<? super R, ? extends K> idExtractor,
+            final Extractor<? super R, ? extends K> parentIdExtractor,
+            final Extractor<? super R, ? extends T> dataExtractor) {
+        this.idExtractor = idExtractor;
+        this.parentIdExtractor = parentIdExtractor;
+        this.dataExtractor = dataExtractor;
+    }
+
+    /**
+     * Builds the trees of the given rows.
+     *
+     * @param rows the rows
+     * @return the built trees
+     * @throws IllegalArgumentException if two rows have the same identifier or a null identifier
+     */
+    public TreeForest<K, T> build(final Iterable<? extends R> rows) {
+        return build(rows.iterator());
+    }
+
+    /**
+     * Builds the trees of the given rows.
+     *
+     * @param rows the rows
+     * @return the built trees
+     * @throws IllegalArgumentException if two rows have the same identifier or a null identifier
+     */
+    public TreeForest<K, T> build(final Iterator<? extends R> rows) {
+        final Map<K, Slot<K, T>> slots = new HashMap<>();
+        final List<Slot<K, T>> ordered = new ArrayList<>();
+        while (rows.hasNext()) {
+            final R row = rows.next();
+            final K id = idExtractor.extract(row);
+            if (id == null) {
+                throw new IllegalArgumentException("Null id in row " + row);
+            }
+            final Slot<K, T> slot = new Slot<>(parentIdExtractor.extract(row),
+                    dataExtractor.extract(row));
+            if (slots.put(id, slot) != null) {
+                throw new IllegalArgumentException("Duplicate id " + id);
+            }
+            ordered.add(slot);
+        }
+        final List<Slot<K, T>> orphanSlots = new ArrayList<>();
+        for (final Slot<K, T> slot : ordered) {
+            if (slot.parentId != null) {
+                slot.parent = slots.get(slot.parentId);
+                if (slot.parent == null) {
+                    orphanSlots.add(slot);
+                } else {
+                    slot.parent.childCount++;
+                }
+            }
+        }
+        final List<Slot<K, T>> cycleSlots = breakCycles(ordered);
+        final List<MutableTreeNode<T>> roots = new ArrayList<>();
+        for (final Slot<K, T> slot : ordered) {
+            slot.node = new DefaultMutableTreeNode<>(slot.data, null, newCollection(slot));
+            slot.data = null;
+        }
+        for (final Slot<K, T> slot : ordered) {
+            if (slot.parent != null) {
+                slot.parent.node.append(slot.node);
+            } else if (slot.parentId == null) {
+                roots.add(slot.node);
+            }
+        }
+        return new TreeForest<>(roots, nodes(orphanSlots), nodes(cycleSlots), slots);
+    }
+
+    /**
+     * Finds the cycles of parent links and breaks each one by unlinking one of its slots. Every
+     * slot is visited a constant number of times.
+     *
+     * @param ordered the slots in row order
+     * @return the unlinked slots, one per cycle
+     */
+    private List<Slot<K, T>> breakCycles(final List<Slot<K, T>> ordered) {
+        final List<Slot<K, T>> cycleSlots = new ArrayList<>();
+        final List<Slot<K, T>> path = new ArrayList<>();
+        for (final Slot<K, T> start : ordered) {
+            Slot<K, T> slot = start;
+            while (slot != null && slot.state == UNCHECKED) {
+                slot.state = CHECKING;
+                path.add(slot);
+                slot = slot.parent;
+            }
+            if (slot != null && slot.state == CHECKING) {
+                // the path reached itself, slot closes the cycle
+                slot.parent.childCount--;
+                slot.parent = null;
+                cycleSlots.add(slot);
+            }
+            for (final Slot<K, T> checked : path) {
+                checked.state = CHECKED;
+            }
+            path.clear();
+        }
+        return cycleSlots;
+    }
+
+    /**
+     * Creates the children collection of a slot node, sized for its known number of children.
+     *
+     * @param slot the slot
+     * @param <K> the type of row identifiers
+     * @param <T> the type of data object in the nodes
+     * @return the new children collection
+     */
+    private static <K, T> LinkedHashSet<MutableTreeNode<T>> newCollection(final Slot<K, T> slot) {
+        if (slot.childCount == 0) {
+            return new LinkedHashSet<>();
+        }
+        return new LinkedHashSet<>(slot.childCount + slot.childCount / 3 + 1);
+    }
+
+    /**
+     * Gets the nodes of the given slots.
+     *
+     * @param slots the slots
+     * @param <K> the type of row identifiers
+     * @param <T> the type of data object in the nodes
+     * @return the nodes of the slots in the same order
+     */
+    private static <K, T> List<MutableTreeNode<T>> nodes(final List<Slot<K, T>> slots) {
+        final List<MutableTreeNode<T>> nodes = new ArrayList<>(slots.size());
+        for (final Slot<K, T> slot : slots) {
+            nodes.add(slot.node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Build state of one row.
+     *
+     * @param <K> the type of row identifiers
+     * @param <T> the type of data object in the nodes
+     */
+    static final class Slot<K, T> {
+        /**
+         * The parent identifier of the row.
+         */
+        private final K parentId;
+
+        /**
+         * The data of the row, until the node is created.
+         */
+        private T data;
+
+        /**
+         * The slot of the parent row, or null if unlinked.
+         */
+        private Slot<K, T> parent;
+
+        /**
+         * Number of slots linked to this one as parent.
+         */
+        private int childCount;
+
+        /**
+         * Cycle check state.
+         */
+        private byte state;
+
+        /**
+         * The built node.
+         */
+        private DefaultMutableTreeNode<T> node;
+
+        /**
+         * Constructs a new slot.
+         *
+         * @param parentId the parent identifier of the row
+         * @param data the data of the row
+         */
+        Slot(final K parentId, final T data) {
+            this.parentId = parentId;
+            this.data = data;
+        }
+
+        /**
+         * Gets the built node.
+         *
+         * @return the built node
+         */
+        MutableTreeNode<T> getNode() {
+            return node;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a {@link TreePatch} from a source tree to a target tree of {@link HashedTreeNode}
+ * instances. The diff only descends into pairs of nodes whose subtree hashes differ, so its cost is
+ * proportional to the number of changed nodes times their depth and fan-out, not to the size of the
+ * trees.
+ *
+ * <p>The children of a pair of nodes are matched first by subtree hash, then by data hash, and the
+ * rest by position. Matched children whose data differ are updated, and matched children out of
+ * order are moved, keeping in place the longest increasing subsequence of matched positions.
+ * Unmatched source children are deleted and unmatched target children inserted, except when a
+ * deleted subtree has the same hash as an inserted one anywhere in the tree, which becomes a move.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public final class TreeDiff {
+    /**
+     * Private constructor to avoid instantiation.
+     */
+    private TreeDiff() {
+    }
+
+    /**
+     * Computes the patch that transforms the source tree into the target tree.
+     *
+     * @param source the root of the source tree
+     * @param target the root of the target tree
+     * @param <T> the type of data object in the nodes
+     * @return the patch, empty if both trees have the same hash
+     * @throws IllegalArgumentException if the trees don't use the same hasher
+     */
+    public static <T> TreePatch<T> diff(final HashedTreeNode<T> source,
+            final HashedTreeNode<T> target) {
+        if (source.getHasher() != target.getHasher()) {
+            throw new IllegalArgumentException("Trees must use the same hasher");
+        }
+        final List<TreeEdit<T>> updates = new ArrayList<>();
+        final List<TreeEdit<T>> moves = new ArrayList<>();
+        final Map<Long, Deque<int[]>> deleted = new HashMap<>();
+        final List<Object[]> inserted = new ArrayList<>();
+        if (source.getHash() != target.getHash()) {
+            if (source.getDataHash() != target.getDataHash()) {
+                updates.add(TreeEdit.update(new int[0], target.getData()));
+            }
+            final Deque<Object[]> stack = new ArrayDeque<>();
+            stack.push(new Object[] {source, target, new int[0]});
+            while (!stack.isEmpty()) {
+                final Object[] pair = stack.pop();
+                diffChildren(pair, stack, updates, moves, deleted, inserted);
+            }
+        }
+        final List<TreeEdit<T>> edits = new ArrayList<>(updates);
+        edits.addAll(moves);
+        final List<TreeEdit<T>> insertions = new ArrayList<>();
+        for (final Object[] insertion : inserted) {
+            @SuppressWarnings("unchecked")
+            final HashedTreeNode<T> node = (HashedTreeNode<T>) insertion[2];
+            final Deque<int[]> paths = deleted.get(node.getHash());
+            final int[] parentPath = (int[]) insertion[0];
+            final int index = (Integer) insertion[1];
+            if (paths == null || paths.isEmpty()) {
+                insertions.add(TreeEdit.insert(parentPath, index, PersistentTreeNode.copyOf(node)));
+            } else {
+                edits.add(TreeEdit.<T>move(paths.poll(), parentPath, index));
+            }
+        }
+        for (final Deque<int[]> paths : deleted.values()) {
+            for (final int[] path : paths) {
+                edits.add(TreeEdit.<T>delete(path));
+            }
+        }
+        edits.addAll(insertions);
+        return new TreePatch<>(edits);
+    }
+
+    /**
+     * Matches the children of a pair of nodes with different hashes, recording their edits and
+     * pushing the matched pairs with different hashes.
+     *
+     * @param pair the source node, the target node and the path of the source node
+     * @param stack the pairs to diff
+     * @param updates the updates
+     * @param moves the moves inside a parent
+     * @param deleted the paths of unmatched source children by subtree hash
+     * @param inserted the parent path, position and node of unmatched target children
+     * @param <T> the type of data object in the nodes
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void diffChildren(final Object[] pair, final Deque<Object[]> stack,
+            final List<TreeEdit<T>> updates, final List<TreeEdit<T>> moves,
+            final Map<Long, Deque<int[]>> deleted, final List<Object[]> inserted) {
+        final HashedTreeNode<T> source = (HashedTreeNode<T>) pair[0];
+        final HashedTreeNode<T> target = (HashedTreeNode<T>) pair[1];
+        final int[] path = (int[]) pair[2];
+        final int sourceCount = source.getChildCount();
+        final int targetCount = target.getChildCount();
+        final int[] matches = new int[targetCount];
+        Arrays.fill(matches, -1);
+        final boolean[] matched = new boolean[sourceCount];
+        final Map<Long, Deque<Integer>> byHash = new HashMap<>();
+        for (int i = 0; i < sourceCount; i++) {
+            add(byHash, source.getChild(i).getHash(), i);
+        }
+        for (int j = 0; j < targetCount; j++) {
+            final Deque<Integer> candidates = byHash.get(target.getChild(j).getHash());
+            if (candidates != null && !candidates.isEmpty()) {
+                matches[j] = candidates.poll();
+                matched[matches[j]] = true;
+            }
+        }
+        byHash.clear();
+        for (int i = 0; i < sourceCount; i++) {
+            if (!matched[i]) {
+                add(byHash, source.getChild(i).getDataHash(), i);
+            }
+        }
+        for (int j = 0; j < targetCount; j++) {
+            if (matches[j] < 0) {
+                final Deque<Integer> candidates = byHash.get(target.getChild(j).getDataHash());
+                if (candidates != null && !candidates.isEmpty()) {
+                    matches[j] = candidates.poll();
+                    matched[matches[j]] = true;
+                }
+            }
+        }
+        int next = 0;
+        for (int j = 0; j < targetCount; j++) {
+            if (matches[j] < 0) {
+                while (next < sourceCount && matched[next]) {
+                    next++;
+                }
+                if (next < sourceCount) {
+                    matches[j] = next;
+                    matched[next] = true;
+                }
+            }
+        }
+        final boolean[] stable = longestIncreasing(matches);
+        for (int j = 0; j < targetCount; j++) {
+            final HashedTreeNode<T> targetChild = target.getChild(j);
+            if (matches[j] < 0) {
+                inserted.add(new Object[] {path, j, targetChild});
+                continue;
+            }
+            final HashedTreeNode<T> sourceChild = source.getChild(matches[j]);
+            final int[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = matches[j];
+            if (!stable[j]) {
+                moves.add(TreeEdit.<T>move(childPath, path, j));
+            }
+            if (sourceChild.getHash() != targetChild.getHash()) {
+                if (sourceChild.getDataHash() != targetChild.getDataHash()) {
+                    updates.add(TreeEdit.update(childPath, targetChild.getData()));
+                }
+                stack.push(new Object[] {sourceChild, targetChild, childPath});
+            }
+        }
+        for (int i = 0; i < sourceCount; i++) {
+            if (!matched[i]) {
+                final int[] childPath = Arrays.copyOf(path, path.length + 1);
+                childPath[path.length] = i;
+                Deque<int[]> paths = deleted.get(source.getChild(i).getHash());
+                if (paths == null) {
+                    paths = new ArrayDeque<>();
+                    deleted.put(source.getChild(i).getHash(), paths);
+                }
+                paths.add(childPath);
+            }
+        }
+    }
+
+    /**
+     * Adds a position to the deque of a hash.
+     *
+     * @param map the positions by hash
+     * @param hash the hash
+     * @param index the position
+     */
+    private static void add(final Map<Long, Deque<Integer>> map, final long hash,
+            final int index) {
+        Deque<Integer> deque = map.get(hash);
+        if (deque == null) {
+            deque = new ArrayDeque<>();
+            map.put(hash, deque);
+        }
+        deque.add(index);
+    }
+
+    /**
+     * Finds a longest increasing subsequence of the matched source positions, in O(n log n).
+     *
+     * @param matches the matched source position of each target child, or -1
+     * @return true for the target children in the subsequence
+     */
+    private static boolean[] longestIncreasing(final int[] matches) {
+        final int[] tails = new int[matches.length];
+        final int[] previous = new int[matches.length];
+        int length = 0;
+        for (int j = 0; j < matches.length; j++) {
+            if (matches[j] >= 0) {
+                int low = 0;
+                int high = length;
+                while (low < high) {
+                    final int middle = (low + high) >>> 1;
+                    if (matches[tails[middle]] < matches[j]) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                previous[j] = low > 0 ? tails[low - 1] : -1;
+                tails[low] = j;
+                if (low == length) {
+                    length++;
+                }
+            }
+        }
+        final boolean[] stable = new boolean[matches.length];
+        for (int j = length > 0 ? tails[length - 1] : -1; j >= 0; j = previous[j]) {
+            stable[j] = true;
+        }
+        return stable;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Arrays;
+
+/**
+ * An edit of a {@link TreePatch}. Nodes of the tree the patch is applied to are addressed by their
+ * path of child positions from the root, as they are before the patch is applied.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TreeEdit<T> {
+    /**
+     * Types of edits.
+     */
+    public enum Type {
+        /**
+         * Inserts a new subtree as a child of a node.
+         */
+        INSERT,
+        /**
+         * Deletes a subtree.
+         */
+        DELETE,
+        /**
+         * Moves a subtree to a child position of a node, possibly its current parent.
+         */
+        MOVE,
+        /**
+         * Sets the data object of a node.
+         */
+        UPDATE
+    }
+
+    /**
+     * Type of edit.
+     */
+    private final Type type;
+
+    /**
+     * Path of the edited node, or null for insertions.
+     */
+    private final int[] path;
+
+    /**
+     * Path of the new parent for insertions and moves, or null.
+     */
+    private final int[] parentPath;
+
+    /**
+     * Position among the children of the new parent after the patch, or -1.
+     */
+    private final int index;
+
+    /**
+     * New data object for updates, or null.
+     */
+    private final T data;
+
+    /**
+     * Inserted subtree, or null.
+     */
+    private final TreeNode<T> subtree;
+
+    /**
+     * Constructs a new edit.
+     *
+     * @param type type of edit
+     * @param path path of the edited node, or null for insertions
+     * @param parentPath path of the new parent for insertions and moves, or null
+     * @param index position among the children of the new parent after the patch, or -1
+     * @param data new data object for updates, or null
+     * @param subtree inserted subtree, or null
+     */
+    private TreeEdit(final Type type, final int[] path, final int[] parentPath, final int index,
+            final T data, final TreeNode<T> subtree) {
+        this.type = type;
+        this.path = path;
+        this.parentPath = parentPath;
+        this.index = index;
+        this.data = data;
+        this.subtree = subtree;
+    }
+
+    /**
+     * Creates an insertion.
+     *
+     * @param parentPath path of the parent
+     * @param index position among the children of the parent after the patch
+     * @param subtree inserted subtree
+     * @param <T> the type of data object in the nodes
+     * @return the edit
+     */
+    static <T> TreeEdit<T> insert(final int[] parentPath, final int index,
+            final TreeNode<T> subtree) {
+        return new TreeEdit<>(Type.INSERT, null, parentPath, index, null, subtree);
+    }
+
+    /**
+     * Creates a deletion.
+     *
+     * @param path path of the deleted node
+     * @param <T> the type of data object in the nodes
+     * @return the edit
+     */
+    static <T> TreeEdit<T> delete(final int[] path) {
+        return new TreeEdit<>(Type.DELETE, path, null, -1, null, null);
+    }
+
+    /**
+     * Creates a move.
+     *
+     * @param path path of the moved node
+     * @param parentPath path of the new parent
+     * @param index position among the children of the new parent after the patch
+     * @param <T> the type of data object in the nodes
+     * @return the edit
+     */
+    static <T> TreeEdit<T> move(final int[] path, final int[] parentPath, final int index) {
+        return new TreeEdit<>(Type.MOVE, path, parentPath, index, null, null);
+    }
+
+    /**
+     * Creates an update.
+     *
+     * @param path path of the updated node
+     * @param data new data object
+     * @param <T> the type of data object in the nodes
+     * @return the edit
+     */
+    static <T> TreeEdit<T> update(final int[] path, final T data) {
+        return new TreeEdit<>(Type.UPDATE, path, null, -1, data, null);
+    }
+
+    /**
+     * Gets the type of edit.
+     *
+     * @return the type of edit
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the path of the edited node for deletions, moves and updates.
+     *
+     * @return a copy of the path, or null for insertions
+     */
+    public int[] getPath() {
+        return path == null ? null : path.clone();
+    }
+
+    /**
+     * Gets the path of the new parent for insertions and moves.
+     *
+     * @return a copy of the path, or null for deletions and updates
+     */
+    public int[] getParentPath() {
+        return parentPath == null ? null : parentPath.clone();
+    }
+
+    /**
+     * Gets the position among the children of the new parent after the patch, for insertions and
+     * moves.
+     *
+     * @return the position, or -1 for deletions and updates
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the new data object for updates.
+     *
+     * @return the new data object, or null for other edits
+     */
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * Gets the inserted subtree for insertions.
+     *
+     * @return the inserted subtree, or null for other edits
+     */
+    public TreeNode<T> getSubtree() {
+        return subtree;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+        case INSERT:
+            return type + " " + Arrays.toString(parentPath) + "@" + index + " " + subtree.getData();
+        case MOVE:
+            return type + " " + Arrays.toString(path) + " " + Arrays.toString(parentPath) + "@"
+                    + index;
+        case UPDATE:
+            return type + " " + Arrays.toString(path) + " " + data;
+        default:
+            return type + " " + Arrays.toString(path);
+        }
+    }
+}
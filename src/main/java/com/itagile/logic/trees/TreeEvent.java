@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * A change of a node of an {@link ObservableTree}, delivered to the {@link TreeListener}
+ * instances of the tree. Events are coalesced between deliveries, so an event gives the net change
+ * of a node since the previous delivery: a node added and moved is reported as added to its last
+ * parent, and several data changes of a node as one.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TreeEvent<T> {
+    /**
+     * Types of events.
+     */
+    public enum Type {
+        /**
+         * A node without parent was added to a parent.
+         */
+        ADDED,
+        /**
+         * A node was removed from its parent.
+         */
+        REMOVED,
+        /**
+         * A node was moved to a new parent, or to the end of the children of the same parent.
+         */
+        MOVED,
+        /**
+         * The data object of a node was set.
+         */
+        DATA_CHANGED
+    }
+
+    /**
+     * Type of event.
+     */
+    private final Type type;
+
+    /**
+     * The changed node.
+     */
+    private final ObservableTreeNode<T> node;
+
+    /**
+     * Parent before the change, or null.
+     */
+    private final ObservableTreeNode<T> oldParent;
+
+    /**
+     * Parent after the change, or null.
+     */
+    private final ObservableTreeNode<T> newParent;
+
+    /**
+     * Constructs a new event.
+     *
+     * @param type type of event
+     * @param node the changed node
+     * @param oldParent parent before the change, or null
+     * @param newParent parent after the change, or null
+     */
+    private TreeEvent(final Type type, final ObservableTreeNode<T> node,
+            final ObservableTreeNode<T> oldParent, final ObservableTreeNode<T> newParent) {
+        this.type = type;
+        this.node = node;
+        this.oldParent = oldParent;
+        this.newParent = newParent;
+    }
+
+    /**
+     * Creates the event of a change of parent.
+     *
+     * @param node the changed node
+     * @param oldParent parent before the change, or null
+     * @param newParent parent after the change, or null
+     * @param <T> the type of data object in the nodes
+     * @return the event, or null if the node had and has no parent
+     */
+    static <T> TreeEvent<T> parentChanged(final ObservableTreeNode<T> node,
+            final ObservableTreeNode<T> oldParent, final ObservableTreeNode<T> newParent) {
+        if (oldParent == null) {
+            return newParent == null ? null : new TreeEvent<>(Type.ADDED, node, null, newParent);
+        }
+        return new TreeEvent<>(newParent == null ? Type.REMOVED : Type.MOVED, node, oldParent,
+                newParent);
+    }
+
+    /**
+     * Creates the event of a change of data object.
+     *
+     * @param node the changed node
+     * @param <T> the type of data object in the nodes
+     * @return the event
+     */
+    static <T> TreeEvent<T> dataChanged(final ObservableTreeNode<T> node) {
+        return new TreeEvent<>(Type.DATA_CHANGED, node, node.getParentNode(),
+                node.getParentNode());
+    }
+
+    /**
+     * Gets the type of event.
+     *
+     * @return the type of event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the changed node.
+     *
+     * @return the changed node
+     */
+    public ObservableTreeNode<T> getNode() {
+        return node;
+    }
+
+    /**
+     * Gets the parent of the node before the change.
+     *
+     * @return the old parent, or null for added nodes
+     */
+    public ObservableTreeNode<T> getOldParent() {
+        return oldParent;
+    }
+
+    /**
+     * Gets the parent of the node after the change.
+     *
+     * @return the new parent, or null for removed nodes
+     */
+    public ObservableTreeNode<T> getNewParent() {
+        return newParent;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return type + " " + node.getData();
+    }
+}
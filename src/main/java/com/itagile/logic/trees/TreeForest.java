@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The trees assembled by a {@link TreeBuilder}, together with the rows that could not be attached
+ * to their parent.
+ *
+ * @author Javier Alcala
+ * @param <K> the type of row identifiers
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public final class TreeForest<K, T> {
+    /**
+     * Nodes without parent identifier, in row order.
+     */
+    private final List<MutableTreeNode<T>> roots;
+
+    /**
+     * Nodes whose parent identifier was not found, in row order.
+     */
+    private final List<MutableTreeNode<T>> orphans;
+
+    /**
+     * Nodes detached from their parent to break a cycle, one per cycle.
+     */
+    private final List<MutableTreeNode<T>> cycles;
+
+    /**
+     * Every row slot by identifier.
+     */
+    private final Map<K, TreeBuilder.Slot<K, T>> slots;
+
+    /**
+     * Constructs a new forest.
+     *
+     * @param roots nodes without parent identifier
+     * @param orphans nodes whose parent identifier was not found
+     * @param cycles nodes detached from their parent to break a cycle
+     * @param slots every row slot by identifier
+     */
+    TreeForest(final List<MutableTreeNode<T>> roots, final List<MutableTreeNode<T>> orphans,
+            final List<MutableTreeNode<T>> cycles, final Map<K, TreeBuilder.Slot<K, T>> slots) {
+        this.roots = Collections.unmodifiableList(roots);
+        this.orphans = Collections.unmodifiableList(orphans);
+        this.cycles = Collections.unmodifiableList(cycles);
+        this.slots = slots;
+    }
+
+    /**
+     * Gets the nodes without parent identifier, in row order.
+     *
+     * @return the root nodes, never null
+     */
+    public List<MutableTreeNode<T>> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Gets the nodes whose parent identifier was not found in the rows, in row order. They are
+     * left without parent, as roots of their own subtrees.
+     *
+     * @return the orphan nodes, never null
+     */
+    public List<MutableTreeNode<T>> getOrphans() {
+        return orphans;
+    }
+
+    /**
+     * Gets one node per cycle found in the parent identifiers. Each one is left without parent,
+     * so the rest of its cycle hangs from it as a regular subtree.
+     *
+     * @return the nodes detached to break cycles, never null
+     */
+    public List<MutableTreeNode<T>> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Gets the node built from the row with the given identifier.
+     *
+     * @param id the row identifier
+     * @return the node, or null if there was no row with that identifier
+     */
+    public MutableTreeNode<T> getNode(final K id) {
+        final TreeBuilder.Slot<K, T> slot = slots.get(id);
+        return slot == null ? null : slot.getNode();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.List;
+
+/**
+ * Receives the changes of the nodes of an {@link ObservableTree} in batches.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public interface TreeListener<T> {
+    /**
+     * Called with the changes recorded since the previous batch, in order of the first change of
+     * each node. Listeners called by an asynchronous executor must not read the nodes while the
+     * tree is being changed.
+     *
+     * @param events the coalesced changes, never empty
+     */
+    void treeChanged(List<TreeEvent<T>> events);
+}
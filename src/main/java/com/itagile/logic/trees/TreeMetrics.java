@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of an {@link ObservableTree}, updated by the tree on every change and readable at any
+ * time from any thread in constant time. Node count, depth and fan-out cover the nodes under the
+ * root of the tree, while the mutation counters cover every node of the tree.
+ *
+ * <p>The fan-out histogram counts nodes by number of children in power of two buckets: bucket 0
+ * counts leaves, bucket 1 nodes with one child, bucket 2 nodes with 2 or 3 children, bucket k
+ * nodes with 2^(k-1) to 2^k - 1 children.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TreeMetrics {
+    /**
+     * Number of fan-out buckets.
+     */
+    private static final int BUCKETS = Integer.SIZE;
+
+    /**
+     * Number of nodes under the root, including the root.
+     */
+    private final AtomicLong nodeCount = new AtomicLong();
+
+    /**
+     * Number of nodes by fan-out bucket.
+     */
+    private final AtomicLongArray fanOut = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Number of added nodes.
+     */
+    private final AtomicLong added = new AtomicLong();
+
+    /**
+     * Number of removed nodes.
+     */
+    private final AtomicLong removed = new AtomicLong();
+
+    /**
+     * Number of moved nodes.
+     */
+    private final AtomicLong moved = new AtomicLong();
+
+    /**
+     * Number of data object changes.
+     */
+    private final AtomicLong dataChanged = new AtomicLong();
+
+    /**
+     * Number of nodes by depth, only used by the thread changing the tree.
+     */
+    private long[] depthCounts = new long[8];
+
+    /**
+     * Maximum depth of a node under the root.
+     */
+    private volatile int maxDepth;
+
+    /**
+     * Constructs new metrics for a tree with just a root.
+     */
+    TreeMetrics() {
+        enter(0, 0);
+    }
+
+    /**
+     * Gets the number of nodes under the root, including the root.
+     *
+     * @return the number of nodes
+     */
+    public long getNodeCount() {
+        return nodeCount.get();
+    }
+
+    /**
+     * Gets the maximum depth of a node under the root, the root having depth 0.
+     *
+     * @return the maximum depth
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the number of nodes under the root by fan-out bucket.
+     *
+     * @return a copy of the histogram, with trailing empty buckets removed
+     */
+    public long[] getFanOutHistogram() {
+        final long[] histogram = new long[BUCKETS];
+        int length = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = fanOut.get(i);
+            if (histogram[i] != 0) {
+                length = i + 1;
+            }
+        }
+        return Arrays.copyOf(histogram, length);
+    }
+
+    /**
+     * Gets the number of nodes without parent added to a parent.
+     *
+     * @return the number of added nodes
+     */
+    public long getAddedCount() {
+        return added.get();
+    }
+
+    /**
+     * Gets the number of nodes removed from their parent.
+     *
+     * @return the number of removed nodes
+     */
+    public long getRemovedCount() {
+        return removed.get();
+    }
+
+    /**
+     * Gets the number of nodes moved from a parent to another one, or to the end of the same one.
+     *
+     * @return the number of moved nodes
+     */
+    public long getMovedCount() {
+        return moved.get();
+    }
+
+    /**
+     * Gets the number of data objects set.
+     *
+     * @return the number of data object changes
+     */
+    public long getDataChangedCount() {
+        return dataChanged.get();
+    }
+
+    /**
+     * Gets the total number of changes.
+     *
+     * @return the number of additions, removals, moves and data object changes
+     */
+    public long getMutationCount() {
+        return added.get() + removed.get() + moved.get() + dataChanged.get();
+    }
+
+    /**
+     * Gets the fan-out bucket of a number of children.
+     *
+     * @param childCount the number of children
+     * @return the bucket
+     */
+    static int bucket(final int childCount) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(childCount);
+    }
+
+    /**
+     * Counts a change of a node.
+     *
+     * @param type the type of change
+     */
+    void count(final TreeEvent.Type type) {
+        switch (type) {
+        case ADDED:
+            added.incrementAndGet();
+            break;
+        case REMOVED:
+            removed.incrementAndGet();
+            break;
+        case MOVED:
+            moved.incrementAndGet();
+            break;
+        default:
+            dataChanged.incrementAndGet();
+            break;
+        }
+    }
+
+    /**
+     * Updates the fan-out histogram after a child is added to or removed from a node under the
+     * root.
+     *
+     * @param oldChildCount the number of children before the change
+     * @param newChildCount the number of children after the change
+     */
+    void childCountChanged(final int oldChildCount, final int newChildCount) {
+        final int oldBucket = bucket(oldChildCount);
+        final int newBucket = bucket(newChildCount);
+        if (oldBucket != newBucket) {
+            fanOut.decrementAndGet(oldBucket);
+            fanOut.incrementAndGet(newBucket);
+        }
+    }
+
+    /**
+     * Updates the metrics after the depth of a node changes, -1 standing for nodes out of the
+     * root.
+     *
+     * @param oldDepth the depth before the change, or -1
+     * @param newDepth the depth after the change, or -1
+     * @param childCount the number of children of the node
+     */
+    void depthChanged(final int oldDepth, final int newDepth, final int childCount) {
+        if (oldDepth >= 0) {
+            if (newDepth < 0) {
+                nodeCount.decrementAndGet();
+                fanOut.decrementAndGet(bucket(childCount));
+            }
+            if (--depthCounts[oldDepth] == 0 && oldDepth == maxDepth) {
+                int depth = oldDepth;
+                while (depth > 0 && depthCounts[depth] == 0) {
+                    depth--;
+                }
+                maxDepth = depth;
+            }
+        }
+        if (newDepth >= 0) {
+            if (oldDepth < 0) {
+                enter(newDepth, childCount);
+            } else {
+                addDepth(newDepth);
+            }
+        }
+    }
+
+    /**
+     * Counts a node entering the tree.
+     *
+     * @param depth the depth of the node
+     * @param childCount the number of children of the node
+     */
+    private void enter(final int depth, final int childCount) {
+        nodeCount.incrementAndGet();
+        fanOut.incrementAndGet(bucket(childCount));
+        addDepth(depth);
+    }
+
+    /**
+     * Counts a node at a depth.
+     *
+     * @param depth the depth of the node
+     */
+    private void addDepth(final int depth) {
+        if (depth >= depthCounts.length) {
+            depthCounts = Arrays.copyOf(depthCounts, Math.max(depth + 1, depthCounts.length * 2));
+        }
+        depthCounts[depth]++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A list of {@link TreeEdit} instances that transforms a tree into another, computed by
+ * {@link TreeDiff}. Every path refers to the tree before the patch, so the edits are independent of
+ * each other and can be applied in any order.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TreePatch<T> {
+    /**
+     * The edits.
+     */
+    private final List<TreeEdit<T>> edits;
+
+    /**
+     * Constructs a new patch.
+     *
+     * @param edits the edits, not copied
+     */
+    TreePatch(final List<TreeEdit<T>> edits) {
+        this.edits = Collections.unmodifiableList(edits);
+    }
+
+    /**
+     * Gets the edits.
+     *
+     * @return the edits as an unmodifiable list
+     */
+    public List<TreeEdit<T>> getEdits() {
+        return edits;
+    }
+
+    /**
+     * Checks if the patch has no edits.
+     *
+     * @return true if the patch has no edits
+     */
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * Applies the patch to a tree equal to the source tree of the diff. Paths are resolved before
+     * any change, then data objects are updated, deleted and moved subtrees are removed from their
+     * parents, inserted subtrees are created with the factory, and the children of every parent
+     * receiving nodes are put in their final order, removing and adding again only the children
+     * after the first position that changes.
+     *
+     * @param root the root of the tree
+     * @param factory creates a new node without parent nor children for a data object
+     * @throws IllegalArgumentException if a path or position doesn't exist in the tree
+     */
+    public void apply(final MutableTreeNode<T> root,
+            final Function<? super T, ? extends MutableTreeNode<T>> factory) {
+        final int size = edits.size();
+        final List<MutableTreeNode<T>> nodes = new ArrayList<>(size);
+        final List<MutableTreeNode<T>> parents = new ArrayList<>(size);
+        for (final TreeEdit<T> edit : edits) {
+            nodes.add(edit.getType() == TreeEdit.Type.INSERT ? null
+                    : resolve(root, edit.getPath()));
+            parents.add(edit.getType() == TreeEdit.Type.INSERT
+                    || edit.getType() == TreeEdit.Type.MOVE ? resolve(root, edit.getParentPath())
+                            : null);
+        }
+        final Map<MutableTreeNode<T>, List<Object[]>> placements = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            final TreeEdit<T> edit = edits.get(i);
+            final MutableTreeNode<T> node = nodes.get(i);
+            switch (edit.getType()) {
+            case UPDATE:
+                node.setData(edit.getData());
+                break;
+            case DELETE:
+                node.removeFromParent();
+                break;
+            case MOVE:
+                node.removeFromParent();
+                place(placements, parents.get(i), edit.getIndex(), node);
+                break;
+            default:
+                place(placements, parents.get(i), edit.getIndex(),
+                        copy(edit.getSubtree(), factory));
+                break;
+            }
+        }
+        for (final Map.Entry<MutableTreeNode<T>, List<Object[]>> entry : placements.entrySet()) {
+            reorder(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Finds a node by its path of child positions.
+     *
+     * @param root the root of the tree
+     * @param path the path
+     * @param <T> the type of data object in the nodes
+     * @return the node
+     */
+    private static <T> MutableTreeNode<T> resolve(final MutableTreeNode<T> root, final int[] path) {
+        MutableTreeNode<T> node = root;
+        for (final int position : path) {
+            final Iterator<MutableTreeNode<T>> children = node.getMutableChildren().iterator();
+            for (int i = 0; i < position && children.hasNext(); i++) {
+                children.next();
+            }
+            if (position < 0 || !children.hasNext()) {
+                throw new IllegalArgumentException("Invalid path " + Arrays.toString(path));
+            }
+            node = children.next();
+        }
+        return node;
+    }
+
+    /**
+     * Records a node that must be a child of a parent at a position.
+     *
+     * @param placements the positioned nodes of each parent
+     * @param parent the parent
+     * @param index the position
+     * @param node the node
+     * @param <T> the type of data object in the nodes
+     */
+    private static <T> void place(final Map<MutableTreeNode<T>, List<Object[]>> placements,
+            final MutableTreeNode<T> parent, final int index, final MutableTreeNode<T> node) {
+        List<Object[]> list = placements.get(parent);
+        if (list == null) {
+            list = new ArrayList<>();
+            placements.put(parent, list);
+        }
+        list.add(new Object[] {index, node});
+    }
+
+    /**
+     * Copies a subtree without recursion.
+     *
+     * @param subtree the subtree
+     * @param factory creates a new node for a data object
+     * @param <T> the type of data object in the nodes
+     * @return the root of the copy
+     */
+    private static <T> MutableTreeNode<T> copy(final TreeNode<T> subtree,
+            final Function<? super T, ? extends MutableTreeNode<T>> factory) {
+        final MutableTreeNode<T> copy = factory.apply(subtree.getData());
+        final Deque<TreeNode<T>> sources = new ArrayDeque<>();
+        final Deque<MutableTreeNode<T>> copies = new ArrayDeque<>();
+        sources.push(subtree);
+        copies.push(copy);
+        while (!sources.isEmpty()) {
+            final TreeNode<T> source = sources.pop();
+            final MutableTreeNode<T> parent = copies.pop();
+            for (final TreeNode<T> child : source.getChildren()) {
+                final MutableTreeNode<T> node = factory.apply(child.getData());
+                parent.add(node);
+                sources.push(child);
+                copies.push(node);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Puts the children of a parent in their final order.
+     *
+     * @param parent the parent
+     * @param placed the positions and nodes placed in the parent
+     * @param <T> the type of data object in the nodes
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void reorder(final MutableTreeNode<T> parent, final List<Object[]> placed) {
+        final List<MutableTreeNode<T>> kept = new ArrayList<>();
+        for (final MutableTreeNode<T> child : parent.getMutableChildren()) {
+            kept.add(child);
+        }
+        final Object[] order = new Object[kept.size() + placed.size()];
+        for (final Object[] placement : placed) {
+            final int index = (Integer) placement[0];
+            if (index < 0 || index >= order.length || order[index] != null) {
+                throw new IllegalArgumentException("Invalid position " + index);
+            }
+            order[index] = placement[1];
+        }
+        int next = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] == null) {
+                order[i] = kept.get(next++);
+            }
+        }
+        int first = 0;
+        while (first < kept.size() && order[first] == kept.get(first)) {
+            first++;
+        }
+        for (int i = first; i < kept.size(); i++) {
+            kept.get(i).removeFromParent();
+        }
+        for (int i = first; i < order.length; i++) {
+            parent.add((MutableTreeNode<T>) order[i]);
+        }
+    }
+}
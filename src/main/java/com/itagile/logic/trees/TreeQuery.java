@@ -0,0 +1,596 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A compiled path query that selects nodes of a tree, like "all leaves under any node named X at
+ * depth 3": {@code //X[depth=3]//*[leaf]}. A query is a sequence of steps, each one with an axis,
+ * a node test and optional filters:
+ *
+ * <ul>
+ * <li>{@code /} selects children and {@code //} descendants of the nodes of the previous step.
+ * The first step starts above the root, so {@code /*} selects the root and {@code //*} every
+ * node.</li>
+ * <li>The node test is {@code *} for any node, a name or a quoted string compared to the string
+ * value of the node data, or {@code $name} for a named data predicate.</li>
+ * <li>Filters are {@code [n]} for the n-th child (from 1), {@code [last]} for the last child,
+ * {@code [leaf]} for leaves, {@code [depth op n]} with op one of =, &lt;, &lt;=, &gt; and &gt;=
+ * (the root has depth 0), and {@code [$name]} for a named data predicate.</li>
+ * </ul>
+ *
+ * <p>Every step is evaluated in a single pre-order pass with an explicit stack, tracking for each
+ * node the set of steps it can still match. Subtrees are pruned as soon as that set is empty, or
+ * all its steps require a smaller depth, and the pass stops when the visitor terminates it.
+ * Compiled queries are immutable and thread-safe as long as their predicates are, so they can be
+ * cached and shared.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+@SuppressWarnings("PMD.BeanMembersShouldSerialize")
+public final class TreeQuery<T> {
+    /**
+     * Maximum number of steps, one bit of a long for each state.
+     */
+    public static final int MAX_STEPS = 63;
+
+    /**
+     * The query source.
+     */
+    private final String source;
+
+    /**
+     * The compiled steps.
+     */
+    private final Step<T>[] steps;
+
+    /**
+     * Constructs a new query.
+     *
+     * @param source the query source
+     * @param steps the compiled steps
+     */
+    private TreeQuery(final String source, final Step<T>[] steps) {
+        this.source = source;
+        this.steps = steps;
+    }
+
+    /**
+     * Compiles a query without named predicates.
+     *
+     * @param query the query
+     * @param <T> the type of data object in the nodes
+     * @return the compiled query
+     * @throws IllegalArgumentException if the query is not valid
+     */
+    public static <T> TreeQuery<T> compile(final String query) {
+        return compile(query, Collections.<String, Predicate<? super T>>emptyMap());
+    }
+
+    /**
+     * Compiles a query.
+     *
+     * @param query the query
+     * @param predicates the data predicates referenced as $name, by name
+     * @param <T> the type of data object in the nodes
+     * @return the compiled query
+     * @throws IllegalArgumentException if the query is not valid or references unknown predicates
+     */
+    public static <T> TreeQuery<T> compile(final String query,
+            final Map<String, ? extends Predicate<? super T>> predicates) {
+        return new TreeQuery<>(query, new Parser<T>(query, predicates).parse());
+    }
+
+    /**
+     * Evaluates this query, calling the visitor for each selected node in pre-order. Selected
+     * nodes below a node are skipped when the visitor returns
+     * {@link TreeVisitResult#SKIP_SUBTREE}, and the evaluation stops when it returns
+     * {@link TreeVisitResult#TERMINATE}.
+     *
+     * @param root the root of the tree
+     * @param visitor the visitor called for each selected node
+     * @return false if the evaluation was terminated by the visitor, true otherwise
+     */
+    public boolean evaluate(final TreeNode<T> root, final TreeVisitor<T> visitor) {
+        final Deque<Frame<T>> stack = new ArrayDeque<>();
+        TreeNode<T> node = root;
+        long states = 1L;
+        int position = 1;
+        boolean last = true;
+        while (node != null) {
+            final int depth = stack.size();
+            long matched = 0L;
+            for (long pending = states; pending != 0; pending &= pending - 1) {
+                final int state = Long.numberOfTrailingZeros(pending);
+                if (steps[state].matches(node, depth, position, last)) {
+                    matched |= 1L << state + 1;
+                }
+            }
+            TreeVisitResult result = TreeVisitResult.CONTINUE;
+            if ((matched & 1L << steps.length) != 0) {
+                result = visitor.visit(node, depth);
+                if (result == TreeVisitResult.TERMINATE) {
+                    return false;
+                }
+            }
+            if (result == TreeVisitResult.CONTINUE && !node.isLeaf()) {
+                final long childStates = childStates(states, matched, depth + 1);
+                if (childStates != 0) {
+                    stack.push(new Frame<>(node.getChildren().iterator(), childStates));
+                }
+            }
+            node = null;
+            while (node == null && !stack.isEmpty()) {
+                final Frame<T> frame = stack.peek();
+                if (frame.iterator.hasNext()) {
+                    node = frame.iterator.next();
+                    states = frame.states;
+                    position = ++frame.position;
+                    last = !frame.iterator.hasNext();
+                } else {
+                    stack.pop();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the states of the children of a node: the descendant steps it was a candidate for,
+     * and the steps that follow the ones it matched, except the steps that require a smaller
+     * depth than the children have.
+     *
+     * @param states the states of the node
+     * @param matched the states after the steps the node matched
+     * @param depth the depth of the children
+     * @return the states of the children, 0 if no step can match below the node
+     */
+    private long childStates(final long states, final long matched, final int depth) {
+        long childStates = 0L;
+        for (long pending = states | matched; pending != 0; pending &= pending - 1) {
+            final int state = Long.numberOfTrailingZeros(pending);
+            if (state < steps.length && depth <= steps[state].maxDepth
+                    && ((matched & 1L << state) != 0 || steps[state].descendant)) {
+                childStates |= 1L << state;
+            }
+        }
+        return childStates;
+    }
+
+    /**
+     * Selects the nodes matched by this query.
+     *
+     * @param root the root of the tree
+     * @return the selected nodes in pre-order
+     */
+    public List<TreeNode<T>> select(final TreeNode<T> root) {
+        final List<TreeNode<T>> selected = new ArrayList<>();
+        evaluate(root, new TreeVisitor<T>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<T> node, final int depth) {
+                selected.add(node);
+                return TreeVisitResult.CONTINUE;
+            }
+        });
+        return selected;
+    }
+
+    /**
+     * Selects the first node matched by this query in pre-order, stopping there.
+     *
+     * @param root the root of the tree
+     * @return the first selected node, or null if none matches
+     */
+    public TreeNode<T> selectFirst(final TreeNode<T> root) {
+        final List<TreeNode<T>> selected = new ArrayList<>(1);
+        evaluate(root, new TreeVisitor<T>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<T> node, final int depth) {
+                selected.add(node);
+                return TreeVisitResult.TERMINATE;
+            }
+        });
+        return selected.isEmpty() ? null : selected.get(0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * A compiled step.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class Step<T> {
+        /**
+         * If the step selects descendants instead of children.
+         */
+        private final boolean descendant;
+
+        /**
+         * The string value of the selected data, or null for any.
+         */
+        private String name;
+
+        /**
+         * Data predicates of the step.
+         */
+        private final List<Predicate<? super T>> predicates = new ArrayList<>();
+
+        /**
+         * The selected child position from 1, or 0 for any.
+         */
+        private int position;
+
+        /**
+         * If only last children are selected.
+         */
+        private boolean last;
+
+        /**
+         * If only leaves are selected.
+         */
+        private boolean leaf;
+
+        /**
+         * Minimum selected depth.
+         */
+        private int minDepth;
+
+        /**
+         * Maximum selected depth.
+         */
+        private int maxDepth = Integer.MAX_VALUE;
+
+        /**
+         * Constructs a new step.
+         *
+         * @param descendant if the step selects descendants instead of children
+         */
+        Step(final boolean descendant) {
+            this.descendant = descendant;
+        }
+
+        /**
+         * Checks the node test and the filters of this step.
+         *
+         * @param node the node
+         * @param depth the depth of the node
+         * @param nodePosition the position of the node among its siblings, from 1
+         * @param lastChild if the node is the last of its siblings
+         * @return true if the node matches this step
+         */
+        boolean matches(final TreeNode<T> node, final int depth, final int nodePosition,
+                final boolean lastChild) {
+            if (depth < minDepth || depth > maxDepth
+                    || position != 0 && position != nodePosition || last && !lastChild
+                    || leaf && !node.isLeaf()) {
+                return false;
+            }
+            final T data = node.getData();
+            if (name != null && !name.equals(String.valueOf(data))) {
+                return false;
+            }
+            for (final Predicate<? super T> predicate : predicates) {
+                if (!predicate.test(data)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The children iterator of a node on the evaluation path.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class Frame<T> {
+        /**
+         * Iterator over the children.
+         */
+        private final Iterator<TreeNode<T>> iterator;
+
+        /**
+         * The states of the children.
+         */
+        private final long states;
+
+        /**
+         * Position of the last returned child.
+         */
+        private int position;
+
+        /**
+         * Constructs a new frame.
+         *
+         * @param iterator iterator over the children
+         * @param states the states of the children
+         */
+        Frame(final Iterator<TreeNode<T>> iterator, final long states) {
+            this.iterator = iterator;
+            this.states = states;
+        }
+    }
+
+    /**
+     * Recursive descent parser of queries.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class Parser<T> {
+        /**
+         * The query.
+         */
+        private final String query;
+
+        /**
+         * The named data predicates.
+         */
+        private final Map<String, ? extends Predicate<? super T>> predicates;
+
+        /**
+         * Current position in the query.
+         */
+        private int index;
+
+        /**
+         * Constructs a new parser.
+         *
+         * @param query the query
+         * @param predicates the named data predicates
+         */
+        Parser(final String query, final Map<String, ? extends Predicate<? super T>> predicates) {
+            this.query = query;
+            this.predicates = predicates;
+        }
+
+        /**
+         * Parses the steps of the query.
+         *
+         * @return the compiled steps
+         */
+        Step<T>[] parse() {
+            final List<Step<T>> steps = new ArrayList<>();
+            skipSpaces();
+            do {
+                steps.add(step());
+                skipSpaces();
+            } while (index < query.length());
+            if (steps.size() > MAX_STEPS) {
+                throw new IllegalArgumentException("More than " + MAX_STEPS + " steps: " + query);
+            }
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            final Step<T>[] array = steps.toArray(new Step[steps.size()]);
+            return array;
+        }
+
+        /**
+         * Parses a step: axis, node test and filters.
+         *
+         * @return the compiled step
+         */
+        private Step<T> step() {
+            expect('/');
+            final Step<T> step = new Step<>(accept('/'));
+            skipSpaces();
+            if (accept('$')) {
+                step.predicates.add(predicate(word()));
+            } else if (!accept('*')) {
+                step.name = peek() == '\'' || peek() == '"' ? quoted() : word();
+            }
+            skipSpaces();
+            while (accept('[')) {
+                skipSpaces();
+                filter(step);
+                skipSpaces();
+                expect(']');
+                skipSpaces();
+            }
+            return step;
+        }
+
+        /**
+         * Parses the content of a filter into the step.
+         *
+         * @param step the step
+         */
+        private void filter(final Step<T> step) {
+            if (accept('$')) {
+                step.predicates.add(predicate(word()));
+            } else if (Character.isDigit(peek())) {
+                step.position = number();
+                if (step.position == 0) {
+                    throw error("Positions start at 1");
+                }
+            } else {
+                final String word = word();
+                if ("last".equals(word)) {
+                    step.last = true;
+                } else if ("leaf".equals(word)) {
+                    step.leaf = true;
+                } else if ("depth".equals(word)) {
+                    depth(step);
+                } else {
+                    throw error("Unknown filter '" + word + "'");
+                }
+            }
+        }
+
+        /**
+         * Parses a depth comparison into the step.
+         *
+         * @param step the step
+         */
+        private void depth(final Step<T> step) {
+            skipSpaces();
+            final char operator = peek();
+            if (operator != '=' && operator != '<' && operator != '>') {
+                throw error("Expected depth comparison");
+            }
+            index++;
+            final boolean orEqual = operator != '=' && accept('=');
+            skipSpaces();
+            final int depth = number();
+            if (operator != '>') {
+                final int max = operator == '<' && !orEqual ? depth - 1 : depth;
+                step.maxDepth = Math.min(step.maxDepth, max);
+            }
+            if (operator != '<') {
+                final int min = operator == '>' && !orEqual ? depth + 1 : depth;
+                step.minDepth = Math.max(step.minDepth, min);
+            }
+        }
+
+        /**
+         * Gets a named predicate.
+         *
+         * @param name the name
+         * @return the predicate
+         */
+        private Predicate<? super T> predicate(final String name) {
+            final Predicate<? super T> predicate = predicates.get(name);
+            if (predicate == null) {
+                throw error("Unknown predicate '" + name + "'");
+            }
+            return predicate;
+        }
+
+        /**
+         * Parses a name: a run of characters other than spaces, quotes and query symbols.
+         *
+         * @return the name
+         */
+        private String word() {
+            final int start = index;
+            while (index < query.length() && "/[]*$=<>'\"".indexOf(query.charAt(index)) < 0
+                    && !Character.isWhitespace(query.charAt(index))) {
+                index++;
+            }
+            if (start == index) {
+                throw error("Expected name");
+            }
+            return query.substring(start, index);
+        }
+
+        /**
+         * Parses a string between single or double quotes.
+         *
+         * @return the string without quotes
+         */
+        private String quoted() {
+            final char quote = query.charAt(index++);
+            final int end = query.indexOf(quote, index);
+            if (end < 0) {
+                throw error("Unterminated string");
+            }
+            final String string = query.substring(index, end);
+            index = end + 1;
+            return string;
+        }
+
+        /**
+         * Parses a non-negative integer.
+         *
+         * @return the integer
+         */
+        private int number() {
+            final int start = index;
+            while (index < query.length() && Character.isDigit(query.charAt(index))) {
+                index++;
+            }
+            if (start == index) {
+                throw error("Expected number");
+            }
+            try {
+                return Integer.parseInt(query.substring(start, index));
+            } catch (final NumberFormatException e) {
+                throw error("Number too large");
+            }
+        }
+
+        /**
+         * Gets the current character.
+         *
+         * @return the current character, or 0 at the end of the query
+         */
+        private char peek() {
+            return index < query.length() ? query.charAt(index) : 0;
+        }
+
+        /**
+         * Consumes the current character if it is the expected one.
+         *
+         * @param expected the expected character
+         * @return true if it was consumed
+         */
+        private boolean accept(final char expected) {
+            if (peek() == expected) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Consumes the current character, which must be the expected one.
+         *
+         * @param expected the expected character
+         */
+        private void expect(final char expected) {
+            if (!accept(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        /**
+         * Skips whitespace.
+         */
+        private void skipSpaces() {
+            while (index < query.length() && Character.isWhitespace(query.charAt(index))) {
+                index++;
+            }
+        }
+
+        /**
+         * Creates a syntax error at the current position.
+         *
+         * @param message the error message
+         * @return the exception to throw
+         */
+        private IllegalArgumentException error(final String message) {
+            return new IllegalArgumentException(message + " at " + index + " in " + query);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Non-recursive traversals over any {@link TreeNode} implementation. The returned iterables
+ * create a new iterator for each call to iterator; iterators can be reused for other trees with
+ * {@link AbstractTreeIterator#reset}. Deep trees are walked with an explicit stack, so their depth
+ * is only limited by the heap. Pre-order streams split along child boundaries, so parallel
+ * streams process different subtrees on different cores.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public final class TreeTraversal {
+
+    /**
+     * Utility class.
+     */
+    private TreeTraversal() {
+    }
+
+    /**
+     * Nodes of a tree in pre-order, parents before their children.
+     *
+     * @param root the root of the tree
+     * @param <T> the type of data object in the nodes
+     * @return the nodes in pre-order
+     */
+    public static <T> Iterable<TreeNode<T>> preOrder(final TreeNode<T> root) {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new PreOrderIterator<>(root);
+            }
+        };
+    }
+
+    /**
+     * Nodes of a tree in post-order, children before their parents.
+     *
+     * @param root the root of the tree
+     * @param <T> the type of data object in the nodes
+     * @return the nodes in post-order
+     */
+    public static <T> Iterable<TreeNode<T>> postOrder(final TreeNode<T> root) {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new PostOrderIterator<>(root);
+            }
+        };
+    }
+
+    /**
+     * Nodes of a tree in level-order, breadth-first.
+     *
+     * @param root the root of the tree
+     * @param <T> the type of data object in the nodes
+     * @return the nodes in level-order
+     */
+    public static <T> Iterable<TreeNode<T>> levelOrder(final TreeNode<T> root) {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new LevelOrderIterator<>(root);
+            }
+        };
+    }
+
+    /**
+     * Leaves of a tree from left to right.
+     *
+     * @param root the root of the tree
+     * @param <T> the type of data object in the nodes
+     * @return the leaves
+     */
+    public static <T> Iterable<TreeNode<T>> leaves(final TreeNode<T> root) {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new LeafIterator<>(root);
+            }
+        };
+    }
+
+    /**
+     * Spliterator over the nodes of a tree in pre-order, splitting along child boundaries. It is
+     * SIZED for {@link FrozenTree} nodes, whose subtree sizes are known.
+     *
+     * @param root the root of the tree, may be null
+     * @param <T> the type of data object in the nodes
+     * @return the spliterator
+     */
+    public static <T> Spliterator<TreeNode<T>> spliterator(final TreeNode<T> root) {
+        return new PreOrderSpliterator<>(root);
+    }
+
+    /**
+     * Sequential stream of the nodes of a tree in pre-order.
+     *
+     * @param root the root of the tree, may be null
+     * @param <T> the type of data object in the nodes
+     * @return the stream of nodes
+     */
+    public static <T> Stream<TreeNode<T>> stream(final TreeNode<T> root) {
+        return StreamSupport.stream(spliterator(root), false);
+    }
+
+    /**
+     * Parallel stream of the nodes of a tree in pre-order. The tree must not be modified while
+     * the stream is processed.
+     *
+     * @param root the root of the tree, may be null
+     * @param <T> the type of data object in the nodes
+     * @return the parallel stream of nodes
+     */
+    public static <T> Stream<TreeNode<T>> parallelStream(final TreeNode<T> root) {
+        return StreamSupport.stream(spliterator(root), true);
+    }
+
+    /**
+     * Walks a tree in pre-order calling the visitor for each node. Children of a node are skipped
+     * when the visitor returns {@link TreeVisitResult#SKIP_SUBTREE}, and the walk stops when it
+     * returns {@link TreeVisitResult#TERMINATE}.
+     *
+     * @param root the root of the tree
+     * @param visitor the visitor called for each node
+     * @param <T> the type of data object in the nodes
+     * @return false if the walk was terminated by the visitor, true otherwise
+     */
+    public static <T> boolean walk(final TreeNode<T> root, final TreeVisitor<T> visitor) {
+        final Deque<Iterator<TreeNode<T>>> stack = new ArrayDeque<>();
+        TreeNode<T> node = root;
+        while (node != null) {
+            final TreeVisitResult result = visitor.visit(node, stack.size());
+            if (result == TreeVisitResult.TERMINATE) {
+                return false;
+            }
+            if (result == TreeVisitResult.CONTINUE && !node.isLeaf()) {
+                stack.push(node.getChildren().iterator());
+            }
+            node = null;
+            while (node == null && !stack.isEmpty()) {
+                final Iterator<TreeNode<T>> iterator = stack.peek();
+                if (iterator.hasNext()) {
+                    node = iterator.next();
+                } else {
+                    stack.pop();
+                }
+            }
+        }
+        return true;
+    }
+}
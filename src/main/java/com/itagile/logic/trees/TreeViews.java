@@ -0,0 +1,541 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Lazy views over a {@link TreeNode}: pruned, filtered, mapped or depth limited. Views never copy
+ * the underlying tree, their nodes are created while they are iterated, and predicates and mappers
+ * are evaluated only for the nodes that are visited. Views reflect later changes of the underlying
+ * tree and can be combined, like a mapped view of a pruned tree.
+ *
+ * <p>Pruned and filtered views can memoize the result of each node, so repeated iterations don't
+ * evaluate the predicate again. Results are memoized per underlying node instance, so memoizing
+ * views should wrap stored nodes rather than other views, whose nodes are created on each
+ * iteration, and must be discarded when the underlying tree or the predicate results change.
+ * Memoizing views are not thread-safe.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public final class TreeViews {
+    /**
+     * Private constructor to avoid instantiation.
+     */
+    private TreeViews() {
+    }
+
+    /**
+     * Creates a view without the nodes whose data objects don't match a predicate, together with
+     * their subtrees.
+     *
+     * @param root the root of the tree
+     * @param predicate the predicate of the visible nodes
+     * @param <T> the type of data object in the nodes
+     * @return the root of the view, or null if the root doesn't match or is null
+     */
+    public static <T> TreeNode<T> prune(final TreeNode<T> root,
+            final Predicate<? super T> predicate) {
+        return prune(root, predicate, false);
+    }
+
+    /**
+     * Creates a view without the nodes whose data objects don't match a predicate, together with
+     * their subtrees.
+     *
+     * @param root the root of the tree
+     * @param predicate the predicate of the visible nodes
+     * @param memoize true to evaluate the predicate once per node
+     * @param <T> the type of data object in the nodes
+     * @return the root of the view, or null if the root doesn't match or is null
+     */
+    public static <T> TreeNode<T> prune(final TreeNode<T> root,
+            final Predicate<? super T> predicate, final boolean memoize) {
+        return filtered(root, new Filter<T>(predicate, false, memoize));
+    }
+
+    /**
+     * Creates a view with the nodes whose data objects match a predicate and their ancestors.
+     *
+     * @param root the root of the tree
+     * @param predicate the predicate of the matching nodes
+     * @param <T> the type of data object in the nodes
+     * @return the root of the view, or null if no node matches or the root is null
+     */
+    public static <T> TreeNode<T> filter(final TreeNode<T> root,
+            final Predicate<? super T> predicate) {
+        return filter(root, predicate, false);
+    }
+
+    /**
+     * Creates a view with the nodes whose data objects match a predicate and their ancestors. The
+     * search for matching descendants stops at the first match, and with memoization every node
+     * is searched at most once.
+     *
+     * @param root the root of the tree
+     * @param predicate the predicate of the matching nodes
+     * @param memoize true to search each node once
+     * @param <T> the type of data object in the nodes
+     * @return the root of the view, or null if no node matches or the root is null
+     */
+    public static <T> TreeNode<T> filter(final TreeNode<T> root,
+            final Predicate<? super T> predicate, final boolean memoize) {
+        return filtered(root, new Filter<T>(predicate, true, memoize));
+    }
+
+    /**
+     * Creates a view with the data objects of the nodes mapped by a function, called each time
+     * {@link TreeNode#getData()} is called.
+     *
+     * @param root the root of the tree
+     * @param mapper the function applied to the data objects
+     * @param <T> the type of data object in the nodes
+     * @param <R> the type of data object in the view
+     * @return the root of the view, or null if the root is null
+     */
+    public static <T, R> TreeNode<R> map(final TreeNode<T> root,
+            final Function<? super T, ? extends R> mapper) {
+        return root == null ? null : new MappedNode<T, R>(root, mapper);
+    }
+
+    /**
+     * Creates a view without the nodes deeper than a maximum depth.
+     *
+     * @param root the root of the tree
+     * @param maxDepth maximum depth of the visible nodes, the root has depth 0
+     * @param <T> the type of data object in the nodes
+     * @return the root of the view, or null if the root is null
+     */
+    public static <T> TreeNode<T> limitDepth(final TreeNode<T> root, final int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Maximum depth must not be negative");
+        }
+        return root == null ? null : new LimitedNode<T>(root, maxDepth);
+    }
+
+    /**
+     * Creates the root of a filtered view.
+     *
+     * @param root the root of the tree
+     * @param filter the filter
+     * @param <T> the type of data object in the nodes
+     * @return the root of the view, or null if the root is not visible or is null
+     */
+    private static <T> TreeNode<T> filtered(final TreeNode<T> root, final Filter<T> filter) {
+        return root == null || !filter.isVisible(root) ? null : new FilteredNode<T>(root, filter);
+    }
+
+    /**
+     * Visibility of the nodes of a pruned or filtered view.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    private static final class Filter<T> {
+        /**
+         * The predicate.
+         */
+        private final Predicate<? super T> predicate;
+
+        /**
+         * True to keep the ancestors of matching nodes, false to prune non matching subtrees.
+         */
+        private final boolean ancestors;
+
+        /**
+         * Visibility of the evaluated nodes, or null without memoization.
+         */
+        private final Map<TreeNode<T>, Boolean> memo;
+
+        /**
+         * Constructs a new filter.
+         *
+         * @param predicate the predicate
+         * @param ancestors true to keep the ancestors of matching nodes
+         * @param memoize true to memoize the visibility of the nodes
+         */
+        Filter(final Predicate<? super T> predicate, final boolean ancestors,
+                final boolean memoize) {
+            this.predicate = predicate;
+            this.ancestors = ancestors;
+            this.memo = memoize ? new IdentityHashMap<TreeNode<T>, Boolean>() : null;
+        }
+
+        /**
+         * Checks if a node is visible.
+         *
+         * @param node the node
+         * @return true if the node is visible
+         */
+        boolean isVisible(final TreeNode<T> node) {
+            final Boolean known = memo == null ? null : memo.get(node);
+            if (known != null) {
+                return known;
+            }
+            if (predicate.test(node.getData())) {
+                remember(node, true);
+                return true;
+            }
+            return ancestors ? hasMatchingDescendant(node) : remember(node, false);
+        }
+
+        /**
+         * Searches a matching descendant of a node that doesn't match, without recursion. When a
+         * match is found the nodes on the path to it are remembered as visible, and the nodes
+         * whose subtrees were fully searched as hidden.
+         *
+         * @param node the node
+         * @return true if a descendant matches
+         */
+        private boolean hasMatchingDescendant(final TreeNode<T> node) {
+            final Deque<TreeNode<T>> path = new ArrayDeque<>();
+            final Deque<Iterator<TreeNode<T>>> iterators = new ArrayDeque<>();
+            path.push(node);
+            iterators.push(node.getChildren().iterator());
+            while (!iterators.isEmpty()) {
+                final Iterator<TreeNode<T>> children = iterators.peek();
+                if (children.hasNext()) {
+                    final TreeNode<T> child = children.next();
+                    final Boolean known = memo == null ? null : memo.get(child);
+                    if (Boolean.TRUE.equals(known)
+                            || known == null && predicate.test(child.getData())) {
+                        remember(child, true);
+                        for (final TreeNode<T> ancestor : path) {
+                            remember(ancestor, true);
+                        }
+                        return true;
+                    }
+                    if (known == null) {
+                        path.push(child);
+                        iterators.push(child.getChildren().iterator());
+                    }
+                } else {
+                    iterators.pop();
+                    remember(path.pop(), false);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Memoizes the visibility of a node, if memoization is enabled.
+         *
+         * @param node the node
+         * @param visible the visibility
+         * @return the visibility
+         */
+        private boolean remember(final TreeNode<T> node, final boolean visible) {
+            if (memo != null) {
+                memo.put(node, visible);
+            }
+            return visible;
+        }
+    }
+
+    /**
+     * Iterator over the view nodes of the children of a node, skipping hidden children.
+     *
+     * @param <S> the type of data object in the underlying nodes
+     * @param <T> the type of data object in the view nodes
+     */
+    private abstract static class ViewIterator<S, T> implements Iterator<TreeNode<T>> {
+        /**
+         * The underlying children.
+         */
+        private final Iterator<TreeNode<S>> children;
+
+        /**
+         * The next view node, or null if not computed yet.
+         */
+        private TreeNode<T> nextNode;
+
+        /**
+         * Constructs a new iterator.
+         *
+         * @param children the underlying children
+         */
+        ViewIterator(final Iterator<TreeNode<S>> children) {
+            this.children = children;
+        }
+
+        /**
+         * Creates the view node of a child.
+         *
+         * @param child the underlying child
+         * @return the view node, or null if the child is hidden
+         */
+        protected abstract TreeNode<T> view(TreeNode<S> child);
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#hasNext()
+         */
+        @Override
+        public final boolean hasNext() {
+            while (nextNode == null && children.hasNext()) {
+                nextNode = view(children.next());
+            }
+            return nextNode != null;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#next()
+         */
+        @Override
+        public final TreeNode<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final TreeNode<T> result = nextNode;
+            nextNode = null;
+            return result;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#remove()
+         */
+        @Override
+        public final void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+
+    /**
+     * A node of a pruned or filtered view.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class FilteredNode<T> implements TreeNode<T> {
+        /**
+         * The underlying node.
+         */
+        private final TreeNode<T> node;
+
+        /**
+         * The filter of the view.
+         */
+        private final Filter<T> filter;
+
+        /**
+         * Constructs a new view node.
+         *
+         * @param node the underlying node
+         * @param filter the filter of the view
+         */
+        FilteredNode(final TreeNode<T> node, final Filter<T> filter) {
+            this.node = node;
+            this.filter = filter;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#getData()
+         */
+        @Override
+        public T getData() {
+            return node.getData();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#getChildren()
+         */
+        @Override
+        public Iterable<TreeNode<T>> getChildren() {
+            return new Iterable<TreeNode<T>>() {
+                @Override
+                public Iterator<TreeNode<T>> iterator() {
+                    return new ViewIterator<T, T>(node.getChildren().iterator()) {
+                        @Override
+                        protected TreeNode<T> view(final TreeNode<T> child) {
+                            return filter.isVisible(child) ? new FilteredNode<T>(child, filter)
+                                    : null;
+                        }
+                    };
+                }
+            };
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#isLeaf()
+         */
+        @Override
+        public boolean isLeaf() {
+            return node.isLeaf() || !getChildren().iterator().hasNext();
+        }
+    }
+
+    /**
+     * A node of a mapped view.
+     *
+     * @param <S> the type of data object in the underlying nodes
+     * @param <T> the type of data object in the view nodes
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class MappedNode<S, T> implements TreeNode<T> {
+        /**
+         * The underlying node.
+         */
+        private final TreeNode<S> node;
+
+        /**
+         * The function applied to the data objects.
+         */
+        private final Function<? super S, ? extends T> mapper;
+
+        /**
+         * Constructs a new view node.
+         *
+         * @param node the underlying node
+         * @param mapper the function applied to the data objects
+         */
+        MappedNode(final TreeNode<S> node, final Function<? super S, ? extends T> mapper) {
+            this.node = node;
+            this.mapper = mapper;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#getData()
+         */
+        @Override
+        public T getData() {
+            return mapper.apply(node.getData());
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#getChildren()
+         */
+        @Override
+        public Iterable<TreeNode<T>> getChildren() {
+            return new Iterable<TreeNode<T>>() {
+                @Override
+                public Iterator<TreeNode<T>> iterator() {
+                    return new ViewIterator<S, T>(node.getChildren().iterator()) {
+                        @Override
+                        protected TreeNode<T> view(final TreeNode<S> child) {
+                            return new MappedNode<S, T>(child, mapper);
+                        }
+                    };
+                }
+            };
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#isLeaf()
+         */
+        @Override
+        public boolean isLeaf() {
+            return node.isLeaf();
+        }
+    }
+
+    /**
+     * A node of a depth limited view.
+     *
+     * @param <T> the type of data object in the nodes
+     */
+    @SuppressWarnings("PMD.BeanMembersShouldSerialize")
+    private static final class LimitedNode<T> implements TreeNode<T> {
+        /**
+         * The underlying node.
+         */
+        private final TreeNode<T> node;
+
+        /**
+         * Number of visible levels below this node.
+         */
+        private final int levels;
+
+        /**
+         * Constructs a new view node.
+         *
+         * @param node the underlying node
+         * @param levels number of visible levels below this node
+         */
+        LimitedNode(final TreeNode<T> node, final int levels) {
+            this.node = node;
+            this.levels = levels;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#getData()
+         */
+        @Override
+        public T getData() {
+            return node.getData();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#getChildren()
+         */
+        @Override
+        public Iterable<TreeNode<T>> getChildren() {
+            if (levels == 0) {
+                return Collections.emptyList();
+            }
+            return new Iterable<TreeNode<T>>() {
+                @Override
+                public Iterator<TreeNode<T>> iterator() {
+                    return new ViewIterator<T, T>(node.getChildren().iterator()) {
+                        @Override
+                        protected TreeNode<T> view(final TreeNode<T> child) {
+                            return new LimitedNode<T>(child, levels - 1);
+                        }
+                    };
+                }
+            };
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.TreeNode#isLeaf()
+         */
+        @Override
+        public boolean isLeaf() {
+            return levels == 0 || node.isLeaf();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * The result of a {@link TreeVisitor} visit, telling the walk how to continue.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public enum TreeVisitResult {
+    /**
+     * Continue with the children of the visited node.
+     */
+    CONTINUE,
+
+    /**
+     * Continue without visiting the children of the visited node.
+     */
+    SKIP_SUBTREE,
+
+    /**
+     * Stop the walk.
+     */
+    TERMINATE
+}
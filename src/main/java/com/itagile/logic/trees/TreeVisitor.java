@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+/**
+ * A visitor of tree nodes, called in pre-order by {@link TreeTraversal#walk}.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public interface TreeVisitor<T> {
+    /**
+     * Visits a node.
+     *
+     * @param node the visited node
+     * @param depth the depth of the node relative to the walk root, which has depth 0
+     * @return how the walk must continue, never null
+     */
+    TreeVisitResult visit(TreeNode<T> node, int depth);
+}
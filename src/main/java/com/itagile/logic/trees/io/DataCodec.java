@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes the data objects of the nodes of a tree file. Null data objects are handled
+ * by the file format and never passed to the codec.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object
+ * @since 1.1
+ */
+public interface DataCodec<T> {
+    /**
+     * Encodes a data object.
+     *
+     * @param data the data object, not null
+     * @param output the output to write to
+     * @throws IOException if an I/O error occurs
+     */
+    void encode(T data, DataOutput output) throws IOException;
+
+    /**
+     * Decodes a data object. The buffer is big-endian and holds exactly the bytes written by
+     * {@link #encode(Object, DataOutput)}, from its position to its limit.
+     *
+     * @param buffer the buffer to read from
+     * @return the data object
+     */
+    T decode(ByteBuffer buffer);
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codecs for common data object types.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public final class DataCodecs {
+    /**
+     * Strings encoded as UTF-8 bytes.
+     */
+    public static final DataCodec<String> UTF8 = new DataCodec<String>() {
+        @Override
+        public void encode(final String data, final DataOutput output) throws IOException {
+            output.write(data.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String decode(final ByteBuffer buffer) {
+            return StandardCharsets.UTF_8.decode(buffer).toString();
+        }
+    };
+
+    /**
+     * Integers encoded as 4 bytes.
+     */
+    public static final DataCodec<Integer> INTEGER = new DataCodec<Integer>() {
+        @Override
+        public void encode(final Integer data, final DataOutput output) throws IOException {
+            output.writeInt(data);
+        }
+
+        @Override
+        public Integer decode(final ByteBuffer buffer) {
+            return buffer.getInt(buffer.position());
+        }
+    };
+
+    /**
+     * Longs encoded as 8 bytes.
+     */
+    public static final DataCodec<Long> LONG = new DataCodec<Long>() {
+        @Override
+        public void encode(final Long data, final DataOutput output) throws IOException {
+            output.writeLong(data);
+        }
+
+        @Override
+        public Long decode(final ByteBuffer buffer) {
+            return buffer.getLong(buffer.position());
+        }
+    };
+
+    /**
+     * Doubles encoded as 8 bytes.
+     */
+    public static final DataCodec<Double> DOUBLE = new DataCodec<Double>() {
+        @Override
+        public void encode(final Double data, final DataOutput output) throws IOException {
+            output.writeDouble(data);
+        }
+
+        @Override
+        public Double decode(final ByteBuffer buffer) {
+            return buffer.getDouble(buffer.position());
+        }
+    };
+
+    /**
+     * Not instantiable.
+     */
+    private DataCodecs() {
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only tree backed by a memory-mapped tree file written by {@link TreeFileWriter}. Opening a
+ * file only maps it, nodes are read from the mapped structure arrays and data objects are decoded
+ * each time they are requested, so the startup cost does not depend on the size of the tree and
+ * the file pages are shared through the operating system page cache.
+ *
+ * <p>Like {@link com.itagile.logic.trees.FrozenTree}, nodes are numbered in pre-order: node i has
+ * its first child, if any, at i + 1 and its whole subtree at [i, i + getSubtreeSize(i)). Nodes can
+ * be accessed by index, or through {@link com.itagile.logic.trees.TreeNode} views created on
+ * demand. Mapped trees are safe for concurrent readers if the codec is. The file must not be
+ * modified while it is mapped.
+ *
+ * <p>The structure sections are mapped in a single buffer, which limits a file to about 130 million
+ * nodes. The data section is mapped in chunks and has no size limit.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public final class MappedTree<T> {
+    /**
+     * Value of parent and sibling indexes when there is no such node.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Default size of the chunks of the data section.
+     */
+    static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+
+    /**
+     * Number of nodes.
+     */
+    private final int size;
+
+    /**
+     * Parent index of each node.
+     */
+    private final IntBuffer parents;
+
+    /**
+     * Number of nodes in the subtree of each node.
+     */
+    private final IntBuffer subtreeSizes;
+
+    /**
+     * Bit set of the nodes with null data.
+     */
+    private final LongBuffer nulls;
+
+    /**
+     * Start of the data of each node in the data section.
+     */
+    private final LongBuffer offsets;
+
+    /**
+     * Data section chunks, chunk k maps the data from k * chunkSize, overlapping the next chunk by
+     * the largest data length.
+     */
+    private final ByteBuffer[] chunks;
+
+    /**
+     * Size of the data chunks.
+     */
+    private final long chunkSize;
+
+    /**
+     * Codec of the data objects.
+     */
+    private final DataCodec<T> codec;
+
+    /**
+     * Constructs a new mapped tree from its buffers.
+     *
+     * @param tables the mapped structure sections
+     * @param chunks the mapped data chunks
+     * @param chunkSize the size of the data chunks
+     * @param codec the codec of the data objects
+     */
+    private MappedTree(final ByteBuffer tables, final ByteBuffer[] chunks, final long chunkSize,
+            final DataCodec<T> codec) {
+        this.size = tables.getInt(8);
+        this.parents = slice(tables, TreeFileFormat.parentsPosition(), 4L * size).asIntBuffer();
+        this.subtreeSizes = slice(tables, TreeFileFormat.subtreeSizesPosition(size), 4L * size)
+                .asIntBuffer();
+        this.nulls = slice(tables, TreeFileFormat.nullsPosition(size),
+                8L * TreeFileFormat.nullWords(size)).asLongBuffer();
+        this.offsets = slice(tables, TreeFileFormat.offsetsPosition(size), 8L * (size + 1))
+                .asLongBuffer();
+        this.chunks = chunks;
+        this.chunkSize = chunkSize;
+        this.codec = codec;
+    }
+
+    /**
+     * Opens a tree file. The file is closed before returning, the mapping stays valid until the
+     * tree is garbage collected.
+     *
+     * @param file the tree file
+     * @param codec the codec of the data objects
+     * @param <T> the type of data object in the nodes
+     * @return the mapped tree
+     * @throws IOException if an I/O error occurs or the file is not a valid tree file
+     */
+    public static <T> MappedTree<T> open(final Path file, final DataCodec<T> codec)
+            throws IOException {
+        return open(file, codec, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Opens a tree file mapping the data section in chunks of the given size.
+     *
+     * @param file the tree file
+     * @param codec the codec of the data objects
+     * @param chunkSize the size of the data chunks
+     * @param <T> the type of data object in the nodes
+     * @return the mapped tree
+     * @throws IOException if an I/O error occurs or the file is not a valid tree file
+     */
+    static <T> MappedTree<T> open(final Path file, final DataCodec<T> codec, final long chunkSize)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            final ByteBuffer header = ByteBuffer.allocate(TreeFileFormat.HEADER_LENGTH);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                continue;
+            }
+            if (header.hasRemaining() || header.getInt(0) != TreeFileFormat.MAGIC) {
+                throw new IOException("Not a tree file: " + file);
+            }
+            if (header.getInt(4) != TreeFileFormat.VERSION) {
+                throw new IOException("Unsupported tree file version: " + header.getInt(4));
+            }
+            final int size = header.getInt(8);
+            final int maxLength = header.getInt(12);
+            if (size < 0 || maxLength < 0 || maxLength > TreeFileFormat.MAX_DATA_LENGTH) {
+                throw new IOException("Corrupted tree file header: " + file);
+            }
+            final long dataPosition = TreeFileFormat.dataPosition(size);
+            if (dataPosition > Integer.MAX_VALUE) {
+                throw new IOException("Too many nodes to map: " + size);
+            }
+            if (dataPosition > fileSize) {
+                throw new IOException("Truncated tree file: " + file);
+            }
+            final ByteBuffer tables = channel.map(MapMode.READ_ONLY, 0, dataPosition);
+            final long dataLength = tables.getLong((int) dataPosition - 8);
+            if (dataLength < 0 || dataPosition + dataLength > fileSize) {
+                throw new IOException("Truncated tree file: " + file);
+            }
+            final ByteBuffer[] chunks = new ByteBuffer[(int) ((dataLength + chunkSize - 1)
+                    / chunkSize)];
+            for (int k = 0; k < chunks.length; k++) {
+                final long start = k * chunkSize;
+                chunks[k] = channel.map(MapMode.READ_ONLY, dataPosition + start,
+                        Math.min(dataLength - start, chunkSize + maxLength));
+            }
+            return new MappedTree<>(tables, chunks, chunkSize, codec);
+        }
+    }
+
+    /**
+     * Gets the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a view of the root node.
+     *
+     * @return the root node, or null if the tree is empty
+     */
+    public MappedTreeNode<T> getRoot() {
+        return size == 0 ? null : new MappedTreeNode<>(this, 0);
+    }
+
+    /**
+     * Gets a view of a node.
+     *
+     * @param index the node index
+     * @return the node view
+     */
+    public MappedTreeNode<T> getNode(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return new MappedTreeNode<>(this, index);
+    }
+
+    /**
+     * Decodes the data object of a node.
+     *
+     * @param index the node index
+     * @return the data object of the node
+     */
+    public T getData(final int index) {
+        if ((nulls.get(index >>> 6) & 1L << index) != 0) {
+            return null;
+        }
+        final long start = offsets.get(index);
+        final int length = (int) (offsets.get(index + 1) - start);
+        if (length == 0) {
+            return codec.decode(ByteBuffer.allocate(0));
+        }
+        final int chunk = (int) (start / chunkSize);
+        final int position = (int) (start - chunk * chunkSize);
+        final ByteBuffer buffer = chunks[chunk].duplicate();
+        buffer.limit(position + length).position(position);
+        return codec.decode(buffer.slice());
+    }
+
+    /**
+     * Gets the parent index of a node.
+     *
+     * @param index the node index
+     * @return the parent index, or {@link #NONE} for the root
+     */
+    public int getParent(final int index) {
+        return parents.get(index);
+    }
+
+    /**
+     * Gets the first child index of a node.
+     *
+     * @param index the node index
+     * @return the first child index, or {@link #NONE} for leaves
+     */
+    public int getFirstChild(final int index) {
+        return subtreeSizes.get(index) > 1 ? index + 1 : NONE;
+    }
+
+    /**
+     * Gets the next sibling index of a node, which follows its subtree if it is still inside the
+     * subtree of the parent.
+     *
+     * @param index the node index
+     * @return the next sibling index, or {@link #NONE} for the last child and the root
+     */
+    public int getNextSibling(final int index) {
+        final int parent = parents.get(index);
+        if (parent == NONE) {
+            return NONE;
+        }
+        final int next = index + subtreeSizes.get(index);
+        return next < parent + subtreeSizes.get(parent) ? next : NONE;
+    }
+
+    /**
+     * Gets the number of nodes in the subtree of a node, including itself.
+     *
+     * @param index the node index
+     * @return the subtree size
+     */
+    public int getSubtreeSize(final int index) {
+        return subtreeSizes.get(index);
+    }
+
+    /**
+     * Checks if a node is a leaf.
+     *
+     * @param index the node index
+     * @return true if the node is a leaf
+     */
+    public boolean isLeaf(final int index) {
+        return subtreeSizes.get(index) == 1;
+    }
+
+    /**
+     * Gets a big-endian slice of a buffer.
+     *
+     * @param buffer the buffer
+     * @param position the slice position
+     * @param length the slice length
+     * @return the slice
+     */
+    private static ByteBuffer slice(final ByteBuffer buffer, final long position,
+            final long length) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit((int) (position + length)).position((int) position);
+        return duplicate.slice();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * View of a node of a {@link MappedTree}. Views are lightweight and created on demand, two views
+ * of the same node are equal. The data object is decoded on each call to {@link #getData()}.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+public final class MappedTreeNode<T> implements TreeNode<T> {
+    /**
+     * The mapped tree.
+     */
+    private final MappedTree<T> tree;
+
+    /**
+     * Index of this node in the tree.
+     */
+    private final int index;
+
+    /**
+     * Constructs a new view.
+     *
+     * @param tree the mapped tree
+     * @param index index of the node in the tree
+     */
+    MappedTreeNode(final MappedTree<T> tree, final int index) {
+        this.tree = tree;
+        this.index = index;
+    }
+
+    /**
+     * Gets the mapped tree of this node.
+     *
+     * @return the mapped tree
+     */
+    @JsonIgnore
+    public MappedTree<T> getTree() {
+        return tree;
+    }
+
+    /**
+     * Gets the index of this node in its mapped tree.
+     *
+     * @return the node index
+     */
+    @JsonIgnore
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns this node's parent or null if this node is the root.
+     *
+     * @return this node's parent, or null if this node is the root
+     */
+    @JsonIgnore
+    public MappedTreeNode<T> getParent() {
+        final int parent = tree.getParent(index);
+        return parent == MappedTree.NONE ? null : new MappedTreeNode<>(tree, parent);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public T getData() {
+        return tree.getData(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new ChildIterator();
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public boolean isLeaf() {
+        return tree.isLeaf(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(tree) * 31 + index;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MappedTreeNode)) {
+            return false;
+        }
+        final MappedTreeNode<?> other = (MappedTreeNode<?>) obj;
+        return tree == other.tree && index == other.index;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "MappedTreeNode[" + index + ": " + getData() + "]";
+    }
+
+    /**
+     * Iterates the children of this node following the next sibling indexes.
+     */
+    private final class ChildIterator implements Iterator<TreeNode<T>> {
+        /**
+         * Index of the next child, or {@link MappedTree#NONE}.
+         */
+        private int next = tree.getFirstChild(index);
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#hasNext()
+         */
+        @Override
+        public boolean hasNext() {
+            return next != MappedTree.NONE;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#next()
+         */
+        @Override
+        public TreeNode<T> next() {
+            if (next == MappedTree.NONE) {
+                throw new NoSuchElementException();
+            }
+            final TreeNode<T> child = new MappedTreeNode<>(tree, next);
+            next = tree.getNextSibling(next);
+            return child;
+        }
+
+        /**
+         * Not supported, mapped trees are read-only.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+}
@@ -0,0 +1,553 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Mutable tree kept in direct buffers outside of the Java heap, for hierarchies of hundreds of
+ * millions of nodes that would make garbage collection pauses and heap size unbearable. The heap
+ * only holds a few buffer objects per chunk of nodes, whatever the number of nodes.
+ *
+ * <p>Nodes are numbered in order of appending and linked by parent, first child, last child and
+ * sibling indexes in fixed-width records of {@link #RECORD_SIZE} bytes, so appending, reparenting
+ * and removing a node take constant time, plus a walk of the parent chain of the new parent to
+ * reject cycles. Data objects are encoded with a {@link DataCodec} into an append-only data area
+ * and decoded each time they are requested; setting a data object appends its new encoding, so
+ * the space of the previous one is not reused. Removed nodes keep their index and space, detached
+ * from the tree, until the whole store is discarded.
+ *
+ * <p>Nodes can be accessed by index without allocations, following {@link #getFirstChild(int)}
+ * and {@link #getNextSibling(int)}, or through {@link OffHeapTreeNode} views created on demand,
+ * one for each node returned by a children iterator. Memory is released when the store is garbage
+ * collected, and is limited by the -XX:MaxDirectMemorySize option of the JVM. This class is not
+ * thread-safe, even for readers.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in the nodes
+ * @since 1.1
+ */
+public final class OffHeapTree<T> {
+    /**
+     * Value of parent, child and sibling indexes when there is no such node.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Size in bytes of the record of each node.
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * Default binary logarithm of the number of nodes per chunk, 1M nodes in 32 MB chunks.
+     */
+    static final int DEFAULT_CHUNK_SHIFT = 20;
+
+    /**
+     * Default size of the data chunks, 64 MB.
+     */
+    static final int DEFAULT_DATA_CHUNK_SIZE = 1 << 26;
+
+    /**
+     * Offset of the parent index in a record.
+     */
+    private static final int PARENT = 0;
+
+    /**
+     * Offset of the first child index in a record.
+     */
+    private static final int FIRST_CHILD = 4;
+
+    /**
+     * Offset of the last child index in a record.
+     */
+    private static final int LAST_CHILD = 8;
+
+    /**
+     * Offset of the next sibling index in a record.
+     */
+    private static final int NEXT_SIBLING = 12;
+
+    /**
+     * Offset of the previous sibling index in a record.
+     */
+    private static final int PREVIOUS_SIBLING = 16;
+
+    /**
+     * Offset of the data length in a record, -1 for null data.
+     */
+    private static final int DATA_LENGTH = 20;
+
+    /**
+     * Offset of the data position in the data area in a record.
+     */
+    private static final int DATA_OFFSET = 24;
+
+    /**
+     * Codec of the data objects.
+     */
+    private final DataCodec<T> codec;
+
+    /**
+     * Binary logarithm of the number of nodes per chunk.
+     */
+    private final int chunkShift;
+
+    /**
+     * Size of the data chunks.
+     */
+    private final int dataChunkSize;
+
+    /**
+     * Record chunks, chunk k holds the records of the nodes from k << chunkShift.
+     */
+    private ByteBuffer[] records = new ByteBuffer[0];
+
+    /**
+     * Data chunks, chunk k holds the data area from k * dataChunkSize. Data objects do not span
+     * chunks.
+     */
+    private ByteBuffer[] data = new ByteBuffer[0];
+
+    /**
+     * Number of nodes.
+     */
+    private int size;
+
+    /**
+     * End of the used data area.
+     */
+    private long dataEnd;
+
+    /**
+     * Buffer of the data object being encoded.
+     */
+    private final Scratch scratch = new Scratch();
+
+    /**
+     * Output of the data object being encoded.
+     */
+    private final DataOutputStream output = new DataOutputStream(scratch);
+
+    /**
+     * Constructs a new empty store with chunks of the default sizes.
+     *
+     * @param codec the codec of the data objects
+     */
+    public OffHeapTree(final DataCodec<T> codec) {
+        this(codec, DEFAULT_CHUNK_SHIFT, DEFAULT_DATA_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a new empty store.
+     *
+     * @param codec the codec of the data objects
+     * @param chunkShift binary logarithm of the number of nodes per chunk, from 0 to 25
+     * @param dataChunkSize size of the data chunks, which limits the size of a data object
+     */
+    public OffHeapTree(final DataCodec<T> codec, final int chunkShift, final int dataChunkSize) {
+        if (chunkShift < 0 || chunkShift > 25) {
+            throw new IllegalArgumentException("Chunk shift must be between 0 and 25");
+        }
+        if (dataChunkSize < 1) {
+            throw new IllegalArgumentException("Data chunk size must be positive");
+        }
+        this.codec = codec;
+        this.chunkShift = chunkShift;
+        this.dataChunkSize = dataChunkSize;
+    }
+
+    /**
+     * Copies a tree into a new store without recursion. The root is node 0 and the nodes are
+     * numbered in pre-order.
+     *
+     * @param root the root of the tree
+     * @param codec the codec of the data objects
+     * @param <T> the type of data object in the nodes
+     * @return the new store
+     */
+    public static <T> OffHeapTree<T> copyOf(final TreeNode<T> root, final DataCodec<T> codec) {
+        final OffHeapTree<T> tree = new OffHeapTree<>(codec);
+        final Deque<Iterator<TreeNode<T>>> iterators = new ArrayDeque<>();
+        final Deque<Integer> parents = new ArrayDeque<>();
+        tree.append(root.getData(), NONE);
+        iterators.push(root.getChildren().iterator());
+        parents.push(0);
+        while (!iterators.isEmpty()) {
+            final Iterator<TreeNode<T>> iterator = iterators.peek();
+            if (iterator.hasNext()) {
+                final TreeNode<T> node = iterator.next();
+                final int index = tree.append(node.getData(), parents.peek());
+                if (!node.isLeaf()) {
+                    iterators.push(node.getChildren().iterator());
+                    parents.push(index);
+                }
+            } else {
+                iterators.pop();
+                parents.pop();
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Gets the number of nodes, including removed ones.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the off-heap memory allocated by this store.
+     *
+     * @return the size of the allocated buffers in bytes
+     */
+    public long getAllocatedBytes() {
+        return (long) records.length * (RECORD_SIZE << chunkShift)
+                + (long) data.length * dataChunkSize;
+    }
+
+    /**
+     * Appends a new node as the last child of a parent.
+     *
+     * @param value the data object, may be null
+     * @param parent the index of the parent, or {@link #NONE} for a new root
+     * @return the index of the new node
+     * @throws IllegalStateException if the store is full
+     */
+    public int append(final T value, final int parent) {
+        if (parent != NONE) {
+            checkIndex(parent);
+        }
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap tree is full");
+        }
+        final int index = size;
+        if (index >>> chunkShift == records.length) {
+            records = Arrays.copyOf(records, records.length + 1);
+            records[records.length - 1] = ByteBuffer.allocateDirect(RECORD_SIZE << chunkShift)
+                    .order(ByteOrder.nativeOrder());
+        }
+        size++;
+        setInt(index, PARENT, NONE);
+        setInt(index, FIRST_CHILD, NONE);
+        setInt(index, LAST_CHILD, NONE);
+        setInt(index, NEXT_SIBLING, NONE);
+        setInt(index, PREVIOUS_SIBLING, NONE);
+        write(index, value);
+        if (parent != NONE) {
+            link(index, parent);
+        }
+        return index;
+    }
+
+    /**
+     * Moves a node and its subtree to the end of the children of a new parent. Moving a node to
+     * its current parent does nothing.
+     *
+     * @param index the index of the node
+     * @param newParent the index of the new parent, or {@link #NONE} to remove the node from its
+     *        parent
+     * @throws IllegalArgumentException if the new parent is in the subtree of the node
+     */
+    public void move(final int index, final int newParent) {
+        checkIndex(index);
+        if (newParent == getInt(index, PARENT)) {
+            return;
+        }
+        if (newParent != NONE) {
+            checkIndex(newParent);
+            for (int ancestor = newParent; ancestor != NONE; ancestor = getInt(ancestor, PARENT)) {
+                if (ancestor == index) {
+                    throw new IllegalArgumentException(
+                            "A node cannot be moved into its own subtree");
+                }
+            }
+        }
+        unlink(index);
+        if (newParent != NONE) {
+            link(index, newParent);
+        }
+    }
+
+    /**
+     * Gets the parent of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the parent, or {@link #NONE}
+     */
+    public int getParent(final int index) {
+        checkIndex(index);
+        return getInt(index, PARENT);
+    }
+
+    /**
+     * Gets the first child of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the first child, or {@link #NONE}
+     */
+    public int getFirstChild(final int index) {
+        checkIndex(index);
+        return getInt(index, FIRST_CHILD);
+    }
+
+    /**
+     * Gets the next sibling of a node.
+     *
+     * @param index the index of the node
+     * @return the index of the next sibling, or {@link #NONE}
+     */
+    public int getNextSibling(final int index) {
+        checkIndex(index);
+        return getInt(index, NEXT_SIBLING);
+    }
+
+    /**
+     * Tells if a node has no children.
+     *
+     * @param index the index of the node
+     * @return true if the node has no children
+     */
+    public boolean isLeaf(final int index) {
+        return getFirstChild(index) == NONE;
+    }
+
+    /**
+     * Decodes the data object of a node.
+     *
+     * @param index the index of the node
+     * @return the data object, may be null
+     */
+    public T getData(final int index) {
+        checkIndex(index);
+        final int length = getInt(index, DATA_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        final long offset = getLong(index, DATA_OFFSET);
+        final ByteBuffer chunk = data[(int) (offset / dataChunkSize)];
+        final int position = (int) (offset % dataChunkSize);
+        chunk.clear();
+        chunk.position(position);
+        chunk.limit(position + length);
+        return codec.decode(chunk);
+    }
+
+    /**
+     * Sets the data object of a node, appending its encoding to the data area.
+     *
+     * @param index the index of the node
+     * @param value the data object, may be null
+     */
+    public void setData(final int index, final T value) {
+        checkIndex(index);
+        write(index, value);
+    }
+
+    /**
+     * Gets a view of a node.
+     *
+     * @param index the index of the node
+     * @return a new view
+     */
+    public OffHeapTreeNode<T> getNode(final int index) {
+        checkIndex(index);
+        return new OffHeapTreeNode<>(this, index);
+    }
+
+    /**
+     * Checks a node index.
+     *
+     * @param index the index of the node
+     */
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Node: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Adds a node without parent as the last child of a parent.
+     *
+     * @param index the index of the node
+     * @param parent the index of the parent
+     */
+    private void link(final int index, final int parent) {
+        final int last = getInt(parent, LAST_CHILD);
+        setInt(index, PARENT, parent);
+        setInt(index, PREVIOUS_SIBLING, last);
+        if (last == NONE) {
+            setInt(parent, FIRST_CHILD, index);
+        } else {
+            setInt(last, NEXT_SIBLING, index);
+        }
+        setInt(parent, LAST_CHILD, index);
+    }
+
+    /**
+     * Removes a node from the children of its parent.
+     *
+     * @param index the index of the node
+     */
+    private void unlink(final int index) {
+        final int parent = getInt(index, PARENT);
+        if (parent == NONE) {
+            return;
+        }
+        final int previous = getInt(index, PREVIOUS_SIBLING);
+        final int next = getInt(index, NEXT_SIBLING);
+        if (previous == NONE) {
+            setInt(parent, FIRST_CHILD, next);
+        } else {
+            setInt(previous, NEXT_SIBLING, next);
+        }
+        if (next == NONE) {
+            setInt(parent, LAST_CHILD, previous);
+        } else {
+            setInt(next, PREVIOUS_SIBLING, previous);
+        }
+        setInt(index, PARENT, NONE);
+        setInt(index, PREVIOUS_SIBLING, NONE);
+        setInt(index, NEXT_SIBLING, NONE);
+    }
+
+    /**
+     * Encodes a data object at the end of the data area and points the record of a node to it.
+     *
+     * @param index the index of the node
+     * @param value the data object, may be null
+     */
+    private void write(final int index, final T value) {
+        if (value == null) {
+            setInt(index, DATA_LENGTH, -1);
+            setLong(index, DATA_OFFSET, 0);
+            return;
+        }
+        scratch.reset();
+        try {
+            codec.encode(value, output);
+            output.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final int length = scratch.size();
+        if (length > dataChunkSize) {
+            throw new IllegalArgumentException("Data object too large: " + length + " bytes");
+        }
+        int chunk = (int) (dataEnd / dataChunkSize);
+        int position = (int) (dataEnd % dataChunkSize);
+        if (chunk < data.length && position + length > dataChunkSize) {
+            chunk++;
+            position = 0;
+        }
+        if (chunk == data.length) {
+            data = Arrays.copyOf(data, data.length + 1);
+            data[chunk] = ByteBuffer.allocateDirect(dataChunkSize);
+            position = 0;
+        }
+        final ByteBuffer buffer = data[chunk];
+        buffer.clear();
+        buffer.position(position);
+        buffer.put(scratch.buffer(), 0, length);
+        final long offset = (long) chunk * dataChunkSize + position;
+        dataEnd = offset + length;
+        setInt(index, DATA_LENGTH, length);
+        setLong(index, DATA_OFFSET, offset);
+    }
+
+    /**
+     * Reads an int field of a record.
+     *
+     * @param index the index of the node
+     * @param field the offset of the field
+     * @return the value
+     */
+    private int getInt(final int index, final int field) {
+        return records[index >>> chunkShift].getInt(recordPosition(index) + field);
+    }
+
+    /**
+     * Writes an int field of a record.
+     *
+     * @param index the index of the node
+     * @param field the offset of the field
+     * @param value the value
+     */
+    private void setInt(final int index, final int field, final int value) {
+        records[index >>> chunkShift].putInt(recordPosition(index) + field, value);
+    }
+
+    /**
+     * Reads a long field of a record.
+     *
+     * @param index the index of the node
+     * @param field the offset of the field
+     * @return the value
+     */
+    private long getLong(final int index, final int field) {
+        return records[index >>> chunkShift].getLong(recordPosition(index) + field);
+    }
+
+    /**
+     * Writes a long field of a record.
+     *
+     * @param index the index of the node
+     * @param field the offset of the field
+     * @param value the value
+     */
+    private void setLong(final int index, final int field, final long value) {
+        records[index >>> chunkShift].putLong(recordPosition(index) + field, value);
+    }
+
+    /**
+     * Gets the position of the record of a node in its chunk.
+     *
+     * @param index the index of the node
+     * @return the position
+     */
+    private int recordPosition(final int index) {
+        return (index & ((1 << chunkShift) - 1)) * RECORD_SIZE;
+    }
+
+    /**
+     * Output buffer exposing its bytes without a copy.
+     */
+    private static final class Scratch extends ByteArrayOutputStream {
+        /**
+         * Gets the internal buffer, valid up to {@link #size()}.
+         *
+         * @return the buffer
+         */
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * View of a node of an {@link OffHeapTree}. Changes through the view are applied to the store,
+ * and parents and children must be views of the same store, other nodes are rejected with an
+ * IllegalArgumentException. Two views of the same node are equal.
+ *
+ * <p>Views are small objects created on demand, one for each child returned by a children
+ * iterator, and can be kept like any other node; walks that must not allocate can follow the
+ * {@link OffHeapTree#getFirstChild(int)} and {@link OffHeapTree#getNextSibling(int)} indexes of
+ * the store instead. As different views of a node are different objects, a
+ * {@link com.itagile.logic.trees.TreeBatch} does not see them as the same node; use
+ * {@link #addAll(Iterable)} and {@link #removeAll(Iterable)} for bulk changes instead.
+ *
+ * @author Javier Alcala
+ * @param <T> the type of data object in this node
+ * @since 1.1
+ */
+public final class OffHeapTreeNode<T> implements MutableTreeNode<T> {
+    /**
+     * The store.
+     */
+    private final OffHeapTree<T> tree;
+
+    /**
+     * Index of the node in the store.
+     */
+    private final int index;
+
+    /**
+     * Constructs a new view.
+     *
+     * @param tree the store
+     * @param index index of the node in the store
+     */
+    OffHeapTreeNode(final OffHeapTree<T> tree, final int index) {
+        this.tree = tree;
+        this.index = index;
+    }
+
+    /**
+     * Gets the store of this node.
+     *
+     * @return the store
+     */
+    @JsonIgnore
+    public OffHeapTree<T> getTree() {
+        return tree;
+    }
+
+    /**
+     * Gets the index of the node in its store.
+     *
+     * @return the node index
+     */
+    @JsonIgnore
+    public int getIndex() {
+        return index;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getParent()
+     */
+    @Override
+    public TreeNode<T> getParent() {
+        final int parent = tree.getParent(index);
+        return parent == OffHeapTree.NONE ? null : new OffHeapTreeNode<>(tree, parent);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.itagile.logic.trees.MutableTreeNode#setParent(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public MutableTreeNode<T> setParent(final MutableTreeNode<T> newParent) {
+        tree.move(index, newParent == null ? OffHeapTree.NONE : check(newParent).index);
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#removeFromParent()
+     */
+    @Override
+    public void removeFromParent() {
+        tree.move(index, OffHeapTree.NONE);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#remove(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public boolean remove(final MutableTreeNode<T> child) {
+        final OffHeapTreeNode<T> node = check(child);
+        if (tree.getParent(node.index) != index) {
+            return false;
+        }
+        tree.move(node.index, OffHeapTree.NONE);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#add(com.itagile.logic.trees.MutableTreeNode)
+     */
+    @Override
+    public MutableTreeNode<T> add(final MutableTreeNode<T> newChild) {
+        tree.move(check(newChild).index, index);
+        return this;
+    }
+
+    /**
+     * Adds several children in order, moving them from their previous parents. Every child is
+     * validated against the ancestors of this node before any change, and the children may be the
+     * live children of another node.
+     *
+     * @param newChildren the child objects to add
+     * @return this object
+     * @throws IllegalArgumentException if a child is this node or one of its ancestors
+     */
+    @Override
+    public MutableTreeNode<T> addAll(final Iterable<? extends MutableTreeNode<T>> newChildren) {
+        final Set<Integer> ancestors = new HashSet<>();
+        for (int ancestor = index; ancestor != OffHeapTree.NONE; ancestor = tree
+                .getParent(ancestor)) {
+            ancestors.add(ancestor);
+        }
+        final int[] moved = indexes(newChildren);
+        for (final int child : moved) {
+            if (ancestors.contains(child)) {
+                throw new IllegalArgumentException("A node cannot be moved into its own subtree");
+            }
+        }
+        for (final int child : moved) {
+            tree.move(child, index);
+        }
+        return this;
+    }
+
+    /**
+     * Removes the children of this node among several nodes.
+     *
+     * @param children the nodes to be removed, other nodes are ignored
+     * @return true if a child was removed as a result of this call
+     */
+    @Override
+    public boolean removeAll(final Iterable<? extends MutableTreeNode<T>> children) {
+        boolean removed = false;
+        for (final int child : indexes(children)) {
+            if (tree.getParent(child) == index) {
+                tree.move(child, OffHeapTree.NONE);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the store indexes of several nodes before any change, so the nodes may be the live
+     * children of a node.
+     *
+     * @param nodes the nodes
+     * @return the indexes of the nodes in order
+     * @throws IllegalArgumentException if a node is not a view of this store
+     */
+    private int[] indexes(final Iterable<? extends MutableTreeNode<T>> nodes) {
+        int[] indexes = new int[8];
+        int size = 0;
+        for (final MutableTreeNode<T> node : nodes) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = check(node).index;
+        }
+        return Arrays.copyOf(indexes, size);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#setData(java.lang.Object)
+     */
+    @Override
+    public MutableTreeNode<T> setData(final T newData) {
+        tree.setData(index, newData);
+        return this;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getData()
+     */
+    @Override
+    public T getData() {
+        return tree.getData(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#getChildren()
+     */
+    @Override
+    public Iterable<TreeNode<T>> getChildren() {
+        return new Iterable<TreeNode<T>>() {
+            @Override
+            public Iterator<TreeNode<T>> iterator() {
+                return new ChildIterator<>(tree, index);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.MutableTreeNode#getMutableChildren()
+     */
+    @Override
+    public Iterable<MutableTreeNode<T>> getMutableChildren() {
+        return new Iterable<MutableTreeNode<T>>() {
+            @Override
+            public Iterator<MutableTreeNode<T>> iterator() {
+                return new ChildIterator<>(tree, index);
+            }
+        };
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.itagile.logic.trees.TreeNode#isLeaf()
+     */
+    @Override
+    public boolean isLeaf() {
+        return tree.isLeaf(index);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(tree) * 31 + index;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OffHeapTreeNode)) {
+            return false;
+        }
+        final OffHeapTreeNode<?> other = (OffHeapTreeNode<?>) obj;
+        return tree == other.tree && index == other.index;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "OffHeapTreeNode[" + index + ": " + getData() + "]";
+    }
+
+    /**
+     * Checks that a node is a view of the same store.
+     *
+     * @param node the node
+     * @return the node as an OffHeapTreeNode
+     */
+    private OffHeapTreeNode<T> check(final MutableTreeNode<T> node) {
+        if (!(node instanceof OffHeapTreeNode) || ((OffHeapTreeNode<T>) node).tree != tree) {
+            throw new IllegalArgumentException("Node must be an OffHeapTreeNode of the same tree");
+        }
+        return (OffHeapTreeNode<T>) node;
+    }
+
+    /**
+     * Iterates the children of a node following the next sibling indexes, returning a new view
+     * for each child.
+     *
+     * @param <T> the type of data object in the nodes
+     * @param <N> the type of node returned
+     */
+    private static final class ChildIterator<T, N extends TreeNode<T>> implements Iterator<N> {
+        /**
+         * The store.
+         */
+        private final OffHeapTree<T> tree;
+
+        /**
+         * Index of the next child, or {@link OffHeapTree#NONE}.
+         */
+        private int next;
+
+        /**
+         * Constructs a new iterator.
+         *
+         * @param tree the store
+         * @param parent index of the parent
+         */
+        ChildIterator(final OffHeapTree<T> tree, final int parent) {
+            this.tree = tree;
+            this.next = tree.getFirstChild(parent);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#hasNext()
+         */
+        @Override
+        public boolean hasNext() {
+            return next != OffHeapTree.NONE;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#next()
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public N next() {
+            if (next == OffHeapTree.NONE) {
+                throw new NoSuchElementException();
+            }
+            final OffHeapTreeNode<T> view = new OffHeapTreeNode<>(tree, next);
+            next = tree.getNextSibling(next);
+            return (N) view;
+        }
+
+        /**
+         * Not supported, use the methods of the nodes.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+    }
+}
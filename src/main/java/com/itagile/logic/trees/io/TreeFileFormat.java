@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+/**
+ * Layout of tree files. All values are big-endian, and sections start at 8-byte boundaries:
+ *
+ * <pre>
+ * header        magic, version, node count, largest data length (4 ints)
+ * parents       parent index of each node in pre-order, -1 for the root (int[n])
+ * subtree sizes number of nodes in the subtree of each node (int[n])
+ * nulls         bit set of the nodes with null data (long[(n + 63) / 64])
+ * offsets       start of the data of each node, plus the data length (long[n + 1])
+ * data          encoded data objects
+ * </pre>
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+final class TreeFileFormat {
+    /**
+     * File signature, "TREE" in ASCII.
+     */
+    static final int MAGIC = 0x54524545;
+
+    /**
+     * Format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Length of the header.
+     */
+    static final int HEADER_LENGTH = 16;
+
+    /**
+     * Largest length of an encoded data object, so that a data object plus a data chunk can be
+     * mapped in a single buffer.
+     */
+    static final int MAX_DATA_LENGTH = (1 << 30) - 1;
+
+    /**
+     * Not instantiable.
+     */
+    private TreeFileFormat() {
+    }
+
+    /**
+     * Gets the position of the parents section.
+     *
+     * @return the section position
+     */
+    static long parentsPosition() {
+        return HEADER_LENGTH;
+    }
+
+    /**
+     * Gets the position of the subtree sizes section.
+     *
+     * @param size the number of nodes
+     * @return the section position
+     */
+    static long subtreeSizesPosition(final int size) {
+        return parentsPosition() + 4L * size;
+    }
+
+    /**
+     * Gets the position of the nulls section.
+     *
+     * @param size the number of nodes
+     * @return the section position
+     */
+    static long nullsPosition(final int size) {
+        return align(subtreeSizesPosition(size) + 4L * size);
+    }
+
+    /**
+     * Gets the number of longs of the nulls section.
+     *
+     * @param size the number of nodes
+     * @return the number of longs
+     */
+    static int nullWords(final int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * Gets the position of the offsets section.
+     *
+     * @param size the number of nodes
+     * @return the section position
+     */
+    static long offsetsPosition(final int size) {
+        return nullsPosition(size) + 8L * nullWords(size);
+    }
+
+    /**
+     * Gets the position of the data section.
+     *
+     * @param size the number of nodes
+     * @return the section position
+     */
+    static long dataPosition(final int size) {
+        return offsetsPosition(size) + 8L * (size + 1);
+    }
+
+    /**
+     * Rounds a position up to a multiple of 8.
+     *
+     * @param position the position
+     * @return the aligned position
+     */
+    private static long align(final long position) {
+        return (position + 7) & ~7L;
+    }
+}
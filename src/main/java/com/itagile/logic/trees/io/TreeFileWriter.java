@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.itagile.logic.trees.FrozenTree;
+import com.itagile.logic.trees.FrozenTreeNode;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Writes trees to binary tree files that can be opened with
+ * {@link MappedTree#open(Path, DataCodec)}.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public final class TreeFileWriter {
+    /**
+     * Size of the output buffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Not instantiable.
+     */
+    private TreeFileWriter() {
+    }
+
+    /**
+     * Writes a tree to a file, replacing it if it exists. The source tree is frozen first, unless
+     * it is already the root of a {@link FrozenTree}, and must not be modified while it is written.
+     *
+     * @param root the root of the tree, may be null for an empty tree
+     * @param codec the codec of the data objects
+     * @param file the file to write
+     * @param <T> the type of data object in the nodes
+     * @throws IOException if an I/O error occurs or a data object is too large
+     */
+    public static <T> void write(final TreeNode<T> root, final DataCodec<? super T> codec,
+            final Path file) throws IOException {
+        final FrozenTree<T> tree = root instanceof FrozenTreeNode
+                && ((FrozenTreeNode<T>) root).getIndex() == 0
+                        ? ((FrozenTreeNode<T>) root).getTree() : FrozenTree.freeze(root);
+        final int size = tree.size();
+        final long[] nulls = new long[TreeFileFormat.nullWords(size)];
+        final long[] offsets = new long[size + 1];
+        int maxLength = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(TreeFileFormat.dataPosition(size));
+            final CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            final DataOutputStream output = new DataOutputStream(counter);
+            for (int i = 0; i < size; i++) {
+                final T data = tree.getData(i);
+                offsets[i] = counter.count;
+                if (data == null) {
+                    nulls[i >>> 6] |= 1L << i;
+                } else {
+                    codec.encode(data, output);
+                    final long length = counter.count - offsets[i];
+                    if (length > TreeFileFormat.MAX_DATA_LENGTH) {
+                        throw new IOException("Data object too large: " + length + " bytes");
+                    }
+                    maxLength = Math.max(maxLength, (int) length);
+                }
+            }
+            offsets[size] = counter.count;
+            output.flush();
+            channel.position(0);
+            final DataOutputStream tables = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            tables.writeInt(TreeFileFormat.MAGIC);
+            tables.writeInt(TreeFileFormat.VERSION);
+            tables.writeInt(size);
+            tables.writeInt(maxLength);
+            for (int i = 0; i < size; i++) {
+                tables.writeInt(tree.getParent(i));
+            }
+            for (int i = 0; i < size; i++) {
+                tables.writeInt(tree.getSubtreeSize(i));
+            }
+            for (long i = TreeFileFormat.subtreeSizesPosition(size) + 4L * size; i < TreeFileFormat
+                    .nullsPosition(size); i++) {
+                tables.writeByte(0);
+            }
+            for (final long word : nulls) {
+                tables.writeLong(word);
+            }
+            for (final long offset : offsets) {
+                tables.writeLong(offset);
+            }
+            tables.flush();
+        }
+    }
+
+    /**
+     * Output stream that counts the written bytes with no limit.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        /**
+         * Number of bytes written.
+         */
+        private long count;
+
+        /**
+         * Constructs a new counting stream.
+         *
+         * @param out the underlying output stream
+         */
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.io.FilterOutputStream#write(int)
+         */
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.io.FilterOutputStream#write(byte[], int, int)
+         */
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.jackson;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.itagile.logic.trees.MutableTreeNode;
+
+/**
+ * Reads a tree in any {@link TreeFormat} straight from the {@link JsonParser} into
+ * {@link MutableTreeNode} instances created by a {@link MutableTreeNodeFactory}, without
+ * intermediate JsonNode trees and keeping open nodes in an explicit stack, so deep trees do not
+ * overflow the call stack. Data objects are read with the deserializer configured for the data
+ * type. The {@code leaf} field of the nested layout and unknown fields are ignored.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class MutableTreeNodeDeserializer extends StdDeserializer<MutableTreeNode<?>> {
+    /**
+     * Serial version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The type of data objects.
+     */
+    private final JavaType dataType;
+
+    /**
+     * Creates the nodes.
+     */
+    private final transient MutableTreeNodeFactory factory;
+
+    /**
+     * Constructs a new deserializer.
+     *
+     * @param nodeType the type of node to deserialize
+     * @param dataType the type of data objects
+     * @param factory creates the nodes
+     */
+    public MutableTreeNodeDeserializer(final JavaType nodeType, final JavaType dataType,
+            final MutableTreeNodeFactory factory) {
+        super(nodeType);
+        this.dataType = dataType;
+        this.factory = factory;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.fasterxml.jackson.databind.JsonDeserializer#deserialize(
+     * com.fasterxml.jackson.core.JsonParser, com.fasterxml.jackson.databind.DeserializationContext)
+     */
+    @Override
+    public MutableTreeNode<?> deserialize(final JsonParser p, final DeserializationContext ctxt)
+            throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME) {
+            return (MutableTreeNode<?>) ctxt.handleUnexpectedToken(handledType(), p);
+        }
+        final JsonDeserializer<Object> dataDeserializer = ctxt.findRootValueDeserializer(dataType);
+        if ("nodes".equals(p.currentName())) {
+            return deserializeFlat(p, ctxt, dataDeserializer);
+        }
+        return deserializeNested(p, ctxt, dataDeserializer);
+    }
+
+    /**
+     * Reads the nested layout, starting at the first field name of the root object.
+     *
+     * @param p the parser
+     * @param ctxt the deserialization context
+     * @param dataDeserializer the deserializer of data objects
+     * @return the root node
+     * @throws IOException on read errors
+     */
+    private MutableTreeNode<Object> deserializeNested(final JsonParser p,
+            final DeserializationContext ctxt, final JsonDeserializer<Object> dataDeserializer)
+            throws IOException {
+        final MutableTreeNode<Object> root = factory.create(null);
+        final Deque<MutableTreeNode<Object>> stack = new ArrayDeque<>();
+        stack.push(root);
+        JsonToken token = p.currentToken();
+        while (!stack.isEmpty()) {
+            if (token == JsonToken.FIELD_NAME) {
+                final String name = p.currentName();
+                token = p.nextToken();
+                if ("data".equals(name)) {
+                    stack.peek().setData(readData(p, ctxt, dataDeserializer));
+                } else if ("children".equals(name)) {
+                    if (token != JsonToken.START_ARRAY) {
+                        ctxt.reportWrongTokenException(this, JsonToken.START_ARRAY,
+                                "children must be an array");
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                // only objects inside a children array are read here
+                final MutableTreeNode<Object> child = factory.create(null);
+                stack.peek().add(child);
+                stack.push(child);
+            } else if (token == JsonToken.END_OBJECT) {
+                stack.pop();
+            } else if (token != JsonToken.END_ARRAY) {
+                ctxt.handleUnexpectedToken(handledType(), p);
+            }
+            if (!stack.isEmpty()) {
+                token = p.nextToken();
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Reads the flat layout, starting at the nodes field name.
+     *
+     * @param p the parser
+     * @param ctxt the deserialization context
+     * @param dataDeserializer the deserializer of data objects
+     * @return the root node
+     * @throws IOException on read errors
+     */
+    private MutableTreeNode<Object> deserializeFlat(final JsonParser p,
+            final DeserializationContext ctxt, final JsonDeserializer<Object> dataDeserializer)
+            throws IOException {
+        if (p.nextToken() != JsonToken.START_ARRAY) {
+            ctxt.reportWrongTokenException(this, JsonToken.START_ARRAY, "nodes must be an array");
+        }
+        final List<MutableTreeNode<Object>> nodes = new ArrayList<>();
+        MutableTreeNode<Object> root = null;
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            int parent = -1;
+            Object data = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = p.currentName();
+                p.nextToken();
+                if ("parent".equals(name)) {
+                    parent = p.getIntValue();
+                } else if ("data".equals(name)) {
+                    data = readData(p, ctxt, dataDeserializer);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            final MutableTreeNode<Object> node = factory.create(data);
+            if (parent < 0) {
+                if (root != null) {
+                    ctxt.reportInputMismatch(this, "More than one root node");
+                }
+                root = node;
+            } else if (parent >= nodes.size()) {
+                ctxt.reportInputMismatch(this,
+                        "Parent %d of node %d must precede it", parent, nodes.size());
+            } else {
+                nodes.get(parent).add(node);
+            }
+            nodes.add(node);
+        }
+        if (root == null) {
+            ctxt.reportInputMismatch(this, "No root node");
+        }
+        // skip the rest of the fields of the wrapping object
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            p.nextToken();
+            p.skipChildren();
+        }
+        return root;
+    }
+
+    /**
+     * Reads a data object at the current token.
+     *
+     * @param p the parser
+     * @param ctxt the deserialization context
+     * @param dataDeserializer the deserializer of data objects
+     * @return the data object
+     * @throws IOException on read errors
+     */
+    private static Object readData(final JsonParser p, final DeserializationContext ctxt,
+            final JsonDeserializer<Object> dataDeserializer) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return dataDeserializer.getNullValue(ctxt);
+        }
+        return dataDeserializer.deserialize(p, ctxt);
+    }
+}
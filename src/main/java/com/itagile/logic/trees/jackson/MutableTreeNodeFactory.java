@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.jackson;
+
+import com.itagile.logic.trees.MutableTreeNode;
+
+/**
+ * Creates the nodes of deserialized trees.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public interface MutableTreeNodeFactory {
+    /**
+     * Creates a new node without parent nor children.
+     *
+     * @param data the data object of the node
+     * @param <T> the type of data object in the node
+     * @return the new node
+     */
+    <T> MutableTreeNode<T> create(T data);
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.jackson;
+
+/**
+ * JSON layouts of a tree written by {@link TreeNodeSerializer}. {@link MutableTreeNodeDeserializer}
+ * reads both.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public enum TreeFormat {
+    /**
+     * Nested objects, the same layout as bean serialization of
+     * {@link com.itagile.logic.trees.DefaultMutableTreeNode}:
+     * {@code {"data":...,"leaf":false,"children":[{"data":...,"leaf":true,"children":[]}]}}.
+     */
+    NESTED,
+
+    /**
+     * A flat list of nodes in pre-order with the index of their parent, -1 for the root:
+     * {@code {"nodes":[{"parent":-1,"data":...},{"parent":0,"data":...}]}}. The nesting depth of
+     * the JSON does not grow with the depth of the tree.
+     */
+    FLAT
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.jackson;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Jackson module that serializes every {@link TreeNode} with {@link TreeNodeSerializer} and
+ * deserializes {@link TreeNode} and {@link MutableTreeNode} declared types with
+ * {@link MutableTreeNodeDeserializer}. The data type is taken from the type parameter of the
+ * declared type, like {@code new TypeReference<MutableTreeNode<Integer>>() {}}.
+ *
+ * <pre>
+ * ObjectMapper mapper = new ObjectMapper().registerModule(new TreeModule());
+ * </pre>
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeModule extends SimpleModule {
+    /**
+     * Factory of {@link DefaultMutableTreeNode} nodes.
+     */
+    public static final MutableTreeNodeFactory DEFAULT_FACTORY = new MutableTreeNodeFactory() {
+        @Override
+        public <T> MutableTreeNode<T> create(final T data) {
+            return new DefaultMutableTreeNode<>(data);
+        }
+    };
+
+    /**
+     * Serial version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates the nodes of deserialized trees.
+     */
+    private final transient MutableTreeNodeFactory factory;
+
+    /**
+     * Constructs a module writing the nested layout and reading DefaultMutableTreeNode nodes.
+     */
+    public TreeModule() {
+        this(TreeFormat.NESTED, DEFAULT_FACTORY);
+    }
+
+    /**
+     * Constructs a new module.
+     *
+     * @param format the JSON layout written by the serializer, both are read
+     * @param factory creates the nodes of deserialized trees
+     */
+    public TreeModule(final TreeFormat format, final MutableTreeNodeFactory factory) {
+        super(TreeModule.class.getSimpleName());
+        this.factory = factory;
+        addSerializer(TreeNode.class, new TreeNodeSerializer(format));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.fasterxml.jackson.databind.module.SimpleModule#setupModule(
+     * com.fasterxml.jackson.databind.Module.SetupContext)
+     */
+    @Override
+    public void setupModule(final SetupContext context) {
+        super.setupModule(context);
+        context.addDeserializers(new TreeDeserializers(factory));
+    }
+
+    /**
+     * Finds the deserializer of tree node interfaces.
+     */
+    private static final class TreeDeserializers extends Deserializers.Base {
+        /**
+         * Creates the nodes of deserialized trees.
+         */
+        private final MutableTreeNodeFactory factory;
+
+        /**
+         * Constructs a new finder.
+         *
+         * @param factory creates the nodes of deserialized trees
+         */
+        TreeDeserializers(final MutableTreeNodeFactory factory) {
+            this.factory = factory;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.fasterxml.jackson.databind.deser.Deserializers.Base#findBeanDeserializer(
+         * com.fasterxml.jackson.databind.JavaType,
+         * com.fasterxml.jackson.databind.DeserializationConfig,
+         * com.fasterxml.jackson.databind.BeanDescription)
+         */
+        @Override
+        public JsonDeserializer<?> findBeanDeserializer(final JavaType type,
+                final DeserializationConfig config, final BeanDescription beanDesc) {
+            final Class<?> raw = type.getRawClass();
+            if (raw != TreeNode.class && raw != MutableTreeNode.class) {
+                return null;
+            }
+            JavaType dataType = type.containedType(0);
+            if (dataType == null) {
+                dataType = TypeFactory.unknownType();
+            }
+            return new MutableTreeNodeDeserializer(type, dataType, factory);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.jackson;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.itagile.logic.trees.TreeNode;
+
+/**
+ * Writes any {@link TreeNode} tree straight to the {@link JsonGenerator}, walking it with an
+ * explicit stack so deep trees do not overflow the call stack. Data objects are written with the
+ * serializer configured for their type.
+ *
+ * @author Javier Alcala
+ * @since 1.1
+ */
+@SuppressWarnings("rawtypes")
+public class TreeNodeSerializer extends StdSerializer<TreeNode> {
+    /**
+     * Serial version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Initial capacity of the parent index stack of the flat layout.
+     */
+    private static final int INITIAL_DEPTH = 16;
+
+    /**
+     * The JSON layout.
+     */
+    private final TreeFormat format;
+
+    /**
+     * Constructs a new serializer.
+     *
+     * @param format the JSON layout
+     */
+    public TreeNodeSerializer(final TreeFormat format) {
+        super(TreeNode.class);
+        this.format = format;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.fasterxml.jackson.databind.ser.std.StdSerializer#serialize(java.lang.Object,
+     * com.fasterxml.jackson.core.JsonGenerator, com.fasterxml.jackson.databind.SerializerProvider)
+     */
+    @Override
+    public void serialize(final TreeNode value, final JsonGenerator gen,
+            final SerializerProvider provider) throws IOException {
+        if (format == TreeFormat.FLAT) {
+            serializeFlat(value, gen, provider);
+        } else {
+            serializeNested(value, gen, provider);
+        }
+    }
+
+    /**
+     * Writes the nested layout.
+     *
+     * @param root the root node
+     * @param gen the generator
+     * @param provider the serializer provider
+     * @throws IOException on write errors
+     */
+    @SuppressWarnings("unchecked")
+    private static void serializeNested(final TreeNode<?> root, final JsonGenerator gen,
+            final SerializerProvider provider) throws IOException {
+        final Deque<Iterator<TreeNode<?>>> stack = new ArrayDeque<>();
+        TreeNode<?> node = root;
+        while (node != null) {
+            gen.writeStartObject();
+            provider.defaultSerializeField("data", node.getData(), gen);
+            gen.writeBooleanField("leaf", node.isLeaf());
+            gen.writeArrayFieldStart("children");
+            stack.push(((TreeNode) node).getChildren().iterator());
+            node = null;
+            while (node == null && !stack.isEmpty()) {
+                final Iterator<TreeNode<?>> iterator = stack.peek();
+                if (iterator.hasNext()) {
+                    node = iterator.next();
+                } else {
+                    stack.pop();
+                    gen.writeEndArray();
+                    gen.writeEndObject();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the flat layout.
+     *
+     * @param root the root node
+     * @param gen the generator
+     * @param provider the serializer provider
+     * @throws IOException on write errors
+     */
+    @SuppressWarnings("unchecked")
+    private static void serializeFlat(final TreeNode<?> root, final JsonGenerator gen,
+            final SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("nodes");
+        final Deque<Iterator<TreeNode<?>>> stack = new ArrayDeque<>();
+        // index of the node of each iterator in the stack, from the bottom
+        int[] parents = new int[INITIAL_DEPTH];
+        int index = 0;
+        TreeNode<?> node = root;
+        while (node != null) {
+            gen.writeStartObject();
+            gen.writeNumberField("parent", stack.isEmpty() ? -1 : parents[stack.size() - 1]);
+            provider.defaultSerializeField("data", node.getData(), gen);
+            gen.writeEndObject();
+            if (!node.isLeaf()) {
+                if (stack.size() == parents.length) {
+                    parents = Arrays.copyOf(parents, parents.length * 2);
+                }
+                parents[stack.size()] = index;
+                stack.push(((TreeNode) node).getChildren().iterator());
+            }
+            index++;
+            node = null;
+            while (node == null && !stack.isEmpty()) {
+                final Iterator<TreeNode<?>> iterator = stack.peek();
+                if (iterator.hasNext()) {
+                    node = iterator.next();
+                } else {
+                    stack.pop();
+                }
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
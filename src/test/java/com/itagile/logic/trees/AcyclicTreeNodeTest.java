@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.data;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for AcyclicTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class AcyclicTreeNodeTest {
+    /**
+     * Root of the sample tree root(A(A.1(A.1.1)), B).
+     */
+    private AcyclicTreeNode<String> root;
+
+    /**
+     * Node A of the sample tree.
+     */
+    private AcyclicTreeNode<String> a;
+
+    /**
+     * Node A.1 of the sample tree.
+     */
+    private AcyclicTreeNode<String> a1;
+
+    /**
+     * Node A.1.1 of the sample tree.
+     */
+    private AcyclicTreeNode<String> a11;
+
+    /**
+     * Node B of the sample tree.
+     */
+    private AcyclicTreeNode<String> b;
+
+    /**
+     * Builds the sample tree.
+     */
+    @Before
+    public void setUp() {
+        root = new AcyclicTreeNode<>("root");
+        a = new AcyclicTreeNode<>("A", root);
+        a1 = new AcyclicTreeNode<>("A.1", a);
+        a11 = new AcyclicTreeNode<>("A.1.1", a1);
+        b = new AcyclicTreeNode<>("B", root);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.AcyclicTreeNode#add(MutableTreeNode)},
+     * {@link com.itagile.logic.trees.AcyclicTreeNode#remove(MutableTreeNode)} and
+     * {@link com.itagile.logic.trees.AcyclicTreeNode#removeFromParent()}.
+     */
+    @Test
+    public void testStructuralChanges() {
+        assertThat(data(root.getChildren()), contains("A", "B"));
+        b.add(a1);
+        assertSame(b, a1.getParent());
+        assertTrue(a.isLeaf());
+        assertThat(data(b.getChildren()), contains("A.1"));
+        assertFalse(a.remove(a1));
+        assertTrue(b.remove(a1));
+        assertNull(a1.getParent());
+        a.removeFromParent();
+        assertThat(data(root.getChildren()), contains("B"));
+    }
+
+    /**
+     * Depths follow the moved subtrees.
+     */
+    @Test
+    public void testGetDepth() {
+        assertEquals(0, root.getDepth());
+        assertEquals(3, a11.getDepth());
+        a1.setParent(null);
+        assertEquals(0, a1.getDepth());
+        assertEquals(1, a11.getDepth());
+        a1.setParent(b);
+        assertEquals(2, a1.getDepth());
+        assertEquals(3, a11.getDepth());
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.AcyclicTreeNode#isAncestorOf(AcyclicTreeNode)}.
+     */
+    @Test
+    public void testIsAncestorOf() {
+        assertTrue(root.isAncestorOf(a11));
+        assertTrue(a.isAncestorOf(a11));
+        assertFalse(b.isAncestorOf(a11));
+        assertFalse(a11.isAncestorOf(a));
+        assertFalse(a.isAncestorOf(a));
+        assertFalse(a.isAncestorOf(new AcyclicTreeNode<>("X", new AcyclicTreeNode<>("Y"))));
+    }
+
+    /**
+     * Moving a node under one of its descendants is rejected and leaves the tree unchanged.
+     */
+    @Test
+    public void testRejectsDescendantParent() {
+        try {
+            a.setParent(a11);
+            fail("Cycle accepted");
+        } catch (final IllegalArgumentException e) {
+            assertSame(root, a.getParent());
+            assertThat(data(root.getChildren()), contains("A", "B"));
+        }
+        try {
+            a11.add(a);
+            fail("Cycle accepted");
+        } catch (final IllegalArgumentException e) {
+            assertSame(root, a.getParent());
+        }
+    }
+
+    /**
+     * A node cannot be its own parent.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsSelfParent() {
+        a.setParent(a);
+    }
+
+    /**
+     * Other node types are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOtherNodes() {
+        a.add(new DefaultMutableTreeNode<>("X"));
+    }
+
+    /**
+     * Random moves are rejected exactly when the new parent is the node or one of its
+     * descendants, and depths stay equal to the parent chain lengths.
+     */
+    @Test
+    public void testRandomMovesAgainstParentChains() {
+        final Random random = new Random(14);
+        final List<AcyclicTreeNode<Integer>> nodes = new ArrayList<>();
+        nodes.add(new AcyclicTreeNode<>(0));
+        for (int i = 1; i < 200; i++) {
+            nodes.add(new AcyclicTreeNode<>(i, nodes.get(random.nextInt(i))));
+        }
+        for (int move = 0; move < 5_000; move++) {
+            final AcyclicTreeNode<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            final AcyclicTreeNode<Integer> target = nodes.get(random.nextInt(nodes.size()));
+            boolean cyclic = false;
+            for (TreeNode<Integer> up = target; up != null;
+                    up = ((MutableTreeNode<Integer>) up).getParent()) {
+                cyclic |= up == node;
+            }
+            try {
+                node.setParent(target);
+                assertFalse(cyclic);
+            } catch (final IllegalArgumentException e) {
+                assertTrue(cyclic);
+            }
+        }
+        for (final AcyclicTreeNode<Integer> node : nodes) {
+            int depth = 0;
+            for (TreeNode<Integer> up = node.getParent(); up != null;
+                    up = ((MutableTreeNode<Integer>) up).getParent()) {
+                depth++;
+            }
+            assertEquals(depth, node.getDepth());
+        }
+    }
+
+    /**
+     * Deep chains reject cycles and update depths without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final int depth = 100_000;
+        final AcyclicTreeNode<Integer> chain = new AcyclicTreeNode<>(0);
+        AcyclicTreeNode<Integer> middle = null;
+        AcyclicTreeNode<Integer> last = chain;
+        for (int i = 1; i < depth; i++) {
+            last = new AcyclicTreeNode<>(i, last);
+            if (i == depth / 2) {
+                middle = last;
+            }
+        }
+        assertTrue(chain.isAncestorOf(last));
+        try {
+            middle.setParent(last);
+            fail("Cycle accepted");
+        } catch (final IllegalArgumentException e) {
+            assertEquals(depth - 1, last.getDepth());
+        }
+        middle.setParent(chain);
+        assertEquals(depth / 2, last.getDepth());
+    }
+
+    /**
+     * Acyclic nodes serialize to JSON like DefaultMutableTreeNode.
+     * @throws JsonProcessingException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws JsonProcessingException, JSONException {
+        final MutableTreeNode<String> expected = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> expectedA = new DefaultMutableTreeNode<>("A", expected);
+        new DefaultMutableTreeNode<>("A.1.1", new DefaultMutableTreeNode<>("A.1", expectedA));
+        new DefaultMutableTreeNode<>("B", expected);
+        final ObjectMapper mapper = new ObjectMapper();
+        JSONAssert.assertEquals(mapper.writeValueAsString(expected),
+                mapper.writeValueAsString(root), true);
+    }
+}
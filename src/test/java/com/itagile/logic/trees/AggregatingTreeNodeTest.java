@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ConcurrentModificationException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for AggregatingTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class AggregatingTreeNodeTest {
+    /**
+     * Sum aggregation counting its calls to map.
+     */
+    private CountingSum sum;
+
+    /**
+     * Root of the sample tree root=1(a=2(a1=3, a2=4), b=5).
+     */
+    private AggregatingTreeNode<Integer, Integer> root;
+
+    /**
+     * Node a of the sample tree.
+     */
+    private AggregatingTreeNode<Integer, Integer> a;
+
+    /**
+     * Node a1 of the sample tree.
+     */
+    private AggregatingTreeNode<Integer, Integer> a1;
+
+    /**
+     * Node b of the sample tree.
+     */
+    private AggregatingTreeNode<Integer, Integer> b;
+
+    /**
+     * Builds the sample tree.
+     */
+    @Before
+    public void setUp() {
+        sum = new CountingSum();
+        root = new AggregatingTreeNode<>(sum, 1);
+        a = new AggregatingTreeNode<>(sum, 2, root);
+        a1 = new AggregatingTreeNode<>(sum, 3, a);
+        new AggregatingTreeNode<>(sum, 4, a);
+        b = new AggregatingTreeNode<>(sum, 5, root);
+    }
+
+    /**
+     * The first read computes every node once, next reads use the cache.
+     */
+    @Test
+    public void testGetAggregate() {
+        assertEquals(Integer.valueOf(15), root.getAggregate());
+        assertEquals(5, sum.maps);
+        assertEquals(Integer.valueOf(15), root.getAggregate());
+        assertEquals(Integer.valueOf(9), a.getAggregate());
+        assertEquals(5, sum.maps);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.AggregatingTreeNode#setData(Object)}.
+     */
+    @Test
+    public void testSetDataRecomputesPath() {
+        root.getAggregate();
+        sum.maps = 0;
+        a1.setData(10);
+        assertEquals(Integer.valueOf(22), root.getAggregate());
+        assertEquals(3, sum.maps);
+        assertEquals(Integer.valueOf(5), b.getAggregate());
+        assertEquals(3, sum.maps);
+    }
+
+    /**
+     * Reading an inner aggregate only recomputes its dirty subtree.
+     */
+    @Test
+    public void testReadInnerAggregate() {
+        root.getAggregate();
+        sum.maps = 0;
+        a1.setData(10);
+        assertEquals(Integer.valueOf(16), a.getAggregate());
+        assertEquals(2, sum.maps);
+        assertEquals(Integer.valueOf(22), root.getAggregate());
+        assertEquals(3, sum.maps);
+    }
+
+    /**
+     * Structural changes update the aggregates of old and new parents.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMove() {
+        root.getAggregate();
+        a1.setParent(b);
+        assertEquals(Integer.valueOf(6), a.getAggregate());
+        assertEquals(Integer.valueOf(8), b.getAggregate());
+        assertEquals(Integer.valueOf(15), root.getAggregate());
+        a.removeFromParent();
+        assertNull(a.getParent());
+        assertEquals(Integer.valueOf(9), root.getAggregate());
+        assertTrue(root.remove(b));
+        assertFalse(root.remove(b));
+        assertEquals(Integer.valueOf(1), root.getAggregate());
+        root.add(a);
+        assertEquals(Integer.valueOf(7), root.getAggregate());
+        assertThat(root.getMutableChildren(), contains((MutableTreeNode<Integer>) a));
+    }
+
+    /**
+     * Adding a node twice keeps a single copy.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testAddTwice() {
+        root.add(a).add(b);
+        assertThat(root.getChildren(), contains((TreeNode<Integer>) a, (TreeNode<Integer>) b));
+        assertEquals(Integer.valueOf(15), root.getAggregate());
+    }
+
+    /**
+     * Removing children while iterating them fails fast and keeps the remaining children.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRemoveWhileIterating() {
+        final AggregatingTreeNode<Integer, Integer> c = new AggregatingTreeNode<>(sum, 6, root);
+        try {
+            for (final MutableTreeNode<Integer> child : root.getMutableChildren()) {
+                child.removeFromParent();
+            }
+            fail();
+        } catch (final ConcurrentModificationException e) {
+            assertThat(root.getChildren(), contains((TreeNode<Integer>) b, (TreeNode<Integer>) c));
+            assertEquals(Integer.valueOf(12), root.getAggregate());
+        }
+    }
+
+    /**
+     * Nodes of other types are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddForeignNode() {
+        root.add(new DefaultMutableTreeNode<>(1));
+    }
+
+    /**
+     * Nodes with other aggregation are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetParentOtherAggregation() {
+        a.setParent(new AggregatingTreeNode<>(new CountingSum(), 0));
+    }
+
+    /**
+     * Deep chains are recomputed without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final int depth = 100_000;
+        AggregatingTreeNode<Integer, Integer> last = root;
+        for (int i = 0; i < depth; i++) {
+            last = new AggregatingTreeNode<>(sum, 1, last);
+        }
+        assertEquals(Integer.valueOf(15 + depth), root.getAggregate());
+        last.setData(2);
+        assertEquals(Integer.valueOf(16 + depth), root.getAggregate());
+    }
+
+    /**
+     * Sum aggregation counting its calls to map.
+     */
+    private static final class CountingSum implements Aggregation<Integer, Integer> {
+        /**
+         * Number of calls to map.
+         */
+        private int maps;
+
+        @Override
+        public Integer map(final TreeNode<Integer> node) {
+            maps++;
+            return node.getData();
+        }
+
+        @Override
+        public Integer combine(final Integer left, final Integer right) {
+            return left + right;
+        }
+    }
+}
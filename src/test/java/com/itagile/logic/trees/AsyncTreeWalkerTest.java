@@ -0,0 +1,386 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.itagile.logic.trees.AsyncTreeWalker.Order;
+
+/**
+ * Tests for AsyncTreeWalker.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class AsyncTreeWalkerTest {
+    /**
+     * Completes the lookups of the remote service stub.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    /**
+     * Stops the scheduler.
+     */
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Remote service stub: looks up ten times the data of a node after a simulated latency, and
+     * checks the order constraints and the number of lookups in flight.
+     */
+    private final class RemoteStub implements AsyncNodeVisitor<Integer, Integer> {
+        /**
+         * Parents by node.
+         */
+        private final Map<TreeNode<Integer>, TreeNode<Integer>> parents = new IdentityHashMap<>();
+
+        /**
+         * Nodes whose lookup completed.
+         */
+        private final Set<TreeNode<Integer>> completed = Collections
+                .newSetFromMap(new ConcurrentHashMap<TreeNode<Integer>, Boolean>());
+
+        /**
+         * The order constraint to check.
+         */
+        private final Order order;
+
+        /**
+         * Latency of a lookup in milliseconds, 0 to complete it immediately.
+         */
+        private final int latency;
+
+        /**
+         * Number of lookups started.
+         */
+        private final AtomicInteger started = new AtomicInteger();
+
+        /**
+         * Number of lookups in flight.
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /**
+         * Maximum number of lookups in flight.
+         */
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        /**
+         * Number of lookups started before their order constraint was met.
+         */
+        private final AtomicInteger violations = new AtomicInteger();
+
+        /**
+         * Constructs a new stub.
+         * @param root the root of the tree
+         * @param order the order constraint to check
+         * @param latency latency of a lookup in milliseconds
+         */
+        RemoteStub(final TreeNode<Integer> root, final Order order, final int latency) {
+            this.order = order;
+            this.latency = latency;
+            for (final TreeNode<Integer> node : TreeTraversal.preOrder(root)) {
+                for (final TreeNode<Integer> child : node.getChildren()) {
+                    parents.put(child, node);
+                }
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.itagile.logic.trees.AsyncNodeVisitor#visit(com.itagile.logic.trees.TreeNode)
+         */
+        @Override
+        public CompletableFuture<Integer> visit(final TreeNode<Integer> node) {
+            started.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            if (order == Order.PARENT_FIRST && parents.containsKey(node)
+                    && !completed.contains(parents.get(node))) {
+                violations.incrementAndGet();
+            }
+            if (order == Order.CHILDREN_FIRST) {
+                for (final TreeNode<Integer> child : node.getChildren()) {
+                    if (!completed.contains(child)) {
+                        violations.incrementAndGet();
+                    }
+                }
+            }
+            final CompletableFuture<Integer> future = new CompletableFuture<>();
+            final Runnable complete = () -> {
+                completed.add(node);
+                inFlight.decrementAndGet();
+                future.complete(node.getData() * 10);
+            };
+            if (latency == 0) {
+                complete.run();
+            } else {
+                scheduler.schedule(complete, latency, TimeUnit.MILLISECONDS);
+            }
+            return future;
+        }
+    }
+
+    /**
+     * Builds a tree of random shape with the pre-order position as data.
+     * @param random the random generator
+     * @param size the number of nodes
+     * @return the root node
+     */
+    private static MutableTreeNode<Integer> randomTree(final Random random, final int size) {
+        final List<MutableTreeNode<Integer>> nodes = new ArrayList<>();
+        nodes.add(new DefaultMutableTreeNode<>(0));
+        for (int i = 1; i < size; i++) {
+            nodes.add(new DefaultMutableTreeNode<>(i, nodes.get(random.nextInt(nodes.size()))));
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * Checks that a parallel tree holds ten times the data of the source nodes.
+     * @param source the source node
+     * @param result the result node
+     * @return the number of checked nodes
+     */
+    private static int check(final TreeNode<Integer> source,
+            final AggregateNode<Integer, Integer> result) {
+        int count = 0;
+        final List<TreeNode<Integer>> sources = new ArrayList<>();
+        final List<TreeNode<Integer>> results = new ArrayList<>();
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(source)) {
+            sources.add(node);
+        }
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(result)) {
+            results.add(node);
+        }
+        assertEquals(sources.size(), results.size());
+        for (final TreeNode<Integer> node : results) {
+            @SuppressWarnings("unchecked")
+            final AggregateNode<Integer, Integer> aggregate =
+                    (AggregateNode<Integer, Integer>) node;
+            assertSame(sources.get(count), aggregate.getSource());
+            assertEquals(Integer.valueOf(sources.get(count).getData() * 10), aggregate.getData());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Every order assembles the parallel tree of results within the concurrency limit.
+     * @throws Exception if the walk fails
+     */
+    @Test
+    public void testOrders() throws Exception {
+        final MutableTreeNode<Integer> root = randomTree(new Random(25), 300);
+        for (final Order order : Order.values()) {
+            final RemoteStub stub = new RemoteStub(root, order, 2);
+            final AggregateNode<Integer, Integer> result = new AsyncTreeWalker<>(stub, 8, order)
+                    .walk(root).get(30, TimeUnit.SECONDS);
+            assertEquals(300, check(root, result));
+            assertEquals(300, stub.started.get());
+            assertEquals(0, stub.violations.get());
+            assertTrue(stub.maxInFlight.get() <= 8);
+            assertTrue(order.toString(), stub.maxInFlight.get() > 1);
+        }
+    }
+
+    /**
+     * Blocking work runs on an executor within the concurrency limit.
+     * @throws Exception if the walk fails
+     */
+    @Test
+    public void testBlocking() throws Exception {
+        final MutableTreeNode<Integer> root = randomTree(new Random(26), 100);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            final AggregateNode<Integer, Integer> result = AsyncTreeWalker
+                    .<Integer, Integer>blocking(node -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(1);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        inFlight.decrementAndGet();
+                        return node.getData() * 10;
+                    }, executor, 4, Order.ANY).walk(root).get(30, TimeUnit.SECONDS);
+            assertEquals(100, check(root, result));
+            assertTrue(maxInFlight.get() <= 4);
+        } finally {
+            executor.shutdown();
+        }
+        final AggregateNode<Integer, Integer> result = AsyncTreeWalker
+                .<Integer, Integer>blocking(node -> node.getData() * 10, 2, Order.PARENT_FIRST)
+                .walk(root).get(30, TimeUnit.SECONDS);
+        assertEquals(100, check(root, result));
+        assertNotNull(AsyncTreeWalker.defaultExecutor());
+    }
+
+    /**
+     * The first failure completes the walk and no more visits are started.
+     * @throws Exception if the walk is interrupted
+     */
+    @Test
+    public void testFailure() throws Exception {
+        final MutableTreeNode<Integer> root = randomTree(new Random(27), 200);
+        final AtomicInteger started = new AtomicInteger();
+        final CompletableFuture<AggregateNode<Integer, Integer>> walk = new AsyncTreeWalker<>(
+                (final TreeNode<Integer> node) -> {
+                    started.incrementAndGet();
+                    final CompletableFuture<Integer> future = new CompletableFuture<>();
+                    if (node.getData() == 20) {
+                        future.completeExceptionally(new IllegalStateException("lookup failed"));
+                    } else {
+                        scheduler.schedule(() -> future.complete(node.getData()), 1,
+                                TimeUnit.MILLISECONDS);
+                    }
+                    return future;
+                }, 4, Order.ANY).walk(root);
+        try {
+            walk.get(30, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertEquals("lookup failed", e.getCause().getMessage());
+        }
+        final int count = started.get();
+        assertTrue(count < 200);
+        Thread.sleep(20);
+        assertEquals(count, started.get());
+        try {
+            new AsyncTreeWalker<Integer, Integer>(node -> {
+                throw new IllegalStateException("not started");
+            }, 1, Order.ANY).walk(root).get(30, TimeUnit.SECONDS);
+            fail();
+        } catch (final ExecutionException e) {
+            assertEquals("not started", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Cancelling the walk cancels the visits in flight and starts no more.
+     * @throws Exception if the walk is interrupted
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final MutableTreeNode<Integer> root = randomTree(new Random(28), 200);
+        final List<CompletableFuture<Integer>> futures = Collections
+                .synchronizedList(new ArrayList<CompletableFuture<Integer>>());
+        final CompletableFuture<AggregateNode<Integer, Integer>> walk = new AsyncTreeWalker<>(
+                (final TreeNode<Integer> node) -> {
+                    final CompletableFuture<Integer> future = new CompletableFuture<>();
+                    futures.add(future);
+                    return future;
+                }, 3, Order.PARENT_FIRST).walk(root);
+        assertEquals(1, futures.size());
+        futures.get(0).complete(0);
+        assertTrue(futures.size() > 1 && futures.size() <= 4);
+        assertTrue(walk.cancel(true));
+        for (final CompletableFuture<Integer> future : futures.subList(1, futures.size())) {
+            assertTrue(future.isCancelled());
+        }
+        final int count = futures.size();
+        try {
+            walk.get();
+            fail();
+        } catch (final CancellationException e) {
+            assertEquals(count, futures.size());
+        }
+    }
+
+    /**
+     * Deep chains completed synchronously neither recurse nor overflow the call stack.
+     * @throws Exception if the walk fails
+     */
+    @Test
+    public void testDeepChain() throws Exception {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> node = root;
+        for (int i = 1; i < DEEP; i++) {
+            node = new DefaultMutableTreeNode<>(i, node);
+        }
+        for (final Order order : Order.values()) {
+            final RemoteStub stub = new RemoteStub(root, order, 0);
+            final AggregateNode<Integer, Integer> result = new AsyncTreeWalker<>(stub, 16, order)
+                    .walk(root).get(30, TimeUnit.SECONDS);
+            AggregateNode<Integer, Integer> last = result;
+            int depth = 0;
+            while (!last.isLeaf()) {
+                @SuppressWarnings("unchecked")
+                final AggregateNode<Integer, Integer> child = (AggregateNode<Integer, Integer>) last
+                        .getChildren().iterator().next();
+                last = child;
+                depth++;
+            }
+            assertEquals(DEEP - 1, depth);
+            assertEquals(Integer.valueOf((DEEP - 1) * 10), last.getData());
+            assertEquals(0, stub.violations.get());
+        }
+    }
+
+    /**
+     * Random trees, orders, limits and latencies against the expected results.
+     * @throws Exception if a walk fails
+     */
+    @Test
+    public void testRandomWalks() throws Exception {
+        final Random random = new Random(29);
+        for (int round = 0; round < 30; round++) {
+            final int size = 1 + random.nextInt(150);
+            final MutableTreeNode<Integer> root = randomTree(random, size);
+            final Order order = Order.values()[random.nextInt(Order.values().length)];
+            final int limit = 1 + random.nextInt(10);
+            final RemoteStub stub = new RemoteStub(root, order, random.nextInt(2));
+            final AggregateNode<Integer, Integer> result = new AsyncTreeWalker<>(stub, limit,
+                    order).walk(root).get(30, TimeUnit.SECONDS);
+            assertEquals(size, check(root, result));
+            assertEquals(0, stub.violations.get());
+            assertTrue(stub.maxInFlight.get() <= limit);
+        }
+    }
+
+    /**
+     * Test method for {@link AsyncTreeWalker#AsyncTreeWalker(AsyncNodeVisitor, int, Order)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidConcurrency() {
+        new AsyncTreeWalker<Integer, Integer>(node -> null, 0, Order.ANY);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for CompactMutableTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class CompactMutableTreeNodeTest {
+
+    /**
+     * Adds children with data 0 to count - 1.
+     * @param parent the parent node
+     * @param count number of children
+     * @return the children in insertion order
+     */
+    private static List<MutableTreeNode<Integer>> addChildren(
+            final MutableTreeNode<Integer> parent, final int count) {
+        final List<MutableTreeNode<Integer>> children = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final MutableTreeNode<Integer> child = new CompactMutableTreeNode<>(i);
+            parent.add(child);
+            children.add(child);
+        }
+        return children;
+    }
+
+    /**
+     * Gets the data of the children.
+     * @param node the parent node
+     * @return the data of the children
+     */
+    private static List<Integer> data(final TreeNode<Integer> node) {
+        final List<Integer> list = new ArrayList<>();
+        for (final TreeNode<Integer> child : node.getChildren()) {
+            list.add(child.getData());
+        }
+        return list;
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.CompactMutableTreeNode#add(MutableTreeNode)}.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testAdd() {
+        final MutableTreeNode<Object> bean = new CompactMutableTreeNode<>();
+        final MutableTreeNode<Object> child = new CompactMutableTreeNode<>();
+        assertSame(bean, bean.add(child));
+        assertSame(bean, child.getParent());
+        assertThat(bean.getMutableChildren(), contains(child));
+        assertThat(bean.getChildren(), contains((TreeNode<Object>) child));
+    }
+
+    /**
+     * Adding a child twice keeps a single copy in every representation.
+     */
+    @Test
+    public void testAddTwice() {
+        for (final int count : new int[] {1, 2, CompactMutableTreeNode.MAX_ARRAY_CHILDREN,
+            CompactMutableTreeNode.MAX_ARRAY_CHILDREN + 1}) {
+            final CompactMutableTreeNode<Integer> bean = new CompactMutableTreeNode<>();
+            final List<MutableTreeNode<Integer>> children = addChildren(bean, count);
+            bean.add(children.get(0));
+            assertEquals(count, bean.getChildCount());
+        }
+    }
+
+    /**
+     * Children keep insertion order while growing from single child to array to set.
+     */
+    @Test
+    public void testGrowKeepsOrder() {
+        final CompactMutableTreeNode<Integer> bean = new CompactMutableTreeNode<>();
+        final int count = CompactMutableTreeNode.MAX_ARRAY_CHILDREN * 2;
+        for (int i = 1; i <= count; i++) {
+            bean.add(new CompactMutableTreeNode<>(i - 1));
+            assertEquals(i, bean.getChildCount());
+            assertEquals(Integer.valueOf(i - 1), data(bean).get(i - 1));
+        }
+        assertEquals(count, data(bean).size());
+    }
+
+    /**
+     * Removing children keeps the order of the rest in every representation.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRemoveKeepsOrder() {
+        for (final int count : new int[] {3, CompactMutableTreeNode.MAX_ARRAY_CHILDREN + 2}) {
+            final CompactMutableTreeNode<Integer> bean = new CompactMutableTreeNode<>();
+            final List<MutableTreeNode<Integer>> children = addChildren(bean, count);
+            assertTrue(bean.remove(children.get(1)));
+            assertNull(children.get(1).getParent());
+            assertFalse(bean.remove(children.get(1)));
+            assertEquals(count - 1, bean.getChildCount());
+            assertThat(data(bean).subList(0, 2), contains(0, 2));
+            for (final MutableTreeNode<Integer> child : children) {
+                child.removeFromParent();
+            }
+            assertTrue(bean.isLeaf());
+            assertFalse(bean.getChildren().iterator().hasNext());
+        }
+    }
+
+    /**
+     * Changing the children while iterating them fails fast, like DefaultMutableTreeNode, and
+     * leaves the children consistent in every representation.
+     */
+    @Test
+    public void testRemoveWhileIterating() {
+        for (final int count : new int[] {2, 3, CompactMutableTreeNode.MAX_ARRAY_CHILDREN,
+            CompactMutableTreeNode.MAX_ARRAY_CHILDREN + 2}) {
+            final CompactMutableTreeNode<Integer> bean = new CompactMutableTreeNode<>();
+            addChildren(bean, count);
+            try {
+                for (final MutableTreeNode<Integer> child : bean.getMutableChildren()) {
+                    child.removeFromParent();
+                }
+                fail();
+            } catch (final ConcurrentModificationException e) {
+                assertEquals(count - 1, bean.getChildCount());
+            }
+            for (final MutableTreeNode<Integer> child : bean.getMutableChildren()) {
+                assertSame(bean, child.getParent());
+            }
+            final Iterator<TreeNode<Integer>> iterator = bean.getChildren().iterator();
+            bean.add(new CompactMutableTreeNode<>(-1));
+            try {
+                iterator.next();
+                fail();
+            } catch (final ConcurrentModificationException e) {
+                assertEquals(count, bean.getChildCount());
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.CompactMutableTreeNode#isLeaf()}.
+     */
+    @Test
+    public void testIsLeaf() {
+        final MutableTreeNode<Object> bean = new CompactMutableTreeNode<>();
+        assertTrue(bean.isLeaf());
+        final MutableTreeNode<Object> child = new CompactMutableTreeNode<>(null, bean);
+        assertFalse(bean.isLeaf());
+        child.removeFromParent();
+        assertTrue(bean.isLeaf());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.CompactMutableTreeNode#setData(Object)}.
+     */
+    @Test
+    public void testSetData() {
+        final MutableTreeNode<String> bean = new CompactMutableTreeNode<>("a");
+        assertSame(bean, bean.setData("b"));
+        assertEquals("b", bean.getData());
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.CompactMutableTreeNode#setParent(MutableTreeNode)}.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSetParentChange() {
+        final MutableTreeNode<Object> bean1 = new CompactMutableTreeNode<>();
+        final MutableTreeNode<Object> bean2 = new CompactMutableTreeNode<>();
+        final MutableTreeNode<Object> child = new CompactMutableTreeNode<>(null, bean1);
+        child.setParent(bean2);
+        assertSame(bean2, child.getParent());
+        assertThat(bean2.getMutableChildren(), contains(child));
+        assertTrue(bean1.isLeaf());
+        child.setParent(null);
+        assertTrue(bean2.isLeaf());
+    }
+
+    /**
+     * Compact and default nodes can be mixed in the same tree.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMixedWithDefaultNodes() {
+        final MutableTreeNode<Object> compact = new CompactMutableTreeNode<>();
+        final MutableTreeNode<Object> standard = new DefaultMutableTreeNode<>();
+        final MutableTreeNode<Object> child = new DefaultMutableTreeNode<>(null, compact);
+        child.setParent(standard);
+        assertTrue(compact.isLeaf());
+        assertThat(standard.getMutableChildren(), contains(child));
+        compact.add(child);
+        assertTrue(standard.isLeaf());
+        assertSame(compact, child.getParent());
+    }
+
+    /**
+     * Children views are unmodifiable.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testChildrenUnmodifiable() {
+        final MutableTreeNode<Object> bean = new CompactMutableTreeNode<>();
+        bean.add(new CompactMutableTreeNode<>());
+        final Iterator<TreeNode<Object>> iterator = bean.getChildren().iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    /**
+     * Test for JSON serialization, same as DefaultMutableTreeNode.
+     * @throws JsonProcessingException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws JsonProcessingException, JSONException {
+        final MutableTreeNode<String> root = new CompactMutableTreeNode<>("root")
+                .add(new CompactMutableTreeNode<>("A")).add(new CompactMutableTreeNode<>("B"));
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final String json = mapper.writeValueAsString(root);
+        final String expected = "{\"data\":\"root\",\"leaf\":false,\"children\":["
+                + "{\"data\":\"A\",\"leaf\":true,\"children\":[]},"
+                + "{\"data\":\"B\",\"leaf\":true,\"children\":[]}]}";
+        JSONAssert.assertEquals(expected, json, true);
+    }
+}
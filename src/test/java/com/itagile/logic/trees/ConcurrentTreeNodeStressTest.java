@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Stress tests for ConcurrentTreeNode. Many writers move a fixed set of items between buckets
+ * while readers check that every snapshot and every final state keeps each item exactly once,
+ * which only holds if moves are atomic.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class ConcurrentTreeNodeStressTest {
+    /**
+     * Number of writer threads.
+     */
+    private static final int WRITERS = 8;
+
+    /**
+     * Number of reader threads.
+     */
+    private static final int READERS = 2;
+
+    /**
+     * Number of moves per writer.
+     */
+    private static final int MOVES = 20_000;
+
+    /**
+     * Number of bucket nodes under the root.
+     */
+    private static final int BUCKETS = 8;
+
+    /**
+     * Number of item nodes.
+     */
+    private static final int ITEMS = 256;
+
+    /**
+     * Executor of the writers and readers.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Root of the tree, its children are the buckets.
+     */
+    private ConcurrentTreeNode<Integer> root;
+
+    /**
+     * The buckets, their children are the items.
+     */
+    private List<ConcurrentTreeNode<Integer>> buckets;
+
+    /**
+     * The items, with data from 0 to ITEMS - 1.
+     */
+    private List<ConcurrentTreeNode<Integer>> items;
+
+    /**
+     * Builds the tree with the items distributed among the buckets.
+     */
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        root = new ConcurrentTreeNode<>(-1);
+        buckets = new ArrayList<>();
+        items = new ArrayList<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.add(new ConcurrentTreeNode<>(-1, root));
+        }
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new ConcurrentTreeNode<>(i, buckets.get(i % BUCKETS)));
+        }
+    }
+
+    /**
+     * Stops the executor.
+     */
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs tasks together, released at the same time, and waits for all of them.
+     * @param tasks the tasks
+     * @param <V> the type of the task results
+     * @return the task results
+     * @throws Exception if a task fails
+     */
+    private <V> List<V> runTogether(final List<Callable<V>> tasks) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<V>> futures = new ArrayList<>();
+        for (final Callable<V> task : tasks) {
+            futures.add(executor.submit(new Callable<V>() {
+                @Override
+                public V call() throws Exception {
+                    start.await();
+                    return task.call();
+                }
+            }));
+        }
+        start.countDown();
+        final List<V> results = new ArrayList<>();
+        for (final Future<V> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Checks that a snapshot of the root has every bucket and every item exactly once.
+     * @param snapshot the snapshot of the root
+     */
+    private static void assertItemsOnce(final FrozenTree<Integer> snapshot) {
+        assertEquals(1 + BUCKETS + ITEMS, snapshot.size());
+        final boolean[] seen = new boolean[ITEMS];
+        int bucket = snapshot.getFirstChild(0);
+        while (bucket != FrozenTree.NONE) {
+            for (int item = snapshot.getFirstChild(bucket); item != FrozenTree.NONE;
+                    item = snapshot.getNextSibling(item)) {
+                final int value = snapshot.getData(item);
+                assertFalse("Item seen twice: " + value, seen[value]);
+                seen[value] = true;
+            }
+            bucket = snapshot.getNextSibling(bucket);
+        }
+        for (int i = 0; i < ITEMS; i++) {
+            assertTrue("Item lost: " + i, seen[i]);
+        }
+    }
+
+    /**
+     * Writers move items with add and setParent while readers take snapshots and iterate the
+     * buckets. Every snapshot and the final tree hold each item exactly once, and parents and
+     * children agree at the end.
+     * @throws Exception fatal error in a writer or reader
+     */
+    @Test
+    public void testConcurrentMovesKeepItemsOnce() throws Exception {
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicInteger pendingWriters = new AtomicInteger(WRITERS);
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final Random random = new Random(w);
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    try {
+                        for (int i = 0; i < MOVES; i++) {
+                            final ConcurrentTreeNode<Integer> item = items
+                                    .get(random.nextInt(ITEMS));
+                            final ConcurrentTreeNode<Integer> bucket = buckets
+                                    .get(random.nextInt(BUCKETS));
+                            if (random.nextBoolean()) {
+                                item.setParent(bucket);
+                            } else {
+                                bucket.add(item);
+                            }
+                        }
+                        return MOVES;
+                    } finally {
+                        if (pendingWriters.decrementAndGet() == 0) {
+                            writing.set(false);
+                        }
+                    }
+                }
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int snapshots = 0;
+                    while (writing.get()) {
+                        assertItemsOnce(root.snapshot());
+                        for (final ConcurrentTreeNode<Integer> bucket : buckets) {
+                            for (final TreeNode<Integer> item : bucket.getChildren()) {
+                                assertNotNull(item.getData());
+                            }
+                        }
+                        snapshots++;
+                    }
+                    return snapshots;
+                }
+            });
+        }
+        runTogether(tasks);
+        assertItemsOnce(root.snapshot());
+        for (final ConcurrentTreeNode<Integer> bucket : buckets) {
+            for (final TreeNode<Integer> item : bucket.getChildren()) {
+                assertSame(bucket, ((MutableTreeNode<Integer>) item).getParent());
+            }
+        }
+    }
+
+    /**
+     * Threads race to remove the same items, each item is removed by exactly one of them.
+     * @throws Exception fatal error in a remover
+     */
+    @Test
+    public void testConcurrentRemovesSucceedOnce() throws Exception {
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int removed = 0;
+                    for (final ConcurrentTreeNode<Integer> item : items) {
+                        final TreeNode<Integer> parent = item.getParent();
+                        if (parent != null
+                                && ((ConcurrentTreeNode<Integer>) parent).remove(item)) {
+                            removed++;
+                        }
+                    }
+                    return removed;
+                }
+            });
+        }
+        int total = 0;
+        for (final int removed : runTogether(tasks)) {
+            total += removed;
+        }
+        assertEquals(ITEMS, total);
+        for (final ConcurrentTreeNode<Integer> bucket : buckets) {
+            assertTrue(bucket.isLeaf());
+        }
+    }
+}
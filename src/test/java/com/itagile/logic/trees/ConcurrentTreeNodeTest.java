@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.data;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for ConcurrentTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class ConcurrentTreeNodeTest {
+    /**
+     * Root of the sample tree root(A(A.1, A.2), B).
+     */
+    private ConcurrentTreeNode<String> root;
+
+    /**
+     * Node A of the sample tree.
+     */
+    private ConcurrentTreeNode<String> a;
+
+    /**
+     * Node A.1 of the sample tree.
+     */
+    private ConcurrentTreeNode<String> a1;
+
+    /**
+     * Node B of the sample tree.
+     */
+    private ConcurrentTreeNode<String> b;
+
+    /**
+     * Builds the sample tree.
+     */
+    @Before
+    public void setUp() {
+        root = new ConcurrentTreeNode<>("root");
+        a = new ConcurrentTreeNode<>("A", root);
+        a1 = new ConcurrentTreeNode<>("A.1", a);
+        new ConcurrentTreeNode<>("A.2", a);
+        b = new ConcurrentTreeNode<>("B", root);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.ConcurrentTreeNode#add(MutableTreeNode)}.
+     */
+    @Test
+    public void testAdd() {
+        assertThat(data(root.getChildren()), contains("A", "B"));
+        assertThat(data(a.getMutableChildren()), contains("A.1", "A.2"));
+        b.add(a1);
+        assertSame(b, a1.getParent());
+        assertThat(data(a.getChildren()), contains("A.2"));
+        assertThat(data(b.getChildren()), contains("A.1"));
+        b.add(a1);
+        assertThat(data(b.getChildren()), contains("A.1"));
+        assertFalse(b.isLeaf());
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.ConcurrentTreeNode#setParent(MutableTreeNode)}.
+     */
+    @Test
+    public void testSetParent() {
+        a1.setParent(b);
+        assertSame(b, a1.getParent());
+        assertThat(data(b.getChildren()), contains("A.1"));
+        a1.setParent(null);
+        assertNull(a1.getParent());
+        assertTrue(b.isLeaf());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.ConcurrentTreeNode#remove(MutableTreeNode)}
+     * and {@link com.itagile.logic.trees.ConcurrentTreeNode#removeFromParent()}.
+     */
+    @Test
+    public void testRemove() {
+        assertFalse(b.remove(a1));
+        assertTrue(a.remove(a1));
+        assertNull(a1.getParent());
+        assertFalse(a.remove(a1));
+        assertFalse(a.remove(new DefaultMutableTreeNode<String>("A.2")));
+        b.removeFromParent();
+        assertNull(b.getParent());
+        assertThat(data(root.getChildren()), contains("A"));
+        b.removeFromParent();
+    }
+
+    /**
+     * Iterations see the children as they were when they started.
+     */
+    @Test
+    public void testIterationIsUnaffectedByChanges() {
+        final Iterator<TreeNode<String>> iterator = root.getChildren().iterator();
+        assertEquals("A", iterator.next().getData());
+        new ConcurrentTreeNode<>("C", root);
+        a.removeFromParent();
+        assertEquals("B", iterator.next().getData());
+        assertFalse(iterator.hasNext());
+        assertThat(data(root.getChildren()), contains("B", "C"));
+    }
+
+    /**
+     * Other node types are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddOtherNode() {
+        root.add(new DefaultMutableTreeNode<>("D"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.ConcurrentTreeNode#snapshot()}.
+     */
+    @Test
+    public void testSnapshot() {
+        final FrozenTree<String> snapshot = root.snapshot();
+        assertThat(data(TreeTraversal.preOrder(snapshot.getRoot())),
+                contains("root", "A", "A.1", "A.2", "B"));
+        assertEquals(3, snapshot.getSubtreeSize(1));
+        assertEquals(4, snapshot.getNextSibling(1));
+        a1.setData("changed");
+        b.add(a1);
+        assertThat(data(TreeTraversal.preOrder(snapshot.getRoot())),
+                contains("root", "A", "A.1", "A.2", "B"));
+        assertThat(data(TreeTraversal.preOrder(a.snapshot().getRoot())), contains("A", "A.2"));
+    }
+
+    /**
+     * Deep chains are snapshot without recursion.
+     */
+    @Test
+    public void testSnapshotDeepChain() {
+        final int depth = 100_000;
+        final ConcurrentTreeNode<Integer> chain = new ConcurrentTreeNode<>(0);
+        ConcurrentTreeNode<Integer> last = chain;
+        for (int i = 1; i < depth; i++) {
+            last = new ConcurrentTreeNode<>(i, last);
+        }
+        final FrozenTree<Integer> snapshot = chain.snapshot();
+        assertEquals(depth, snapshot.size());
+        assertEquals(depth - 2, snapshot.getParent(depth - 1));
+        assertEquals(Integer.valueOf(depth - 1), snapshot.getData(depth - 1));
+    }
+
+    /**
+     * Concurrent nodes serialize to JSON like DefaultMutableTreeNode.
+     * @throws JsonProcessingException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws JsonProcessingException, JSONException {
+        final MutableTreeNode<String> expected = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> expectedA = new DefaultMutableTreeNode<>("A", expected);
+        new DefaultMutableTreeNode<>("A.1", expectedA);
+        new DefaultMutableTreeNode<>("A.2", expectedA);
+        new DefaultMutableTreeNode<>("B", expected);
+        final ObjectMapper mapper = new ObjectMapper();
+        JSONAssert.assertEquals(mapper.writeValueAsString(expected),
+                mapper.writeValueAsString(root), true);
+    }
+}
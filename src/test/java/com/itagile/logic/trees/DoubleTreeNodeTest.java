@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for DoubleTreeNode and PrimitiveTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class DoubleTreeNodeTest {
+    /**
+     * Tolerance of double comparisons.
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Builds the tree 1(2(4, 5), 3).
+     * @return the root node
+     */
+    private static DoubleTreeNode sample() {
+        final DoubleTreeNode root = new DoubleTreeNode(1);
+        final DoubleTreeNode a = new DoubleTreeNode(2, root);
+        new DoubleTreeNode(3, root);
+        a.add(new DoubleTreeNode(4)).add(new DoubleTreeNode(-5));
+        return root;
+    }
+
+    /**
+     * Gets the values of the children.
+     * @param node the parent node
+     * @return the values of the children
+     */
+    private static List<Double> values(final TreeNode<Double> node) {
+        final List<Double> list = new ArrayList<>();
+        for (final TreeNode<Double> child : node.getChildren()) {
+            list.add(child.getData());
+        }
+        return list;
+    }
+
+    /**
+     * Test method for the subtree aggregations.
+     */
+    @Test
+    public void testAggregations() {
+        final DoubleTreeNode root = sample();
+        assertEquals(5, root.sum(), DELTA);
+        assertEquals(-5, root.min(), DELTA);
+        assertEquals(4, root.max(), DELTA);
+        assertEquals(5, root.count());
+        final DoubleTreeNode a = root.getChild(0);
+        assertEquals(1, a.sum(), DELTA);
+        assertEquals(3, a.count());
+        final DoubleTreeNode leaf = root.getChild(1);
+        assertEquals(3, leaf.min(), DELTA);
+        assertEquals(3, leaf.max(), DELTA);
+        assertEquals(1, leaf.count());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.DoubleTreeNode#setValue(double)}.
+     */
+    @Test
+    public void testSetValue() {
+        final DoubleTreeNode node = new DoubleTreeNode();
+        assertSame(node, node.setValue(2.5));
+        assertEquals(2.5, node.getValue(), DELTA);
+        assertEquals(Double.valueOf(2.5), node.getData());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PrimitiveTreeNode#add}.
+     */
+    @Test
+    public void testAdd() {
+        final DoubleTreeNode root = new DoubleTreeNode(0);
+        final DoubleTreeNode child = new DoubleTreeNode(1);
+        assertSame(root, root.add(child).add(child));
+        assertSame(root, child.getParent());
+        assertEquals(1, root.getChildCount());
+        assertFalse(root.isLeaf());
+        assertTrue(child.isLeaf());
+    }
+
+    /**
+     * Adding a child to another parent moves it.
+     */
+    @Test
+    public void testAddMoves() {
+        final DoubleTreeNode root = sample();
+        final DoubleTreeNode other = new DoubleTreeNode(10);
+        final DoubleTreeNode a = root.getChild(0);
+        other.add(a);
+        assertSame(other, a.getParent());
+        assertThat(values(root), contains(3.0));
+        assertEquals(10 + 2 + 4 - 5, other.sum(), DELTA);
+        a.setParent(root);
+        assertTrue(other.isLeaf());
+        assertThat(values(root), contains(3.0, 2.0));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PrimitiveTreeNode#remove}.
+     */
+    @Test
+    public void testRemove() {
+        final DoubleTreeNode root = sample();
+        final DoubleTreeNode a = root.getChild(0);
+        assertFalse(a.remove(root));
+        assertTrue(root.remove(a));
+        assertNull(a.getParent());
+        assertFalse(root.remove(a));
+        assertThat(values(root), contains(3.0));
+        root.getChild(0).removeFromParent();
+        assertTrue(root.isLeaf());
+        a.setParent(null);
+        assertNull(a.getParent());
+    }
+
+    /**
+     * Children iterators fail fast when the children change during the iteration.
+     */
+    @Test
+    public void testChildrenChangedWhileIterating() {
+        final DoubleTreeNode root = sample();
+        try {
+            for (final TreeNode<Double> child : root.getChildren()) {
+                ((DoubleTreeNode) child).removeFromParent();
+            }
+            fail();
+        } catch (final ConcurrentModificationException e) {
+            assertThat(values(root), contains(3.0));
+        }
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PrimitiveTreeNode#getChild(int)}.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetChildOutOfRange() {
+        sample().getChild(2);
+    }
+
+    /**
+     * Primitive nodes can be used as TreeNode.
+     */
+    @Test
+    public void testTreeNodeView() {
+        final List<Double> preOrder = new ArrayList<>();
+        for (final TreeNode<Double> node : TreeTraversal.preOrder(sample())) {
+            preOrder.add(node.getData());
+        }
+        assertThat(preOrder, contains(1.0, 2.0, 4.0, -5.0, 3.0));
+    }
+
+    /**
+     * Test for JSON serialization.
+     * @throws JsonProcessingException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws JsonProcessingException, JSONException {
+        final DoubleTreeNode root = new DoubleTreeNode(1.5).add(new DoubleTreeNode(2));
+        final String expected = "{\"data\":1.5,\"leaf\":false,\"children\":["
+                + "{\"data\":2.0,\"leaf\":true,\"children\":[]}]}";
+        JSONAssert.assertEquals(expected, new ObjectMapper().writeValueAsString(root), true);
+    }
+}
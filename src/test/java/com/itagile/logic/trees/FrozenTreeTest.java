@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.data;
+import static com.itagile.logic.trees.TestTrees.sample;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for FrozenTree and FrozenTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class FrozenTreeTest {
+    /**
+     * Test method for {@link com.itagile.logic.trees.FrozenTree#freeze(TreeNode)}.
+     */
+    @Test
+    public void testFreezeKeepsStructure() {
+        final FrozenTree<String> tree = FrozenTree.freeze(sample());
+        assertEquals(7, tree.size());
+        assertThat(data(TreeTraversal.preOrder(tree.getRoot())),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertThat(data(TreeTraversal.levelOrder(tree.getRoot())),
+                contains("root", "A", "B", "C", "A.1", "A.2", "B.1"));
+        assertThat(data(tree.getRoot().getChildren()), contains("A", "B", "C"));
+    }
+
+    /**
+     * Test method for the index based accessors of {@link com.itagile.logic.trees.FrozenTree}.
+     */
+    @Test
+    public void testIndexAccess() {
+        final FrozenTree<String> tree = FrozenTree.freeze(sample());
+        for (int i = 0; i < tree.size(); i++) {
+            assertEquals(FrozenTree.NONE == tree.getFirstChild(i), tree.isLeaf(i));
+        }
+        assertEquals("A", tree.getData(1));
+        assertEquals(FrozenTree.NONE, tree.getParent(0));
+        assertEquals(0, tree.getParent(1));
+        assertEquals(2, tree.getFirstChild(1));
+        assertEquals(4, tree.getNextSibling(1));
+        assertEquals(6, tree.getNextSibling(4));
+        assertEquals(FrozenTree.NONE, tree.getNextSibling(6));
+        assertEquals(7, tree.getSubtreeSize(0));
+        assertEquals(3, tree.getSubtreeSize(1));
+        assertEquals(1, tree.getSubtreeSize(6));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.FrozenTreeNode#getParent()}.
+     */
+    @Test
+    public void testGetParent() {
+        final FrozenTree<String> tree = FrozenTree.freeze(sample());
+        assertNull(tree.getRoot().getParent());
+        assertEquals(tree.getNode(1), tree.getNode(3).getParent());
+        assertEquals(tree.getNode(1).hashCode(), tree.getNode(3).getParent().hashCode());
+        assertNotEquals(tree.getNode(1), tree.getNode(2));
+    }
+
+    /**
+     * Frozen trees do not change when the source is modified.
+     */
+    @Test
+    public void testSnapshot() {
+        final MutableTreeNode<String> root = sample();
+        final FrozenTree<String> tree = FrozenTree.freeze(root);
+        root.add(new DefaultMutableTreeNode<>("D"));
+        assertEquals(7, tree.size());
+    }
+
+    /**
+     * Frozen leaves and empty trees.
+     */
+    @Test
+    public void testFreezeLeafAndEmpty() {
+        final FrozenTree<String> leaf = FrozenTree.freeze(new DefaultMutableTreeNode<>("leaf"));
+        assertEquals(1, leaf.size());
+        assertTrue(leaf.getRoot().isLeaf());
+        assertFalse(leaf.getRoot().getChildren().iterator().hasNext());
+        final FrozenTree<String> empty = FrozenTree.freeze(null);
+        assertEquals(0, empty.size());
+        assertNull(empty.getRoot());
+    }
+
+    /**
+     * Deep chains are frozen without recursion.
+     */
+    @Test
+    public void testFreezeDeepChain() {
+        final int depth = 100_000;
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        final FrozenTree<Integer> tree = FrozenTree.freeze(root);
+        assertEquals(depth, tree.size());
+        assertEquals(depth, tree.getSubtreeSize(0));
+        assertEquals(depth - 2, tree.getParent(depth - 1));
+        assertEquals(Integer.valueOf(depth - 1), tree.getData(depth - 1));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.FrozenTree#getNode(int)}.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetNodeOutOfRange() {
+        FrozenTree.freeze(sample()).getNode(7);
+    }
+
+    /**
+     * Frozen trees serialize to JSON like the source tree.
+     * @throws JsonProcessingException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws JsonProcessingException, JSONException {
+        final MutableTreeNode<String> root = sample();
+        final ObjectMapper mapper = new ObjectMapper();
+        JSONAssert.assertEquals(mapper.writeValueAsString(root),
+                mapper.writeValueAsString(FrozenTree.freeze(root).getRoot()), true);
+    }
+}
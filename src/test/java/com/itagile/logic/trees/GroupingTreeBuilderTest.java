@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for GroupingTreeBuilder.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class GroupingTreeBuilderTest {
+    /**
+     * Builder of records {country, city, amount} grouped by country and city.
+     */
+    private final GroupingTreeBuilder<String[], String> builder = new GroupingTreeBuilder<>(
+            Arrays.asList(column(0), column(1)));
+
+    /**
+     * Sales records.
+     */
+    private final List<String[]> sales = Arrays.asList(row("ES", "Madrid", 10),
+            row("ES", "Barcelona", 5), row("FR", "Paris", 7), row("ES", "Madrid", 3));
+
+    /**
+     * Creates an extractor of a record column.
+     * @param index the column index
+     * @return the column extractor
+     */
+    private static Extractor<String[], String> column(final int index) {
+        return new Extractor<String[], String>() {
+            @Override
+            public String extract(final String[] row) {
+                return row[index];
+            }
+        };
+    }
+
+    /**
+     * Creates a record.
+     * @param country the country
+     * @param city the city
+     * @param amount the amount
+     * @return the record
+     */
+    private static String[] row(final String country, final String city, final int amount) {
+        return new String[] {country, city, Integer.toString(amount)};
+    }
+
+    /**
+     * Describes every group of a tree in pre-order.
+     * @param root the root group
+     * @param <V> the type of aggregated values
+     * @return the level, key, count and value of every group
+     */
+    private static <V> List<String> describe(final TreeNode<Group<String, V>> root) {
+        final List<String> list = new ArrayList<>();
+        for (final TreeNode<Group<String, V>> node : TreeTraversal.preOrder(root)) {
+            list.add(node.getData().getLevel() + ":" + node.getData());
+        }
+        return list;
+    }
+
+    /**
+     * Checks the aggregated values of a subtree against the sums of every path.
+     * @param node the root group of the subtree
+     * @param path the path of keys to the group
+     * @param model the sums by path
+     * @return the number of groups in the subtree
+     */
+    private static int check(final TreeNode<Group<String, Long>> node, final String path,
+            final Map<String, Long> model) {
+        assertEquals(path, model.get(path), node.getData().getValue());
+        int groups = 1;
+        for (final TreeNode<Group<String, Long>> child : node.getChildren()) {
+            groups += check(child, path + "/" + child.getData().getKey(), model);
+        }
+        return groups;
+    }
+
+    /**
+     * Groups keep the order of their first record, counts are rolled up.
+     */
+    @Test
+    public void testBuild() {
+        final MutableTreeNode<Group<String, Void>> root = builder.build(sales);
+        assertThat(describe(root), contains("0:null(4)=null", "1:ES(3)=null",
+                "2:Madrid(2)=null", "2:Barcelona(1)=null", "1:FR(1)=null", "2:Paris(1)=null"));
+        assertNull(root.getParent());
+        final MutableTreeNode<Group<String, Void>> spain = root.getMutableChildren().iterator()
+                .next();
+        assertSame(root, spain.getParent());
+        spain.removeFromParent();
+        assertThat(describe(root), contains("0:null(4)=null", "1:FR(1)=null",
+                "2:Paris(1)=null"));
+    }
+
+    /**
+     * Aggregates are collected per group and rolled up.
+     */
+    @Test
+    public void testBuildAggregates() {
+        final MutableTreeNode<Group<String, Integer>> root = builder.build(sales,
+                Collectors.summingInt((final String[] row) -> Integer.parseInt(row[2])));
+        assertThat(describe(root), contains("0:null(4)=25", "1:ES(3)=18", "2:Madrid(2)=13",
+                "2:Barcelona(1)=5", "1:FR(1)=7", "2:Paris(1)=7"));
+    }
+
+    /**
+     * Rolling up leaves the containers of the subgroups unchanged.
+     */
+    @Test
+    public void testBuildMutableAggregates() {
+        final MutableTreeNode<Group<String, List<String>>> root = builder.build(sales,
+                Collectors.mapping((final String[] row) -> row[2], Collectors.toList()));
+        assertThat(describe(root), contains("0:null(4)=[10, 3, 5, 7]", "1:ES(3)=[10, 3, 5]",
+                "2:Madrid(2)=[10, 3]", "2:Barcelona(1)=[5]", "1:FR(1)=[7]", "2:Paris(1)=[7]"));
+    }
+
+    /**
+     * Null keys form their own group; without records or levels the root is a leaf.
+     */
+    @Test
+    public void testBuildEdgeCases() {
+        assertThat(describe(builder.build(Arrays.asList(row(null, "X", 1), row("ES", null, 2)))),
+                contains("0:null(2)=null", "1:null(1)=null", "2:X(1)=null", "1:ES(1)=null",
+                        "2:null(1)=null"));
+        final MutableTreeNode<Group<String, Integer>> empty = builder.build(
+                Collections.<String[]>emptyList(), Collectors.summingInt(row -> 1));
+        assertTrue(empty.isLeaf());
+        assertEquals(0, empty.getData().getCount());
+        final GroupingTreeBuilder<String[], String> flat = new GroupingTreeBuilder<>(
+                Collections.<Extractor<String[], String>>emptyList());
+        assertThat(describe(flat.build(sales, Collectors.counting())), contains("0:null(4)=4"));
+    }
+
+    /**
+     * Random records grouped sequentially, by a parallel stream, and by a map of paths.
+     */
+    @Test
+    public void testRandomRecords() {
+        final GroupingTreeBuilder<String[], String> threeLevels = new GroupingTreeBuilder<>(
+                Arrays.asList(column(0), column(1), column(2)));
+        final Random random = new Random(23);
+        final List<String[]> records = new ArrayList<>();
+        final Map<String, Long> model = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            final String[] record = {"c" + random.nextInt(5), "r" + random.nextInt(20),
+                "s" + random.nextInt(50), Integer.toString(random.nextInt(1000))};
+            records.add(record);
+            final long amount = Long.parseLong(record[3]);
+            String path = "";
+            model.merge(path, amount, Long::sum);
+            for (int level = 0; level < 3; level++) {
+                path += "/" + record[level];
+                model.merge(path, amount, Long::sum);
+            }
+        }
+        final MutableTreeNode<Group<String, Long>> sequential = threeLevels.build(records,
+                Collectors.summingLong(record -> Long.parseLong(record[3])));
+        final MutableTreeNode<Group<String, Long>> parallel = records.parallelStream().collect(
+                threeLevels.collector(Collectors.summingLong(record -> Long.parseLong(record[3]))));
+        assertEquals(describe(sequential), describe(parallel));
+        assertEquals(model.size(), check(sequential, "", model));
+        assertEquals(100_000, sequential.getData().getCount());
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static org.junit.Assert.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for HashedTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class HashedTreeNodeTest {
+    /**
+     * FNV-1a hasher of strings.
+     */
+    static final DataHasher<String> HASHER = new DataHasher<String>() {
+        @Override
+        public long hash(final String data) {
+            long hash = 0xCBF29CE484222325L;
+            if (data != null) {
+                for (int i = 0; i < data.length(); i++) {
+                    hash = (hash ^ data.charAt(i)) * 0x100000001B3L;
+                }
+            }
+            return hash;
+        }
+    };
+
+    /**
+     * Builds the tree root(A(A.1, A.2), B(B.1), C).
+     * @return the root node
+     */
+    static HashedTreeNode<String> sample() {
+        final HashedTreeNode<String> root = new HashedTreeNode<>(HASHER, "root");
+        final HashedTreeNode<String> a = new HashedTreeNode<>(HASHER, "A", root);
+        final HashedTreeNode<String> b = new HashedTreeNode<>(HASHER, "B", root);
+        new HashedTreeNode<>(HASHER, "C", root);
+        new HashedTreeNode<>(HASHER, "A.1", a);
+        new HashedTreeNode<>(HASHER, "A.2", a);
+        new HashedTreeNode<>(HASHER, "B.1", b);
+        return root;
+    }
+
+    /**
+     * Equal trees have equal hashes, and any change changes the hash of the root.
+     */
+    @Test
+    public void testHash() {
+        final HashedTreeNode<String> root = sample();
+        final long hash = root.getHash();
+        assertEquals(hash, sample().getHash());
+        assertEquals(HASHER.hash("root"), root.getDataHash());
+        final HashedTreeNode<String> a = (HashedTreeNode<String>) root.getMutableChildren()
+                .iterator().next();
+        final MutableTreeNode<String> a1 = a.getMutableChildren().iterator().next();
+        a1.setData("A.1'");
+        assertNotEquals(hash, root.getHash());
+        a1.setData("A.1");
+        assertEquals(hash, root.getHash());
+        final MutableTreeNode<String> leaf = new HashedTreeNode<>(HASHER, "A.3", a);
+        assertNotEquals(hash, root.getHash());
+        leaf.removeFromParent();
+        assertEquals(hash, root.getHash());
+        a1.removeFromParent();
+        a.add(a1);
+        assertNotEquals("Order of children changes the hash", hash, root.getHash());
+    }
+
+    /**
+     * Hashes depend on the structure, not only on the data objects.
+     */
+    @Test
+    public void testStructure() {
+        final HashedTreeNode<String> wide = new HashedTreeNode<>(HASHER, "a");
+        new HashedTreeNode<>(HASHER, "b", wide);
+        new HashedTreeNode<>(HASHER, "c", wide);
+        final HashedTreeNode<String> deep = new HashedTreeNode<>(HASHER, "a");
+        new HashedTreeNode<>(HASHER, "c", new HashedTreeNode<>(HASHER, "b", deep));
+        assertNotEquals(wide.getHash(), deep.getHash());
+    }
+
+    /**
+     * Changes only recompute the path to the root.
+     */
+    @Test
+    public void testRecomputeOnlyAncestorPath() {
+        final AtomicInteger calls = new AtomicInteger();
+        final DataHasher<Integer> hasher = new DataHasher<Integer>() {
+            @Override
+            public long hash(final Integer data) {
+                calls.incrementAndGet();
+                return data;
+            }
+        };
+        final HashedTreeNode<Integer> root = new HashedTreeNode<>(hasher, 0);
+        HashedTreeNode<Integer> last = root;
+        for (int i = 1; i <= 100; i++) {
+            final HashedTreeNode<Integer> child = new HashedTreeNode<>(hasher, i, root);
+            for (int j = 0; j < 100; j++) {
+                last = new HashedTreeNode<>(hasher, i * 1000 + j, child);
+            }
+        }
+        root.getHash();
+        assertEquals(10_101, calls.get());
+        calls.set(0);
+        last.setData(-1);
+        root.getHash();
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * Deep chains are hashed without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final HashedTreeNode<String> root = new HashedTreeNode<>(HASHER, "0");
+        HashedTreeNode<String> node = root;
+        for (int i = 1; i < DEEP; i++) {
+            node = new HashedTreeNode<>(HASHER, Integer.toString(i), node);
+        }
+        final long hash = root.getHash();
+        node.setData("changed");
+        assertNotEquals(hash, root.getHash());
+    }
+
+    /**
+     * Removing children while iterating them fails fast and keeps the remaining children.
+     */
+    @Test
+    public void testRemoveWhileIterating() {
+        final HashedTreeNode<String> root = sample();
+        try {
+            for (final MutableTreeNode<String> child : root.getMutableChildren()) {
+                child.removeFromParent();
+            }
+            fail();
+        } catch (final ConcurrentModificationException e) {
+            final StringBuilder children = new StringBuilder();
+            for (final TreeNode<String> child : root.getChildren()) {
+                children.append(child.getData());
+            }
+            assertEquals("BC", children.toString());
+        }
+    }
+
+    /**
+     * Nodes with other types or hashers are rejected.
+     */
+    @Test
+    public void testRejectOtherNodes() {
+        final HashedTreeNode<String> root = sample();
+        try {
+            root.add(new DefaultMutableTreeNode<>("X"));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Node must be a HashedTreeNode with the same hasher", e.getMessage());
+        }
+        try {
+            root.add(new HashedTreeNode<String>(new DataHasher<String>() {
+                @Override
+                public long hash(final String data) {
+                    return 0;
+                }
+            }, "X"));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Node must be a HashedTreeNode with the same hasher", e.getMessage());
+        }
+    }
+
+    /**
+     * Test JSON serialization.
+     * @throws JsonProcessingException if serialization fails
+     * @throws JSONException if the JSON is invalid
+     */
+    @Test
+    public void testJson() throws JsonProcessingException, JSONException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final MutableTreeNode<String> expected = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", expected);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", expected);
+        new DefaultMutableTreeNode<>("C", expected);
+        a.add(new DefaultMutableTreeNode<>("A.1")).add(new DefaultMutableTreeNode<>("A.2"));
+        b.add(new DefaultMutableTreeNode<>("B.1"));
+        JSONAssert.assertEquals(mapper.writeValueAsString(expected),
+                mapper.writeValueAsString(sample()), true);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for IndexedCollection.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class IndexedCollectionTest {
+    /**
+     * Random operations give the same elements as a list.
+     */
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(42);
+        final IndexedCollection<Integer> collection = new IndexedCollection<>();
+        final List<Integer> list = new ArrayList<>();
+        for (int operation = 0; operation < 20_000; operation++) {
+            final Integer element = random.nextInt(2000);
+            switch (random.nextInt(4)) {
+            case 0:
+                assertEquals(!list.contains(element), collection.add(element));
+                if (!list.contains(element)) {
+                    list.add(element);
+                }
+                break;
+            case 1:
+                final int index = random.nextInt(list.size() + 1);
+                assertEquals(!list.contains(element), collection.add(index, element));
+                if (!list.contains(element)) {
+                    list.add(index, element);
+                }
+                break;
+            case 2:
+                assertEquals(list.remove(element), collection.remove(element));
+                break;
+            default:
+                assertEquals(list.indexOf(element), collection.indexOf(element));
+                assertEquals(list.contains(element), collection.contains(element));
+                if (!list.isEmpty()) {
+                    final int position = random.nextInt(list.size());
+                    assertEquals(list.get(position), collection.get(position));
+                }
+                break;
+            }
+            assertEquals(list.size(), collection.size());
+        }
+        assertEquals(list, new ArrayList<>(collection));
+    }
+
+    /**
+     * Sorted collections keep equal elements in insertion order.
+     */
+    @Test
+    public void testSorted() {
+        final IndexedCollection<String> collection = new IndexedCollection<>(
+                Comparator.comparing(String::length));
+        collection.add("ccc");
+        collection.add("a");
+        collection.add("bb");
+        collection.add("b");
+        collection.add("dddd");
+        collection.add("a");
+        assertThat(collection, contains("a", "b", "bb", "ccc", "dddd"));
+        assertEquals(3, collection.indexOf("ccc"));
+        assertEquals("b", collection.get(1));
+        try {
+            collection.add(0, "e");
+            fail();
+        } catch (final UnsupportedOperationException e) {
+            assertEquals("Sorted collections have no insert position", e.getMessage());
+        }
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.IndexedCollection#iterator()}.
+     */
+    @Test
+    public void testIterator() {
+        final IndexedCollection<Integer> collection = new IndexedCollection<>();
+        for (int i = 0; i < 100; i++) {
+            collection.add(i);
+        }
+        final Iterator<Integer> iterator = collection.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 3 != 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(34, collection.size());
+        assertEquals(Integer.valueOf(99), collection.get(33));
+        assertEquals(11, collection.indexOf(33));
+        final Iterator<Integer> modified = collection.iterator();
+        modified.next();
+        collection.remove(99);
+        try {
+            modified.next();
+            fail();
+        } catch (final ConcurrentModificationException e) {
+            assertNull(e.getMessage());
+        }
+        try {
+            collection.get(33);
+            fail();
+        } catch (final IndexOutOfBoundsException e) {
+            assertEquals("Index: 33, Size: 33", e.getMessage());
+        }
+        collection.clear();
+        assertTrue(collection.isEmpty());
+        assertFalse(collection.iterator().hasNext());
+    }
+}
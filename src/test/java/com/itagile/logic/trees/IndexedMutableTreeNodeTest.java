@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for IndexedMutableTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class IndexedMutableTreeNodeTest {
+    /**
+     * Number of children of wide nodes.
+     */
+    private static final int WIDE = 100_000;
+
+    /**
+     * Gets the data of the children of a node.
+     * @param node the node
+     * @return the data of the children
+     */
+    private static List<String> data(final TreeNode<String> node) {
+        final List<String> list = new ArrayList<>();
+        for (final TreeNode<String> child : node.getChildren()) {
+            list.add(child.getData());
+        }
+        return list;
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.IndexedMutableTreeNode#insert(int, MutableTreeNode)}.
+     */
+    @Test
+    public void testInsert() {
+        final IndexedMutableTreeNode<String> root = new IndexedMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> c = new DefaultMutableTreeNode<>("C", root);
+        final IndexedMutableTreeNode<String> other = new IndexedMutableTreeNode<>("other");
+        final MutableTreeNode<String> b = new CompactMutableTreeNode<>("B", other);
+        root.insert(1, b);
+        assertThat(data(root), contains("A", "B", "C"));
+        assertSame(root, b.getParent());
+        assertTrue(other.isLeaf());
+        root.insert(0, c);
+        assertThat(data(root), contains("C", "A", "B"));
+        root.insert(2, c);
+        assertThat(data(root), contains("A", "B", "C"));
+        assertSame(b, root.getChild(1));
+        assertEquals(2, root.indexOf(c));
+        assertEquals(-1, root.indexOf(other));
+        assertEquals(3, root.getChildCount());
+        try {
+            root.insert(3, a);
+            fail();
+        } catch (final IndexOutOfBoundsException e) {
+            assertEquals("Index: 3, Size: 2", e.getMessage());
+        }
+        assertThat(data(root), contains("A", "B", "C"));
+        root.remove(b);
+        assertEquals(1, root.indexOf(c));
+        assertNull(b.getParent());
+    }
+
+    /**
+     * Children sorted by their data objects.
+     */
+    @Test
+    public void testSorted() {
+        final IndexedMutableTreeNode<String> root = new IndexedMutableTreeNode<>("root", null,
+                Comparator.naturalOrder());
+        for (final String data : new String[] {"d", "b", "a", "c"}) {
+            new DefaultMutableTreeNode<>(data, root);
+        }
+        assertThat(data(root), contains("a", "b", "c", "d"));
+        assertEquals("c", root.getChild(2).getData());
+        try {
+            root.insert(0, new DefaultMutableTreeNode<>("e"));
+            fail();
+        } catch (final UnsupportedOperationException e) {
+            assertEquals("Sorted children have no insert position", e.getMessage());
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.IndexedMutableTreeNode#reposition(MutableTreeNode)}.
+     */
+    @Test
+    public void testReposition() {
+        final IndexedMutableTreeNode<String> root = new IndexedMutableTreeNode<>("root", null,
+                Comparator.naturalOrder());
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("b", root);
+        new DefaultMutableTreeNode<>("c", root);
+        b.setData("z");
+        root.add(b);
+        assertThat(data(root), contains("z", "c"));
+        assertTrue(root.reposition(b));
+        assertThat(data(root), contains("c", "z"));
+        new DefaultMutableTreeNode<>("d", root);
+        assertThat(data(root), contains("c", "d", "z"));
+        assertEquals(2, root.indexOf(b));
+        assertFalse(root.reposition(new DefaultMutableTreeNode<>("e")));
+        assertEquals(3, root.getChildCount());
+        final IndexedMutableTreeNode<String> unsorted = new IndexedMutableTreeNode<>("unsorted");
+        final MutableTreeNode<String> first = new DefaultMutableTreeNode<>("first", unsorted);
+        new DefaultMutableTreeNode<>("second", unsorted);
+        assertTrue(unsorted.reposition(first));
+        assertThat(data(unsorted), contains("first", "second"));
+    }
+
+    /**
+     * Wide nodes are paged by position.
+     */
+    @Test
+    public void testWide() {
+        final IndexedMutableTreeNode<String> root = new IndexedMutableTreeNode<>("root");
+        final List<MutableTreeNode<String>> children = new ArrayList<>();
+        for (int i = 0; i < WIDE; i++) {
+            children.add(new DefaultMutableTreeNode<>(String.valueOf(i), root));
+        }
+        for (int i = 0; i < WIDE; i += 2) {
+            children.get(i).removeFromParent();
+        }
+        assertEquals(WIDE / 2, root.getChildCount());
+        for (int i = 0; i < WIDE / 2; i += 997) {
+            assertEquals(String.valueOf(2 * i + 1), root.getChild(i).getData());
+            assertEquals(i, root.indexOf(children.get(2 * i + 1)));
+        }
+    }
+
+    /**
+     * Serialization as any DefaultMutableTreeNode.
+     * @throws JsonProcessingException if serialization fails
+     * @throws JSONException if comparison fails
+     */
+    @Test
+    public void testJson() throws JsonProcessingException, JSONException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final IndexedMutableTreeNode<String> root = new IndexedMutableTreeNode<>("root");
+        new IndexedMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> expected = new DefaultMutableTreeNode<>("root");
+        new DefaultMutableTreeNode<>("A", expected);
+        JSONAssert.assertEquals(mapper.writeValueAsString(expected),
+                mapper.writeValueAsString(root), true);
+    }
+}
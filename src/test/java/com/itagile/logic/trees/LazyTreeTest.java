@@ -0,0 +1,353 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static com.itagile.logic.trees.TestTrees.data;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for LazyTree and LazyTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class LazyTreeTest {
+    /**
+     * Loader of the tree root(A(A.1, A.2), B(B.1), C) counting its calls.
+     */
+    private static final class SampleLoader implements ChildLoader<String> {
+        /**
+         * Children of each node.
+         */
+        private final Map<String, List<String>> children = new HashMap<>();
+
+        /**
+         * Nodes whose children were loaded, in loading order.
+         */
+        private final List<String> loaded = new ArrayList<>();
+
+        /**
+         * Number of calls to the loader.
+         */
+        private int calls;
+
+        /**
+         * True if the loader gives leaf hints.
+         */
+        private final boolean hints;
+
+        /**
+         * Constructs a new loader.
+         * @param hints true if the loader gives leaf hints
+         */
+        SampleLoader(final boolean hints) {
+            this.hints = hints;
+            children.put("root", Arrays.asList("A", "B", "C"));
+            children.put("A", Arrays.asList("A.1", "A.2"));
+            children.put("B", Arrays.asList("B.1"));
+        }
+
+        @Override
+        public List<String> load(final String parent) {
+            calls++;
+            loaded.add(parent);
+            return children.containsKey(parent) ? children.get(parent)
+                    : Collections.<String>emptyList();
+        }
+
+        @Override
+        public List<List<String>> loadAll(final List<String> parents) {
+            calls++;
+            final List<List<String>> result = new ArrayList<>();
+            for (final String parent : parents) {
+                loaded.add(parent);
+                result.add(children.containsKey(parent) ? children.get(parent)
+                        : Collections.<String>emptyList());
+            }
+            return result;
+        }
+
+        @Override
+        public Boolean isLeaf(final String data) {
+            return hints ? !children.containsKey(data) : null;
+        }
+    }
+
+    /**
+     * Gets a child of a node.
+     * @param node the node
+     * @param data the data object of the child
+     * @return the child
+     */
+    private static LazyTreeNode<String> child(final TreeNode<String> node, final String data) {
+        for (final TreeNode<String> child : node.getChildren()) {
+            if (child.getData().equals(data)) {
+                return (LazyTreeNode<String>) child;
+            }
+        }
+        throw new AssertionError(data);
+    }
+
+    /**
+     * Children are loaded once, when they are first requested.
+     */
+    @Test
+    public void testLoadOnFirstAccess() {
+        final SampleLoader loader = new SampleLoader(false);
+        final LazyTree<String> tree = new LazyTree<>("root", loader);
+        final LazyTreeNode<String> root = tree.getRoot();
+        assertFalse(root.isLoaded());
+        assertEquals(0, loader.calls);
+        assertThat(data(root.getChildren()), contains("A", "B", "C"));
+        assertThat(data(root.getChildren()), contains("A", "B", "C"));
+        assertEquals(1, loader.calls);
+        assertTrue(root.isLoaded());
+        assertFalse(child(root, "A").isLoaded());
+        assertSame(root, child(root, "A").getParent());
+        assertNull(root.getParent());
+        assertThat(data(TreeTraversal.preOrder(root)),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertEquals(7, loader.calls);
+        assertEquals(7, tree.getNodeCount());
+        assertEquals(6, tree.getWeight());
+    }
+
+    /**
+     * Leaf hints avoid loading the children of leaves.
+     */
+    @Test
+    public void testLeafHint() {
+        final SampleLoader loader = new SampleLoader(true);
+        final LazyTree<String> tree = new LazyTree<>("root", loader);
+        assertFalse(tree.getRoot().isLeaf());
+        assertEquals(0, loader.calls);
+        assertThat(data(TreeTraversal.leaves(tree.getRoot())), contains("A.1", "A.2", "B.1", "C"));
+        assertEquals(3, loader.calls);
+        final SampleLoader unhinted = new SampleLoader(false);
+        final LazyTreeNode<String> root = new LazyTree<>("root", unhinted).getRoot();
+        assertTrue(child(root, "C").isLeaf());
+        assertEquals(2, unhinted.calls);
+    }
+
+    /**
+     * Loading children prefetches the children of the following siblings in one call.
+     */
+    @Test
+    public void testPrefetch() {
+        final SampleLoader loader = new SampleLoader(true);
+        final LazyTree<String> tree = new LazyTree<>("root", loader, LazyTree.UNBOUNDED, null, 8);
+        final LazyTreeNode<String> root = tree.getRoot();
+        assertThat(data(root.getChildren()), contains("A", "B", "C"));
+        assertThat(data(child(root, "B").getChildren()), contains("B.1"));
+        assertEquals(2, loader.calls);
+        assertThat(loader.loaded, contains("root", "B", "A"));
+        assertTrue(child(root, "A").isLoaded());
+        assertFalse(child(root, "C").isLoaded());
+        assertThat(data(TreeTraversal.preOrder(root)),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertEquals(2, loader.calls);
+        final SampleLoader limited = new SampleLoader(false);
+        final LazyTreeNode<String> other = new LazyTree<>("root", limited, LazyTree.UNBOUNDED,
+                null, 2).getRoot();
+        child(other, "B").getChildren();
+        assertThat(limited.loaded, contains("root", "B", "C"));
+    }
+
+    /**
+     * The least recently used subtrees are released when the budget is exceeded and loaded
+     * again on demand.
+     */
+    @Test
+    public void testEviction() {
+        final SampleLoader loader = new SampleLoader(true);
+        final LazyTree<String> tree = new LazyTree<>("root", loader, 4);
+        final LazyTreeNode<String> root = tree.getRoot();
+        final LazyTreeNode<String> a = child(root, "A");
+        final LazyTreeNode<String> b = child(root, "B");
+        assertThat(data(a.getChildren()), contains("A.1", "A.2"));
+        assertEquals(5, tree.getWeight());
+        assertEquals(6, tree.getNodeCount());
+        b.getChildren();
+        assertFalse(a.isLoaded());
+        assertTrue(b.isLoaded());
+        assertEquals(4, tree.getWeight());
+        assertFalse(a.isLeaf());
+        assertEquals(3, loader.calls);
+        b.getChildren();
+        assertThat(data(a.getChildren()), contains("A.1", "A.2"));
+        assertEquals(4, loader.calls);
+        assertFalse(b.isLoaded());
+        assertEquals(5, tree.getWeight());
+        assertThat(data(TreeTraversal.preOrder(root)),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+    }
+
+    /**
+     * Subtrees are released from the bottom up, and released nodes keep working.
+     */
+    @Test
+    public void testEvictionFromBottomUp() {
+        final ChildLoader<Integer> loader = new ChildLoader<Integer>() {
+            @Override
+            public List<Integer> load(final Integer parent) {
+                return parent < 1000 ? Arrays.asList(parent * 10, parent * 10 + 1)
+                        : Collections.<Integer>emptyList();
+            }
+        };
+        final LazyTree<Integer> tree = new LazyTree<>(1, loader, 4);
+        final LazyTreeNode<Integer> root = tree.getRoot();
+        final Iterator<TreeNode<Integer>> children = root.getChildren().iterator();
+        final LazyTreeNode<Integer> ten = (LazyTreeNode<Integer>) children.next();
+        final LazyTreeNode<Integer> eleven = (LazyTreeNode<Integer>) children.next();
+        final LazyTreeNode<Integer> hundred = (LazyTreeNode<Integer>) ten.getChildren()
+                .iterator().next();
+        assertThat(data(hundred.getChildren()), contains(1000, 1001));
+        assertEquals(6, tree.getWeight());
+        assertThat(data(eleven.getChildren()), contains(110, 111));
+        assertFalse(hundred.isLoaded());
+        assertFalse(ten.isLoaded());
+        assertTrue(root.isLoaded());
+        assertEquals(4, tree.getWeight());
+        assertEquals(5, tree.getNodeCount());
+        assertThat(data(TreeTraversal.preOrder(hundred)), contains(100, 1000, 1001));
+        assertEquals(4, tree.getWeight());
+        assertThat(data(TreeTraversal.preOrder(root)), contains(1, 10, 100, 1000, 1001, 101,
+                1010, 1011, 11, 110, 1100, 1101, 111, 1110, 1111));
+        assertTrue(tree.getWeight() <= 4);
+    }
+
+    /**
+     * Weighers give the weight of each node against the budget.
+     */
+    @Test
+    public void testWeigher() {
+        final SampleLoader loader = new SampleLoader(true);
+        final LazyTree<String> tree = new LazyTree<>("root", loader, 10, String::length, 1);
+        final LazyTreeNode<String> root = tree.getRoot();
+        child(root, "A").getChildren();
+        assertEquals(9, tree.getWeight());
+        child(root, "B").getChildren();
+        assertEquals(6, tree.getWeight());
+        assertFalse(child(root, "A").isLoaded());
+        assertEquals(5, tree.getNodeCount());
+    }
+
+    /**
+     * A single load over the budget is kept.
+     */
+    @Test
+    public void testLoadOverBudget() {
+        final LazyTree<String> tree = new LazyTree<>("root", new SampleLoader(false), 1);
+        assertThat(data(tree.getRoot().getChildren()), contains("A", "B", "C"));
+        assertEquals(3, tree.getWeight());
+    }
+
+    /**
+     * Invalid budgets, prefetch sizes and loader results are rejected.
+     */
+    @Test
+    public void testInvalidArguments() {
+        try {
+            new LazyTree<>("root", new SampleLoader(false), -1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Maximum weight must not be negative", e.getMessage());
+        }
+        try {
+            new LazyTree<>("root", new SampleLoader(false), 1, null, 0);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Prefetch size must be positive", e.getMessage());
+        }
+        final ChildLoader<String> broken = new ChildLoader<String>() {
+            @Override
+            public List<String> load(final String parent) {
+                return Arrays.asList(parent + ".1", parent + ".2");
+            }
+
+            @Override
+            public List<List<String>> loadAll(final List<String> parents) {
+                return Collections.emptyList();
+            }
+        };
+        final LazyTreeNode<String> root = new LazyTree<>("root", broken, 10, null, 2).getRoot();
+        final TreeNode<String> first = root.getChildren().iterator().next();
+        try {
+            first.getChildren();
+            fail();
+        } catch (final IllegalStateException e) {
+            assertEquals("Loader returned 0 children lists for 2 nodes", e.getMessage());
+        }
+    }
+
+    /**
+     * Deep lazy chains are traversed without recursion and within the budget.
+     */
+    @Test
+    public void testDeepChain() {
+        final ChildLoader<Integer> loader = new ChildLoader<Integer>() {
+            @Override
+            public List<Integer> load(final Integer parent) {
+                return parent < DEEP - 1 ? Collections.singletonList(parent + 1)
+                        : Collections.<Integer>emptyList();
+            }
+        };
+        final LazyTree<Integer> tree = new LazyTree<>(0, loader, 1000);
+        int count = 0;
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(tree.getRoot())) {
+            assertEquals(count++, node.getData().intValue());
+        }
+        assertEquals(DEEP, count);
+        assertTrue(tree.getWeight() <= 1000);
+    }
+
+    /**
+     * Test JSON serialization.
+     * @throws JsonProcessingException if serialization fails
+     * @throws JSONException if the JSON is invalid
+     */
+    @Test
+    public void testJson() throws JsonProcessingException, JSONException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final LazyTree<String> tree = new LazyTree<>("root", new SampleLoader(true));
+        final MutableTreeNode<String> expected = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", expected);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", expected);
+        new DefaultMutableTreeNode<>("C", expected);
+        a.add(new DefaultMutableTreeNode<>("A.1")).add(new DefaultMutableTreeNode<>("A.2"));
+        b.add(new DefaultMutableTreeNode<>("B.1"));
+        JSONAssert.assertEquals(mapper.writeValueAsString(expected),
+                mapper.writeValueAsString(tree.getRoot()), true);
+    }
+}
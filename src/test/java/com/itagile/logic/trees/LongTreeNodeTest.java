@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for LongTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class LongTreeNodeTest {
+
+    /**
+     * Test method for the subtree aggregations.
+     */
+    @Test
+    public void testAggregations() {
+        final LongTreeNode root = new LongTreeNode(Long.MAX_VALUE / 2);
+        final LongTreeNode a = new LongTreeNode(-7, root);
+        new LongTreeNode(3, a);
+        new LongTreeNode(Long.MIN_VALUE, root);
+        assertEquals(Long.MAX_VALUE / 2 - 4 + Long.MIN_VALUE, root.sum());
+        assertEquals(Long.MIN_VALUE, root.min());
+        assertEquals(Long.MAX_VALUE / 2, root.max());
+        assertEquals(4, root.count());
+        assertEquals(-4, a.sum());
+        assertEquals(3, a.max());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.LongTreeNode#setValue(long)}.
+     */
+    @Test
+    public void testSetValue() {
+        final LongTreeNode node = new LongTreeNode();
+        assertEquals(0, node.getValue());
+        assertSame(node, node.setValue(42));
+        assertEquals(42, node.getValue());
+        assertEquals(Long.valueOf(42), node.getData());
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for ObservableTree, ObservableTreeNode and TreeMetrics.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class ObservableTreeTest {
+    /**
+     * Listener keeping the received batches as strings.
+     */
+    private static final class Recorder implements TreeListener<String> {
+        /**
+         * The received batches.
+         */
+        private final List<List<String>> batches = new ArrayList<>();
+
+        @Override
+        public void treeChanged(final List<TreeEvent<String>> events) {
+            final List<String> batch = new ArrayList<>();
+            for (final TreeEvent<String> event : events) {
+                batch.add(event.getType() + " " + event.getNode().getData() + " "
+                        + data(event.getOldParent()) + " " + data(event.getNewParent()));
+            }
+            batches.add(batch);
+        }
+
+        /**
+         * Gets the data of a node.
+         * @param node the node, or null
+         * @return the data, or null
+         */
+        private static String data(final TreeNode<String> node) {
+            return node == null ? null : node.getData();
+        }
+    }
+
+    /**
+     * Events are recorded only with listeners, coalesced by node and delivered on flush.
+     */
+    @Test
+    public void testEvents() {
+        final ObservableTree<String> tree = new ObservableTree<>("root");
+        final ObservableTreeNode<String> root = tree.getRoot();
+        final ObservableTreeNode<String> a = new ObservableTreeNode<>(tree, "A", root);
+        final Recorder recorder = new Recorder();
+        tree.addListener(recorder);
+        final ObservableTreeNode<String> b = new ObservableTreeNode<>(tree, "B", root);
+        final ObservableTreeNode<String> c = new ObservableTreeNode<>(tree, "C");
+        c.setParent(a);
+        c.setParent(b);
+        a.setData("A'");
+        a.setData("A''");
+        final ObservableTreeNode<String> d = new ObservableTreeNode<>(tree, "D", b);
+        d.removeFromParent();
+        b.setParent(a);
+        tree.flush();
+        tree.flush();
+        assertEquals(1, recorder.batches.size());
+        assertThat(recorder.batches.get(0), contains("ADDED B null A''", "ADDED C null B",
+                "DATA_CHANGED A'' root root"));
+        b.setParent(root);
+        b.setParent(a);
+        b.removeFromParent();
+        tree.flush();
+        assertThat(recorder.batches.get(1), contains("REMOVED B A'' null"));
+        tree.removeListener(recorder);
+        a.add(b);
+        tree.flush();
+        assertEquals(2, recorder.batches.size());
+        assertThat(TreeTraversal.stream(root).map(TreeNode::getData).collect(Collectors.toList()),
+                contains("root", "A''", "B", "C"));
+    }
+
+    /**
+     * Events are delivered when the batch size is reached, through the executor.
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testBatches() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final ObservableTree<String> tree = new ObservableTree<>("root", 3, executor);
+        final Recorder recorder = new Recorder();
+        tree.addListener(recorder);
+        for (int i = 0; i < 7; i++) {
+            new ObservableTreeNode<>(tree, String.valueOf(i), tree.getRoot());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, recorder.batches.size());
+        assertThat(recorder.batches.get(1), contains("ADDED 3 null root", "ADDED 4 null root",
+                "ADDED 5 null root"));
+        try {
+            new ObservableTree<>("root", 0, Runnable::run);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Batch size must be positive", e.getMessage());
+        }
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.ObservableTree#getMetrics()}.
+     */
+    @Test
+    public void testMetrics() {
+        final ObservableTree<String> tree = new ObservableTree<>("root");
+        final TreeMetrics metrics = tree.getMetrics();
+        assertEquals(1, metrics.getNodeCount());
+        assertEquals(0, metrics.getMaxDepth());
+        assertArrayEquals(new long[] {1}, metrics.getFanOutHistogram());
+        final ObservableTreeNode<String> a = new ObservableTreeNode<>(tree, "A", tree.getRoot());
+        final ObservableTreeNode<String> b = new ObservableTreeNode<>(tree, "B", tree.getRoot());
+        final ObservableTreeNode<String> c = new ObservableTreeNode<>(tree, "C");
+        new ObservableTreeNode<>(tree, "C.1", c);
+        new ObservableTreeNode<>(tree, "C.2", c);
+        new ObservableTreeNode<>(tree, "C.2.1", new ObservableTreeNode<>(tree, "C.2", c));
+        assertEquals(3, metrics.getNodeCount());
+        assertEquals(1, metrics.getMaxDepth());
+        a.add(c);
+        assertEquals(8, metrics.getNodeCount());
+        assertEquals(4, metrics.getMaxDepth());
+        assertEquals(2, c.getDepth());
+        assertArrayEquals(new long[] {4, 2, 2}, metrics.getFanOutHistogram());
+        b.add(c);
+        assertEquals(4, metrics.getMaxDepth());
+        assertArrayEquals(new long[] {4, 2, 2}, metrics.getFanOutHistogram());
+        tree.getRoot().add(c);
+        assertEquals(3, metrics.getMaxDepth());
+        assertEquals(1, c.getDepth());
+        c.removeFromParent();
+        assertEquals(3, metrics.getNodeCount());
+        assertEquals(1, metrics.getMaxDepth());
+        assertEquals(-1, c.getDepth());
+        assertArrayEquals(new long[] {2, 0, 1}, metrics.getFanOutHistogram());
+        c.setData("C'");
+        assertEquals(7, metrics.getAddedCount());
+        assertEquals(1, metrics.getRemovedCount());
+        assertEquals(2, metrics.getMovedCount());
+        assertEquals(1, metrics.getDataChangedCount());
+        assertEquals(11, metrics.getMutationCount());
+    }
+
+    /**
+     * Invalid moves are rejected without changes.
+     */
+    @Test
+    public void testRejectedMoves() {
+        final ObservableTree<String> tree = new ObservableTree<>("root");
+        final ObservableTreeNode<String> a = new ObservableTreeNode<>(tree, "A", tree.getRoot());
+        final ObservableTreeNode<String> a1 = new ObservableTreeNode<>(tree, "A.1", a);
+        final ObservableTreeNode<String> b = new ObservableTreeNode<>(tree, "B");
+        final ObservableTreeNode<String> b1 = new ObservableTreeNode<>(tree, "B.1", b);
+        final List<Runnable> moves = Arrays.asList(() -> a.setParent(a1), () -> a.setParent(a),
+                () -> b.setParent(b1), () -> tree.getRoot().setParent(b),
+                () -> a.add(new DefaultMutableTreeNode<>("other")),
+                () -> a.add(new ObservableTreeNode<>(new ObservableTree<>("other"), "other")));
+        for (final Runnable move : moves) {
+            try {
+                move.run();
+                fail();
+            } catch (final IllegalArgumentException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+        assertSame(a, a1.getParent());
+        assertSame(tree.getRoot(), a.getParent());
+        assertSame(b, b1.getParent());
+        assertNull(b.getParent());
+        assertEquals(3, tree.getMetrics().getNodeCount());
+        b.setParent(a1);
+        assertEquals(5, tree.getMetrics().getNodeCount());
+        assertEquals(4, b1.getDepth());
+    }
+
+    /**
+     * Random moves keep the metrics equal to the ones of the tree.
+     */
+    @Test
+    public void testRandomMoves() {
+        final Random random = new Random(42);
+        final ObservableTree<Integer> tree = new ObservableTree<>(0);
+        final List<ObservableTreeNode<Integer>> nodes = new ArrayList<>();
+        nodes.add(tree.getRoot());
+        for (int i = 1; i < 500; i++) {
+            nodes.add(new ObservableTreeNode<>(tree, i,
+                    random.nextInt(4) == 0 ? null : nodes.get(random.nextInt(i))));
+        }
+        for (int move = 0; move < 5000; move++) {
+            final ObservableTreeNode<Integer> node = nodes.get(1 + random.nextInt(499));
+            final ObservableTreeNode<Integer> parent = nodes.get(random.nextInt(500));
+            try {
+                node.setParent(random.nextInt(10) == 0 ? null : parent);
+            } catch (final IllegalArgumentException e) {
+                assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+            }
+        }
+        long count = 0;
+        int maxDepth = 0;
+        final long[] histogram = new long[TreeMetrics.bucket(500) + 1];
+        final TreeIndex<Integer> index = TreeIndex.build(tree.getRoot());
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(tree.getRoot())) {
+            final ObservableTreeNode<Integer> observable = (ObservableTreeNode<Integer>) node;
+            assertEquals(index.getDepth(node), observable.getDepth());
+            count++;
+            maxDepth = Math.max(maxDepth, observable.getDepth());
+            histogram[TreeMetrics.bucket(observable.getChildCount())]++;
+        }
+        final TreeMetrics metrics = tree.getMetrics();
+        assertEquals(count, metrics.getNodeCount());
+        assertEquals(maxDepth, metrics.getMaxDepth());
+        final long[] actual = metrics.getFanOutHistogram();
+        assertArrayEquals(actual, Arrays.copyOf(histogram, actual.length));
+    }
+
+    /**
+     * Deep subtrees are moved without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final ObservableTree<Integer> tree = new ObservableTree<>(0);
+        final ObservableTreeNode<Integer> first = new ObservableTreeNode<>(tree, 1);
+        ObservableTreeNode<Integer> last = first;
+        for (int i = 2; i <= DEEP; i++) {
+            last = new ObservableTreeNode<>(tree, i, last);
+        }
+        tree.getRoot().add(first);
+        assertEquals(DEEP + 1, tree.getMetrics().getNodeCount());
+        assertEquals(DEEP, tree.getMetrics().getMaxDepth());
+        first.removeFromParent();
+        assertEquals(1, tree.getMetrics().getNodeCount());
+        assertEquals(0, tree.getMetrics().getMaxDepth());
+        assertEquals(-1, last.getDepth());
+    }
+}
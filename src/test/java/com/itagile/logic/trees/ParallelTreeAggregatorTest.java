@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for ParallelTreeAggregator.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class ParallelTreeAggregatorTest {
+    /**
+     * Sums the data of the nodes.
+     */
+    private static final Aggregation<Integer, Long> SUM = new Aggregation<Integer, Long>() {
+        @Override
+        public Long map(final TreeNode<Integer> node) {
+            return node.getData().longValue();
+        }
+
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return left + right;
+        }
+    };
+
+    /**
+     * Pool of the tests.
+     */
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    /**
+     * Shuts the pool down.
+     */
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Builds a random tree.
+     * @param size number of nodes
+     * @return the root node
+     */
+    private static MutableTreeNode<Integer> random(final int size) {
+        final Random random = new Random(size);
+        final List<MutableTreeNode<Integer>> nodes = new ArrayList<>();
+        nodes.add(new CompactMutableTreeNode<>(0));
+        for (int i = 1; i < size; i++) {
+            final MutableTreeNode<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+            nodes.add(new CompactMutableTreeNode<>(random.nextInt(100), parent));
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * Sums the subtree sequentially.
+     * @param root the root of the subtree
+     * @return the sum of the data
+     */
+    private static long sum(final TreeNode<Integer> root) {
+        long sum = 0;
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(root)) {
+            sum += node.getData();
+        }
+        return sum;
+    }
+
+    /**
+     * Checks that every aggregate holds the sum of its source subtree.
+     * @param aggregate the aggregate root
+     */
+    private static void assertSums(final AggregateNode<Integer, Long> aggregate) {
+        final Deque<AggregateNode<Integer, Long>> stack = new ArrayDeque<>();
+        stack.push(aggregate);
+        while (!stack.isEmpty()) {
+            final AggregateNode<Integer, Long> current = stack.pop();
+            assertEquals(sum(current.getSource()), current.getData().longValue());
+            for (int i = 0; i < current.getChildCount(); i++) {
+                stack.push(current.getChild(i));
+            }
+        }
+    }
+
+    /**
+     * The aggregate tree is parallel to the source tree.
+     */
+    @Test
+    public void testAggregateSmallTree() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(1);
+        final MutableTreeNode<Integer> a = new DefaultMutableTreeNode<>(2, root);
+        new DefaultMutableTreeNode<>(3, a);
+        new DefaultMutableTreeNode<>(4, a);
+        new DefaultMutableTreeNode<>(5, root);
+        final AggregateNode<Integer, Long> aggregate = new ParallelTreeAggregator<>(SUM, pool)
+                .aggregate(root);
+        assertSame(root, aggregate.getSource());
+        assertEquals(Long.valueOf(15), aggregate.getData());
+        final List<Long> values = new ArrayList<>();
+        for (final TreeNode<Long> node : TreeTraversal.preOrder(aggregate)) {
+            values.add(node.getData());
+        }
+        assertThat(values, contains(15L, 9L, 3L, 4L, 5L));
+        assertSame(a, aggregate.getChild(0).getSource());
+        assertTrue(aggregate.getChild(1).isLeaf());
+    }
+
+    /**
+     * A leaf aggregates to its mapped value.
+     */
+    @Test
+    public void testAggregateLeaf() {
+        final AggregateNode<Integer, Long> aggregate = new ParallelTreeAggregator<>(SUM, pool)
+                .aggregate(new DefaultMutableTreeNode<>(7));
+        assertEquals(Long.valueOf(7), aggregate.getData());
+        assertTrue(aggregate.isLeaf());
+    }
+
+    /**
+     * Large trees are aggregated in parallel with the same result as sequentially.
+     */
+    @Test
+    public void testAggregateLargeTree() {
+        final MutableTreeNode<Integer> root = random(50_000);
+        assertSums(new ParallelTreeAggregator<>(SUM, pool).aggregate(root));
+    }
+
+    /**
+     * Frozen trees split by known subtree size.
+     */
+    @Test
+    public void testAggregateFrozenTree() {
+        final FrozenTree<Integer> tree = FrozenTree.freeze(random(50_000));
+        final AggregateNode<Integer, Long> aggregate = new ParallelTreeAggregator<>(SUM, pool,
+                100).aggregate(tree.getRoot());
+        assertSums(aggregate);
+    }
+
+    /**
+     * Children are combined in order, for non commutative aggregations.
+     */
+    @Test
+    public void testCombineOrder() {
+        final Aggregation<Integer, String> concat = new Aggregation<Integer, String>() {
+            @Override
+            public String map(final TreeNode<Integer> node) {
+                return String.valueOf(node.getData());
+            }
+
+            @Override
+            public String combine(final String left, final String right) {
+                return left + right;
+            }
+        };
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        for (int i = 1; i < 10; i++) {
+            final MutableTreeNode<Integer> child = new DefaultMutableTreeNode<>(i, root);
+            new DefaultMutableTreeNode<>(i, child);
+        }
+        assertEquals("0112233445566778899",
+                new ParallelTreeAggregator<>(concat, pool).aggregate(root).getData());
+    }
+
+    /**
+     * Deep chains do not overflow the call stack.
+     */
+    @Test
+    public void testAggregateDeepChain() {
+        final int depth = 100_000;
+        final MutableTreeNode<Integer> root = new CompactMutableTreeNode<>(1);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            last = new CompactMutableTreeNode<>(1, last);
+            new CompactMutableTreeNode<>(0, last);
+        }
+        AggregateNode<Integer, Long> aggregate = new ParallelTreeAggregator<>(SUM, pool)
+                .aggregate(root);
+        assertEquals(Long.valueOf(depth), aggregate.getData());
+        int levels = 0;
+        while (!aggregate.isLeaf()) {
+            aggregate = aggregate.getChild(aggregate.getChildCount() - 1);
+            levels++;
+        }
+        assertEquals(depth, levels);
+        assertEquals(Long.valueOf(0), aggregate.getData());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for PersistentTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class PersistentTreeNodeTest {
+    /**
+     * Builds the tree root(A(A.1, A.2), B(B.1), C).
+     * @return the root node
+     */
+    private static PersistentTreeNode<String> sample() {
+        return PersistentTreeNode.of("root",
+                PersistentTreeNode.of("A", PersistentTreeNode.of("A.1"),
+                        PersistentTreeNode.of("A.2")),
+                PersistentTreeNode.of("B", PersistentTreeNode.of("B.1")),
+                PersistentTreeNode.of("C"));
+    }
+
+    /**
+     * Gets the data of a tree in pre-order.
+     * @param root the root node
+     * @return the data of the nodes
+     */
+    private static List<String> preOrder(final TreeNode<String> root) {
+        final List<String> list = new ArrayList<>();
+        for (final TreeNode<String> node : TreeTraversal.preOrder(root)) {
+            list.add(node.getData());
+        }
+        return list;
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PersistentTreeNode#setData(Object, int...)}.
+     */
+    @Test
+    public void testSetDataCopiesPathOnly() {
+        final PersistentTreeNode<String> v1 = sample();
+        final PersistentTreeNode<String> v2 = v1.setData("a1", 0, 0);
+        assertThat(preOrder(v1), contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertThat(preOrder(v2), contains("root", "A", "a1", "A.2", "B", "B.1", "C"));
+        assertNotSame(v1, v2);
+        assertNotSame(v1.getChild(0), v2.getChild(0));
+        assertSame(v1.get(0, 1), v2.get(0, 1));
+        assertSame(v1.getChild(1), v2.getChild(1));
+        assertSame(v1.getChild(2), v2.getChild(2));
+        assertSame(v1, v1.setData("A", 0));
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.PersistentTreeNode#addChild(PersistentTreeNode, int...)}.
+     */
+    @Test
+    public void testAddChild() {
+        final PersistentTreeNode<String> v1 = sample();
+        final PersistentTreeNode<String> v2 = v1.addChild(PersistentTreeNode.of("B.2"), 1)
+                .addChild(PersistentTreeNode.of("D"));
+        assertThat(preOrder(v2), contains("root", "A", "A.1", "A.2", "B", "B.1", "B.2", "C", "D"));
+        assertEquals(3, v1.getChildCount());
+        assertSame(v1.getChild(0), v2.getChild(0));
+        assertSame(v1.get(1, 0), v2.get(1, 0));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PersistentTreeNode#removeChild(int...)}.
+     */
+    @Test
+    public void testRemoveChild() {
+        final PersistentTreeNode<String> v1 = sample();
+        assertThat(preOrder(v1.removeChild(0)), contains("root", "B", "B.1", "C"));
+        final PersistentTreeNode<String> v2 = v1.removeChild(1, 0);
+        assertThat(preOrder(v2), contains("root", "A", "A.1", "A.2", "B", "C"));
+        assertTrue(v2.getChild(1).isLeaf());
+        assertFalse(v1.getChild(1).isLeaf());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PersistentTreeNode#moveChild(int[], int...)}.
+     */
+    @Test
+    public void testMoveChild() {
+        final PersistentTreeNode<String> v1 = sample();
+        assertThat(preOrder(v1.moveChild(new int[] {0, 0}, 1)),
+                contains("root", "A", "A.2", "B", "B.1", "A.1", "C"));
+        assertThat(preOrder(v1.moveChild(new int[] {0}, 1)),
+                contains("root", "B", "B.1", "A", "A.1", "A.2", "C"));
+        assertThat(preOrder(v1.moveChild(new int[] {1, 0}, 2)),
+                contains("root", "A", "A.1", "A.2", "B", "C", "B.1"));
+        assertThat(preOrder(v1.moveChild(new int[] {0})),
+                contains("root", "B", "B.1", "C", "A", "A.1", "A.2"));
+        final PersistentTreeNode<String> moved = v1.moveChild(new int[] {0, 1}, 2);
+        assertSame(v1.get(0, 1), moved.get(2, 0));
+    }
+
+    /**
+     * Nodes cannot be moved into their own subtree.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoveIntoOwnSubtree() {
+        sample().moveChild(new int[] {0}, 0, 1);
+    }
+
+    /**
+     * Paths out of range are rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveMissingChild() {
+        sample().removeChild(1, 1);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.PersistentTreeNode#copyOf(TreeNode)} and
+     * {@link com.itagile.logic.trees.PersistentTreeNode#toMutable()}.
+     */
+    @Test
+    public void testConversions() {
+        final MutableTreeNode<String> mutable = sample().toMutable();
+        assertThat(preOrder(mutable), contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        final MutableTreeNode<String> a = mutable.getMutableChildren().iterator().next();
+        assertSame(mutable, a.getParent());
+        final PersistentTreeNode<String> copy = PersistentTreeNode.copyOf(mutable);
+        assertThat(preOrder(copy), contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertSame(copy, PersistentTreeNode.copyOf(copy));
+        assertNull(PersistentTreeNode.copyOf(null));
+    }
+
+    /**
+     * Deep chains are converted without recursion.
+     */
+    @Test
+    public void testDeepChainConversions() {
+        final int depth = 100_000;
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        final PersistentTreeNode<Integer> copy = PersistentTreeNode.copyOf(root);
+        final DefaultMutableTreeNode<Integer> back = copy.toMutable();
+        int count = 0;
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(back)) {
+            assertEquals(Integer.valueOf(count++), node.getData());
+        }
+        assertEquals(depth, count);
+    }
+
+    /**
+     * Persistent nodes serialize to JSON like DefaultMutableTreeNode.
+     * @throws JsonProcessingException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws JsonProcessingException, JSONException {
+        final PersistentTreeNode<String> root = sample();
+        final ObjectMapper mapper = new ObjectMapper();
+        JSONAssert.assertEquals(mapper.writeValueAsString(root.toMutable()),
+                mapper.writeValueAsString(root), true);
+    }
+}
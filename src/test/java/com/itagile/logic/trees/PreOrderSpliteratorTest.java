@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.sample;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+
+import org.junit.Test;
+
+/**
+ * Tests for PreOrderSpliterator.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class PreOrderSpliteratorTest {
+    /**
+     * Splits a spliterator as far as possible and collects the data of every part in encounter
+     * order.
+     * @param spliterator the spliterator
+     * @param data the list to add the data to
+     * @param <T> the type of data object in the nodes
+     * @return the number of parts
+     */
+    private static <T> int splitAll(final Spliterator<TreeNode<T>> spliterator,
+            final List<T> data) {
+        final Spliterator<TreeNode<T>> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            spliterator.forEachRemaining(node -> data.add(node.getData()));
+            return 1;
+        }
+        return splitAll(prefix, data) + splitAll(spliterator, data);
+    }
+
+    /**
+     * Splits keep the pre-order of the whole tree.
+     */
+    @Test
+    public void testSplitsKeepPreOrder() {
+        final List<String> data = new ArrayList<>();
+        final int parts = splitAll(new PreOrderSpliterator<>(sample()), data);
+        assertThat(data, contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertTrue(parts > 3);
+    }
+
+    /**
+     * Splits after a partial traversal keep the remaining pre-order.
+     */
+    @Test
+    public void testSplitAfterAdvance() {
+        final List<String> data = new ArrayList<>();
+        final Spliterator<TreeNode<String>> spliterator = new PreOrderSpliterator<>(sample());
+        assertTrue(spliterator.tryAdvance(node -> data.add(node.getData())));
+        assertTrue(spliterator.tryAdvance(node -> data.add(node.getData())));
+        splitAll(spliterator, data);
+        assertThat(data, contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+    }
+
+    /**
+     * Frozen trees are split by exact subtree sizes.
+     */
+    @Test
+    public void testFrozenTreeIsSized() {
+        final FrozenTree<String> tree = FrozenTree.freeze(sample());
+        final Spliterator<TreeNode<String>> spliterator = new PreOrderSpliterator<>(
+                tree.getRoot());
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(7, spliterator.getExactSizeIfKnown());
+        final Spliterator<TreeNode<String>> prefix = spliterator.trySplit();
+        assertEquals(7, prefix.getExactSizeIfKnown() + spliterator.getExactSizeIfKnown());
+        assertEquals(4, prefix.getExactSizeIfKnown());
+        final List<String> data = new ArrayList<>();
+        prefix.forEachRemaining(node -> data.add(node.getData()));
+        assertThat(data, contains("root", "A", "A.1", "A.2"));
+        assertEquals(0, prefix.getExactSizeIfKnown());
+    }
+
+    /**
+     * Other trees have estimated sizes.
+     */
+    @Test
+    public void testOtherTreesAreNotSized() {
+        final Spliterator<TreeNode<String>> spliterator = new PreOrderSpliterator<>(sample());
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertEquals(-1, spliterator.getExactSizeIfKnown());
+    }
+
+    /**
+     * Leaves and empty trees cannot be split.
+     */
+    @Test
+    public void testLeafAndEmpty() {
+        final Spliterator<TreeNode<String>> leaf = new PreOrderSpliterator<>(
+                new DefaultMutableTreeNode<>("leaf"));
+        assertNull(leaf.trySplit());
+        assertTrue(leaf.tryAdvance(node -> assertEquals("leaf", node.getData())));
+        assertFalse(leaf.tryAdvance(node -> fail()));
+        final Spliterator<TreeNode<String>> empty = new PreOrderSpliterator<>(null);
+        assertNull(empty.trySplit());
+        assertEquals(0, empty.estimateSize());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trees and helpers shared by the tests.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public final class TestTrees {
+    /**
+     * Depth of deep chains, enough to overflow the call stack of recursive walks.
+     */
+    public static final int DEEP = 100_000;
+
+    /**
+     * Utility class.
+     */
+    private TestTrees() {
+    }
+
+    /**
+     * Builds the tree root(A(A.1, A.2), B(B.1), C).
+     * @return the root node
+     */
+    public static MutableTreeNode<String> sample() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        new DefaultMutableTreeNode<>("C", root);
+        a.add(new DefaultMutableTreeNode<>("A.1")).add(new DefaultMutableTreeNode<>("A.2"));
+        b.add(new DefaultMutableTreeNode<>("B.1"));
+        return root;
+    }
+
+    /**
+     * Collects the data of the nodes.
+     * @param nodes the nodes
+     * @param <T> the type of data object in the nodes
+     * @return the data of the nodes in iteration order
+     */
+    public static <T> List<T> data(final Iterable<? extends TreeNode<T>> nodes) {
+        final List<T> list = new ArrayList<>();
+        for (final TreeNode<T> node : nodes) {
+            list.add(node.getData());
+        }
+        return list;
+    }
+}
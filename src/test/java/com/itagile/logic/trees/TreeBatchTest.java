@@ -0,0 +1,298 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static com.itagile.logic.trees.TestTrees.data;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for TreeBatch and the bulk methods of MutableTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeBatchTest {
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeBatch#commit()}.
+     */
+    @Test
+    public void testCommit() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        final MutableTreeNode<String> a1 = new DefaultMutableTreeNode<>("A.1", a);
+        final MutableTreeNode<String> a2 = new DefaultMutableTreeNode<>("A.2", a);
+        final MutableTreeNode<String> c = new DefaultMutableTreeNode<>("C");
+        final TreeBatch<String> batch = new TreeBatch<String>().move(a1, b).add(root, c)
+                .move(a2, root).move(a2, b).remove(a);
+        assertEquals(5, batch.size());
+        assertEquals(5, batch.move(a2, b).add(root, b).size());
+        assertThat(data(root.getChildren()), contains("A", "B"));
+        batch.commit();
+        assertEquals(0, batch.size());
+        assertThat(data(root.getChildren()), contains("B", "C"));
+        assertThat(data(b.getChildren()), contains("A.1", "A.2"));
+        assertSame(b, a1.getParent());
+        assertSame(b, a2.getParent());
+        assertSame(root, c.getParent());
+        assertNull(a.getParent());
+        assertTrue(a.isLeaf());
+        new TreeBatch<String>().move(a, b).remove(a).move(a1, root).move(a1, b).commit();
+        assertNull(a.getParent());
+        assertThat(data(b.getChildren()), contains("A.2", "A.1"));
+    }
+
+    /**
+     * Moves that would create a cycle reject the whole batch.
+     */
+    @Test
+    public void testRejectCycle() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        final MutableTreeNode<String> a1 = new DefaultMutableTreeNode<>("A.1", a);
+        final TreeBatch<String> batch = new TreeBatch<String>().move(b, a1).move(a, b);
+        try {
+            batch.commit();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+        }
+        assertThat(data(root.getChildren()), contains("A", "B"));
+        assertSame(a, a1.getParent());
+        try {
+            new TreeBatch<String>().move(a, a).commit();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+        }
+        new TreeBatch<String>().move(a1, root).move(a, b).move(b, a1).commit();
+        assertThat(data(TreeTraversal.preOrder(root)), contains("root", "A.1", "B", "A"));
+    }
+
+    /**
+     * Other node types are moved with their own methods.
+     */
+    @Test
+    public void testOtherNodes() {
+        final AcyclicTreeNode<String> root = new AcyclicTreeNode<>("root");
+        final AcyclicTreeNode<String> a = new AcyclicTreeNode<>("A", root);
+        final AcyclicTreeNode<String> b = new AcyclicTreeNode<>("B", root);
+        final AcyclicTreeNode<String> c = new AcyclicTreeNode<>("C", root);
+        b.addAll(Arrays.asList(a, c));
+        assertThat(data(TreeTraversal.preOrder(root)), contains("root", "B", "A", "C"));
+        assertEquals(2, a.getDepth());
+        final MutableTreeNode<String> compact = new CompactMutableTreeNode<>("compact");
+        final MutableTreeNode<String> first = new DefaultMutableTreeNode<>("first",
+                new DefaultMutableTreeNode<>("old"));
+        compact.addAll(Arrays.<MutableTreeNode<String>>asList(first,
+                new CompactMutableTreeNode<>("second")));
+        assertThat(data(compact.getChildren()), contains("first", "second"));
+        assertSame(compact, first.getParent());
+    }
+
+    /**
+     * A valid batch of other node types is applied even if a move alone would make a cycle in
+     * the intermediate tree.
+     */
+    @Test
+    public void testOtherNodesTwoPhases() {
+        final AcyclicTreeNode<String> r = new AcyclicTreeNode<>("R");
+        final AcyclicTreeNode<String> a = new AcyclicTreeNode<>("A", r);
+        final AcyclicTreeNode<String> b = new AcyclicTreeNode<>("B", a);
+        final AcyclicTreeNode<String> c = new AcyclicTreeNode<>("C");
+        final TreeBatch<String> batch = new TreeBatch<String>().move(c, r).move(a, b).move(b, r);
+        batch.commit();
+        assertEquals(0, batch.size());
+        assertThat(data(TreeTraversal.preOrder(r)), contains("R", "C", "B", "A"));
+        assertSame(b, a.getParent());
+        assertEquals(2, a.getDepth());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.DefaultMutableTreeNode#addAll(Iterable)}.
+     */
+    @Test
+    public void testAddAll() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        final MutableTreeNode<String> a1 = new DefaultMutableTreeNode<>("A.1", a);
+        final MutableTreeNode<String> c = new CompactMutableTreeNode<>("C", root);
+        final MutableTreeNode<String> c1 = new DefaultMutableTreeNode<>("C.1", c);
+        try {
+            a1.addAll(Arrays.asList(b, root));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+        }
+        assertThat(data(root.getChildren()), contains("A", "B", "C"));
+        assertSame(a1, b.addAll(Arrays.asList(a1, c, c1, a1)).getChildren().iterator().next());
+        assertThat(data(b.getChildren()), contains("A.1", "C", "C.1"));
+        assertTrue(a.isLeaf());
+        assertTrue(c.isLeaf());
+        assertSame(b, c.getParent());
+        assertSame(b, c1.getParent());
+        assertTrue(b.removeAll(Arrays.asList(c, a1)));
+        assertThat(data(b.getChildren()), contains("C.1"));
+        assertNull(c.getParent());
+        assertNull(a1.getParent());
+    }
+
+    /**
+     * The live children of a node can be moved to another node, or removed, at once.
+     */
+    @Test
+    public void testAddAllLiveChildren() {
+        final MutableTreeNode<String> src = new DefaultMutableTreeNode<>("src");
+        final MutableTreeNode<String> dst = new DefaultMutableTreeNode<>("dst");
+        new DefaultMutableTreeNode<>("1", src);
+        new DefaultMutableTreeNode<>("2", src);
+        new DefaultMutableTreeNode<>("3", src);
+        dst.addAll(src.getMutableChildren());
+        assertTrue(src.isLeaf());
+        assertThat(data(dst.getChildren()), contains("1", "2", "3"));
+        final MutableTreeNode<String> compact = new CompactMutableTreeNode<>("compact");
+        compact.addAll(dst.getMutableChildren());
+        assertTrue(dst.isLeaf());
+        assertThat(data(compact.getChildren()), contains("1", "2", "3"));
+        dst.addAll(compact.getMutableChildren());
+        assertTrue(dst.removeAll(dst.getMutableChildren()));
+        assertTrue(dst.isLeaf());
+        assertTrue(compact.isLeaf());
+    }
+
+    /**
+     * A batch rejected by a cycle can be fixed and committed.
+     */
+    @Test
+    public void testCommitAfterReject() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        final TreeBatch<String> batch = new TreeBatch<String>().move(a, b).move(b, a);
+        try {
+            batch.commit();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+        }
+        batch.move(b, root).commit();
+        assertThat(data(TreeTraversal.preOrder(root)), contains("root", "B", "A"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.MutableTreeNode#removeAll(Iterable)}.
+     */
+    @Test
+    public void testRemoveAll() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        final List<MutableTreeNode<Integer>> children = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            children.add(new DefaultMutableTreeNode<>(i, root));
+        }
+        final MutableTreeNode<Integer> other = new DefaultMutableTreeNode<>(-1,
+                new DefaultMutableTreeNode<>(-2));
+        final List<MutableTreeNode<Integer>> removed = new ArrayList<>(children.subList(2, 8));
+        removed.add(other);
+        removed.add(children.get(2));
+        assertTrue(root.removeAll(removed));
+        assertThat(data(root.getChildren()), contains(1, 2, 9, 10));
+        assertNull(children.get(2).getParent());
+        assertNotNull(other.getParent());
+        assertFalse(root.removeAll(removed));
+    }
+
+    /**
+     * Random batches give the same trees as the same moves applied one by one.
+     */
+    @Test
+    public void testRandomMoves() {
+        final Random random = new Random(42);
+        final int size = 2000;
+        final List<MutableTreeNode<Integer>> single = new ArrayList<>();
+        final List<MutableTreeNode<Integer>> batched = new ArrayList<>();
+        single.add(new DefaultMutableTreeNode<>(0));
+        batched.add(new DefaultMutableTreeNode<>(0));
+        for (int i = 1; i < size; i++) {
+            final int parent = random.nextInt(i);
+            single.add(new DefaultMutableTreeNode<>(i, single.get(parent)));
+            batched.add(new DefaultMutableTreeNode<>(i, batched.get(parent)));
+        }
+        final TreeBatch<Integer> batch = new TreeBatch<>();
+        for (int move = 0; move < 5000; move++) {
+            final int node = 1 + random.nextInt(size - 1);
+            final int parent = random.nextInt(size);
+            if (!isInSubtree(single.get(parent), single.get(node))) {
+                single.get(parent).add(single.get(node));
+                batch.move(batched.get(node), batched.get(parent));
+            }
+        }
+        batch.commit();
+        for (int i = 0; i < size; i++) {
+            assertEquals(data(single.get(i).getChildren()), data(batched.get(i).getChildren()));
+        }
+    }
+
+    /**
+     * Checks if a node is in the subtree of another.
+     * @param node the node
+     * @param root the root of the subtree
+     * @return true if the node is in the subtree
+     */
+    private static boolean isInSubtree(final MutableTreeNode<Integer> node,
+            final MutableTreeNode<Integer> root) {
+        for (TreeNode<Integer> ancestor = node; ancestor != null;
+                ancestor = ((MutableTreeNode<Integer>) ancestor).getParent()) {
+            if (ancestor == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deep chains are validated without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < DEEP; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        final MutableTreeNode<Integer> other = new DefaultMutableTreeNode<>(-1);
+        try {
+            new TreeBatch<Integer>().move(other, last).move(root, other).commit();
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+        }
+        new TreeBatch<Integer>().move(last, root).move(other, last).commit();
+        assertThat(data(root.getChildren()), contains(1, DEEP - 1));
+        assertSame(last, other.getParent());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.data;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for TreeBuilder.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeBuilderTest {
+    /**
+     * Builder of rows {id, parentId, data}.
+     */
+    private final TreeBuilder<String[], String, String> builder = new TreeBuilder<>(
+            new Extractor<String[], String>() {
+                @Override
+                public String extract(final String[] row) {
+                    return row[0];
+                }
+            }, new Extractor<String[], String>() {
+                @Override
+                public String extract(final String[] row) {
+                    return row[1];
+                }
+            }, new Extractor<String[], String>() {
+                @Override
+                public String extract(final String[] row) {
+                    return row[2];
+                }
+            });
+
+    /**
+     * Creates a row.
+     * @param id the row identifier
+     * @param parentId the parent identifier
+     * @param data the data
+     * @return the row
+     */
+    private static String[] row(final String id, final String parentId, final String data) {
+        return new String[] {id, parentId, data};
+    }
+
+    /**
+     * Parents may appear after their children, children keep the row order.
+     */
+    @Test
+    public void testBuildOutOfOrder() {
+        final TreeForest<String, String> forest = builder.build(Arrays.asList(
+                row("3", "2", "A.1"), row("2", "1", "A"), row("4", "2", "A.2"),
+                row("1", null, "root"), row("5", "1", "B")));
+        assertThat(data(forest.getRoots()), contains("root"));
+        final MutableTreeNode<String> root = forest.getRoots().get(0);
+        assertThat(data(TreeTraversal.preOrder(root)), contains("root", "A", "A.1", "A.2", "B"));
+        assertSame(root, forest.getNode("2").getParent());
+        assertSame(forest.getNode("2"), forest.getNode("4").getParent());
+        assertNull(forest.getNode("missing"));
+        assertTrue(forest.getOrphans().isEmpty());
+        assertTrue(forest.getCycles().isEmpty());
+    }
+
+    /**
+     * Every row without parent identifier is a root.
+     */
+    @Test
+    public void testBuildMultipleRoots() {
+        final TreeForest<String, String> forest = builder.build(Arrays.asList(
+                row("1", null, "X"), row("2", null, "Y"), row("3", "2", "Y.1")));
+        assertThat(data(forest.getRoots()), contains("X", "Y"));
+        assertThat(data(forest.getRoots().get(1).getChildren()), contains("Y.1"));
+    }
+
+    /**
+     * Rows with unknown parent are reported as detached orphans.
+     */
+    @Test
+    public void testBuildOrphans() {
+        final TreeForest<String, String> forest = builder.build(Arrays.asList(
+                row("1", null, "root"), row("2", "9", "orphan"), row("3", "2", "orphan.1")));
+        assertThat(data(forest.getRoots()), contains("root"));
+        assertThat(data(forest.getOrphans()), contains("orphan"));
+        assertNull(forest.getOrphans().get(0).getParent());
+        assertThat(data(forest.getOrphans().get(0).getChildren()), contains("orphan.1"));
+    }
+
+    /**
+     * Cycles are broken by detaching one of their rows.
+     */
+    @Test
+    public void testBuildCycles() {
+        final TreeForest<String, String> forest = builder.build(Arrays.asList(
+                row("1", "3", "A"), row("2", "1", "B"), row("3", "2", "C"),
+                row("4", "3", "D"), row("5", "5", "self"), row("6", null, "root")));
+        assertThat(data(forest.getRoots()), contains("root"));
+        assertEquals(2, forest.getCycles().size());
+        final MutableTreeNode<String> detached = forest.getCycles().get(0);
+        assertNull(detached.getParent());
+        int count = 0;
+        for (final TreeNode<String> node : TreeTraversal.preOrder(detached)) {
+            assertNotNull(node);
+            count++;
+        }
+        assertEquals(4, count);
+        final MutableTreeNode<String> self = forest.getCycles().get(1);
+        assertEquals("self", self.getData());
+        assertNull(self.getParent());
+        assertTrue(self.isLeaf());
+    }
+
+    /**
+     * Built nodes still follow the MutableTreeNode contract.
+     */
+    @Test
+    public void testBuiltNodesAreMutable() {
+        final TreeForest<String, String> forest = builder.build(Arrays.asList(
+                row("1", null, "root"), row("2", "1", "A")));
+        final MutableTreeNode<String> a = forest.getNode("2");
+        a.removeFromParent();
+        assertTrue(forest.getNode("1").isLeaf());
+        forest.getNode("1").add(a);
+        assertSame(forest.getNode("1"), a.getParent());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeBuilder#build(Iterable)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildDuplicateId() {
+        builder.build(Arrays.asList(row("1", null, "A"), row("1", null, "B")));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeBuilder#build(Iterable)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildNullId() {
+        builder.build(Arrays.<String[]>asList(row(null, null, "A")));
+    }
+}
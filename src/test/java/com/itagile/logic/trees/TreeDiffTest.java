@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.HashedTreeNodeTest.HASHER;
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for TreeDiff, TreePatch and TreeEdit.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeDiffTest {
+    /**
+     * Copies a tree into HashedTreeNode instances.
+     * @param root the root of the tree
+     * @return the root of the copy
+     */
+    private static HashedTreeNode<String> copy(final TreeNode<String> root) {
+        final HashedTreeNode<String> copy = new HashedTreeNode<>(HASHER, root.getData());
+        final Deque<TreeNode<String>> sources = new ArrayDeque<>();
+        final Deque<HashedTreeNode<String>> copies = new ArrayDeque<>();
+        sources.push(root);
+        copies.push(copy);
+        while (!sources.isEmpty()) {
+            final TreeNode<String> source = sources.pop();
+            final HashedTreeNode<String> parent = copies.pop();
+            for (final TreeNode<String> child : source.getChildren()) {
+                copies.push(new HashedTreeNode<>(HASHER, child.getData(), parent));
+                sources.push(child);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Gets a node by path.
+     * @param root the root of the tree
+     * @param path the path of child positions
+     * @return the node
+     */
+    private static HashedTreeNode<String> get(final HashedTreeNode<String> root,
+            final int... path) {
+        HashedTreeNode<String> node = root;
+        for (final int position : path) {
+            node = node.getChild(position);
+        }
+        return node;
+    }
+
+    /**
+     * Describes a tree in pre-order with depths.
+     * @param root the root of the tree
+     * @return the description
+     */
+    private static String describe(final TreeNode<String> root) {
+        final StringBuilder builder = new StringBuilder();
+        TreeTraversal.walk(root, new TreeVisitor<String>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<String> node, final int depth) {
+                builder.append(depth).append(':').append(node.getData()).append(' ');
+                return TreeVisitResult.CONTINUE;
+            }
+        });
+        return builder.toString();
+    }
+
+    /**
+     * Diffs two trees and checks that the patch transforms copies of the source into the target.
+     * @param source the source tree
+     * @param target the target tree
+     * @return the patch
+     */
+    private static TreePatch<String> check(final HashedTreeNode<String> source,
+            final HashedTreeNode<String> target) {
+        final TreePatch<String> patch = TreeDiff.diff(source, target);
+        final HashedTreeNode<String> hashed = copy(source);
+        patch.apply(hashed, data -> new HashedTreeNode<>(HASHER, data));
+        assertEquals(describe(target), describe(hashed));
+        assertEquals(target.getHash(), hashed.getHash());
+        final MutableTreeNode<String> mutable = toDefault(source);
+        patch.apply(mutable, DefaultMutableTreeNode::new);
+        assertEquals(describe(target), describe(mutable));
+        return patch;
+    }
+
+    /**
+     * Copies a tree into DefaultMutableTreeNode instances.
+     * @param root the root of the tree
+     * @return the root of the copy
+     */
+    private static MutableTreeNode<String> toDefault(final TreeNode<String> root) {
+        final MutableTreeNode<String> copy = new DefaultMutableTreeNode<>(root.getData());
+        final Deque<TreeNode<String>> sources = new ArrayDeque<>();
+        final Deque<MutableTreeNode<String>> copies = new ArrayDeque<>();
+        sources.push(root);
+        copies.push(copy);
+        while (!sources.isEmpty()) {
+            final TreeNode<String> source = sources.pop();
+            final MutableTreeNode<String> parent = copies.pop();
+            for (final TreeNode<String> child : source.getChildren()) {
+                copies.push(new DefaultMutableTreeNode<>(child.getData(), parent));
+                sources.push(child);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Equal trees have an empty patch.
+     */
+    @Test
+    public void testEqualTrees() {
+        final TreePatch<String> patch = check(HashedTreeNodeTest.sample(),
+                HashedTreeNodeTest.sample());
+        assertTrue(patch.isEmpty());
+    }
+
+    /**
+     * Test an update.
+     */
+    @Test
+    public void testUpdate() {
+        final HashedTreeNode<String> target = HashedTreeNodeTest.sample();
+        get(target, 0, 1).setData("A.2'");
+        target.setData("root'");
+        final TreePatch<String> patch = check(HashedTreeNodeTest.sample(), target);
+        assertEquals("[UPDATE [] root', UPDATE [0, 1] A.2']", patch.getEdits().toString());
+    }
+
+    /**
+     * Test insertions and deletions.
+     */
+    @Test
+    public void testInsertAndDelete() {
+        final HashedTreeNode<String> target = HashedTreeNodeTest.sample();
+        get(target, 1, 0).removeFromParent();
+        new HashedTreeNode<>(HASHER, "A.0.1", new HashedTreeNode<>(HASHER, "A.0", get(target, 0)));
+        final TreePatch<String> patch = check(HashedTreeNodeTest.sample(), target);
+        assertEquals(2, patch.getEdits().size());
+        final TreeEdit<String> insert = patch.getEdits().get(1);
+        assertEquals(TreeEdit.Type.INSERT, insert.getType());
+        assertArrayEquals(new int[] {0}, insert.getParentPath());
+        assertEquals(2, insert.getIndex());
+        assertEquals("A.0", insert.getSubtree().getData());
+        assertNull(insert.getPath());
+        assertEquals("DELETE [1, 0]", patch.getEdits().get(0).toString());
+    }
+
+    /**
+     * Test moves inside a parent and between parents.
+     */
+    @Test
+    public void testMove() {
+        final HashedTreeNode<String> target = HashedTreeNodeTest.sample();
+        final HashedTreeNode<String> c = get(target, 2);
+        c.removeFromParent();
+        target.add(c);
+        final HashedTreeNode<String> a = get(target, 0);
+        a.removeFromParent();
+        target.add(a);
+        TreePatch<String> patch = check(HashedTreeNodeTest.sample(), target);
+        assertEquals("[MOVE [0] []@2]", patch.getEdits().toString());
+        get(target, 2, 0).setParent(get(target, 0));
+        patch = check(HashedTreeNodeTest.sample(), target);
+        assertEquals("[MOVE [0] []@2, MOVE [0, 0] [1]@1]", patch.getEdits().toString());
+    }
+
+    /**
+     * Changes in a large tree produce a patch proportional to the change.
+     */
+    @Test
+    public void testLargeTree() {
+        final HashedTreeNode<String> source = new HashedTreeNode<>(HASHER, "root");
+        for (int i = 0; i < 100; i++) {
+            final HashedTreeNode<String> child = new HashedTreeNode<>(HASHER, "n" + i, source);
+            for (int j = 0; j < 1000; j++) {
+                new HashedTreeNode<>(HASHER, "n" + i + "." + j, child);
+            }
+        }
+        final HashedTreeNode<String> target = copy(source);
+        get(target, 42, 7).setData("changed");
+        get(target, 3, 999).setParent(get(target, 4));
+        final TreePatch<String> patch = check(source, target);
+        assertEquals("[UPDATE [42, 7] changed, MOVE [3, 999] [4]@1000]",
+                patch.getEdits().toString());
+    }
+
+    /**
+     * Random edits are reproduced by the patch.
+     */
+    @Test
+    public void testRandomEdits() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final HashedTreeNode<String> source = new HashedTreeNode<>(HASHER, "root");
+            final List<HashedTreeNode<String>> nodes = new ArrayList<>();
+            nodes.add(source);
+            for (int i = 0; i < 30; i++) {
+                nodes.add(new HashedTreeNode<>(HASHER, "n" + random.nextInt(10),
+                        nodes.get(random.nextInt(nodes.size()))));
+            }
+            final HashedTreeNode<String> target = copy(source);
+            final List<HashedTreeNode<String>> targetNodes = new ArrayList<>();
+            for (final TreeNode<String> node : TreeTraversal.preOrder(target)) {
+                targetNodes.add((HashedTreeNode<String>) node);
+            }
+            for (int edit = 0; edit < 1 + random.nextInt(5); edit++) {
+                final HashedTreeNode<String> node = targetNodes.get(
+                        1 + random.nextInt(targetNodes.size() - 1));
+                switch (random.nextInt(4)) {
+                case 0:
+                    node.setData("u" + random.nextInt(10));
+                    break;
+                case 1:
+                    targetNodes.add(new HashedTreeNode<>(HASHER, "i" + random.nextInt(10), node));
+                    break;
+                case 2:
+                    if (node.getParent() != null) {
+                        final HashedTreeNode<String> parent = (HashedTreeNode<String>) node
+                                .getParent();
+                        node.removeFromParent();
+                        parent.add(node);
+                    }
+                    break;
+                default:
+                    final HashedTreeNode<String> newParent = targetNodes.get(
+                            random.nextInt(targetNodes.size()));
+                    if (!isInSubtree(newParent, node)) {
+                        node.setParent(newParent);
+                    }
+                    break;
+                }
+            }
+            check(source, target);
+            check(target, source);
+        }
+    }
+
+    /**
+     * Checks if a node is in the subtree of another.
+     * @param node the node
+     * @param root the root of the subtree
+     * @return true if the node is in the subtree
+     */
+    private static boolean isInSubtree(final HashedTreeNode<String> node,
+            final HashedTreeNode<String> root) {
+        for (TreeNode<String> ancestor = node; ancestor != null;
+                ancestor = ((HashedTreeNode<String>) ancestor).getParent()) {
+            if (ancestor == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalid paths and different hashers are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        final HashedTreeNode<String> target = HashedTreeNodeTest.sample();
+        get(target, 0, 0).removeFromParent();
+        final TreePatch<String> patch = TreeDiff.diff(HashedTreeNodeTest.sample(), target);
+        try {
+            patch.apply(new DefaultMutableTreeNode<>("root"), DefaultMutableTreeNode::new);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Invalid path [0, 0]", e.getMessage());
+        }
+        try {
+            TreeDiff.diff(target, new HashedTreeNode<>(new DataHasher<String>() {
+                @Override
+                public long hash(final String data) {
+                    return 0;
+                }
+            }, "root"));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Trees must use the same hasher", e.getMessage());
+        }
+        assertEquals(Arrays.asList(), TreeDiff.diff(target, target).getEdits());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TreeIndex.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeIndexTest {
+    /**
+     * Root of the sample tree root(A(A.1, A.2), B(B.1), C).
+     */
+    private MutableTreeNode<String> root;
+
+    /**
+     * Node A of the sample tree.
+     */
+    private MutableTreeNode<String> a;
+
+    /**
+     * Node A.2 of the sample tree.
+     */
+    private MutableTreeNode<String> a2;
+
+    /**
+     * Node B.1 of the sample tree.
+     */
+    private MutableTreeNode<String> b1;
+
+    /**
+     * Builds the sample tree.
+     */
+    @Before
+    public void setUp() {
+        root = new DefaultMutableTreeNode<>("root");
+        a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        new DefaultMutableTreeNode<>("C", root);
+        new DefaultMutableTreeNode<>("A.1", a);
+        a2 = new DefaultMutableTreeNode<>("A.2", a);
+        b1 = new DefaultMutableTreeNode<>("B.1", b);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeIndex#getDepth(TreeNode)}.
+     */
+    @Test
+    public void testDepthAndRoot() {
+        final TreeIndex<String> index = TreeIndex.build(root);
+        assertEquals(7, index.size());
+        assertSame(root, index.getRoot());
+        assertEquals(0, index.getDepth(root));
+        assertEquals(1, index.getDepth(a));
+        assertEquals(2, index.getDepth(b1));
+        assertEquals(TreeIndex.NONE, index.getParent(0));
+        assertEquals(index.indexOf(a), index.getParent(index.indexOf(a2)));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeIndex#isAncestor(TreeNode, TreeNode)}.
+     */
+    @Test
+    public void testIsAncestor() {
+        final TreeIndex<String> index = TreeIndex.build(root);
+        assertTrue(index.isAncestor(root, b1));
+        assertTrue(index.isAncestor(a, a2));
+        assertFalse(index.isAncestor(a, b1));
+        assertFalse(index.isAncestor(a2, a));
+        assertFalse(index.isAncestor(a, a));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeIndex#getAncestor(TreeNode, int)}.
+     */
+    @Test
+    public void testGetAncestor() {
+        final TreeIndex<String> index = TreeIndex.build(root);
+        assertSame(a2, index.getAncestor(a2, 0));
+        assertSame(a, index.getAncestor(a2, 1));
+        assertSame(root, index.getAncestor(a2, 2));
+        assertNull(index.getAncestor(a2, 3));
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.TreeIndex#lowestCommonAncestor(TreeNode, TreeNode)}.
+     */
+    @Test
+    public void testLowestCommonAncestor() {
+        final TreeIndex<String> index = TreeIndex.build(root);
+        assertSame(root, index.lowestCommonAncestor(a2, b1));
+        assertSame(a, index.lowestCommonAncestor(a2, a));
+        assertSame(a, index.lowestCommonAncestor(a, a2));
+        assertSame(a2, index.lowestCommonAncestor(a2, a2));
+        assertSame(root, index.lowestCommonAncestor(b1, root));
+    }
+
+    /**
+     * Nodes of other trees are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeNotInIndex() {
+        TreeIndex.build(root).isAncestor(root, new DefaultMutableTreeNode<>("X"));
+    }
+
+    /**
+     * Indexes of frozen trees find equal node views.
+     */
+    @Test
+    public void testFrozenTreeViews() {
+        final FrozenTree<String> tree = FrozenTree.freeze(root);
+        final TreeIndex<String> index = TreeIndex.build(tree.getRoot());
+        assertEquals(3, index.indexOf(tree.getNode(3)));
+        assertTrue(index.isAncestor(tree.getNode(1), tree.getNode(3)));
+    }
+
+    /**
+     * Queries on random trees agree with walks of the parent chains.
+     */
+    @Test
+    public void testRandomTreesAgainstParentChains() {
+        final Random random = new Random(13);
+        for (int round = 0; round < 20; round++) {
+            final List<MutableTreeNode<Integer>> nodes = new ArrayList<>();
+            nodes.add(new DefaultMutableTreeNode<>(0));
+            final int size = 1 + random.nextInt(300);
+            for (int i = 1; i < size; i++) {
+                nodes.add(new DefaultMutableTreeNode<>(i, nodes.get(random.nextInt(i))));
+            }
+            final TreeIndex<Integer> index = TreeIndex.build(nodes.get(0));
+            for (int q = 0; q < 500; q++) {
+                final MutableTreeNode<Integer> x = nodes.get(random.nextInt(size));
+                final MutableTreeNode<Integer> y = nodes.get(random.nextInt(size));
+                final List<TreeNode<Integer>> xPath = pathToRoot(x);
+                final List<TreeNode<Integer>> yPath = pathToRoot(y);
+                assertEquals(xPath.size() - 1, index.getDepth(x));
+                assertEquals(xPath.contains(y) && x != y, index.isAncestor(y, x));
+                final int k = random.nextInt(xPath.size() + 1);
+                assertSame(k < xPath.size() ? xPath.get(k) : null, index.getAncestor(x, k));
+                TreeNode<Integer> lca = null;
+                for (final TreeNode<Integer> node : xPath) {
+                    if (yPath.contains(node)) {
+                        lca = node;
+                        break;
+                    }
+                }
+                assertSame(lca, index.lowestCommonAncestor(x, y));
+            }
+        }
+    }
+
+    /**
+     * Deep chains are indexed without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final int depth = 100_000;
+        final MutableTreeNode<Integer> chain = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = chain;
+        for (int i = 1; i < depth; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        final TreeIndex<Integer> index = TreeIndex.build(chain);
+        assertEquals(depth - 1, index.getDepth(last));
+        assertTrue(index.isAncestor(chain, last));
+        assertSame(chain, index.getAncestor(last, depth - 1));
+        assertEquals(12_345, index.getAncestor(depth - 1, depth - 1 - 12_345));
+        assertEquals(12_345, index.lowestCommonAncestor(12_345, 99_999));
+    }
+
+    /**
+     * Gets the nodes from a node up to the root.
+     * @param node the node
+     * @return the node and its ancestors
+     */
+    private static List<TreeNode<Integer>> pathToRoot(final MutableTreeNode<Integer> node) {
+        final List<TreeNode<Integer>> path = new ArrayList<>();
+        for (TreeNode<Integer> current = node; current != null;
+                current = ((MutableTreeNode<Integer>) current).getParent()) {
+            path.add(current);
+        }
+        return path;
+    }
+}
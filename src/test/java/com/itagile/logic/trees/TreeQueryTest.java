@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+/**
+ * Tests for TreeQuery.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeQueryTest {
+    /**
+     * Builds the tree root(A(X(L1), Y), B(X(L2, L3)), C).
+     * @return the root node
+     */
+    private static MutableTreeNode<String> sample() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final MutableTreeNode<String> a = new DefaultMutableTreeNode<>("A", root);
+        final MutableTreeNode<String> b = new DefaultMutableTreeNode<>("B", root);
+        new DefaultMutableTreeNode<>("C", root);
+        new DefaultMutableTreeNode<>("L1", new DefaultMutableTreeNode<>("X", a));
+        new DefaultMutableTreeNode<>("Y", a);
+        final MutableTreeNode<String> x = new DefaultMutableTreeNode<>("X", b);
+        new DefaultMutableTreeNode<>("L2", x);
+        new DefaultMutableTreeNode<>("L3", x);
+        return root;
+    }
+
+    /**
+     * Selects the data of the nodes matched by a query.
+     * @param query the query
+     * @param root the root node
+     * @return the data of the selected nodes
+     */
+    private static List<String> select(final String query, final TreeNode<String> root) {
+        final List<String> list = new ArrayList<>();
+        for (final TreeNode<String> node : TreeQuery.<String>compile(query).select(root)) {
+            list.add(node.getData());
+        }
+        return list;
+    }
+
+    /**
+     * Child and descendant steps with name tests.
+     */
+    @Test
+    public void testAxes() {
+        final MutableTreeNode<String> root = sample();
+        assertThat(select("/*", root), contains("root"));
+        assertThat(select("/root/A", root), contains("A"));
+        assertTrue(select("/A", root).isEmpty());
+        assertThat(select("//X", root), contains("X", "X"));
+        assertThat(select("//X/*", root), contains("L1", "L2", "L3"));
+        assertThat(select("//*//*", root),
+                contains("A", "X", "L1", "Y", "B", "X", "L2", "L3", "C"));
+        assertThat(select(" / root // 'L2' ", root), contains("L2"));
+        assertThat(select("//\"X\"/L3", root), contains("L3"));
+    }
+
+    /**
+     * Position, last, leaf and depth filters.
+     */
+    @Test
+    public void testFilters() {
+        final MutableTreeNode<String> root = sample();
+        assertThat(select("/*/*[2]", root), contains("B"));
+        assertThat(select("/*/*[last]", root), contains("C"));
+        assertThat(select("//*[leaf]", root), contains("L1", "Y", "L2", "L3", "C"));
+        assertThat(select("//*[depth=2]", root), contains("X", "Y", "X"));
+        assertThat(select("//*[depth >= 3]", root), contains("L1", "L2", "L3"));
+        assertThat(select("//*[depth<2][depth>0]", root), contains("A", "B", "C"));
+        assertThat(select("//X[depth=2]//*[leaf][1]", root), contains("L1", "L2"));
+        assertThat(select("//*[leaf][last][depth<=2]", root), contains("Y", "C"));
+    }
+
+    /**
+     * Named predicates as node tests and filters; evaluation prunes subtrees that cannot match.
+     */
+    @Test
+    public void testPredicates() {
+        final AtomicInteger tests = new AtomicInteger();
+        final Map<String, Predicate<String>> predicates = Collections.<String,
+                Predicate<String>>singletonMap("leafName", data -> {
+                    tests.incrementAndGet();
+                    return data.startsWith("L");
+                });
+        final MutableTreeNode<String> root = sample();
+        final TreeQuery<String> query = TreeQuery.compile("/root/B/*/$leafName", predicates);
+        assertEquals(2, query.select(root).size());
+        assertEquals(2, tests.get());
+        tests.set(0);
+        final TreeQuery<String> first = TreeQuery.compile("//*[$leafName]", predicates);
+        assertEquals("L1", first.selectFirst(root).getData());
+        assertEquals(4, tests.get());
+        assertNull(TreeQuery.<String>compile("//Z").selectFirst(root));
+        assertEquals("//*[$leafName]", first.toString());
+    }
+
+    /**
+     * The visitor can skip the selected nodes below a node and terminate the evaluation.
+     */
+    @Test
+    public void testEvaluate() {
+        final MutableTreeNode<String> root = sample();
+        final List<String> visited = new ArrayList<>();
+        assertTrue(TreeQuery.<String>compile("//*").evaluate(root, (node, depth) -> {
+            visited.add(node.getData() + depth);
+            return "A".equals(node.getData()) ? TreeVisitResult.SKIP_SUBTREE
+                    : TreeVisitResult.CONTINUE;
+        }));
+        assertThat(visited, contains("root0", "A1", "B1", "X2", "L23", "L33", "C1"));
+        visited.clear();
+        assertFalse(TreeQuery.<String>compile("//X").evaluate(root, (node, depth) -> {
+            visited.add(node.getData());
+            return TreeVisitResult.TERMINATE;
+        }));
+        assertThat(visited, contains("X"));
+    }
+
+    /**
+     * Syntax errors and unknown names are reported when compiling.
+     */
+    @Test
+    public void testCompileErrors() {
+        for (final String query : new String[] {"", "A", "//", "//A[", "//A[leaf", "//A[foo]",
+            "//$missing", "//*[$missing]", "//*[0]", "//*[depth]", "//*[depth!=1]", "//'A",
+            "//*[99999999999]"}) {
+            try {
+                TreeQuery.compile(query);
+                fail(query);
+            } catch (final IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().endsWith(" in " + query));
+            }
+        }
+        final StringBuilder tooLong = new StringBuilder();
+        for (int i = 0; i <= TreeQuery.MAX_STEPS; i++) {
+            tooLong.append("/*");
+        }
+        try {
+            TreeQuery.compile(tooLong.toString());
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("More than"));
+        }
+    }
+
+    /**
+     * Deep chains are evaluated without recursion, and child steps stop descending early.
+     */
+    @Test
+    public void testDeepChain() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("0");
+        MutableTreeNode<String> node = root;
+        for (int i = 1; i < DEEP; i++) {
+            node = new DefaultMutableTreeNode<>(Integer.toString(i), node);
+        }
+        assertThat(select("//*[leaf]", root), contains(Integer.toString(DEEP - 1)));
+        assertThat(select("//*[depth=" + (DEEP - 2) + "]/*", root),
+                contains(Integer.toString(DEEP - 1)));
+        assertThat(select("/*/*/*", root), contains("2"));
+    }
+
+    /**
+     * Random queries on random trees against a step by step evaluation of node sets.
+     */
+    @Test
+    public void testRandomQueries() {
+        final Random random = new Random(24);
+        final Map<String, Predicate<String>> predicates = Collections.<String,
+                Predicate<String>>singletonMap("even",
+                        data -> Integer.parseInt(data) % 2 == 0);
+        final String[] filters = {"", "", "[leaf]", "[last]", "[1]", "[2]", "[depth<=2]",
+            "[depth>1]", "[$even]"};
+        for (int round = 0; round < 200; round++) {
+            final List<MutableTreeNode<String>> nodes = new ArrayList<>();
+            nodes.add(new DefaultMutableTreeNode<>("0"));
+            for (int i = 1; i < 60; i++) {
+                nodes.add(new DefaultMutableTreeNode<>(Integer.toString(random.nextInt(4)),
+                        nodes.get(random.nextInt(nodes.size()))));
+            }
+            final Model model = new Model(nodes.get(0));
+            final StringBuilder query = new StringBuilder();
+            final int steps = 1 + random.nextInt(4);
+            List<Integer> selected = Collections.singletonList(-1);
+            for (int step = 0; step < steps; step++) {
+                final boolean descendant = random.nextBoolean();
+                final String name = random.nextInt(3) == 0 ? "*"
+                        : Integer.toString(random.nextInt(4));
+                final String filter = filters[random.nextInt(filters.length)];
+                query.append(descendant ? "//" : "/").append(name).append(filter);
+                selected = model.step(selected, descendant, name, filter);
+            }
+            final List<TreeNode<String>> expected = new ArrayList<>();
+            for (final int index : selected) {
+                expected.add(model.nodes.get(index));
+            }
+            assertEquals(query.toString(), expected,
+                    TreeQuery.compile(query.toString(), predicates).select(nodes.get(0)));
+        }
+    }
+
+    /**
+     * A tree in pre-order arrays, evaluating queries one step at a time over sets of nodes.
+     */
+    private static final class Model {
+        /**
+         * Nodes in pre-order.
+         */
+        private final List<TreeNode<String>> nodes = new ArrayList<>();
+
+        /**
+         * Parent index of every node, -1 for the root.
+         */
+        private final List<Integer> parents = new ArrayList<>();
+
+        /**
+         * Depth of every node.
+         */
+        private final List<Integer> depths = new ArrayList<>();
+
+        /**
+         * Position of every node among its siblings, from 1.
+         */
+        private final List<Integer> positions = new ArrayList<>();
+
+        /**
+         * If every node is the last of its siblings.
+         */
+        private final List<Boolean> lasts = new ArrayList<>();
+
+        /**
+         * Builds the model of a tree.
+         * @param root the root node
+         */
+        Model(final TreeNode<String> root) {
+            final Map<TreeNode<String>, Integer> indexes = new IdentityHashMap<>();
+            for (final TreeNode<String> node : TreeTraversal.preOrder(root)) {
+                indexes.put(node, nodes.size());
+                nodes.add(node);
+                parents.add(-1);
+                depths.add(0);
+                positions.add(1);
+                lasts.add(true);
+            }
+            for (final TreeNode<String> node : nodes) {
+                final int parent = indexes.get(node);
+                int position = 0;
+                int last = -1;
+                for (final TreeNode<String> child : node.getChildren()) {
+                    last = indexes.get(child);
+                    parents.set(last, parent);
+                    depths.set(last, depths.get(parent) + 1);
+                    positions.set(last, ++position);
+                    lasts.set(last, false);
+                }
+                if (last >= 0) {
+                    lasts.set(last, true);
+                }
+            }
+        }
+
+        /**
+         * Checks if a node is below another one.
+         * @param index the node index
+         * @param ancestor the ancestor index, -1 for above the root
+         * @param descendant if any depth is allowed, or just children
+         * @return true if the node is below the ancestor
+         */
+        private boolean isBelow(final int index, final int ancestor, final boolean descendant) {
+            if (!descendant) {
+                return parents.get(index) == ancestor;
+            }
+            for (int up = parents.get(index); up >= 0; up = parents.get(up)) {
+                if (up == ancestor) {
+                    return true;
+                }
+            }
+            return ancestor < 0;
+        }
+
+        /**
+         * Evaluates a step.
+         * @param context the selected nodes of the previous step, in pre-order
+         * @param descendant if the step selects descendants
+         * @param name the name test
+         * @param filter the filter
+         * @return the selected nodes in pre-order
+         */
+        List<Integer> step(final List<Integer> context, final boolean descendant,
+                final String name, final String filter) {
+            final List<Integer> selected = new ArrayList<>();
+            for (int index = 0; index < nodes.size(); index++) {
+                boolean below = false;
+                for (final int ancestor : context) {
+                    below |= isBelow(index, ancestor, descendant);
+                }
+                if (below && ("*".equals(name) || name.equals(nodes.get(index).getData()))
+                        && matches(index, filter)) {
+                    selected.add(index);
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * Checks a filter.
+         * @param index the node index
+         * @param filter the filter
+         * @return true if the node passes the filter
+         */
+        private boolean matches(final int index, final String filter) {
+            switch (filter) {
+            case "[leaf]":
+                return nodes.get(index).isLeaf();
+            case "[last]":
+                return lasts.get(index);
+            case "[1]":
+                return positions.get(index) == 1;
+            case "[2]":
+                return positions.get(index) == 2;
+            case "[depth<=2]":
+                return depths.get(index) <= 2;
+            case "[depth>1]":
+                return depths.get(index) > 1;
+            case "[$even]":
+                return Integer.parseInt(nodes.get(index).getData()) % 2 == 0;
+            default:
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static com.itagile.logic.trees.TestTrees.data;
+import static com.itagile.logic.trees.TestTrees.sample;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for TreeTraversal and its iterators.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeTraversalTest {
+    /**
+     * Builds a chain of {@link #DEEP} nodes.
+     * @return the root node
+     */
+    private static TreeNode<Integer> chain() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < DEEP; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        return root;
+    }
+
+    /**
+     * Counts the nodes.
+     * @param nodes the nodes
+     * @return the number of nodes
+     */
+    private static int count(final Iterable<? extends TreeNode<?>> nodes) {
+        int count = 0;
+        for (final Iterator<?> it = nodes.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#preOrder(TreeNode)}.
+     */
+    @Test
+    public void testPreOrder() {
+        assertThat(data(TreeTraversal.preOrder(sample())),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#postOrder(TreeNode)}.
+     */
+    @Test
+    public void testPostOrder() {
+        assertThat(data(TreeTraversal.postOrder(sample())),
+                contains("A.1", "A.2", "A", "B.1", "B", "C", "root"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#levelOrder(TreeNode)}.
+     */
+    @Test
+    public void testLevelOrder() {
+        assertThat(data(TreeTraversal.levelOrder(sample())),
+                contains("root", "A", "B", "C", "A.1", "A.2", "B.1"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#leaves(TreeNode)}.
+     */
+    @Test
+    public void testLeaves() {
+        assertThat(data(TreeTraversal.leaves(sample())), contains("A.1", "A.2", "B.1", "C"));
+    }
+
+    /**
+     * A single leaf is returned once by every traversal.
+     */
+    @Test
+    public void testSingleLeaf() {
+        final TreeNode<String> leaf = new DefaultMutableTreeNode<>("leaf");
+        assertThat(data(TreeTraversal.preOrder(leaf)), contains("leaf"));
+        assertThat(data(TreeTraversal.postOrder(leaf)), contains("leaf"));
+        assertThat(data(TreeTraversal.levelOrder(leaf)), contains("leaf"));
+        assertThat(data(TreeTraversal.leaves(leaf)), contains("leaf"));
+    }
+
+    /**
+     * Deep chains do not overflow the call stack.
+     */
+    @Test
+    public void testDeepChain() {
+        final TreeNode<Integer> root = chain();
+        assertEquals(DEEP, count(TreeTraversal.preOrder(root)));
+        assertEquals(DEEP, count(TreeTraversal.postOrder(root)));
+        assertEquals(DEEP, count(TreeTraversal.levelOrder(root)));
+        assertEquals(1, count(TreeTraversal.leaves(root)));
+        final int[] maxDepth = new int[1];
+        assertTrue(TreeTraversal.walk(root, new TreeVisitor<Integer>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<Integer> node, final int depth) {
+                maxDepth[0] = Math.max(maxDepth[0], depth);
+                return TreeVisitResult.CONTINUE;
+            }
+        }));
+        assertEquals(DEEP - 1, maxDepth[0]);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.AbstractTreeIterator#reset(TreeNode)}.
+     */
+    @Test
+    public void testReset() {
+        final PostOrderIterator<String> iterator = new PostOrderIterator<>(sample());
+        iterator.next();
+        iterator.reset(new DefaultMutableTreeNode<>("other"));
+        assertEquals("other", iterator.next().getData());
+        assertFalse(iterator.hasNext());
+        iterator.reset(null);
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.AbstractTreeIterator#next()}.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testNextExhausted() {
+        final Iterator<TreeNode<String>> iterator = new LevelOrderIterator<>(null);
+        iterator.next();
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.AbstractTreeIterator#remove()}.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemove() {
+        final Iterator<TreeNode<String>> iterator = new PreOrderIterator<>(sample());
+        iterator.next();
+        iterator.remove();
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#walk}.
+     */
+    @Test
+    public void testWalkSkipSubtree() {
+        final List<String> visited = new ArrayList<>();
+        assertTrue(TreeTraversal.walk(sample(), new TreeVisitor<String>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<String> node, final int depth) {
+                visited.add(node.getData() + "@" + depth);
+                return "A".equals(node.getData()) ? TreeVisitResult.SKIP_SUBTREE
+                        : TreeVisitResult.CONTINUE;
+            }
+        }));
+        assertThat(visited, contains("root@0", "A@1", "B@1", "B.1@2", "C@1"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#walk}.
+     */
+    @Test
+    public void testWalkTerminate() {
+        final List<String> visited = new ArrayList<>();
+        assertFalse(TreeTraversal.walk(sample(), new TreeVisitor<String>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<String> node, final int depth) {
+                visited.add(node.getData());
+                return "A.2".equals(node.getData()) ? TreeVisitResult.TERMINATE
+                        : TreeVisitResult.CONTINUE;
+            }
+        }));
+        assertThat(visited, contains("root", "A", "A.1", "A.2"));
+    }
+
+    /**
+     * Skipping the root subtree only visits the root.
+     */
+    @Test
+    public void testWalkSkipRoot() {
+        final List<String> visited = new ArrayList<>();
+        TreeTraversal.walk(sample(), new TreeVisitor<String>() {
+            @Override
+            public TreeVisitResult visit(final TreeNode<String> node, final int depth) {
+                visited.add(node.getData());
+                return TreeVisitResult.SKIP_SUBTREE;
+            }
+        });
+        assertThat(visited, contains("root"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#stream(TreeNode)}.
+     */
+    @Test
+    public void testStream() {
+        assertThat(TreeTraversal.stream(sample()).map(TreeNode::getData)
+                .collect(Collectors.toList()),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertEquals(0, TreeTraversal.stream(null).count());
+        assertEquals(DEEP, TreeTraversal.stream(chain()).count());
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeTraversal#parallelStream(TreeNode)}.
+     */
+    @Test
+    public void testParallelStream() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        int id = 0;
+        for (int i = 0; i < 100; i++) {
+            final MutableTreeNode<Integer> child = new DefaultMutableTreeNode<>(++id, root);
+            for (int j = 0; j < i; j++) {
+                new DefaultMutableTreeNode<>(++id, child);
+            }
+        }
+        final List<Integer> sequential = data(TreeTraversal.preOrder(root));
+        assertEquals(sequential, TreeTraversal.parallelStream(root).map(TreeNode::getData)
+                .collect(Collectors.toList()));
+        assertEquals(sequential, TreeTraversal.parallelStream(FrozenTree.freeze(root).getRoot())
+                .map(TreeNode::getData).collect(Collectors.toList()));
+        assertEquals(id / 2 + 1, TreeTraversal.parallelStream(root)
+                .filter(node -> node.getData() % 2 == 0).count());
+        assertEquals(DEEP, TreeTraversal.parallelStream(chain()).count());
+    }
+}
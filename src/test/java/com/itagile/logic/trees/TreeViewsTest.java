@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees;
+
+import static com.itagile.logic.trees.TestTrees.DEEP;
+import static com.itagile.logic.trees.TestTrees.data;
+import static com.itagile.logic.trees.TestTrees.sample;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for TreeViews.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeViewsTest {
+    /**
+     * Creates a predicate counting its calls.
+     * @param calls the counter
+     * @param suffix the suffix of the matching data objects
+     * @return the predicate
+     */
+    private static Predicate<String> endsWith(final AtomicInteger calls, final String suffix) {
+        return data -> {
+            calls.incrementAndGet();
+            return data.endsWith(suffix);
+        };
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeViews#prune(TreeNode, Predicate)}.
+     */
+    @Test
+    public void testPrune() {
+        final MutableTreeNode<String> root = sample();
+        final TreeNode<String> view = TreeViews.prune(root, data -> !data.startsWith("A"));
+        assertThat(data(TreeTraversal.preOrder(view)), contains("root", "B", "B.1", "C"));
+        assertNull(TreeViews.prune(root, data -> false));
+        assertNull(TreeViews.prune(null, data -> true));
+        final TreeNode<String> leaves = TreeViews.prune(root, data -> !data.contains("."));
+        assertThat(data(TreeTraversal.leaves(leaves)), contains("A", "B", "C"));
+        new DefaultMutableTreeNode<>("D", root);
+        assertThat(data(view.getChildren()), contains("B", "C", "D"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeViews#filter(TreeNode, Predicate)}.
+     */
+    @Test
+    public void testFilter() {
+        final TreeNode<String> view = TreeViews.filter(sample(), data -> data.endsWith(".2"));
+        assertThat(data(TreeTraversal.preOrder(view)), contains("root", "A", "A.2"));
+        assertFalse(view.isLeaf());
+        assertNull(TreeViews.filter(sample(), data -> false));
+        final TreeNode<String> rootOnly = TreeViews.filter(sample(), data -> data.equals("root"));
+        assertTrue(rootOnly.isLeaf());
+        assertThat(data(TreeTraversal.preOrder(TreeViews.filter(sample(),
+                data -> data.startsWith("B")))), contains("root", "B", "B.1"));
+    }
+
+    /**
+     * Predicates are only evaluated while the view is iterated.
+     */
+    @Test
+    public void testLazy() {
+        final AtomicInteger calls = new AtomicInteger();
+        final TreeNode<String> view = TreeViews.prune(sample(), endsWith(calls, ""));
+        assertEquals(1, calls.get());
+        final TreeNode<String> first = view.getChildren().iterator().next();
+        assertEquals("A", first.getData());
+        assertEquals(2, calls.get());
+        calls.set(0);
+        final TreeNode<String> filtered = TreeViews.filter(sample(), endsWith(calls, ".1"));
+        assertEquals(3, calls.get());
+        assertThat(data(filtered.getChildren()), contains("A", "B"));
+    }
+
+    /**
+     * Memoized views evaluate each node once.
+     */
+    @Test
+    public void testMemoize() {
+        final AtomicInteger calls = new AtomicInteger();
+        final TreeNode<String> view = TreeViews.filter(sample(), endsWith(calls, ".1"), true);
+        for (int i = 0; i < 3; i++) {
+            assertThat(data(TreeTraversal.preOrder(view)), contains("root", "A", "A.1", "B",
+                    "B.1"));
+        }
+        assertEquals(7, calls.get());
+        calls.set(0);
+        final TreeNode<String> unmemoized = TreeViews.filter(sample(), endsWith(calls, ".1"));
+        data(TreeTraversal.preOrder(unmemoized));
+        final int once = calls.get();
+        data(TreeTraversal.preOrder(unmemoized));
+        assertTrue(once > 7);
+        assertEquals(2 * once - 3, calls.get());
+        calls.set(0);
+        final TreeNode<String> pruned = TreeViews.prune(sample(), endsWith(calls, ""), true);
+        data(TreeTraversal.preOrder(pruned));
+        data(TreeTraversal.preOrder(pruned));
+        assertEquals(7, calls.get());
+    }
+
+    /**
+     * Test method for
+     * {@link com.itagile.logic.trees.TreeViews#map(TreeNode, java.util.function.Function)}.
+     */
+    @Test
+    public void testMap() {
+        final TreeNode<Integer> view = TreeViews.map(sample(), String::length);
+        assertThat(data(TreeTraversal.preOrder(view)), contains(4, 1, 3, 3, 1, 3, 1));
+        assertNull(TreeViews.map(null, String::length));
+        final TreeNode<String> menu = TreeViews.map(TreeViews.prune(sample(),
+                data -> !data.equals("B")), data -> "<" + data + ">");
+        assertThat(data(TreeTraversal.preOrder(menu)), contains("<root>", "<A>", "<A.1>",
+                "<A.2>", "<C>"));
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.TreeViews#limitDepth(TreeNode, int)}.
+     */
+    @Test
+    public void testLimitDepth() {
+        final TreeNode<String> view = TreeViews.limitDepth(sample(), 1);
+        assertThat(data(TreeTraversal.preOrder(view)), contains("root", "A", "B", "C"));
+        assertThat(data(TreeTraversal.leaves(view)), contains("A", "B", "C"));
+        assertTrue(TreeViews.limitDepth(sample(), 0).isLeaf());
+        assertThat(data(TreeTraversal.preOrder(TreeViews.limitDepth(sample(), 5))),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        try {
+            TreeViews.limitDepth(sample(), -1);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Maximum depth must not be negative", e.getMessage());
+        }
+    }
+
+    /**
+     * Deep chains are filtered without recursion.
+     */
+    @Test
+    public void testDeepChain() {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("0");
+        MutableTreeNode<String> node = root;
+        for (int i = 1; i < DEEP; i++) {
+            node = new DefaultMutableTreeNode<>(Integer.toString(i), node);
+        }
+        final String last = Integer.toString(DEEP - 1);
+        final AtomicInteger calls = new AtomicInteger();
+        final TreeNode<String> view = TreeViews.filter(root, endsWith(calls, last), true);
+        int count = 0;
+        for (final TreeNode<String> visible : TreeTraversal.preOrder(view)) {
+            assertNotNull(visible);
+            count++;
+        }
+        assertEquals(DEEP, count);
+        assertEquals(DEEP, calls.get());
+        assertEquals(DEEP / 2 + 1, TreeTraversal.stream(TreeViews.limitDepth(root, DEEP / 2))
+                .count());
+    }
+
+    /**
+     * Test JSON serialization.
+     * @throws JsonProcessingException if serialization fails
+     * @throws JSONException if the JSON is invalid
+     */
+    @Test
+    public void testJson() throws JsonProcessingException, JSONException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final MutableTreeNode<String> expected = new DefaultMutableTreeNode<>("root");
+        new DefaultMutableTreeNode<>("A.2", new DefaultMutableTreeNode<>("A", expected));
+        JSONAssert.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(
+                TreeViews.filter(sample(), data -> data.endsWith(".2"))), true);
+    }
+}
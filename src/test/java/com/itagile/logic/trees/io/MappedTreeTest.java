@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import static com.itagile.logic.trees.TestTrees.data;
+import static com.itagile.logic.trees.TestTrees.sample;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.FrozenTree;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+
+/**
+ * Tests for TreeFileWriter, MappedTree and MappedTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class MappedTreeTest {
+    /**
+     * Folder of the tree files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes a tree and maps it back.
+     * @param root the root node
+     * @param codec the data codec
+     * @param <T> the type of data object in the nodes
+     * @return the mapped tree
+     * @throws IOException fatal error on I/O
+     */
+    private <T> MappedTree<T> roundTrip(final TreeNode<T> root, final DataCodec<T> codec)
+            throws IOException {
+        final Path file = folder.newFile().toPath();
+        TreeFileWriter.write(root, codec, file);
+        return MappedTree.open(file, codec);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.io.MappedTree#open(Path, DataCodec)}.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testRoundTripKeepsStructure() throws IOException {
+        final MappedTree<String> tree = roundTrip(sample(), DataCodecs.UTF8);
+        assertEquals(7, tree.size());
+        assertThat(data(TreeTraversal.preOrder(tree.getRoot())),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertThat(data(TreeTraversal.levelOrder(tree.getRoot())),
+                contains("root", "A", "B", "C", "A.1", "A.2", "B.1"));
+        assertThat(data(tree.getRoot().getChildren()), contains("A", "B", "C"));
+        assertEquals(tree.getNode(1), tree.getNode(3).getParent());
+        assertNull(tree.getRoot().getParent());
+    }
+
+    /**
+     * Test method for the index based accessors of {@link com.itagile.logic.trees.io.MappedTree}.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testIndexAccess() throws IOException {
+        final MappedTree<String> tree = roundTrip(sample(), DataCodecs.UTF8);
+        final FrozenTree<String> frozen = FrozenTree.freeze(sample());
+        for (int i = 0; i < tree.size(); i++) {
+            assertEquals(frozen.getData(i), tree.getData(i));
+            assertEquals(frozen.getParent(i), tree.getParent(i));
+            assertEquals(frozen.getFirstChild(i), tree.getFirstChild(i));
+            assertEquals(frozen.getNextSibling(i), tree.getNextSibling(i));
+            assertEquals(frozen.getSubtreeSize(i), tree.getSubtreeSize(i));
+            assertEquals(frozen.isLeaf(i), tree.isLeaf(i));
+        }
+    }
+
+    /**
+     * Null and empty data objects are kept apart.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testNullAndEmptyData() throws IOException {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>(null);
+        root.add(new DefaultMutableTreeNode<>("")).add(new DefaultMutableTreeNode<String>(null))
+                .add(new DefaultMutableTreeNode<>("árbol"));
+        assertThat(data(TreeTraversal.preOrder(roundTrip(root, DataCodecs.UTF8).getRoot())),
+                contains(null, "", null, "árbol"));
+    }
+
+    /**
+     * Mapped leaves and empty trees.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testLeafAndEmpty() throws IOException {
+        final MappedTree<Long> leaf = roundTrip(new DefaultMutableTreeNode<>(Long.MAX_VALUE),
+                DataCodecs.LONG);
+        assertEquals(1, leaf.size());
+        assertTrue(leaf.getRoot().isLeaf());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), leaf.getRoot().getData());
+        final MappedTree<Long> empty = roundTrip(null, DataCodecs.LONG);
+        assertEquals(0, empty.size());
+        assertNull(empty.getRoot());
+    }
+
+    /**
+     * Deep chains are written and read without recursion.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testDeepChain() throws IOException {
+        final int depth = 100_000;
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        final MappedTree<Integer> tree = roundTrip(root, DataCodecs.INTEGER);
+        assertEquals(depth, tree.size());
+        assertEquals(depth, tree.getSubtreeSize(0));
+        assertEquals(depth - 2, tree.getParent(depth - 1));
+        assertEquals(Integer.valueOf(depth - 1), tree.getData(depth - 1));
+        int count = 0;
+        for (final TreeNode<Integer> node : TreeTraversal.preOrder(tree.getRoot())) {
+            assertEquals(Integer.valueOf(count++), node.getData());
+        }
+        assertEquals(depth, count);
+    }
+
+    /**
+     * Data objects that cross the boundaries of the data chunks.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testSmallChunks() throws IOException {
+        final MutableTreeNode<String> root = new DefaultMutableTreeNode<>("root");
+        final List<String> expected = new ArrayList<>(Arrays.asList("root"));
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            builder.append((char) ('a' + i % 26));
+            new DefaultMutableTreeNode<>(builder.toString(), root);
+            expected.add(builder.toString());
+        }
+        final Path file = folder.newFile().toPath();
+        TreeFileWriter.write(root, DataCodecs.UTF8, file);
+        final MappedTree<String> tree = MappedTree.open(file, DataCodecs.UTF8, 7);
+        assertEquals(expected, data(TreeTraversal.preOrder(tree.getRoot())));
+    }
+
+    /**
+     * Frozen trees are written without freezing them again.
+     * @throws IOException fatal error on I/O
+     */
+    @Test
+    public void testWriteFrozenTree() throws IOException {
+        final MappedTree<Double> tree = roundTrip(FrozenTree.freeze(
+                new DefaultMutableTreeNode<>(1.5).add(new DefaultMutableTreeNode<>(-2.0)))
+                .getRoot(), DataCodecs.DOUBLE);
+        assertThat(data(TreeTraversal.preOrder(tree.getRoot())), contains(1.5, -2.0));
+    }
+
+    /**
+     * Files that are not tree files are rejected.
+     * @throws IOException fatal error on I/O
+     */
+    @Test(expected = IOException.class)
+    public void testOpenNotTreeFile() throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, "{\"data\":1}".getBytes("UTF-8"));
+        MappedTree.open(file, DataCodecs.INTEGER);
+    }
+
+    /**
+     * Truncated tree files are rejected.
+     * @throws IOException fatal error on I/O
+     */
+    @Test(expected = IOException.class)
+    public void testOpenTruncatedFile() throws IOException {
+        final Path file = folder.newFile().toPath();
+        TreeFileWriter.write(sample(), DataCodecs.UTF8, file);
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        MappedTree.open(file, DataCodecs.UTF8);
+    }
+
+    /**
+     * Test method for {@link com.itagile.logic.trees.io.MappedTree#getNode(int)}.
+     * @throws IOException fatal error on I/O
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetNodeOutOfRange() throws IOException {
+        roundTrip(sample(), DataCodecs.UTF8).getNode(7);
+    }
+
+    /**
+     * Mapped trees serialize to JSON like the source tree.
+     * @throws IOException fatal error on I/O
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testJsonSerialization() throws IOException, JSONException {
+        final MutableTreeNode<String> root = sample();
+        final ObjectMapper mapper = new ObjectMapper();
+        JSONAssert.assertEquals(mapper.writeValueAsString(root),
+                mapper.writeValueAsString(roundTrip(root, DataCodecs.UTF8).getRoot()), true);
+    }
+}
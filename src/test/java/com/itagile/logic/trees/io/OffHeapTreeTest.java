@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.io;
+
+import static com.itagile.logic.trees.TestTrees.data;
+import static com.itagile.logic.trees.TestTrees.sample;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+
+/**
+ * Tests for OffHeapTree and OffHeapTreeNode.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class OffHeapTreeTest {
+    /**
+     * Test method for {@link com.itagile.logic.trees.io.OffHeapTree#copyOf(TreeNode, DataCodec)}.
+     * @throws JsonProcessingException if serialization fails
+     * @throws JSONException if comparison fails
+     */
+    @Test
+    public void testCopyOf() throws JsonProcessingException, JSONException {
+        final OffHeapTree<String> tree = OffHeapTree.copyOf(sample(), DataCodecs.UTF8);
+        assertEquals(7, tree.size());
+        final OffHeapTreeNode<String> root = tree.getNode(0);
+        assertThat(data(TreeTraversal.preOrder(root)),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertThat(data(TreeTraversal.postOrder(root)),
+                contains("A.1", "A.2", "A", "B.1", "B", "C", "root"));
+        assertEquals(1, tree.getFirstChild(0));
+        assertEquals(4, tree.getNextSibling(1));
+        assertEquals(OffHeapTree.NONE, tree.getParent(0));
+        assertTrue(tree.isLeaf(2));
+        final ObjectMapper mapper = new ObjectMapper();
+        JSONAssert.assertEquals(mapper.writeValueAsString(sample()),
+                mapper.writeValueAsString(root), true);
+    }
+
+    /**
+     * Changes through the views.
+     */
+    @Test
+    public void testMutableViews() {
+        final OffHeapTree<String> tree = OffHeapTree.copyOf(sample(), DataCodecs.UTF8);
+        final OffHeapTreeNode<String> root = tree.getNode(0);
+        final OffHeapTreeNode<String> a = tree.getNode(1);
+        final OffHeapTreeNode<String> b = tree.getNode(4);
+        tree.getNode(2).setParent(b);
+        assertThat(data(a.getChildren()), contains("A.2"));
+        assertThat(data(b.getChildren()), contains("B.1", "A.1"));
+        assertEquals(b, tree.getNode(2).getParent());
+        root.add(tree.getNode(3));
+        assertTrue(a.isLeaf());
+        assertTrue(b.remove(tree.getNode(5)));
+        assertFalse(b.remove(tree.getNode(5)));
+        assertNull(tree.getNode(5).getParent());
+        b.setData(null);
+        a.setData("A'");
+        assertThat(data(TreeTraversal.preOrder(root)),
+                contains("root", "A'", null, "A.1", "C", "A.2"));
+        b.addAll(Arrays.<MutableTreeNode<String>>asList(tree.getNode(5), a));
+        assertThat(data(b.getChildren()), contains("A.1", "B.1", "A'"));
+        try {
+            a.addAll(Arrays.<MutableTreeNode<String>>asList(tree.getNode(3), root));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+        }
+        assertEquals(root, tree.getNode(3).getParent());
+        assertTrue(b.removeAll(Arrays.<MutableTreeNode<String>>asList(a, root)));
+        try {
+            b.add(new DefaultMutableTreeNode<>("other"));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Node must be an OffHeapTreeNode of the same tree", e.getMessage());
+        }
+    }
+
+    /**
+     * Children iterators return a separate view for each child.
+     */
+    @Test
+    public void testChildViews() {
+        final OffHeapTree<String> tree = OffHeapTree.copyOf(sample(), DataCodecs.UTF8);
+        final List<TreeNode<String>> views = new ArrayList<>();
+        for (final TreeNode<String> child : tree.getNode(0).getChildren()) {
+            views.add(child);
+        }
+        assertNotSame(views.get(0), views.get(2));
+        assertThat(data(views), contains("A", "B", "C"));
+        for (final MutableTreeNode<String> child : tree.getNode(1).getMutableChildren()) {
+            child.setParent(tree.getNode(6));
+        }
+        assertThat(data(tree.getNode(6).getChildren()), contains("A.1", "A.2"));
+        tree.getNode(0).addAll(tree.getNode(6).getMutableChildren());
+        assertTrue(tree.getNode(6).isLeaf());
+        assertThat(data(tree.getNode(0).getChildren()), contains("A", "B", "C", "A.1", "A.2"));
+        assertTrue(tree.getNode(0).removeAll(tree.getNode(0).getMutableChildren()));
+        assertTrue(tree.getNode(0).isLeaf());
+    }
+
+    /**
+     * Traversals that keep children after moving the iterator see every node.
+     */
+    @Test
+    public void testTraversals() {
+        final OffHeapTree<String> tree = OffHeapTree.copyOf(sample(), DataCodecs.UTF8);
+        assertThat(data(TreeTraversal.levelOrder(tree.getNode(0))),
+                contains("root", "A", "B", "C", "A.1", "A.2", "B.1"));
+        assertThat(TreeTraversal.stream(tree.getNode(0)).map(TreeNode::getData)
+                .collect(Collectors.toList()),
+                contains("root", "A", "A.1", "A.2", "B", "B.1", "C"));
+        assertThat(data(TreeTraversal.postOrder(tree.getNode(0))),
+                contains("A.1", "A.2", "A", "B.1", "B", "C", "root"));
+    }
+
+    /**
+     * Data objects and records span several chunks.
+     */
+    @Test
+    public void testChunks() {
+        final OffHeapTree<Integer> tree = new OffHeapTree<>(DataCodecs.INTEGER, 4, 64);
+        final Random random = new Random(42);
+        final MutableTreeNode<Integer> expected = new DefaultMutableTreeNode<>(0);
+        final List<MutableTreeNode<Integer>> nodes = new ArrayList<>();
+        nodes.add(expected);
+        tree.append(0, OffHeapTree.NONE);
+        for (int i = 1; i < 1000; i++) {
+            final int parent = random.nextInt(i);
+            nodes.add(new DefaultMutableTreeNode<>(i, nodes.get(parent)));
+            assertEquals(i, tree.append(i, parent));
+        }
+        for (int move = 0; move < 1000; move++) {
+            final int node = 1 + random.nextInt(999);
+            final int parent = random.nextInt(1000);
+            try {
+                tree.move(node, parent);
+                nodes.get(node).setParent(nodes.get(parent));
+            } catch (final IllegalArgumentException e) {
+                assertEquals("A node cannot be moved into its own subtree", e.getMessage());
+            }
+            if (move % 10 == 0) {
+                tree.setData(node, -node);
+                nodes.get(node).setData(-node);
+            }
+        }
+        assertEquals(data(TreeTraversal.preOrder(expected)),
+                data(TreeTraversal.preOrder(tree.getNode(0))));
+        assertEquals(63 * 16 * OffHeapTree.RECORD_SIZE + 69 * 64, tree.getAllocatedBytes());
+        try {
+            new OffHeapTree<>(DataCodecs.UTF8, 4, 2).append("abc", OffHeapTree.NONE);
+            fail();
+        } catch (final IllegalArgumentException e) {
+            assertEquals("Data object too large: 3 bytes", e.getMessage());
+        }
+        try {
+            tree.getData(1000);
+            fail();
+        } catch (final IndexOutOfBoundsException e) {
+            assertEquals("Node: 1000, Size: 1000", e.getMessage());
+        }
+    }
+}
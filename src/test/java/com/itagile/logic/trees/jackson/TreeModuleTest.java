@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.itagile.logic.trees.jackson;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.junit.MatcherAssert.assertThat;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itagile.logic.trees.CompactMutableTreeNode;
+import com.itagile.logic.trees.DefaultMutableTreeNode;
+import com.itagile.logic.trees.FrozenTree;
+import com.itagile.logic.trees.MutableTreeNode;
+import com.itagile.logic.trees.TreeNode;
+import com.itagile.logic.trees.TreeTraversal;
+
+/**
+ * Tests for TreeModule, TreeNodeSerializer and MutableTreeNodeDeserializer.
+ * @author Javier Alcala
+ * @since 1.1
+ */
+public class TreeModuleTest {
+    /**
+     * Type of trees of integers.
+     */
+    private static final TypeReference<MutableTreeNode<Integer>> INTEGER_TREE =
+            new TypeReference<MutableTreeNode<Integer>>() {
+            };
+
+    /**
+     * Mapper with the nested layout.
+     */
+    private final ObjectMapper nested = new ObjectMapper().registerModule(new TreeModule());
+
+    /**
+     * Mapper with the flat layout.
+     */
+    private final ObjectMapper flat = new ObjectMapper()
+            .registerModule(new TreeModule(TreeFormat.FLAT, TreeModule.DEFAULT_FACTORY));
+
+    /**
+     * Builds the tree 0(1(2, 3), 4).
+     * @return the root node
+     */
+    private static MutableTreeNode<Integer> sample() {
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        final MutableTreeNode<Integer> a = new DefaultMutableTreeNode<>(1, root);
+        new DefaultMutableTreeNode<>(2, a);
+        new DefaultMutableTreeNode<>(3, a);
+        new DefaultMutableTreeNode<>(4, root);
+        return root;
+    }
+
+    /**
+     * Gets the data of the tree in pre-order.
+     * @param root the root node
+     * @param <T> the type of data object in the nodes
+     * @return the data in pre-order
+     */
+    private static <T> List<T> preOrder(final TreeNode<T> root) {
+        final List<T> list = new ArrayList<>();
+        for (final TreeNode<T> node : TreeTraversal.preOrder(root)) {
+            list.add(node.getData());
+        }
+        return list;
+    }
+
+    /**
+     * The nested layout is the same as bean serialization.
+     * @throws IOException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testSerializeNested() throws IOException, JSONException {
+        final MutableTreeNode<Integer> root = sample();
+        JSONAssert.assertEquals(new ObjectMapper().writeValueAsString(root),
+                nested.writeValueAsString(root), true);
+    }
+
+    /**
+     * Test for the flat layout.
+     * @throws IOException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testSerializeFlat() throws IOException, JSONException {
+        final String expected = "{\"nodes\":[{\"parent\":-1,\"data\":0},{\"parent\":0,\"data\":1},"
+                + "{\"parent\":1,\"data\":2},{\"parent\":1,\"data\":3},{\"parent\":0,\"data\":4}]}";
+        JSONAssert.assertEquals(expected, flat.writeValueAsString(sample()), true);
+    }
+
+    /**
+     * Any TreeNode implementation is serialized by the module.
+     * @throws IOException fatal error on serialization
+     * @throws JSONException fatal error on JSONAssert
+     */
+    @Test
+    public void testSerializeFrozen() throws IOException, JSONException {
+        final MutableTreeNode<Integer> root = sample();
+        JSONAssert.assertEquals(nested.writeValueAsString(root),
+                nested.writeValueAsString(FrozenTree.freeze(root).getRoot()), true);
+    }
+
+    /**
+     * Both layouts are read back.
+     * @throws IOException fatal error on serialization
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (final ObjectMapper mapper : new ObjectMapper[] {nested, flat}) {
+            final MutableTreeNode<Integer> root = mapper
+                    .readValue(mapper.writeValueAsString(sample()), INTEGER_TREE);
+            assertThat(preOrder(root), contains(0, 1, 2, 3, 4));
+            assertTrue(root instanceof DefaultMutableTreeNode);
+            assertSame(root, root.getMutableChildren().iterator().next().getParent());
+        }
+    }
+
+    /**
+     * Data objects are read with their declared type, fields in any order, unknown fields and
+     * null data.
+     * @throws IOException fatal error on deserialization
+     */
+    @Test
+    public void testDeserializeDataType() throws IOException {
+        final String json = "{\"children\":[{\"extra\":{\"a\":[1]},\"data\":null},"
+                + "{\"data\":\"2\",\"leaf\":true}],\"data\":1}";
+        final TreeNode<Long> root = nested.readValue(json,
+                new TypeReference<TreeNode<Long>>() {
+                });
+        assertThat(preOrder(root), contains(1L, null, 2L));
+    }
+
+    /**
+     * Nodes are created by the factory of the module.
+     * @throws IOException fatal error on deserialization
+     */
+    @Test
+    public void testDeserializeWithFactory() throws IOException {
+        final ObjectMapper mapper = new ObjectMapper().registerModule(
+                new TreeModule(TreeFormat.NESTED, new MutableTreeNodeFactory() {
+                    @Override
+                    public <T> MutableTreeNode<T> create(final T data) {
+                        return new CompactMutableTreeNode<>(data);
+                    }
+                }));
+        final MutableTreeNode<Integer> root = mapper
+                .readValue(mapper.writeValueAsString(sample()), INTEGER_TREE);
+        assertTrue(root instanceof CompactMutableTreeNode);
+        assertThat(preOrder(root), contains(0, 1, 2, 3, 4));
+    }
+
+    /**
+     * Trees are read as fields of other objects.
+     * @throws IOException fatal error on deserialization
+     */
+    @Test
+    public void testDeserializeInList() throws IOException {
+        final List<MutableTreeNode<Integer>> list = flat.readValue(
+                "[{\"nodes\":[{\"parent\":-1,\"data\":1}],\"extra\":0},"
+                        + "{\"nodes\":[{\"data\":2},{\"data\":3,\"parent\":0}]}]",
+                new TypeReference<List<MutableTreeNode<Integer>>>() {
+                });
+        assertEquals(2, list.size());
+        assertThat(preOrder(list.get(0)), contains(1));
+        assertThat(preOrder(list.get(1)), contains(2, 3));
+    }
+
+    /**
+     * Deep trees are written and read without recursion in both layouts.
+     * @throws IOException fatal error on serialization
+     */
+    @Test
+    public void testDeepChain() throws IOException {
+        final int depth = 50_000;
+        final MutableTreeNode<Integer> root = new DefaultMutableTreeNode<>(0);
+        MutableTreeNode<Integer> last = root;
+        for (int i = 1; i < depth; i++) {
+            last = new DefaultMutableTreeNode<>(i, last);
+        }
+        for (final ObjectMapper mapper : new ObjectMapper[] {nested, flat}) {
+            final MutableTreeNode<Integer> copy = mapper
+                    .readValue(mapper.writeValueAsString(root), INTEGER_TREE);
+            assertEquals(preOrder(root), preOrder(copy));
+        }
+    }
+
+    /**
+     * Flat layouts must have a single root.
+     * @throws IOException expected error
+     */
+    @Test(expected = JsonMappingException.class)
+    public void testDeserializeFlatTwoRoots() throws IOException {
+        flat.readValue("{\"nodes\":[{\"parent\":-1,\"data\":1},{\"parent\":-1,\"data\":2}]}",
+                INTEGER_TREE);
+    }
+
+    /**
+     * Flat layouts must list parents before children.
+     * @throws IOException expected error
+     */
+    @Test(expected = JsonMappingException.class)
+    public void testDeserializeFlatForwardParent() throws IOException {
+        flat.readValue("{\"nodes\":[{\"parent\":-1,\"data\":1},{\"parent\":5,\"data\":2}]}",
+                INTEGER_TREE);
+    }
+}